@@ -0,0 +1,44 @@
+package com.rainett.javagram.action;
+
+import java.util.concurrent.CompletionStage;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * An {@link Action} that processes a Telegram update asynchronously.
+ * <p>
+ * {@link #runAsync(Update)} starts the processing and returns a stage that completes when it
+ * is done, so an action that waits for remote calls does not hold a thread while waiting. The
+ * {@link com.rainett.javagram.update.service.UpdateService} does not block on the stage: its
+ * completion, failure or timeout ({@code bot.execution.async-timeout}) is recorded when it
+ * happens. Async actions are annotated and routed like any other action.
+ * </p>
+ * <p>
+ * With {@code bot.execution.chat-ordered}, the next update of a chat is processed once
+ * {@code runAsync} returns, not once the stage completes.
+ * </p>
+ */
+@FunctionalInterface
+public interface AsyncAction extends Action {
+
+    /**
+     * Starts processing the provided Telegram update.
+     *
+     * @param update the Telegram update to process
+     * @return a stage completing when the update is processed, or {@code null} if it already is
+     */
+    CompletionStage<?> runAsync(Update update);
+
+    /**
+     * Processes the update and waits for the processing to complete.
+     *
+     * @param update the Telegram update to process
+     * @throws java.util.concurrent.CompletionException if the processing failed
+     */
+    @Override
+    default void run(Update update) {
+        CompletionStage<?> stage = runAsync(update);
+        if (stage != null) {
+            stage.toCompletableFuture().join();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.rainett.javagram.action;
+
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * An {@link Action} that answers a Telegram update with a single Bot API method.
+ * <p>
+ * The {@link com.rainett.javagram.update.service.UpdateService} sends the returned method. When
+ * the update was received by the webhook and processed before the response, the method is
+ * returned in the webhook response, which saves a separate request to the Bot API. Telegram
+ * does not report the result of a method returned this way. Otherwise, for example with long
+ * polling or a queued update, the method is executed with the bot, and its result is recorded
+ * like the completion of an {@link AsyncAction}.
+ * </p>
+ * <p>
+ * The service never calls {@link #run(Update)} on a replying action, so it has no default. An
+ * action that is also run as a plain {@link Action} implements it with an injected
+ * {@link com.rainett.javagram.outbound.ReplySender}, for example
+ * {@code replySender.run(this, update)}, so that its reply is sent like the replies of the
+ * service.
+ * </p>
+ */
+public interface ReplyingAction extends Action {
+
+    /**
+     * Processes the provided Telegram update and returns the reply to it.
+     *
+     * @param update the Telegram update to process
+     * @return the method to send, or {@code null} to send nothing
+     */
+    BotApiMethod<?> reply(Update update);
+}
@@ -1,23 +1,24 @@
 package com.rainett.javagram.action.actionmatcher;
 
 import com.rainett.javagram.action.Action;
+import com.rainett.javagram.action.descriptor.ActionDescriptors;
 import java.lang.annotation.Annotation;
-import org.springframework.core.annotation.AnnotationUtils;
 import org.telegram.telegrambots.meta.api.objects.Update;
 
 /**
  * Abstract class, extends the {@link ActionUpdateMatcher} interface
  * and encapsulates the common logic for matching updates with actions.
+ * The annotation of every action class is looked up once and cached.
  *
  * @param <T> the annotation type
  */
 public abstract class AbstractActionUpdateMatcher<T extends Annotation>
         implements ActionUpdateMatcher<T> {
+    private volatile ActionDescriptors<T, T> annotations;
 
     @Override
     public boolean test(Action action, Update update) {
-        T annotation = AnnotationUtils.findAnnotation(action.getClass(), getAnnotationType());
-        return match(annotation, update);
+        return match(getAnnotations().get(action.getClass()), update);
     }
 
     /**
@@ -27,4 +28,13 @@ public abstract class AbstractActionUpdateMatcher<T extends Annotation>
      * @return {@code true} if the update matches the annotation; {@code false} otherwise
      */
     protected abstract boolean match(T annotation, Update update);
+
+    private ActionDescriptors<T, T> getAnnotations() {
+        ActionDescriptors<T, T> cache = annotations;
+        if (cache == null) {
+            cache = ActionDescriptors.annotations(getAnnotationType());
+            annotations = cache;
+        }
+        return cache;
+    }
 }
@@ -3,6 +3,7 @@ package com.rainett.javagram.action.comparator.impl;
 import com.rainett.javagram.action.Action;
 import com.rainett.javagram.action.comparator.ActionComparatorService;
 import com.rainett.javagram.action.comparator.AnnotationComparator;
+import com.rainett.javagram.action.descriptor.ActionDescriptors;
 import java.lang.annotation.Annotation;
 import java.util.Comparator;
 import java.util.List;
@@ -11,7 +12,6 @@ import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.stereotype.Component;
 
 /**
@@ -82,6 +82,8 @@ public class ActionComparatorServiceImpl implements ActionComparatorService {
 
     /**
      * Creates an {@link Action} comparator that uses the given annotation comparator.
+     * The annotation of every action class is looked up once per comparator, not once per
+     * comparison.
      *
      * @param annotationClass      the annotation type to extract from the {@code Action}.
      * @param annotationComparator the comparator for the annotation.
@@ -90,9 +92,10 @@ public class ActionComparatorServiceImpl implements ActionComparatorService {
      */
     private static <T extends Annotation> Comparator<Action> createActionComparator(
             Class<T> annotationClass, AnnotationComparator<T> annotationComparator) {
+        ActionDescriptors<T, T> annotations = ActionDescriptors.annotations(annotationClass);
         return (action1, action2) -> {
-            T annotation1 = extractAnnotation(action1, annotationClass);
-            T annotation2 = extractAnnotation(action2, annotationClass);
+            T annotation1 = extractAnnotation(action1, annotations, annotationClass);
+            T annotation2 = extractAnnotation(action2, annotations, annotationClass);
             return annotationComparator.compare(annotation1, annotation2);
         };
     }
@@ -102,6 +105,7 @@ public class ActionComparatorServiceImpl implements ActionComparatorService {
      *
      * @param action          the action from which to extract the annotation;
      *                        must not be {@code null}.
+     * @param annotations     the annotation cache.
      * @param annotationClass the annotation class to look for.
      * @param <T>             the annotation type.
      * @return the annotation found on the action’s class.
@@ -109,8 +113,9 @@ public class ActionComparatorServiceImpl implements ActionComparatorService {
      *                                  is not present.
      */
     private static <T extends Annotation> T extractAnnotation(Action action,
+                                                              ActionDescriptors<T, T> annotations,
                                                               Class<T> annotationClass) {
-        T annotation = AnnotationUtils.findAnnotation(action.getClass(), annotationClass);
+        T annotation = annotations.get(action.getClass());
         if (annotation == null) {
             throw new IllegalArgumentException(String.format(
                     "Expected annotation [%s] not found on action class [%s].",
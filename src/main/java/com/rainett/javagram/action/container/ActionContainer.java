@@ -1,6 +1,8 @@
 package com.rainett.javagram.action.container;
 
 import com.rainett.javagram.action.Action;
+import com.rainett.javagram.exceptions.ActionNotFoundException;
+import com.rainett.javagram.exceptions.UnknownUpdateTypeException;
 import org.telegram.telegrambots.meta.api.objects.Update;
 
 /**
@@ -8,9 +10,9 @@ import org.telegram.telegrambots.meta.api.objects.Update;
  * {@link Update}.
  * <p>
  * This interface abstracts the logic for matching an update to the appropriate action,
- * allowing implementations to collect, group, and select the correct action handler. If no
- * suitable action is found, implementations are expected to throw an appropriate runtime
- * exception.
+ * allowing implementations to collect, group, and select the correct action handler.
+ * {@link #route(Update)} reports a routing miss as a {@link RouteResult};
+ * {@link #findByUpdate(Update)} is kept for backward compatibility and throws instead.
  * </p>
  */
 public interface ActionContainer {
@@ -23,4 +25,25 @@ public interface ActionContainer {
      * @return the matching {@link Action} for the update
      */
     Action findByUpdate(Update update);
+
+    /**
+     * Routes the provided Telegram update to the {@link Action} that should handle it without
+     * throwing on a miss.
+     * <p>
+     * The default implementation delegates to {@link #findByUpdate(Update)} and translates its
+     * exceptions; implementations should override it to avoid them.
+     * </p>
+     *
+     * @param update the Telegram update to be handled; must not be {@code null}
+     * @return the routing result; never {@code null}
+     */
+    default RouteResult route(Update update) {
+        try {
+            return RouteResult.matched(null, findByUpdate(update));
+        } catch (UnknownUpdateTypeException e) {
+            return RouteResult.unknownUpdateType();
+        } catch (ActionNotFoundException e) {
+            return RouteResult.noMatchingAction(null);
+        }
+    }
 }
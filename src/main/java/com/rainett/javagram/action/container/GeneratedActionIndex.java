@@ -0,0 +1,25 @@
+package com.rainett.javagram.action.container;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Action classes of an application, grouped and sorted at compile time.
+ * <p>
+ * Implementations are generated by {@link com.rainett.javagram.processor.ActionIndexProcessor}
+ * and registered as {@link java.util.ServiceLoader} providers. When an index is present, the
+ * {@link ActionCollector} orders the action beans by the index instead of looking up their
+ * annotations and sorting them with the annotation comparators at startup.
+ * </p>
+ */
+public interface GeneratedActionIndex {
+
+    /**
+     * Returns the binary names of the action classes, grouped by their annotation type. Every
+     * group is sorted from the highest to the lowest precedence.
+     *
+     * @return the action class names by annotation type
+     */
+    Map<Class<? extends Annotation>, List<String>> actionClassNames();
+}
@@ -0,0 +1,143 @@
+package com.rainett.javagram.action.container;
+
+import com.rainett.javagram.action.Action;
+import com.rainett.javagram.exceptions.ActionNotFoundException;
+import com.rainett.javagram.exceptions.UnknownUpdateTypeException;
+import java.lang.annotation.Annotation;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * Outcome of routing an update with {@link ActionContainer#route(Update)}.
+ * <p>
+ * A routing miss is an expected outcome rather than an error: misses are represented by
+ * preallocated results, so reporting them requires neither an exception nor a message string.
+ * Use {@link #unknownUpdateType()} for updates of a type no resolver accepts and
+ * {@link #noMatchingAction(Class)} once per update type for updates without a matching action.
+ * </p>
+ */
+public final class RouteResult {
+    private static final RouteResult UNKNOWN_UPDATE_TYPE =
+            new RouteResult(Status.UNKNOWN_UPDATE_TYPE, null, null);
+
+    private final Status status;
+    private final Class<? extends Annotation> updateType;
+    private final Action action;
+
+    private RouteResult(Status status, Class<? extends Annotation> updateType, Action action) {
+        this.status = status;
+        this.updateType = updateType;
+        this.action = action;
+    }
+
+    /**
+     * Creates a result for an update that matched an action.
+     *
+     * @param updateType the annotation type of the resolved update type
+     * @param action     the matching action
+     * @return the matched result
+     */
+    public static RouteResult matched(Class<? extends Annotation> updateType, Action action) {
+        return new RouteResult(Status.MATCHED, updateType, action);
+    }
+
+    /**
+     * Creates a miss for an update of a known type that no action matches. The result does not
+     * depend on the update, so callers are expected to create it once per update type and reuse
+     * it.
+     *
+     * @param updateType the annotation type of the resolved update type
+     * @return the miss result
+     */
+    public static RouteResult noMatchingAction(Class<? extends Annotation> updateType) {
+        return new RouteResult(Status.NO_MATCHING_ACTION, updateType, null);
+    }
+
+    /**
+     * Returns the shared miss for an update that no resolver accepts.
+     *
+     * @return the miss result
+     */
+    public static RouteResult unknownUpdateType() {
+        return UNKNOWN_UPDATE_TYPE;
+    }
+
+    /**
+     * Returns the outcome of routing.
+     *
+     * @return the status of this result
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns whether an action was found.
+     *
+     * @return {@code true} if the update matched an action; {@code false} otherwise
+     */
+    public boolean isMatched() {
+        return status == Status.MATCHED;
+    }
+
+    /**
+     * Returns the annotation type of the resolved update type.
+     *
+     * @return the update type, or {@code null} if the update type is unknown
+     */
+    public Class<? extends Annotation> getUpdateType() {
+        return updateType;
+    }
+
+    /**
+     * Returns the matching action.
+     *
+     * @return the action, or {@code null} if this result is a miss
+     */
+    public Action getAction() {
+        return action;
+    }
+
+    /**
+     * Returns the matching action, translating a miss to the exception thrown by
+     * {@link ActionContainer#findByUpdate(Update)}.
+     *
+     * @param update the routed update, used in the exception message
+     * @return the matching action
+     * @throws UnknownUpdateTypeException if no resolver accepts the update
+     * @throws ActionNotFoundException    if no action matches the update
+     */
+    public Action orElseThrow(Update update) {
+        return switch (status) {
+            case MATCHED -> action;
+            case UNKNOWN_UPDATE_TYPE ->
+                    throw new UnknownUpdateTypeException("Unknown update type: " + update);
+            case NO_MATCHING_ACTION ->
+                    throw new ActionNotFoundException("No actions available for update: "
+                                                      + update);
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "RouteResult{status=" + status + ", updateType=" + updateType
+               + ", action=" + action + "}";
+    }
+
+    /**
+     * Outcome of routing an update.
+     */
+    public enum Status {
+        /**
+         * The update matched an action.
+         */
+        MATCHED,
+        /**
+         * The update type is known, but no action of that type matches the update.
+         */
+        NO_MATCHING_ACTION,
+        /**
+         * No resolver accepts the update.
+         */
+        UNKNOWN_UPDATE_TYPE
+    }
+}
@@ -0,0 +1,209 @@
+package com.rainett.javagram.action.container.cache;
+
+import com.rainett.javagram.action.container.RouteResult;
+import com.rainett.javagram.config.RoutingConfig;
+import java.lang.annotation.Annotation;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded cache of routing decisions, keyed by the update type and the
+ * {@link com.rainett.javagram.action.index.ActionIndex#routingKey routing key} of an update.
+ * <p>
+ * The cache is split into independently locked segments, each a least-recently-used map with
+ * an equal share of {@code bot.routing.cache.maximum-size}, so concurrent lookups rarely
+ * contend. Updates without a routing key, or with a key longer than
+ * {@code bot.routing.cache.max-key-length}, bypass the cache. When the cache is disabled,
+ * every lookup is a bypass that is not counted.
+ * </p>
+ */
+@Component
+public class RoutingCache {
+    private static final int MAX_SEGMENTS = 16;
+
+    private final boolean enabled;
+    private final int maxKeyLength;
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates the cache described by {@code bot.routing.cache}.
+     *
+     * @param routingConfig the routing configuration
+     * @throws IllegalArgumentException if the cache is enabled with a non-positive maximum size
+     */
+    public RoutingCache(RoutingConfig routingConfig) {
+        RoutingConfig.Cache config = routingConfig.getCache();
+        this.enabled = config.isEnabled();
+        this.maxKeyLength = config.getMaxKeyLength();
+        if (enabled && config.getMaximumSize() <= 0) {
+            throw new IllegalArgumentException("bot.routing.cache.maximum-size must be positive: "
+                                               + config.getMaximumSize());
+        }
+        int maximumSize = enabled ? config.getMaximumSize() : 0;
+        int segmentCount = segmentCount(maximumSize);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            int capacity = maximumSize / segmentCount + (i < maximumSize % segmentCount ? 1 : 0);
+            segments[i] = new Segment(capacity, evictions);
+        }
+        this.segmentMask = segmentCount - 1;
+    }
+
+    /**
+     * Returns whether routing decisions are cached.
+     *
+     * @return {@code true} if the cache is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the cached routing decision.
+     *
+     * @param updateType the annotation type of the update type
+     * @param routingKey the routing key of the update, or {@code null} if it has none
+     * @return the cached decision, or {@code null} if there is none or the key can't be cached
+     */
+    public RouteResult get(Class<? extends Annotation> updateType, Object routingKey) {
+        if (!enabled) {
+            return null;
+        }
+        if (!isCacheable(routingKey)) {
+            bypasses.increment();
+            return null;
+        }
+        Key key = new Key(updateType, routingKey);
+        RouteResult result = segmentFor(key).get(key);
+        if (result == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return result;
+    }
+
+    /**
+     * Caches a routing decision. Keys that can't be cached are ignored.
+     *
+     * @param updateType the annotation type of the update type
+     * @param routingKey the routing key of the update, or {@code null} if it has none
+     * @param result     the routing decision
+     */
+    public void put(Class<? extends Annotation> updateType, Object routingKey,
+                    RouteResult result) {
+        if (isCacheable(routingKey)) {
+            Key key = new Key(updateType, routingKey);
+            segmentFor(key).put(key, result);
+        }
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups of cacheable keys that were not cached.
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of lookups that bypassed the cache because the update had no routing
+     * key or its key was too long.
+     *
+     * @return the number of bypasses
+     */
+    public long getBypasses() {
+        return bypasses.sum();
+    }
+
+    /**
+     * Returns the number of decisions evicted to stay within the maximum size.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the number of cached decisions.
+     *
+     * @return the size of the cache
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private boolean isCacheable(Object routingKey) {
+        if (!enabled || routingKey == null) {
+            return false;
+        }
+        return !(routingKey instanceof CharSequence text) || text.length() <= maxKeyLength;
+    }
+
+    private Segment segmentFor(Key key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & segmentMask];
+    }
+
+    private static int segmentCount(int maximumSize) {
+        int count = Integer.highestOneBit(Math.max(1, maximumSize / MAX_SEGMENTS));
+        return Math.min(MAX_SEGMENTS, count);
+    }
+
+    private record Key(Class<? extends Annotation> updateType, Object routingKey) {
+    }
+
+    /**
+     * A least-recently-used map guarded by its own monitor.
+     */
+    private static final class Segment {
+        private final Map<Key, RouteResult> entries;
+
+        Segment(int capacity, LongAdder evictions) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, RouteResult> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized RouteResult get(Key key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(Key key, RouteResult result) {
+            entries.put(key, result);
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+}
@@ -4,22 +4,36 @@ import com.rainett.javagram.action.Action;
 import com.rainett.javagram.action.annotations.BotAction;
 import com.rainett.javagram.action.comparator.ActionComparatorService;
 import com.rainett.javagram.action.container.ActionCollector;
+import com.rainett.javagram.action.container.GeneratedActionIndex;
+import com.rainett.javagram.config.RoutingConfig;
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.ServiceLoader;
+import java.util.Set;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationContext;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.util.ClassUtils;
 
 /**
  * Implementation of the {@link ActionCollector} interface that collects actions
  * from the Spring application context. Actions are grouped and sorted based on the annotation
  * that is meta-annotated with {@link BotAction}.
+ * <p>
+ * If a {@link GeneratedActionIndex} is found with {@link ServiceLoader} and
+ * {@code bot.routing.generated-index} is enabled, the action beans are grouped and ordered by
+ * the index, which was sorted at compile time. Only actions missing from the index are
+ * inspected reflectively, and only their groups are sorted at startup.
+ * </p>
  */
 @Slf4j
 @Service
@@ -27,17 +41,25 @@ import org.springframework.stereotype.Service;
 public class ActionCollectorImpl implements ActionCollector {
     private final ApplicationContext context;
     private final ActionComparatorService actionComparatorService;
+    private final RoutingConfig routingConfig;
 
     /**
      * Collects all beans annotated with {@link BotAction} from the application context,
      * filters out those that are not instances of {@link Action}, groups them by the action type,
      * and sorts each group using a comparator provided by {@link ActionComparatorService}.
+     * If a generated index is available, the actions are ordered by the index instead.
      *
      * @return a map where the key is the annotation type and the value is the list of actions
      * associated with that annotation.
      */
     @Override
     public Map<Class<? extends Annotation>, List<Action>> collectActions() {
+        if (routingConfig.isGeneratedIndex()) {
+            List<GeneratedActionIndex> indexes = loadGeneratedIndexes();
+            if (!indexes.isEmpty()) {
+                return collectActions(indexes);
+            }
+        }
         Map<Class<? extends Annotation>, List<Action>> actions = context
                 .getBeansWithAnnotation(BotAction.class)
                 .values()
@@ -50,6 +72,87 @@ public class ActionCollectorImpl implements ActionCollector {
         return actions;
     }
 
+    /**
+     * Collects all {@link Action} beans and orders them by the given generated indexes.
+     * <p>
+     * An action whose class is listed in an index takes its group and position from the
+     * index. Other actions are grouped by their annotation, and their groups are sorted with
+     * the comparator, as are the groups of several indexes. Actions without an annotation
+     * meta-annotated with {@link BotAction}, such as default actions, are skipped.
+     * </p>
+     *
+     * @param indexes the generated indexes; must not be empty
+     * @return a map where the key is the annotation type and the value is the list of actions
+     * associated with that annotation.
+     */
+    Map<Class<? extends Annotation>, List<Action>> collectActions(
+            List<GeneratedActionIndex> indexes) {
+        Map<String, IndexPosition> positions = indexPositions(indexes);
+        Map<Class<? extends Annotation>, List<RankedAction>> ranked = new HashMap<>();
+        Set<Class<? extends Annotation>> unsortedGroups = new HashSet<>();
+        int unindexed = 0;
+        for (Action action : context.getBeansOfType(Action.class).values()) {
+            IndexPosition position =
+                    positions.get(ClassUtils.getUserClass(action.getClass()).getName());
+            if (position != null) {
+                ranked.computeIfAbsent(position.annotationType(), key -> new ArrayList<>())
+                        .add(new RankedAction(position.rank(), action));
+                continue;
+            }
+            Class<? extends Annotation> annotationType = findAnnotationType(action);
+            if (annotationType != null) {
+                ranked.computeIfAbsent(annotationType, key -> new ArrayList<>())
+                        .add(new RankedAction(Integer.MAX_VALUE, action));
+                unsortedGroups.add(annotationType);
+                unindexed++;
+            }
+        }
+        if (unindexed > 0) {
+            log.warn("{} actions are missing from the generated action index and were collected "
+                     + "reflectively; the index may be stale", unindexed);
+        }
+        if (indexes.size() > 1) {
+            unsortedGroups.addAll(ranked.keySet());
+        }
+        Map<Class<? extends Annotation>, List<Action>> actions = new HashMap<>();
+        ranked.forEach((annotationType, group) -> {
+            group.sort(Comparator.comparingInt(RankedAction::rank));
+            List<Action> groupActions = new ArrayList<>(group.size());
+            group.forEach(rankedAction -> groupActions.add(rankedAction.action()));
+            if (unsortedGroups.contains(annotationType)) {
+                sortActions(annotationType, groupActions);
+            }
+            actions.put(annotationType, groupActions);
+        });
+        return actions;
+    }
+
+    private List<GeneratedActionIndex> loadGeneratedIndexes() {
+        ClassLoader classLoader = context.getClassLoader();
+        List<GeneratedActionIndex> indexes = new ArrayList<>();
+        ServiceLoader.load(GeneratedActionIndex.class, classLoader).forEach(indexes::add);
+        if (!indexes.isEmpty()) {
+            log.info("Ordering actions by generated action indexes: {}", indexes.stream()
+                    .map(index -> index.getClass().getName())
+                    .toList());
+        }
+        return indexes;
+    }
+
+    private static Map<String, IndexPosition> indexPositions(
+            List<GeneratedActionIndex> indexes) {
+        Map<String, IndexPosition> positions = new HashMap<>();
+        for (GeneratedActionIndex index : indexes) {
+            index.actionClassNames().forEach((annotationType, classNames) -> {
+                for (int rank = 0; rank < classNames.size(); rank++) {
+                    positions.putIfAbsent(classNames.get(rank),
+                            new IndexPosition(annotationType, rank));
+                }
+            });
+        }
+        return positions;
+    }
+
     /**
      * Checks if the provided object is an instance of {@link Action}.
      *
@@ -93,18 +196,39 @@ public class ActionCollectorImpl implements ActionCollector {
      */
     private Class<? extends Annotation> extractAnnotationType(Action action) {
         Objects.requireNonNull(action, "Action must not be null");
+        Class<? extends Annotation> annotationType = findAnnotationType(action);
+        if (annotationType == null) {
+            throw new IllegalStateException(
+                    String.format("Cannot find required annotation for action [%s].",
+                            action.getClass().getName())
+            );
+        }
+        return annotationType;
+    }
+
+    /**
+     * Finds the annotation of the provided action that is meta-annotated with
+     * {@link BotAction}, searching the class hierarchy.
+     * @param action the action to inspect
+     * @return the annotation type, or {@code null} if there is none
+     */
+    private static Class<? extends Annotation> findAnnotationType(Action action) {
         Class<?> targetClass = action.getClass();
         while (targetClass != null && targetClass != Object.class) {
             for (Annotation annotation : targetClass.getAnnotations()) {
-                if (AnnotationUtils.findAnnotation(annotation.annotationType(), BotAction.class) != null) {
+                if (AnnotationUtils.findAnnotation(annotation.annotationType(),
+                        BotAction.class) != null) {
                     return annotation.annotationType();
                 }
             }
             targetClass = targetClass.getSuperclass();
         }
-        throw new IllegalStateException(
-                String.format("Cannot find required annotation for action [%s].",
-                        action.getClass().getName())
-        );
+        return null;
+    }
+
+    private record IndexPosition(Class<? extends Annotation> annotationType, int rank) {
+    }
+
+    private record RankedAction(int rank, Action action) {
     }
 }
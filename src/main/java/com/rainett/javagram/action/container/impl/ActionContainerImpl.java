@@ -4,13 +4,21 @@ import com.rainett.javagram.action.Action;
 import com.rainett.javagram.action.actionmatcher.ActionUpdateMatcher;
 import com.rainett.javagram.action.container.ActionCollector;
 import com.rainett.javagram.action.container.ActionContainer;
+import com.rainett.javagram.action.container.RouteResult;
+import com.rainett.javagram.action.container.cache.RoutingCache;
+import com.rainett.javagram.action.index.ActionIndex;
+import com.rainett.javagram.action.index.ActionIndexFactory;
+import com.rainett.javagram.action.index.impl.LinearActionIndex;
+import com.rainett.javagram.action.updatematcher.UpdateTypeClassifier;
 import com.rainett.javagram.action.updatematcher.UpdateTypeResolver;
 import com.rainett.javagram.exceptions.ActionNotFoundException;
 import com.rainett.javagram.exceptions.UnknownUpdateTypeException;
 import jakarta.annotation.PostConstruct;
 import java.lang.annotation.Annotation;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
@@ -22,19 +30,34 @@ import org.telegram.telegrambots.meta.api.objects.Update;
  * update received.
  * <p>
  * At startup, it collects all actions via the {@link ActionCollector} and groups them by an
- * annotation type. When an update arrives, it resolves the update’s type (using
- * {@link UpdateTypeResolver} instances) and then selects an appropriate action from the
- * corresponding group by checking which action matches the update via
- * an {@link ActionUpdateMatcher}.
+ * annotation type. When an update arrives, it resolves the update’s type (using an
+ * {@link UpdateTypeClassifier} built from the {@link UpdateTypeResolver} instances) and then
+ * selects an appropriate action from the corresponding group by checking which action matches
+ * the update via an {@link ActionUpdateMatcher}.
+ * </p>
+ * <p>
+ * Each group is compiled into an {@link ActionIndex} once at startup. Update types that
+ * provide an {@link ActionIndexFactory} get a dedicated index (for example, a hash lookup of
+ * commands); other types are scanned sequentially with their matcher. Routing misses are
+ * reported with {@link RouteResult} instances preallocated per annotation type.
+ * </p>
+ * <p>
+ * If the {@link RoutingCache} is enabled, the decision for every update whose index provides a
+ * {@link ActionIndex#routingKey(Update) routing key} is cached, so repeated texts are routed
+ * with a single cache lookup.
  * </p>
  */
 @Slf4j
 @Service
 public class ActionContainerImpl implements ActionContainer {
     private final ActionCollector actionCollector;
-    private final List<UpdateTypeResolver<?>> updateTypeResolvers;
+    private final UpdateTypeClassifier updateTypeClassifier;
     private final Map<Class<? extends Annotation>, ActionUpdateMatcher<?>> actionMatchers;
+    private final Map<Class<? extends Annotation>, ActionIndexFactory<?>> actionIndexFactories;
+    private final RoutingCache routingCache;
     private Map<Class<? extends Annotation>, List<Action>> actions;
+    private Map<Class<? extends Annotation>, ActionIndex> actionIndexes;
+    private Map<Class<? extends Annotation>, RouteResult> misses;
 
     /**
      * Constructs a new {@link ActionContainerImpl} instance.
@@ -42,15 +65,23 @@ public class ActionContainerImpl implements ActionContainer {
      * @param actionCollector     the action collector; must not be {@code null}
      * @param updateTypeResolvers the list of update type resolvers; must not be {@code null}
      * @param actionUpdateMatchers the list of action update matchers; must not be {@code null}
+     * @param actionIndexFactories the list of action index factories; must not be {@code null}
+     * @param routingCache         the cache of routing decisions; must not be {@code null}
      */
     public ActionContainerImpl(ActionCollector actionCollector,
                                List<UpdateTypeResolver<?>> updateTypeResolvers,
-                               List<ActionUpdateMatcher<?>> actionUpdateMatchers) {
+                               List<ActionUpdateMatcher<?>> actionUpdateMatchers,
+                               List<ActionIndexFactory<?>> actionIndexFactories,
+                               RoutingCache routingCache) {
         this.actionCollector = actionCollector;
-        this.updateTypeResolvers = updateTypeResolvers;
+        this.routingCache = routingCache;
+        this.updateTypeClassifier = new UpdateTypeClassifier(updateTypeResolvers);
         this.actionMatchers = actionUpdateMatchers.stream()
                 .collect(Collectors.toMap(ActionUpdateMatcher::getAnnotationType,
                         Function.identity()));
+        this.actionIndexFactories = actionIndexFactories.stream()
+                .collect(Collectors.toMap(ActionIndexFactory::getAnnotationType,
+                        Function.identity()));
     }
 
     /**
@@ -58,70 +89,105 @@ public class ActionContainerImpl implements ActionContainer {
      *
      * @param update the update to handle; must not be {@code null}
      * @return the matching action
-     * @throws IllegalStateException if no matching action is found or if there are no actions
-     * for the resolved type
+     * @throws UnknownUpdateTypeException if no resolver accepts the update
+     * @throws ActionNotFoundException    if no matching action is found
+     * @throws IllegalStateException      if there is no index for the resolved type
      */
     @Override
     public Action findByUpdate(Update update) {
-        Class<? extends Annotation> annotationType = resolveUpdateType(update);
+        return route(update).orElseThrow(update);
+    }
+
+    /**
+     * Routes the given update to the matching {@link Action}. Misses return a preallocated
+     * {@link RouteResult} and do not throw.
+     *
+     * @param update the update to handle; must not be {@code null}
+     * @return the routing result
+     * @throws IllegalStateException if there is no index for the resolved type
+     */
+    @Override
+    public RouteResult route(Update update) {
+        Class<? extends Annotation> annotationType = updateTypeClassifier.resolve(update);
+        if (annotationType == null) {
+            return RouteResult.unknownUpdateType();
+        }
         List<Action> actionsByAnnotationType = actions.get(annotationType);
-        return getMatchingAction(actionsByAnnotationType, update, annotationType);
+        if (actionsByAnnotationType == null || actionsByAnnotationType.isEmpty()) {
+            return missOf(annotationType);
+        }
+        ActionIndex index = actionIndexes.get(annotationType);
+        if (index == null) {
+            throw new IllegalStateException("No action matcher registered for annotation type: "
+                                            + annotationType.getSimpleName());
+        }
+        if (!routingCache.isEnabled()) {
+            return getMatchingAction(index, update, annotationType);
+        }
+        Object routingKey = index.routingKey(update);
+        RouteResult cached = routingCache.get(annotationType, routingKey);
+        if (cached != null) {
+            return cached;
+        }
+        RouteResult result = getMatchingAction(index, update, annotationType);
+        routingCache.put(annotationType, routingKey, result);
+        return result;
     }
 
     /**
-     * Initializes the container by collecting and grouping actions from the application context.
+     * Initializes the container by collecting and grouping actions from the application context
+     * and building an {@link ActionIndex} for every group.
      * This method is invoked after dependency injection is complete.
      */
     @PostConstruct
     private void init() {
         actions = actionCollector.collectActions();
+        actionIndexes = new HashMap<>();
+        misses = new ConcurrentHashMap<>();
+        actions.forEach((annotationType, actionList) -> {
+            ActionIndex index = createIndex(annotationType, actionList);
+            if (index != null) {
+                actionIndexes.put(annotationType, index);
+            }
+        });
         log.info("Actions collected successfully: {}", actions);
     }
 
     /**
-     * Resolves the update type by testing the update against available
-     * {@link UpdateTypeResolver} instances.
+     * Creates an index for a group of actions. A dedicated {@link ActionIndexFactory} is
+     * preferred; otherwise, the actions are scanned sequentially with their matcher.
      *
-     * @param update the update instance; must not be {@code null}
-     * @return the annotation class representing the update type
-     * @throws UnknownUpdateTypeException if no matching update type is found for the update
+     * @param annotationType the annotation type of the group
+     * @param actionList     the sorted actions of the group
+     * @return the index, or {@code null} if there is neither a factory nor a matcher for the type
      */
-    private Class<? extends Annotation> resolveUpdateType(Update update) {
-        return updateTypeResolvers.stream()
-                .filter(matcher -> matcher.test(update))
-                .findFirst()
-                .orElseThrow(() -> new UnknownUpdateTypeException("Unknown update type: "
-                                                                  + update))
-                .getAnnotationType();
+    private ActionIndex createIndex(Class<? extends Annotation> annotationType,
+                                    List<Action> actionList) {
+        ActionIndexFactory<?> factory = actionIndexFactories.get(annotationType);
+        if (factory != null) {
+            return factory.create(actionList);
+        }
+        ActionUpdateMatcher<?> matcher = actionMatchers.get(annotationType);
+        return matcher == null ? null : new LinearActionIndex(actionList, matcher);
     }
 
     /**
-     * Retrieves a matching action from the provided list by filtering on whether an action
-     * supports the given update.
+     * Retrieves a matching action using the index built for its annotation type.
      *
-     * @param actionsByAnnotationType the list of actions united by a specific annotation type;
-     *                                may be {@code null} or empty
-     * @param update                  the update instance to match against
-     * @param annotationType          the annotation class representing the update type
-     * @return the matching action
-     * @throws ActionNotFoundException if no matching action is found
-     * @throws IllegalStateException   if there are no action matchers for the annotation type
+     * @param index          the index of the actions of the annotation type
+     * @param update         the update instance to match against
+     * @param annotationType the annotation class representing the update type
+     * @return the matched result, or the miss of the annotation type
      */
-    private Action getMatchingAction(List<Action> actionsByAnnotationType,
-                                     Update update,
-                                     Class<? extends Annotation> annotationType) {
-        if (actionsByAnnotationType == null || actionsByAnnotationType.isEmpty()) {
-            throw new ActionNotFoundException("No actions available for update: " + update);
-        }
-        ActionUpdateMatcher<?> matcher = actionMatchers.get(annotationType);
-        if (matcher == null) {
-            throw new IllegalStateException("No action matcher registered for annotation type: "
-                                            + annotationType.getSimpleName());
-        }
-        return actionsByAnnotationType.stream()
-                .filter(action -> matcher.test(action, update))
-                .findFirst()
-                .orElseThrow(() -> new ActionNotFoundException("No actions available for "
-                                                                + "update: " + update));
+    private RouteResult getMatchingAction(ActionIndex index, Update update,
+                                          Class<? extends Annotation> annotationType) {
+        Action action = index.find(update).orElse(null);
+        return action == null
+                ? missOf(annotationType)
+                : RouteResult.matched(annotationType, action);
+    }
+
+    private RouteResult missOf(Class<? extends Annotation> annotationType) {
+        return misses.computeIfAbsent(annotationType, RouteResult::noMatchingAction);
     }
 }
@@ -0,0 +1,60 @@
+package com.rainett.javagram.action.descriptor;
+
+import java.lang.annotation.Annotation;
+import java.util.function.Function;
+import org.springframework.core.annotation.AnnotationUtils;
+
+/**
+ * Per-class cache of routing descriptors.
+ * <p>
+ * The routing annotation of an action class is looked up with
+ * {@link AnnotationUtils#findAnnotation(Class, Class)} only once, on first access, and turned
+ * into an immutable descriptor holding everything the matchers need. The descriptor is stored
+ * in a {@link ClassValue}, so later lookups are a plain field access on the class without any
+ * reflection or locking.
+ * </p>
+ *
+ * @param <T> the annotation type
+ * @param <D> the descriptor type
+ */
+public final class ActionDescriptors<T extends Annotation, D> {
+    private final ClassValue<D> descriptors;
+
+    /**
+     * Creates a cache that builds descriptors from annotations of the given type.
+     *
+     * @param annotationType the annotation type
+     * @param factory        creates the descriptor of an annotation
+     */
+    public ActionDescriptors(Class<T> annotationType, Function<T, D> factory) {
+        this.descriptors = new ClassValue<>() {
+            @Override
+            protected D computeValue(Class<?> type) {
+                T annotation = AnnotationUtils.findAnnotation(type, annotationType);
+                return annotation == null ? null : factory.apply(annotation);
+            }
+        };
+    }
+
+    /**
+     * Returns the descriptor of the given action class.
+     *
+     * @param actionClass the action class
+     * @return the descriptor, or {@code null} if the class is not annotated
+     */
+    public D get(Class<?> actionClass) {
+        return descriptors.get(actionClass);
+    }
+
+    /**
+     * Creates a cache that stores the annotations themselves.
+     *
+     * @param annotationType the annotation type
+     * @param <T>            the annotation type
+     * @return the annotation cache
+     */
+    public static <T extends Annotation> ActionDescriptors<T, T> annotations(
+            Class<T> annotationType) {
+        return new ActionDescriptors<>(annotationType, Function.identity());
+    }
+}
@@ -0,0 +1,40 @@
+package com.rainett.javagram.action.index;
+
+import com.rainett.javagram.action.Action;
+import java.util.Optional;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * A precompiled lookup structure over all actions of a single update type.
+ * <p>
+ * Indexes are built once at startup from the actions of one annotation type, already sorted by
+ * precedence, and are queried for every incoming update of that type. Implementations must
+ * return the same action that a sequential scan of the sorted actions with the corresponding
+ * {@link com.rainett.javagram.action.actionmatcher.ActionUpdateMatcher} would return.
+ * </p>
+ */
+@FunctionalInterface
+public interface ActionIndex {
+    /**
+     * Finds the action that should handle the given update.
+     *
+     * @param update the Telegram update to route; must not be {@code null}
+     * @return the matching action, or an empty {@link Optional} if no action matches
+     */
+    Optional<Action> find(Update update);
+
+    /**
+     * Returns the key that determines the routing decision for the given update.
+     * <p>
+     * Every update of this index's type with an equal key must be routed to the same action, so
+     * the decision can be cached. Indexes whose result depends on more than a single value of
+     * the update return {@code null}, and their updates bypass the cache.
+     * </p>
+     *
+     * @param update the Telegram update to route; must not be {@code null}
+     * @return the routing key, or {@code null} if the decision can't be cached
+     */
+    default Object routingKey(Update update) {
+        return null;
+    }
+}
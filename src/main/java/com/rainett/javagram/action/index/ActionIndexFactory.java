@@ -0,0 +1,32 @@
+package com.rainett.javagram.action.index;
+
+import com.rainett.javagram.action.Action;
+import java.lang.annotation.Annotation;
+import java.util.List;
+
+/**
+ * Factory responsible for building an {@link ActionIndex} for a specific update type.
+ * <p>
+ * Update types without a registered factory are routed by scanning their actions with the
+ * matching {@link com.rainett.javagram.action.actionmatcher.ActionUpdateMatcher}.
+ * </p>
+ *
+ * @param <T> the annotation type
+ */
+public interface ActionIndexFactory<T extends Annotation> {
+    /**
+     * Builds an index over the given actions.
+     *
+     * @param actions the actions annotated with {@link #getAnnotationType()}, sorted from the
+     *                highest to the lowest precedence
+     * @return the built index
+     */
+    ActionIndex create(List<Action> actions);
+
+    /**
+     * The annotation type supported by this factory.
+     *
+     * @return the annotation type
+     */
+    Class<T> getAnnotationType();
+}
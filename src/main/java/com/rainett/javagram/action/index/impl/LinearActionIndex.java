@@ -0,0 +1,41 @@
+package com.rainett.javagram.action.index.impl;
+
+import com.rainett.javagram.action.Action;
+import com.rainett.javagram.action.actionmatcher.ActionUpdateMatcher;
+import com.rainett.javagram.action.index.ActionIndex;
+import java.util.List;
+import java.util.Optional;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * Fallback {@link ActionIndex} that tests every action in precedence order with an
+ * {@link ActionUpdateMatcher} and returns the first match.
+ * <p>
+ * It is used for update types that do not provide a dedicated {@code ActionIndexFactory}.
+ * </p>
+ */
+public class LinearActionIndex implements ActionIndex {
+    private final List<Action> actions;
+    private final ActionUpdateMatcher<?> matcher;
+
+    /**
+     * Constructs a new index over the given actions.
+     *
+     * @param actions the actions sorted from the highest to the lowest precedence
+     * @param matcher the matcher used to test actions against updates
+     */
+    public LinearActionIndex(List<Action> actions, ActionUpdateMatcher<?> matcher) {
+        this.actions = List.copyOf(actions);
+        this.matcher = matcher;
+    }
+
+    @Override
+    public Optional<Action> find(Update update) {
+        for (Action action : actions) {
+            if (matcher.test(action, update)) {
+                return Optional.of(action);
+            }
+        }
+        return Optional.empty();
+    }
+}
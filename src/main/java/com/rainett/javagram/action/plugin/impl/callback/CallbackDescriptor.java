@@ -0,0 +1,35 @@
+package com.rainett.javagram.action.plugin.impl.callback;
+
+import com.rainett.javagram.action.annotations.Callback;
+import com.rainett.javagram.action.descriptor.ActionDescriptors;
+
+/**
+ * Immutable routing data of a {@link Callback} action.
+ *
+ * @param key      the callback key
+ * @param wildcard {@code true} if the action handles every callback query
+ */
+record CallbackDescriptor(String key, boolean wildcard) {
+    private static final ActionDescriptors<Callback, CallbackDescriptor> DESCRIPTORS =
+            new ActionDescriptors<>(Callback.class, CallbackDescriptor::of);
+
+    /**
+     * Creates the descriptor of a callback annotation.
+     *
+     * @param callback the annotation
+     * @return the descriptor
+     */
+    static CallbackDescriptor of(Callback callback) {
+        return new CallbackDescriptor(callback.value(), callback.value().isEmpty());
+    }
+
+    /**
+     * Returns the cached descriptor of an action class.
+     *
+     * @param actionClass the action class
+     * @return the descriptor, or {@code null} if the class has no {@link Callback} annotation
+     */
+    static CallbackDescriptor of(Class<?> actionClass) {
+        return DESCRIPTORS.get(actionClass);
+    }
+}
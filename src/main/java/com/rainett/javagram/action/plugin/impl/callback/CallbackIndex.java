@@ -0,0 +1,62 @@
+package com.rainett.javagram.action.plugin.impl.callback;
+
+import com.rainett.javagram.action.Action;
+import com.rainett.javagram.action.annotations.Callback;
+import com.rainett.javagram.action.index.ActionIndex;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * {@link ActionIndex} for {@link Callback} actions.
+ * <p>
+ * Callback keys are resolved with a single scan of the callback data up to the first
+ * delimiter followed by one lookup in a prebuilt {@link CallbackKeyTable}. Actions with an
+ * empty {@link Callback#value()} are wildcards and are returned only if no key matches. When
+ * several actions share a key, the one with the highest precedence wins, exactly as in a
+ * sequential scan.
+ * </p>
+ */
+public class CallbackIndex implements ActionIndex {
+    private final CallbackKeyTable keyTable;
+    private final Action wildcard;
+
+    CallbackIndex(List<Action> actions) {
+        Map<String, Action> keyMap = new LinkedHashMap<>();
+        Action wildcardAction = null;
+        for (Action action : actions) {
+            CallbackDescriptor descriptor = CallbackDescriptor.of(action.getClass());
+            if (descriptor == null) {
+                continue;
+            }
+            if (descriptor.wildcard()) {
+                wildcardAction = wildcardAction == null ? action : wildcardAction;
+            } else {
+                keyMap.putIfAbsent(descriptor.key(), action);
+            }
+        }
+        this.keyTable = new CallbackKeyTable(keyMap);
+        this.wildcard = wildcardAction;
+    }
+
+    /**
+     * Finds the action registered for the callback key of the given update, falling back to
+     * the wildcard action.
+     *
+     * @param update the update containing a callback query
+     * @return the matching action, or an empty {@link Optional} if no action matches
+     */
+    @Override
+    public Optional<Action> find(Update update) {
+        String callbackData = update.getCallbackQuery().getData();
+        if (callbackData != null) {
+            Action action = keyTable.get(callbackData, CallbackKeys.keyLength(callbackData));
+            if (action != null) {
+                return Optional.of(action);
+            }
+        }
+        return Optional.ofNullable(wildcard);
+    }
+}
@@ -0,0 +1,32 @@
+package com.rainett.javagram.action.plugin.impl.callback;
+
+import com.rainett.javagram.action.Action;
+import com.rainett.javagram.action.annotations.Callback;
+import com.rainett.javagram.action.index.ActionIndex;
+import com.rainett.javagram.action.index.ActionIndexFactory;
+import java.util.List;
+
+/**
+ * Builds {@link CallbackIndex} instances for {@link Callback} actions.
+ * Implements the {@link ActionIndexFactory} interface.
+ */
+public class CallbackIndexFactory implements ActionIndexFactory<Callback> {
+    /**
+     * Builds a key-based index over the given callback actions.
+     * @param actions the callback actions, sorted from the highest to the lowest precedence
+     * @return the callback index
+     */
+    @Override
+    public ActionIndex create(List<Action> actions) {
+        return new CallbackIndex(actions);
+    }
+
+    /**
+     * Returns the annotation type supported by this factory.
+     * @return the annotation type
+     */
+    @Override
+    public Class<Callback> getAnnotationType() {
+        return Callback.class;
+    }
+}
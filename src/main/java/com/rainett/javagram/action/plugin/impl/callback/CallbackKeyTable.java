@@ -0,0 +1,59 @@
+package com.rainett.javagram.action.plugin.impl.callback;
+
+import com.rainett.javagram.action.Action;
+import java.util.Map;
+
+/**
+ * Open-addressing hash table from callback keys to actions.
+ * <p>
+ * Unlike a {@link java.util.HashMap}, the table is queried with the raw callback data and the
+ * length of its key prefix, so a lookup does not have to cut the key out of the data first.
+ * The table is immutable and is kept at most half full, so every probe sequence ends at an
+ * empty slot.
+ * </p>
+ */
+final class CallbackKeyTable {
+    private final String[] keys;
+    private final Action[] actions;
+    private final int mask;
+
+    CallbackKeyTable(Map<String, Action> entries) {
+        int capacity = Integer.highestOneBit(Math.max(1, entries.size()) * 2 - 1) << 1;
+        this.keys = new String[capacity];
+        this.actions = new Action[capacity];
+        this.mask = capacity - 1;
+        entries.forEach(this::put);
+    }
+
+    /**
+     * Finds the action registered for the key prefix of the given callback data.
+     *
+     * @param callbackData the callback data
+     * @param keyLength    the length of the key prefix
+     * @return the action, or {@code null} if the key is not registered
+     */
+    Action get(String callbackData, int keyLength) {
+        int slot = spread(CallbackKeys.hash(callbackData, keyLength)) & mask;
+        String key;
+        while ((key = keys[slot]) != null) {
+            if (key.length() == keyLength && callbackData.regionMatches(0, key, 0, keyLength)) {
+                return actions[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    private void put(String key, Action action) {
+        int slot = spread(key.hashCode()) & mask;
+        while (keys[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        actions[slot] = action;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,54 @@
+package com.rainett.javagram.action.plugin.impl.callback;
+
+/**
+ * Helpers for working with the callback key, which is the part of callback_data before the
+ * first {@value #DATA_DELIMITER} delimiter. The key is addressed in place as a prefix of the
+ * callback data, so no substrings or arrays are allocated.
+ */
+final class CallbackKeys {
+    static final char DATA_DELIMITER = ':';
+
+    private CallbackKeys() {
+    }
+
+    /**
+     * Returns the length of the callback key, i.e. the position of the first delimiter, or the
+     * whole data length if there is no delimiter.
+     *
+     * @param callbackData the callback data
+     * @return the length of the key prefix
+     */
+    static int keyLength(String callbackData) {
+        int delimiter = callbackData.indexOf(DATA_DELIMITER);
+        return delimiter < 0 ? callbackData.length() : delimiter;
+    }
+
+    /**
+     * Checks whether the callback data starts with the given key followed by a delimiter or
+     * the end of data.
+     *
+     * @param callbackData the callback data
+     * @param key          the expected callback key
+     * @return {@code true} if the key of the callback data equals the given key
+     */
+    static boolean hasKey(String callbackData, String key) {
+        int keyLength = keyLength(callbackData);
+        return keyLength == key.length() && callbackData.regionMatches(0, key, 0, keyLength);
+    }
+
+    /**
+     * Computes the hash of a key prefix the same way as {@link String#hashCode()} does for
+     * the equal string.
+     *
+     * @param callbackData the callback data
+     * @param keyLength    the length of the key prefix
+     * @return the hash of the key
+     */
+    static int hash(String callbackData, int keyLength) {
+        int hash = 0;
+        for (int i = 0; i < keyLength; i++) {
+            hash = 31 * hash + callbackData.charAt(i);
+        }
+        return hash;
+    }
+}
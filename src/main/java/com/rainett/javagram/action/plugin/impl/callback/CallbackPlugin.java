@@ -3,6 +3,7 @@ package com.rainett.javagram.action.plugin.impl.callback;
 import com.rainett.javagram.action.actionmatcher.ActionUpdateMatcher;
 import com.rainett.javagram.action.annotations.Callback;
 import com.rainett.javagram.action.comparator.AnnotationComparator;
+import com.rainett.javagram.action.index.ActionIndexFactory;
 import com.rainett.javagram.action.plugin.UpdateTypePlugin;
 import com.rainett.javagram.action.updatematcher.UpdateTypeResolver;
 import lombok.RequiredArgsConstructor;
@@ -37,4 +38,13 @@ public class CallbackPlugin implements UpdateTypePlugin<Callback> {
     public AnnotationComparator<Callback> getAnnotationComparator() {
         return new CallbackComparator();
     }
+
+    /**
+     * Action index factory for {@link Callback} annotations.
+     * @return the action index factory
+     */
+    @Bean("callbackIndexFactory")
+    public ActionIndexFactory<Callback> getActionIndexFactory() {
+        return new CallbackIndexFactory();
+    }
 }
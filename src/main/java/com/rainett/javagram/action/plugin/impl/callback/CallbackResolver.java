@@ -1,6 +1,7 @@
 package com.rainett.javagram.action.plugin.impl.callback;
 
 import com.rainett.javagram.action.annotations.Callback;
+import com.rainett.javagram.action.updatematcher.UpdateShape;
 import com.rainett.javagram.action.updatematcher.UpdateTypeResolver;
 import org.telegram.telegrambots.meta.api.objects.Update;
 
@@ -28,4 +29,13 @@ public class CallbackResolver implements UpdateTypeResolver<Callback> {
     public Class<Callback> getAnnotationType() {
         return Callback.class;
     }
+
+    /**
+     * Returns the shape of an update that contains a callback query.
+     * @return the shape bits required by this resolver
+     */
+    @Override
+    public int getShape() {
+        return UpdateShape.CALLBACK_QUERY;
+    }
 }
@@ -1,5 +1,6 @@
 package com.rainett.javagram.action.plugin.impl.callback;
 
+import com.rainett.javagram.action.Action;
 import com.rainett.javagram.action.actionmatcher.AbstractActionUpdateMatcher;
 import com.rainett.javagram.action.annotations.Callback;
 import org.telegram.telegrambots.meta.api.objects.Update;
@@ -10,7 +11,16 @@ import org.telegram.telegrambots.meta.api.objects.Update;
  * Uses callback-key from callback_data field.
  */
 public class CallbackUpdateMatcher extends AbstractActionUpdateMatcher<Callback> {
-    private static final String DATA_DELIMITER = ":";
+    /**
+     * Matches the update against the cached {@link CallbackDescriptor} of the action class.
+     * @param action the action to test
+     * @param update received update from Telegram
+     * @return true if update has the same callback key as the action
+     */
+    @Override
+    public boolean test(Action action, Update update) {
+        return match(CallbackDescriptor.of(action.getClass()), update);
+    }
 
     /**
      * Matcher of annotation and update. Returns true if update has
@@ -21,20 +31,7 @@ public class CallbackUpdateMatcher extends AbstractActionUpdateMatcher<Callback>
      */
     @Override
     protected boolean match(Callback annotation, Update update) {
-        if (annotation.value().isEmpty()) {
-            return true;
-        }
-        String callbackKey = extractCallbackKey(update);
-        String annotationKey = annotation.value();
-        return callbackKey.equals(annotationKey);
-    }
-
-    private String extractCallbackKey(Update update) {
-        String callbackData = update.getCallbackQuery().getData();
-        if (callbackData.contains(DATA_DELIMITER)) {
-            return callbackData.split(DATA_DELIMITER)[0];
-        }
-        return callbackData;
+        return match(CallbackDescriptor.of(annotation), update);
     }
 
     /**
@@ -45,4 +42,12 @@ public class CallbackUpdateMatcher extends AbstractActionUpdateMatcher<Callback>
     public Class<Callback> getAnnotationType() {
         return Callback.class;
     }
+
+    private static boolean match(CallbackDescriptor descriptor, Update update) {
+        if (descriptor.wildcard()) {
+            return true;
+        }
+        String callbackData = update.getCallbackQuery().getData();
+        return callbackData != null && CallbackKeys.hasKey(callbackData, descriptor.key());
+    }
 }
@@ -0,0 +1,35 @@
+package com.rainett.javagram.action.plugin.impl.command;
+
+import com.rainett.javagram.action.annotations.Command;
+import com.rainett.javagram.action.descriptor.ActionDescriptors;
+
+/**
+ * Immutable routing data of a {@link Command} action.
+ *
+ * @param command  the trimmed command
+ * @param wildcard {@code true} if the action handles every command
+ */
+record CommandDescriptor(String command, boolean wildcard) {
+    private static final ActionDescriptors<Command, CommandDescriptor> DESCRIPTORS =
+            new ActionDescriptors<>(Command.class, CommandDescriptor::of);
+
+    /**
+     * Creates the descriptor of a command annotation.
+     *
+     * @param command the annotation
+     * @return the descriptor
+     */
+    static CommandDescriptor of(Command command) {
+        return new CommandDescriptor(command.value().trim(), command.value().isEmpty());
+    }
+
+    /**
+     * Returns the cached descriptor of an action class.
+     *
+     * @param actionClass the action class
+     * @return the descriptor, or {@code null} if the class has no {@link Command} annotation
+     */
+    static CommandDescriptor of(Class<?> actionClass) {
+        return DESCRIPTORS.get(actionClass);
+    }
+}
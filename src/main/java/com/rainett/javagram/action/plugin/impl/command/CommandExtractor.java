@@ -0,0 +1,61 @@
+package com.rainett.javagram.action.plugin.impl.command;
+
+import com.rainett.javagram.config.BotConfig;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Extracts the normalized command token from a message text.
+ * <p>
+ * The command is the first whitespace-separated token of the trimmed text. If this token
+ * contains an '@' mention (e.g. {@code /command@BotUsername}) and the mention matches the
+ * configured bot username, the mention is stripped away. The text is scanned in place, so
+ * extraction allocates at most the resulting token.
+ * </p>
+ */
+@RequiredArgsConstructor
+class CommandExtractor {
+    private static final char MENTION = '@';
+    private final BotConfig botConfig;
+
+    /**
+     * Extracts and normalizes the command from the given text.
+     *
+     * @param text the full text of the update message
+     * @return the normalized command string
+     */
+    String extract(String text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        int tokenEnd = start;
+        while (tokenEnd < end && !isSeparator(text.charAt(tokenEnd))) {
+            tokenEnd++;
+        }
+        int mention = text.indexOf(MENTION, start);
+        if (mention >= 0 && mention < tokenEnd
+            && isBotUsername(text, mention + 1, tokenEnd)) {
+            return text.substring(start, mention);
+        }
+        return text.substring(start, tokenEnd);
+    }
+
+    private boolean isBotUsername(String text, int from, int to) {
+        String username = botConfig.getUsername();
+        int offset = username.startsWith("@") ? 1 : 0;
+        int length = username.length() - offset;
+        return to - from == length
+               && text.regionMatches(true, from, username, offset, length);
+    }
+
+    /**
+     * Mirrors the {@code \s} character class used by the regular expression based splitting.
+     */
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
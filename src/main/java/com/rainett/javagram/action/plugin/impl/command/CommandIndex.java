@@ -0,0 +1,64 @@
+package com.rainett.javagram.action.plugin.impl.command;
+
+import com.rainett.javagram.action.Action;
+import com.rainett.javagram.action.annotations.Command;
+import com.rainett.javagram.action.index.ActionIndex;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * Hash-based {@link ActionIndex} for {@link Command} actions.
+ * <p>
+ * Every command is mapped to its action by the trimmed annotation value, so a lookup costs a
+ * single command extraction and a hash lookup regardless of the number of commands. Actions
+ * with an empty {@link Command#value()} are wildcards and are returned only if no command
+ * matches exactly. When several actions share a command, the one with the highest precedence
+ * wins, exactly as in a sequential scan.
+ * </p>
+ */
+public class CommandIndex implements ActionIndex {
+    private final CommandExtractor commandExtractor;
+    private final Map<String, Action> commands;
+    private final Action wildcard;
+
+    CommandIndex(CommandExtractor commandExtractor, List<Action> actions) {
+        this.commandExtractor = commandExtractor;
+        Map<String, Action> commandMap = new HashMap<>();
+        Action wildcardAction = null;
+        for (Action action : actions) {
+            CommandDescriptor descriptor = CommandDescriptor.of(action.getClass());
+            if (descriptor == null) {
+                continue;
+            }
+            if (descriptor.wildcard()) {
+                wildcardAction = wildcardAction == null ? action : wildcardAction;
+            } else {
+                commandMap.putIfAbsent(descriptor.command(), action);
+            }
+        }
+        this.commands = Map.copyOf(commandMap);
+        this.wildcard = wildcardAction;
+    }
+
+    /**
+     * Finds the action registered for the command of the given update, falling back to the
+     * wildcard action.
+     *
+     * @param update the update containing a command message
+     * @return the matching action, or an empty {@link Optional} if no action matches
+     */
+    @Override
+    public Optional<Action> find(Update update) {
+        if (!commands.isEmpty()) {
+            String command = commandExtractor.extract(update.getMessage().getText());
+            Action action = commands.get(command);
+            if (action != null) {
+                return Optional.of(action);
+            }
+        }
+        return Optional.ofNullable(wildcard);
+    }
+}
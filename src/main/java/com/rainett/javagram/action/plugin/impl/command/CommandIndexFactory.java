@@ -0,0 +1,43 @@
+package com.rainett.javagram.action.plugin.impl.command;
+
+import com.rainett.javagram.action.Action;
+import com.rainett.javagram.action.annotations.Command;
+import com.rainett.javagram.action.index.ActionIndex;
+import com.rainett.javagram.action.index.ActionIndexFactory;
+import com.rainett.javagram.config.BotConfig;
+import java.util.List;
+
+/**
+ * Builds {@link CommandIndex} instances for {@link Command} actions.
+ * Implements the {@link ActionIndexFactory} interface.
+ */
+public class CommandIndexFactory implements ActionIndexFactory<Command> {
+    private final CommandExtractor commandExtractor;
+
+    /**
+     * Constructs a new factory.
+     * @param botConfig the bot configuration, used to recognize mentions of this bot
+     */
+    public CommandIndexFactory(BotConfig botConfig) {
+        this.commandExtractor = new CommandExtractor(botConfig);
+    }
+
+    /**
+     * Builds a hash-based index over the given command actions.
+     * @param actions the command actions, sorted from the highest to the lowest precedence
+     * @return the command index
+     */
+    @Override
+    public ActionIndex create(List<Action> actions) {
+        return new CommandIndex(commandExtractor, actions);
+    }
+
+    /**
+     * The annotation type supported by this factory.
+     * @return the annotation type
+     */
+    @Override
+    public Class<Command> getAnnotationType() {
+        return Command.class;
+    }
+}
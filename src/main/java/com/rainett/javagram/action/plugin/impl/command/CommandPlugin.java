@@ -3,6 +3,7 @@ package com.rainett.javagram.action.plugin.impl.command;
 import com.rainett.javagram.action.actionmatcher.ActionUpdateMatcher;
 import com.rainett.javagram.action.annotations.Command;
 import com.rainett.javagram.action.comparator.AnnotationComparator;
+import com.rainett.javagram.action.index.ActionIndexFactory;
 import com.rainett.javagram.action.plugin.UpdateTypePlugin;
 import com.rainett.javagram.action.updatematcher.UpdateTypeResolver;
 import com.rainett.javagram.config.BotConfig;
@@ -57,4 +58,13 @@ public class CommandPlugin implements UpdateTypePlugin<Command> {
     public AnnotationComparator<Command> getAnnotationComparator() {
         return new CommandComparator();
     }
+
+    /**
+     * Action index factory for {@link Command} annotations.
+     * @return the action index factory
+     */
+    @Bean("commandIndexFactory")
+    public ActionIndexFactory<Command> getActionIndexFactory() {
+        return new CommandIndexFactory(botConfig);
+    }
 }
@@ -1,6 +1,7 @@
 package com.rainett.javagram.action.plugin.impl.command;
 
 import com.rainett.javagram.action.annotations.Command;
+import com.rainett.javagram.action.updatematcher.UpdateShape;
 import com.rainett.javagram.action.updatematcher.UpdateTypeResolver;
 import org.telegram.telegrambots.meta.api.objects.Update;
 
@@ -10,6 +11,11 @@ import org.telegram.telegrambots.meta.api.objects.Update;
  */
 public class CommandResolver implements UpdateTypeResolver<Command> {
 
+    /**
+     * Priority of command resolution; higher than that of text messages.
+     */
+    public static final int PRIORITY = 100;
+
     /**
      * Checks whether the update contains a command. First, it checks if the update has a message.
      * Then it checks if the message is a command.
@@ -29,4 +35,23 @@ public class CommandResolver implements UpdateTypeResolver<Command> {
     public Class<Command> getAnnotationType() {
         return Command.class;
     }
+
+    /**
+     * Returns the shape of a message that is a command.
+     * @return the shape bits required by this resolver
+     */
+    @Override
+    public int getShape() {
+        return UpdateShape.MESSAGE | UpdateShape.COMMAND;
+    }
+
+    /**
+     * Returns the priority of this resolver. A command message is also a text message, so command
+     * resolution must take precedence over {@link com.rainett.javagram.action.annotations.Text}.
+     * @return the priority of this resolver
+     */
+    @Override
+    public int getPriority() {
+        return PRIORITY;
+    }
 }
@@ -1,9 +1,9 @@
 package com.rainett.javagram.action.plugin.impl.command;
 
+import com.rainett.javagram.action.Action;
 import com.rainett.javagram.action.actionmatcher.AbstractActionUpdateMatcher;
 import com.rainett.javagram.action.annotations.Command;
 import com.rainett.javagram.config.BotConfig;
-import lombok.RequiredArgsConstructor;
 import org.telegram.telegrambots.meta.api.objects.Update;
 
 /**
@@ -11,9 +11,27 @@ import org.telegram.telegrambots.meta.api.objects.Update;
  * Extends the {@link AbstractActionUpdateMatcher} class and implements
  * the {@link com.rainett.javagram.action.actionmatcher.ActionUpdateMatcher} interface.
  */
-@RequiredArgsConstructor
 public class CommandUpdateMatcher extends AbstractActionUpdateMatcher<Command> {
-    private final BotConfig botConfig;
+    private final CommandExtractor commandExtractor;
+
+    /**
+     * Constructs a new matcher.
+     * @param botConfig the bot configuration, used to recognize mentions of this bot
+     */
+    public CommandUpdateMatcher(BotConfig botConfig) {
+        this.commandExtractor = new CommandExtractor(botConfig);
+    }
+
+    /**
+     * Matches the update against the cached {@link CommandDescriptor} of the action class.
+     * @param action the action to test
+     * @param update received Telegram update
+     * @return {@code true} if the update matches the action; {@code false} otherwise
+     */
+    @Override
+    public boolean test(Action action, Update update) {
+        return match(CommandDescriptor.of(action.getClass()), update);
+    }
 
     /**
      * Matches the update based on the {@link Command} annotation.
@@ -26,13 +44,7 @@ public class CommandUpdateMatcher extends AbstractActionUpdateMatcher<Command> {
      */
     @Override
     protected boolean match(Command annotation, Update update) {
-        if (annotation.value().isEmpty()) {
-            return true;
-        }
-        String expectedCommand = annotation.value().trim();
-        String updateText = update.getMessage().getText();
-        String extractedCommand = extractCommand(updateText);
-        return expectedCommand.equals(extractedCommand);
+        return match(CommandDescriptor.of(annotation), update);
     }
 
     /**
@@ -44,35 +56,12 @@ public class CommandUpdateMatcher extends AbstractActionUpdateMatcher<Command> {
         return Command.class;
     }
 
-    /**
-     * Extracts and normalizes the command from the update text.
-     * <p>
-     * The command is assumed to be the first token of the message text. If this token contains an
-     * '@' mention (e.g. {@code /command@BotUsername}) and the mention matches the configured bot
-     * username,
-     * the mention is stripped away.
-     * </p>
-     *
-     * @param text the full text of the update message.
-     * @return the normalized command string.
-     */
-    private String extractCommand(String text) {
-        String[] tokens = text.trim().split("\\s+");
-        String commandToken = tokens[0];
-        if (commandToken.contains("@")) {
-            String[] parts = commandToken.split("@", 2);
-            if (parts.length == 2 && isBotUsername(parts)) {
-                commandToken = parts[0];
-            }
-        }
-        return commandToken;
-    }
-
-    private boolean isBotUsername(String[] parts) {
-        String username = botConfig.getUsername();
-        if (username.startsWith("@")) {
-            username = username.substring(1);
+    private boolean match(CommandDescriptor descriptor, Update update) {
+        if (descriptor.wildcard()) {
+            return true;
         }
-        return parts[1].equalsIgnoreCase(username);
+        String updateText = update.getMessage().getText();
+        String extractedCommand = commandExtractor.extract(updateText);
+        return descriptor.command().equals(extractedCommand);
     }
 }
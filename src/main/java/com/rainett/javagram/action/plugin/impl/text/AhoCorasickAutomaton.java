@@ -0,0 +1,88 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton that finds all occurrences of a set of patterns in a single pass
+ * over a text.
+ * <p>
+ * Every node keeps a failure link to the longest proper suffix of its path that is also
+ * a path in the trie and an output link to the nearest such suffix that ends a pattern, so
+ * matching costs time proportional to the text length plus the number of reported matches.
+ * </p>
+ */
+final class AhoCorasickAutomaton {
+    private final TrieNode root = new TrieNode();
+
+    /**
+     * Builds the automaton over the given patterns. The id of a pattern is its position in
+     * the list.
+     *
+     * @param patterns the non-empty patterns
+     */
+    AhoCorasickAutomaton(List<String> patterns) {
+        for (int id = 0; id < patterns.size(); id++) {
+            String pattern = patterns.get(id);
+            TrieNode node = root;
+            for (int i = 0; i < pattern.length(); i++) {
+                node = node.addChild(pattern.charAt(i));
+            }
+            node.addPattern(id);
+        }
+        buildLinks();
+    }
+
+    /**
+     * Reports every occurrence of every pattern in the given text.
+     *
+     * @param text the text to scan
+     * @param sink the receiver of the found pattern ids
+     */
+    void match(String text, PatternMatchSink sink) {
+        TrieNode state = root;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            TrieNode next = state.child(c);
+            while (next == null && state != root) {
+                state = state.fail;
+                next = state.child(c);
+            }
+            state = next == null ? root : next;
+            TrieNode out = state.hasPatterns() ? state : state.output;
+            while (out != null) {
+                for (int patternId : out.patterns()) {
+                    sink.onMatch(patternId);
+                }
+                out = out.output;
+            }
+        }
+    }
+
+    private void buildLinks() {
+        Queue<TrieNode> queue = new ArrayDeque<>();
+        root.fail = root;
+        for (TrieNode child : root.children()) {
+            child.fail = root;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            TrieNode node = queue.poll();
+            char[] labels = node.labels();
+            TrieNode[] children = node.children();
+            for (int i = 0; i < children.length; i++) {
+                TrieNode child = children[i];
+                TrieNode fail = node.fail;
+                TrieNode target = fail.child(labels[i]);
+                while (target == null && fail != root) {
+                    fail = fail.fail;
+                    target = fail.child(labels[i]);
+                }
+                child.fail = target == null ? root : target;
+                child.output = child.fail.hasPatterns() ? child.fail : child.fail.output;
+                queue.add(child);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of Unicode code points, stored as sorted, non-overlapping inclusive ranges.
+ */
+final class CodePointSet {
+    static final CodePointSet DIGITS = new CodePointSet(new int[] {'0', '9'});
+    static final CodePointSet WORD_CHARS =
+            new CodePointSet(new int[] {'0', '9', 'A', 'Z', '_', '_', 'a', 'z'});
+    static final CodePointSet WHITESPACE = new CodePointSet(new int[] {'\t', '\r', ' ', ' '});
+    /**
+     * Code points matched by {@code .} without the {@code DOTALL} flag.
+     */
+    static final CodePointSet ANY_BUT_LINE_TERMINATOR = new CodePointSet(
+            new int[] {'\n', '\n', '\r', '\r', '\u0085', '\u0085', '\u2028', '\u2029'})
+            .complement();
+
+    private final int[] ranges;
+
+    private CodePointSet(int[] ranges) {
+        this.ranges = ranges;
+    }
+
+    /**
+     * Creates a set containing a single code point.
+     *
+     * @param codePoint the code point
+     * @return the set
+     */
+    static CodePointSet of(int codePoint) {
+        return new CodePointSet(new int[] {codePoint, codePoint});
+    }
+
+    /**
+     * Creates a set from arbitrary, possibly overlapping, inclusive ranges.
+     *
+     * @param ranges the ranges as {@code [from0, to0, from1, to1, ...]}
+     * @param count  the number of used elements in {@code ranges}
+     * @return the set
+     */
+    static CodePointSet ofRanges(int[] ranges, int count) {
+        long[] sorted = new long[count / 2];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = ((long) ranges[2 * i] << 32) | ranges[2 * i + 1];
+        }
+        Arrays.sort(sorted);
+        int[] merged = new int[count];
+        int size = 0;
+        for (long range : sorted) {
+            int from = (int) (range >>> 32);
+            int to = (int) range;
+            if (size > 0 && from <= merged[size - 1] + 1) {
+                merged[size - 1] = Math.max(merged[size - 1], to);
+            } else {
+                merged[size++] = from;
+                merged[size++] = to;
+            }
+        }
+        return new CodePointSet(Arrays.copyOf(merged, size));
+    }
+
+    /**
+     * Returns the set of all code points that are not in this set.
+     *
+     * @return the complement
+     */
+    CodePointSet complement() {
+        int[] result = new int[ranges.length + 2];
+        int size = 0;
+        int next = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (ranges[i] > next) {
+                result[size++] = next;
+                result[size++] = ranges[i] - 1;
+            }
+            next = ranges[i + 1] + 1;
+        }
+        if (next <= Character.MAX_CODE_POINT) {
+            result[size++] = next;
+            result[size++] = Character.MAX_CODE_POINT;
+        }
+        return new CodePointSet(Arrays.copyOf(result, size));
+    }
+
+    /**
+     * Appends the ranges of this set to the given buffer.
+     *
+     * @param buffer the buffer, grown if needed
+     * @param count  the number of used elements in the buffer
+     * @return the buffer holding the appended ranges
+     */
+    int[] appendTo(int[] buffer, int count) {
+        int[] result = buffer.length < count + ranges.length
+                ? Arrays.copyOf(buffer, Math.max(2 * buffer.length, count + ranges.length))
+                : buffer;
+        System.arraycopy(ranges, 0, result, count, ranges.length);
+        return result;
+    }
+
+    /**
+     * Returns the number of elements this set appends to a range buffer.
+     *
+     * @return twice the number of ranges
+     */
+    int rangeLength() {
+        return ranges.length;
+    }
+
+    /**
+     * Checks whether the code point belongs to this set.
+     *
+     * @param codePoint the code point
+     * @return {@code true} if the code point is in the set
+     */
+    boolean contains(int codePoint) {
+        int low = 0;
+        int high = ranges.length / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (codePoint < ranges[2 * mid]) {
+                high = mid - 1;
+            } else if (codePoint > ranges[2 * mid + 1]) {
+                low = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+}
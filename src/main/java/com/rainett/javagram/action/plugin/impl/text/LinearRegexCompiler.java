@@ -0,0 +1,384 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles a regular expression into {@link NfaProgram} instructions.
+ * <p>
+ * Only the subset of {@link java.util.regex.Pattern} syntax that has a linear-time
+ * equivalent is supported: literals, escapes, character classes with ranges and negation,
+ * {@code \d \w \s} and their negations, {@code .}, capturing, named and non-capturing groups,
+ * alternation, greedy and lazy quantifiers, and {@code ^}/{@code $} at the edges of the
+ * pattern. Back references, lookarounds, possessive quantifiers, inline flags, word
+ * boundaries, Unicode properties and nested or intersected classes are rejected with an
+ * {@link UnsupportedRegexException}.
+ * </p>
+ * <p>
+ * The regular expression must already be valid for {@link java.util.regex.Pattern}; the
+ * compiler only decides whether it can be evaluated without backtracking.
+ * </p>
+ */
+final class LinearRegexCompiler {
+    private static final int MAX_REPEAT = 1000;
+    private static final int MAX_PROGRAM_SIZE = 20_000;
+
+    private final String regex;
+    private final NfaProgram.Builder builder;
+    private final int start;
+    private int position;
+
+    private LinearRegexCompiler(String regex, NfaProgram.Builder builder, int start) {
+        this.regex = regex;
+        this.builder = builder;
+        this.start = start;
+    }
+
+    /**
+     * Compiles the regular expression into the builder. Nothing is emitted if the regular
+     * expression is not supported.
+     *
+     * @param regex   the regular expression
+     * @param id      the id reported by the program when the regular expression matches
+     * @param builder the program builder
+     * @throws UnsupportedRegexException if the regular expression can't be compiled
+     */
+    static void compile(String regex, int id, NfaProgram.Builder builder) {
+        int start = builder.size();
+        LinearRegexCompiler compiler = new LinearRegexCompiler(regex, builder, start);
+        Node node = compiler.parseAlternation();
+        if (compiler.position < regex.length()) {
+            throw new UnsupportedRegexException("unexpected '" + regex.charAt(compiler.position)
+                                                + "' at index " + compiler.position);
+        }
+        try {
+            builder.startPattern();
+            compiler.emit(node);
+            builder.emit(NfaProgram.MATCH, id, 0, null);
+        } catch (UnsupportedRegexException e) {
+            builder.rollback(start);
+            throw e;
+        }
+    }
+
+    private Node parseAlternation() {
+        List<Node> branches = new ArrayList<>();
+        branches.add(parseConcatenation());
+        while (peek() == '|') {
+            position++;
+            branches.add(parseConcatenation());
+        }
+        return branches.size() == 1 ? branches.get(0) : new Alternation(branches);
+    }
+
+    private Node parseConcatenation() {
+        List<Node> items = new ArrayList<>();
+        while (position < regex.length() && peek() != '|' && peek() != ')') {
+            items.add(parseQuantified());
+        }
+        return items.size() == 1 ? items.get(0) : new Concatenation(items);
+    }
+
+    private Node parseQuantified() {
+        Node node = parseAtom();
+        while (true) {
+            int min;
+            int max;
+            char c = peek();
+            if (c == '*') {
+                min = 0;
+                max = -1;
+                position++;
+            } else if (c == '+') {
+                min = 1;
+                max = -1;
+                position++;
+            } else if (c == '?') {
+                min = 0;
+                max = 1;
+                position++;
+            } else if (c == '{') {
+                position++;
+                min = parseNumber();
+                max = min;
+                if (peek() == ',') {
+                    position++;
+                    max = peek() == '}' ? -1 : parseNumber();
+                }
+                expect('}');
+            } else {
+                return node;
+            }
+            if (peek() == '+') {
+                throw new UnsupportedRegexException("possessive quantifier");
+            }
+            if (peek() == '?') {
+                position++;
+            }
+            if (min > MAX_REPEAT || max > MAX_REPEAT) {
+                throw new UnsupportedRegexException("repetition count above " + MAX_REPEAT);
+            }
+            node = new Repetition(node, min, max);
+        }
+    }
+
+    private Node parseAtom() {
+        char c = peek();
+        switch (c) {
+            case '(' -> {
+                position++;
+                parseGroupPrefix();
+                Node inner = parseAlternation();
+                expect(')');
+                return inner;
+            }
+            case '[' -> {
+                position++;
+                return new CharacterSet(parseClass());
+            }
+            case '.' -> {
+                position++;
+                return new CharacterSet(CodePointSet.ANY_BUT_LINE_TERMINATOR);
+            }
+            case '^' -> {
+                if (position != 0) {
+                    throw new UnsupportedRegexException("'^' inside the pattern");
+                }
+                position++;
+                return new Concatenation(List.of());
+            }
+            case '$' -> {
+                if (position != regex.length() - 1) {
+                    throw new UnsupportedRegexException("'$' inside the pattern");
+                }
+                position++;
+                return new Concatenation(List.of());
+            }
+            case '\\' -> {
+                position++;
+                return new CharacterSet(parseEscape(false));
+            }
+            case '*', '+', '?', '{' -> throw new UnsupportedRegexException(
+                    "dangling '" + c + "' at index " + position);
+            default -> {
+                int codePoint = regex.codePointAt(position);
+                position += Character.charCount(codePoint);
+                return new CharacterSet(CodePointSet.of(codePoint));
+            }
+        }
+    }
+
+    private void parseGroupPrefix() {
+        if (peek() != '?') {
+            return;
+        }
+        char kind = position + 1 < regex.length() ? regex.charAt(position + 1) : 0;
+        if (kind == ':') {
+            position += 2;
+            return;
+        }
+        if (kind == '<' && position + 2 < regex.length()
+            && Character.isLetter(regex.charAt(position + 2))) {
+            int end = regex.indexOf('>', position);
+            if (end < 0) {
+                throw new UnsupportedRegexException("unterminated group name");
+            }
+            position = end + 1;
+            return;
+        }
+        throw new UnsupportedRegexException("group construct '(?" + kind + "'");
+    }
+
+    private CodePointSet parseClass() {
+        boolean negated = false;
+        if (peek() == '^') {
+            negated = true;
+            position++;
+        }
+        if (peek() == ']') {
+            throw new UnsupportedRegexException("']' at the start of a character class");
+        }
+        int[] ranges = new int[16];
+        int count = 0;
+        while (peek() != ']') {
+            char c = peek();
+            if (position >= regex.length()) {
+                throw new UnsupportedRegexException("unterminated character class");
+            }
+            if (c == '[' || regex.startsWith("&&", position)) {
+                throw new UnsupportedRegexException("nested or intersected character class");
+            }
+            CodePointSet item = parseClassItem();
+            if (peek() == '-' && position + 1 < regex.length()
+                && regex.charAt(position + 1) != ']') {
+                position++;
+                CodePointSet end = parseClassItem();
+                int from = singleCodePoint(item);
+                int to = singleCodePoint(end);
+                if (from > to) {
+                    throw new UnsupportedRegexException("illegal character range");
+                }
+                item = CodePointSet.ofRanges(new int[] {from, to}, 2);
+            }
+            ranges = item.appendTo(ranges, count);
+            count += item.rangeLength();
+        }
+        position++;
+        CodePointSet set = CodePointSet.ofRanges(ranges, count);
+        return negated ? set.complement() : set;
+    }
+
+    private CodePointSet parseClassItem() {
+        if (peek() == '\\') {
+            position++;
+            return parseEscape(true);
+        }
+        int codePoint = regex.codePointAt(position);
+        position += Character.charCount(codePoint);
+        return CodePointSet.of(codePoint);
+    }
+
+    private int singleCodePoint(CodePointSet set) {
+        if (set.rangeLength() != 2) {
+            throw new UnsupportedRegexException("character class used as a range bound");
+        }
+        int[] range = set.appendTo(new int[2], 0);
+        if (range[0] != range[1]) {
+            throw new UnsupportedRegexException("character class used as a range bound");
+        }
+        return range[0];
+    }
+
+    private CodePointSet parseEscape(boolean inClass) {
+        if (position >= regex.length()) {
+            throw new UnsupportedRegexException("trailing backslash");
+        }
+        char c = regex.charAt(position++);
+        return switch (c) {
+            case 'd' -> CodePointSet.DIGITS;
+            case 'D' -> CodePointSet.DIGITS.complement();
+            case 'w' -> CodePointSet.WORD_CHARS;
+            case 'W' -> CodePointSet.WORD_CHARS.complement();
+            case 's' -> CodePointSet.WHITESPACE;
+            case 'S' -> CodePointSet.WHITESPACE.complement();
+            case 't' -> CodePointSet.of('\t');
+            case 'n' -> CodePointSet.of('\n');
+            case 'r' -> CodePointSet.of('\r');
+            case 'f' -> CodePointSet.of('\f');
+            case 'a' -> CodePointSet.of('\u0007');
+            case 'e' -> CodePointSet.of('\u001B');
+            case 'x' -> CodePointSet.of(parseHex(2));
+            case 'u' -> CodePointSet.of(parseHex(4));
+            default -> {
+                if (Character.isLetterOrDigit(c)) {
+                    throw new UnsupportedRegexException("escape '\\" + c + "'"
+                                                        + (inClass ? " in a character class" : ""));
+                }
+                position--;
+                int codePoint = regex.codePointAt(position);
+                position += Character.charCount(codePoint);
+                yield CodePointSet.of(codePoint);
+            }
+        };
+    }
+
+    private int parseHex(int digits) {
+        if (peek() == '{' || position + digits > regex.length()) {
+            throw new UnsupportedRegexException("hexadecimal escape form");
+        }
+        int value = Integer.parseInt(regex.substring(position, position + digits), 16);
+        position += digits;
+        if (Character.isSurrogate((char) value)) {
+            throw new UnsupportedRegexException("surrogate escape");
+        }
+        return value;
+    }
+
+    private int parseNumber() {
+        int start = position;
+        while (position < regex.length() && Character.isDigit(regex.charAt(position))) {
+            position++;
+        }
+        if (start == position || position - start > 6) {
+            throw new UnsupportedRegexException("repetition count at index " + start);
+        }
+        return Integer.parseInt(regex.substring(start, position));
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw new UnsupportedRegexException("expected '" + c + "' at index " + position);
+        }
+        position++;
+    }
+
+    private char peek() {
+        return position < regex.length() ? regex.charAt(position) : 0;
+    }
+
+    private void emit(Node node) {
+        if (builder.size() - start > MAX_PROGRAM_SIZE) {
+            throw new UnsupportedRegexException("pattern too large for the linear engine");
+        }
+        if (node instanceof CharacterSet characterSet) {
+            int pc = builder.size();
+            builder.emit(NfaProgram.CONSUME, pc + 1, 0, characterSet.set());
+        } else if (node instanceof Concatenation concatenation) {
+            concatenation.items().forEach(this::emit);
+        } else if (node instanceof Alternation alternation) {
+            emitAlternation(alternation.branches());
+        } else if (node instanceof Repetition repetition) {
+            emitRepetition(repetition);
+        }
+    }
+
+    private void emitAlternation(List<Node> branches) {
+        List<Integer> jumps = new ArrayList<>();
+        for (int i = 0; i < branches.size() - 1; i++) {
+            int split = builder.emit(NfaProgram.SPLIT, 0, 0, null);
+            builder.patchTarget(split, builder.size());
+            emit(branches.get(i));
+            jumps.add(builder.emit(NfaProgram.JUMP, 0, 0, null));
+            builder.patchAlternative(split, builder.size());
+        }
+        emit(branches.get(branches.size() - 1));
+        jumps.forEach(jump -> builder.patchTarget(jump, builder.size()));
+    }
+
+    private void emitRepetition(Repetition repetition) {
+        for (int i = 0; i < repetition.min(); i++) {
+            emit(repetition.node());
+        }
+        if (repetition.max() < 0) {
+            int split = builder.emit(NfaProgram.SPLIT, 0, 0, null);
+            builder.patchTarget(split, builder.size());
+            emit(repetition.node());
+            builder.emit(NfaProgram.JUMP, split, 0, null);
+            builder.patchAlternative(split, builder.size());
+            return;
+        }
+        List<Integer> splits = new ArrayList<>();
+        for (int i = repetition.min(); i < repetition.max(); i++) {
+            int split = builder.emit(NfaProgram.SPLIT, 0, 0, null);
+            builder.patchTarget(split, builder.size());
+            splits.add(split);
+            emit(repetition.node());
+        }
+        splits.forEach(split -> builder.patchAlternative(split, builder.size()));
+    }
+
+    private interface Node {
+    }
+
+    private record CharacterSet(CodePointSet set) implements Node {
+    }
+
+    private record Concatenation(List<Node> items) implements Node {
+    }
+
+    private record Alternation(List<Node> branches) implements Node {
+    }
+
+    private record Repetition(Node node, int min, int max) implements Node {
+    }
+}
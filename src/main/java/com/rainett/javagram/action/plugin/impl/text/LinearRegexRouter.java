@@ -0,0 +1,74 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link RegexRouter} that protects routing from catastrophic backtracking.
+ * <p>
+ * Every supported regular expression is compiled into one shared {@link NfaProgram}, which
+ * matches in time linear to the message length. Regular expressions that need backtracking
+ * features are reported at startup and evaluated by {@link Pattern} over a
+ * {@link StepBoundedCharSequence}; an evaluation that runs out of steps counts as a mismatch
+ * and is recorded in {@link RegexMetrics}.
+ * </p>
+ */
+@Slf4j
+class LinearRegexRouter implements RegexRouter {
+    private final NfaProgram program;
+    private final int[] fallbackPositions;
+    private final Pattern[] fallbackPatterns;
+    private final long stepLimit;
+    private final RegexMetrics metrics;
+
+    LinearRegexRouter(List<String> regexes, long stepLimit, RegexMetrics metrics) {
+        this.stepLimit = stepLimit;
+        this.metrics = metrics;
+        NfaProgram.Builder builder = new NfaProgram.Builder();
+        List<Integer> positions = new ArrayList<>();
+        List<Pattern> patterns = new ArrayList<>();
+        for (int i = 0; i < regexes.size(); i++) {
+            Pattern pattern = Pattern.compile(regexes.get(i));
+            try {
+                LinearRegexCompiler.compile(pattern.pattern(), i, builder);
+            } catch (UnsupportedRegexException e) {
+                log.warn("@Text regex '{}' is not supported by the linear engine ({}), "
+                         + "it will be evaluated by java.util.regex with a limit of {} steps",
+                        pattern.pattern(), e.getMessage(), stepLimit);
+                positions.add(i);
+                patterns.add(pattern);
+            }
+        }
+        this.program = builder.build();
+        this.fallbackPositions = positions.stream().mapToInt(Integer::intValue).toArray();
+        this.fallbackPatterns = patterns.toArray(Pattern[]::new);
+    }
+
+    @Override
+    public int find(String text) {
+        int linear = program.find(text);
+        for (int i = 0; i < fallbackPositions.length; i++) {
+            if (linear >= 0 && fallbackPositions[i] > linear) {
+                break;
+            }
+            if (matchesBounded(fallbackPatterns[i], text)) {
+                return fallbackPositions[i];
+            }
+        }
+        return linear;
+    }
+
+    private boolean matchesBounded(Pattern pattern, String text) {
+        metrics.recordFallbackEvaluation();
+        try {
+            return pattern.matcher(new StepBoundedCharSequence(text, stepLimit)).matches();
+        } catch (StepBoundedCharSequence.StepLimitExceededException e) {
+            metrics.recordTimeout();
+            log.debug("@Text regex '{}' exceeded {} steps on a text of {} characters",
+                    pattern.pattern(), stepLimit, text.length());
+            return false;
+        }
+    }
+}
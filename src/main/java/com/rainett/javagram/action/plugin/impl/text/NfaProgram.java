@@ -0,0 +1,290 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thompson NFA of several regular expressions, simulated in lock step (Pike VM).
+ * <p>
+ * The text is read once, one code point at a time, while the set of active NFA states is
+ * tracked. Each state is visited at most once per code point, so matching costs
+ * {@code O(text length * program size)} no matter how the regular expressions are written;
+ * there is no backtracking. Every regular expression ends in its own {@code MATCH}
+ * instruction, so all of them are evaluated by the same scan.
+ * </p>
+ * <p>
+ * The states reachable before the first code point are the same for every text, so they are
+ * computed once and indexed by their first ASCII character; a message only starts the
+ * regular expressions that accept its first character.
+ * </p>
+ * <p>
+ * The buffers of a scan are sized to the whole program, so they are kept in a small pool
+ * shared by all threads rather than per thread: with virtual threads, every update is routed
+ * on a new thread, which would allocate them again for every message.
+ * </p>
+ */
+final class NfaProgram {
+    static final int CONSUME = 0;
+    static final int SPLIT = 1;
+    static final int JUMP = 2;
+    static final int MATCH = 3;
+    private static final int ASCII = 128;
+    private static final int MAX_POOLED_SCRATCH = Runtime.getRuntime().availableProcessors();
+
+    private final int[] ops;
+    private final int[] targets;
+    private final int[] alternatives;
+    private final CodePointSet[] sets;
+    private final int emptyTextMatch;
+    private final int[] startStates;
+    private final int[][] asciiStartStates;
+    private final Queue<Scratch> scratchPool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledScratch = new AtomicInteger();
+
+    private NfaProgram(Builder builder) {
+        this.ops = Arrays.copyOf(builder.ops, builder.size);
+        this.targets = Arrays.copyOf(builder.targets, builder.size);
+        this.alternatives = Arrays.copyOf(builder.alternatives, builder.size);
+        this.sets = builder.sets.toArray(CodePointSet[]::new);
+        Scratch state = new Scratch(ops.length);
+        for (int entry : builder.entries) {
+            addClosure(state, state.current, entry);
+        }
+        this.emptyTextMatch = lowestMatch(state.current);
+        this.startStates = Arrays.stream(state.current.states, 0, state.current.size)
+                .filter(pc -> ops[pc] == CONSUME)
+                .toArray();
+        this.asciiStartStates = new int[ASCII][];
+        for (int c = 0; c < ASCII; c++) {
+            int codePoint = c;
+            asciiStartStates[c] = Arrays.stream(startStates)
+                    .filter(pc -> sets[pc].contains(codePoint))
+                    .toArray();
+        }
+        release(state);
+    }
+
+    /**
+     * Finds the regular expression with the lowest id that matches the entire text.
+     *
+     * @param text the text to match
+     * @return the id of the matching regular expression, or {@code -1} if none matches
+     */
+    int find(String text) {
+        if (text.isEmpty()) {
+            return emptyTextMatch;
+        }
+        Scratch state = acquire();
+        try {
+            return find(state, text);
+        } finally {
+            release(state);
+        }
+    }
+
+    /**
+     * Returns the number of scan buffers kept for reuse.
+     *
+     * @return the number of pooled buffers
+     */
+    int pooledScratch() {
+        return pooledScratch.get();
+    }
+
+    private int find(Scratch state, String text) {
+        state.nextGeneration();
+        state.current.clear();
+        int first = text.codePointAt(0);
+        int[] starts = first < ASCII ? asciiStartStates[first] : startStates;
+        for (int pc : starts) {
+            if (first < ASCII || sets[pc].contains(first)) {
+                addClosure(state, state.current, pc + 1);
+            }
+        }
+        state.nextGeneration();
+        for (int i = Character.charCount(first); i < text.length() && state.current.size > 0; ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            state.next.clear();
+            for (int j = 0; j < state.current.size; j++) {
+                int pc = state.current.states[j];
+                if (ops[pc] == CONSUME && sets[pc].contains(codePoint)) {
+                    addClosure(state, state.next, pc + 1);
+                }
+            }
+            state.swap();
+            state.nextGeneration();
+        }
+        return lowestMatch(state.current);
+    }
+
+    /**
+     * Returns the number of instructions of this program.
+     *
+     * @return the program size
+     */
+    int size() {
+        return ops.length;
+    }
+
+    private Scratch acquire() {
+        Scratch state = scratchPool.poll();
+        if (state == null) {
+            return new Scratch(ops.length);
+        }
+        pooledScratch.decrementAndGet();
+        return state;
+    }
+
+    private void release(Scratch state) {
+        if (pooledScratch.incrementAndGet() <= MAX_POOLED_SCRATCH) {
+            scratchPool.offer(state);
+        } else {
+            pooledScratch.decrementAndGet();
+        }
+    }
+
+    private int lowestMatch(StateList list) {
+        int best = -1;
+        for (int j = 0; j < list.size; j++) {
+            int pc = list.states[j];
+            if (ops[pc] == MATCH && (best < 0 || targets[pc] < best)) {
+                best = targets[pc];
+            }
+        }
+        return best;
+    }
+
+    private void addClosure(Scratch state, StateList list, int start) {
+        int[] stack = state.stack;
+        int top = 0;
+        stack[top++] = start;
+        while (top > 0) {
+            int pc = stack[--top];
+            if (state.marks[pc] == state.generation) {
+                continue;
+            }
+            state.marks[pc] = state.generation;
+            switch (ops[pc]) {
+                case JUMP -> stack[top++] = targets[pc];
+                case SPLIT -> {
+                    stack[top++] = alternatives[pc];
+                    stack[top++] = targets[pc];
+                }
+                default -> list.states[list.size++] = pc;
+            }
+        }
+    }
+
+    /**
+     * Buffers of a scan, reused by later scans once it is over.
+     */
+    private static final class Scratch {
+        private final int[] marks;
+        private final int[] stack;
+        private StateList current;
+        private StateList next;
+        private int generation = 1;
+
+        private Scratch(int size) {
+            this.marks = new int[size];
+            this.stack = new int[2 * size + 1];
+            this.current = new StateList(size);
+            this.next = new StateList(size);
+        }
+
+        private void swap() {
+            StateList previous = current;
+            current = next;
+            next = previous;
+        }
+
+        private void nextGeneration() {
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                generation = 1;
+            }
+        }
+    }
+
+    /**
+     * List of active states, each listed at most once.
+     */
+    private static final class StateList {
+        private final int[] states;
+        private int size;
+
+        private StateList(int capacity) {
+            this.states = new int[capacity];
+        }
+
+        private void clear() {
+            size = 0;
+        }
+    }
+
+    /**
+     * Assembles the instructions of a program.
+     */
+    static final class Builder {
+        private int[] ops = new int[64];
+        private int[] targets = new int[64];
+        private int[] alternatives = new int[64];
+        private final List<CodePointSet> sets = new ArrayList<>();
+        private final List<Integer> entries = new ArrayList<>();
+        private int size;
+
+        /**
+         * Marks the start of a new regular expression.
+         */
+        void startPattern() {
+            entries.add(size);
+        }
+
+        /**
+         * Removes all instructions emitted after the given position, together with the
+         * regular expression started there.
+         *
+         * @param position the position returned by {@link #size()} before the removed
+         *                 instructions were emitted
+         */
+        void rollback(int position) {
+            size = position;
+            sets.subList(position, sets.size()).clear();
+            entries.removeIf(entry -> entry >= position);
+        }
+
+        int size() {
+            return size;
+        }
+
+        int emit(int op, int target, int alternative, CodePointSet set) {
+            if (size == ops.length) {
+                ops = Arrays.copyOf(ops, 2 * size);
+                targets = Arrays.copyOf(targets, 2 * size);
+                alternatives = Arrays.copyOf(alternatives, 2 * size);
+            }
+            ops[size] = op;
+            targets[size] = target;
+            alternatives[size] = alternative;
+            sets.add(set);
+            return size++;
+        }
+
+        void patchTarget(int pc, int target) {
+            targets[pc] = target;
+        }
+
+        void patchAlternative(int pc, int alternative) {
+            alternatives[pc] = alternative;
+        }
+
+        NfaProgram build() {
+            return new NfaProgram(this);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+/**
+ * Receives the ids of patterns found in a message text.
+ */
+@FunctionalInterface
+interface PatternMatchSink {
+    /**
+     * Called for every pattern found in the text. A pattern may be reported more than once if
+     * it occurs several times.
+     *
+     * @param patternId the id of the found pattern
+     */
+    void onMatch(int patternId);
+}
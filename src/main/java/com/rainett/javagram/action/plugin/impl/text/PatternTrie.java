@@ -0,0 +1,54 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+import java.util.List;
+
+/**
+ * Trie that finds all patterns that are prefixes or, if built in reverse, suffixes of a text.
+ * <p>
+ * The text is walked once from its start (or from its end for a suffix trie); every pattern
+ * ending at a visited node is reported. The walk stops as soon as the text leaves the trie,
+ * so it costs at most the length of the longest pattern.
+ * </p>
+ */
+final class PatternTrie {
+    private final TrieNode root = new TrieNode();
+    private final boolean reversed;
+
+    /**
+     * Builds a trie over the given patterns. The id of a pattern is its position in the list.
+     *
+     * @param patterns the non-empty patterns
+     * @param reversed {@code true} to match suffixes instead of prefixes
+     */
+    PatternTrie(List<String> patterns, boolean reversed) {
+        this.reversed = reversed;
+        for (int id = 0; id < patterns.size(); id++) {
+            String pattern = patterns.get(id);
+            TrieNode node = root;
+            for (int i = 0; i < pattern.length(); i++) {
+                node = node.addChild(pattern.charAt(reversed ? pattern.length() - 1 - i : i));
+            }
+            node.addPattern(id);
+        }
+    }
+
+    /**
+     * Reports every pattern that is a prefix (or a suffix) of the given text.
+     *
+     * @param text the text to match
+     * @param sink the receiver of the found pattern ids
+     */
+    void match(String text, PatternMatchSink sink) {
+        TrieNode node = root;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            node = node.child(text.charAt(reversed ? length - 1 - i : i));
+            if (node == null) {
+                return;
+            }
+            for (int patternId : node.patterns()) {
+                sink.onMatch(patternId);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of {@code @Text(regex)} routing.
+ * <p>
+ * Only the {@code linear} regex engine updates these counters: regular expressions it can't
+ * compile are evaluated by {@link java.util.regex.Pattern} with a step limit, and every
+ * evaluation and every aborted evaluation is counted here.
+ * </p>
+ */
+public class RegexMetrics {
+    private final LongAdder fallbackEvaluations = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    /**
+     * Returns the number of regular expression evaluations done by the
+     * {@link java.util.regex.Pattern} fallback.
+     *
+     * @return the number of fallback evaluations
+     */
+    public long getFallbackEvaluations() {
+        return fallbackEvaluations.sum();
+    }
+
+    /**
+     * Returns the number of fallback evaluations aborted because they exceeded the step
+     * limit. An aborted evaluation is treated as a mismatch.
+     *
+     * @return the number of timeouts
+     */
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    void recordFallbackEvaluation() {
+        fallbackEvaluations.increment();
+    }
+
+    void recordTimeout() {
+        timeouts.increment();
+    }
+}
@@ -0,0 +1,15 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+/**
+ * Finds the first of several regular expressions that matches a whole message text.
+ */
+interface RegexRouter {
+
+    /**
+     * Finds the first regular expression that matches the entire text.
+     *
+     * @param text the message text
+     * @return the position of the matching regular expression, or {@code -1} if none matches
+     */
+    int find(String text);
+}
@@ -0,0 +1,33 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+import com.rainett.javagram.config.RoutingConfig;
+import java.util.List;
+
+/**
+ * Creates the {@link RegexRouter} of the configured {@link RoutingConfig.RegexEngine}.
+ */
+class RegexRouterFactory {
+    private final RoutingConfig.RegexEngine engine;
+    private final long stepLimit;
+    private final RegexMetrics metrics;
+
+    RegexRouterFactory(RoutingConfig routingConfig, RegexMetrics metrics) {
+        this.engine = routingConfig.getRegexEngine();
+        this.stepLimit = routingConfig.getRegexStepLimit();
+        this.metrics = metrics;
+    }
+
+    /**
+     * Compiles the given regular expressions.
+     *
+     * @param regexes the regular expressions, sorted from the highest to the lowest precedence
+     * @return the compiled router
+     */
+    RegexRouter create(List<String> regexes) {
+        return switch (engine) {
+            case JDK -> new SequentialRegexRouter(regexes);
+            case UNION -> new UnionRegexRouter(regexes);
+            case LINEAR -> new LinearRegexRouter(regexes, stepLimit, metrics);
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * {@link RegexRouter} that tests precompiled patterns one by one.
+ */
+class SequentialRegexRouter implements RegexRouter {
+    private final Pattern[] patterns;
+
+    SequentialRegexRouter(List<String> regexes) {
+        this.patterns = regexes.stream()
+                .map(Pattern::compile)
+                .toArray(Pattern[]::new);
+    }
+
+    @Override
+    public int find(String text) {
+        for (int i = 0; i < patterns.length; i++) {
+            if (patterns[i].matcher(text).matches()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
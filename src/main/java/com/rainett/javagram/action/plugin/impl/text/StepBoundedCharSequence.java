@@ -0,0 +1,59 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+/**
+ * {@link CharSequence} view of a text that allows a limited number of character reads.
+ * <p>
+ * {@link java.util.regex.Matcher} reads the input through {@link #charAt(int)}, and a
+ * backtracking match re-reads the same characters over and over. Counting the reads bounds
+ * the work of a single match: once the budget is spent, a {@link StepLimitExceededException}
+ * aborts the match.
+ * </p>
+ */
+final class StepBoundedCharSequence implements CharSequence {
+    private final String text;
+    private final long stepLimit;
+    private long steps;
+
+    /**
+     * Wraps the given text.
+     *
+     * @param text      the text
+     * @param stepLimit the maximum number of character reads
+     */
+    StepBoundedCharSequence(String text, long stepLimit) {
+        this.text = text;
+        this.stepLimit = stepLimit;
+    }
+
+    @Override
+    public int length() {
+        return text.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (++steps > stepLimit) {
+            throw new StepLimitExceededException();
+        }
+        return text.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return text.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    /**
+     * Thrown when a match reads more characters than allowed.
+     */
+    static final class StepLimitExceededException extends RuntimeException {
+        StepLimitExceededException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+import com.rainett.javagram.action.annotations.Text;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled form of the {@link Text#startsWith()}, {@link Text#endsWith()} and
+ * {@link Text#contains()} constraints of many actions.
+ * <p>
+ * All prefixes are stored in a {@link PatternTrie}, all suffixes in a reversed
+ * {@link PatternTrie} and all substrings in an {@link AhoCorasickAutomaton}, so a message is
+ * scanned once per constraint kind regardless of the number of actions. An action matches
+ * when all of its non-empty constraints are found; an action without constraints matches
+ * every message. Among the matching actions, the one with the lowest rank wins.
+ * </p>
+ */
+final class TextConstraintIndex {
+    private static final int NOT_FOUND = -1;
+
+    private final int[] ranks;
+    private final int[] required;
+    private final int wildcard;
+    private final PatternTrie prefixes;
+    private final PatternTrie suffixes;
+    private final AhoCorasickAutomaton substrings;
+    private final int[][] prefixOwners;
+    private final int[][] suffixOwners;
+    private final int[][] substringOwners;
+
+    /**
+     * Compiles the constraints of the given descriptors.
+     *
+     * @param descriptors the descriptors, sorted from the highest to the lowest precedence
+     * @param ranks       the rank of every descriptor; lower ranks have higher precedence
+     */
+    TextConstraintIndex(List<TextDescriptor> descriptors, int[] ranks) {
+        this.ranks = ranks.clone();
+        this.required = new int[descriptors.size()];
+        Map<String, List<Integer>> prefixMap = new LinkedHashMap<>();
+        Map<String, List<Integer>> suffixMap = new LinkedHashMap<>();
+        Map<String, List<Integer>> substringMap = new LinkedHashMap<>();
+        int wildcardIndex = NOT_FOUND;
+        for (int i = 0; i < descriptors.size(); i++) {
+            TextDescriptor descriptor = descriptors.get(i);
+            required[i] += register(prefixMap, descriptor.startsWith(), i);
+            required[i] += register(suffixMap, descriptor.endsWith(), i);
+            required[i] += register(substringMap, descriptor.contains(), i);
+            if (required[i] == 0 && wildcardIndex == NOT_FOUND) {
+                wildcardIndex = i;
+            }
+        }
+        this.wildcard = wildcardIndex;
+        this.prefixes = new PatternTrie(new ArrayList<>(prefixMap.keySet()), false);
+        this.suffixes = new PatternTrie(new ArrayList<>(suffixMap.keySet()), true);
+        this.substrings = new AhoCorasickAutomaton(new ArrayList<>(substringMap.keySet()));
+        this.prefixOwners = toOwnerTable(prefixMap);
+        this.suffixOwners = toOwnerTable(suffixMap);
+        this.substringOwners = toOwnerTable(substringMap);
+    }
+
+    /**
+     * Finds the matching descriptor with the lowest rank.
+     *
+     * @param text the message text
+     * @return the position of the matching descriptor in the compiled list, or {@code -1} if
+     *         none matches
+     */
+    int find(String text) {
+        if (required.length == 0) {
+            return NOT_FOUND;
+        }
+        Scan scan = new Scan();
+        scan.owners = prefixOwners;
+        prefixes.match(text, scan);
+        scan.owners = suffixOwners;
+        suffixes.match(text, scan);
+        scan.owners = substringOwners;
+        scan.seen = new boolean[substringOwners.length];
+        substrings.match(text, scan);
+        return scan.best;
+    }
+
+    private static int register(Map<String, List<Integer>> patterns, String pattern, int owner) {
+        if (pattern.isEmpty()) {
+            return 0;
+        }
+        patterns.computeIfAbsent(pattern, key -> new ArrayList<>()).add(owner);
+        return 1;
+    }
+
+    private static int[][] toOwnerTable(Map<String, List<Integer>> patterns) {
+        return patterns.values().stream()
+                .map(owners -> owners.stream().mapToInt(Integer::intValue).toArray())
+                .toArray(int[][]::new);
+    }
+
+    /**
+     * State of a single message scan: the number of satisfied constraints of every
+     * descriptor and the best match found so far.
+     */
+    private final class Scan implements PatternMatchSink {
+        private final int[] satisfied = new int[required.length];
+        private int[][] owners;
+        private boolean[] seen;
+        private int best = wildcard;
+
+        @Override
+        public void onMatch(int patternId) {
+            if (seen != null) {
+                if (seen[patternId]) {
+                    return;
+                }
+                seen[patternId] = true;
+            }
+            for (int owner : owners[patternId]) {
+                if (++satisfied[owner] == required[owner]
+                    && (best == NOT_FOUND || ranks[owner] < ranks[best])) {
+                    best = owner;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+import com.rainett.javagram.action.annotations.Text;
+import com.rainett.javagram.action.descriptor.ActionDescriptors;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable routing data of a {@link Text} action.
+ * <p>
+ * Empty annotation properties are kept as empty strings, as in the annotation. The kind and the
+ * number of prefix, suffix and substring constraints are computed once, and a regular
+ * expression is compiled once.
+ * </p>
+ *
+ * @param kind            how the action matches a text
+ * @param equals          the exact text
+ * @param pattern         the compiled regular expression, or {@code null} if none is set
+ * @param startsWith      the required prefix
+ * @param endsWith        the required suffix
+ * @param contains        the required substring
+ * @param constraintCount the number of non-empty prefix, suffix and substring constraints
+ */
+record TextDescriptor(Kind kind, String equals, Pattern pattern, String startsWith,
+                      String endsWith, String contains, int constraintCount) {
+    private static final ActionDescriptors<Text, TextDescriptor> DESCRIPTORS =
+            new ActionDescriptors<>(Text.class, TextDescriptor::of);
+
+    /**
+     * Creates the descriptor of a text annotation.
+     *
+     * @param text the annotation
+     * @return the descriptor
+     */
+    static TextDescriptor of(Text text) {
+        Kind kind = !text.equals().isEmpty() ? Kind.EQUALS
+                : !text.regex().isEmpty() ? Kind.REGEX
+                : Kind.GENERAL;
+        Pattern pattern = kind == Kind.REGEX ? Pattern.compile(text.regex()) : null;
+        int constraintCount = (text.startsWith().isEmpty() ? 0 : 1)
+                              + (text.endsWith().isEmpty() ? 0 : 1)
+                              + (text.contains().isEmpty() ? 0 : 1);
+        return new TextDescriptor(kind, text.equals(), pattern, text.startsWith(),
+                text.endsWith(), text.contains(), constraintCount);
+    }
+
+    /**
+     * Returns the cached descriptor of an action class.
+     *
+     * @param actionClass the action class
+     * @return the descriptor, or {@code null} if the class has no {@link Text} annotation
+     */
+    static TextDescriptor of(Class<?> actionClass) {
+        return DESCRIPTORS.get(actionClass);
+    }
+
+    /**
+     * Returns the source of the regular expression.
+     *
+     * @return the regular expression
+     */
+    String regex() {
+        return pattern.pattern();
+    }
+
+    /**
+     * The ways a text action matches a message, in the order of their precedence.
+     */
+    enum Kind {
+        /**
+         * The message equals {@link TextDescriptor#equals()}.
+         */
+        EQUALS,
+
+        /**
+         * The whole message matches {@link TextDescriptor#pattern()}.
+         */
+        REGEX,
+
+        /**
+         * The message satisfies every non-empty prefix, suffix and substring constraint.
+         */
+        GENERAL
+    }
+}
@@ -0,0 +1,103 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+import com.rainett.javagram.action.Action;
+import com.rainett.javagram.action.annotations.Text;
+import com.rainett.javagram.action.index.ActionIndex;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * {@link ActionIndex} for {@link Text} actions.
+ * <p>
+ * Actions are split the same way {@link TextUpdateMatcher} evaluates them: exact texts are
+ * kept in a hash map, regular expressions are compiled into a {@link RegexRouter}, and the prefix,
+ * suffix and substring constraints of all remaining actions are compiled into a
+ * {@link TextConstraintIndex}. Every action keeps its position in the sorted list as a rank,
+ * and the matching action with the lowest rank wins, so the result follows the
+ * {@link TextComparator} precedence exactly.
+ * </p>
+ * <p>
+ * The matching action depends on the message text only, which is therefore the
+ * {@link #routingKey(Update) routing key}.
+ * </p>
+ */
+public class TextIndex implements ActionIndex {
+    private final Action[] actions;
+    private final Map<String, Integer> exactTexts;
+    private final int[] regexRanks;
+    private final RegexRouter regexRouter;
+    private final int[] constraintRanks;
+    private final TextConstraintIndex constraintIndex;
+
+    /**
+     * Compiles the given actions.
+     *
+     * @param actions      the actions, sorted from the highest to the lowest precedence
+     * @param descriptors  the {@link Text} descriptor of every action, in the same order
+     * @param regexRouters the factory of the router evaluating regular expressions
+     */
+    TextIndex(List<Action> actions, List<TextDescriptor> descriptors,
+              RegexRouterFactory regexRouters) {
+        this.actions = actions.toArray(Action[]::new);
+        this.exactTexts = new HashMap<>();
+        List<Integer> regexRankList = new ArrayList<>();
+        List<Integer> constraintRankList = new ArrayList<>();
+        List<TextDescriptor> constraintDescriptors = new ArrayList<>();
+        for (int rank = 0; rank < descriptors.size(); rank++) {
+            TextDescriptor descriptor = descriptors.get(rank);
+            switch (descriptor.kind()) {
+                case EQUALS -> exactTexts.putIfAbsent(descriptor.equals(), rank);
+                case REGEX -> regexRankList.add(rank);
+                case GENERAL -> {
+                    constraintRankList.add(rank);
+                    constraintDescriptors.add(descriptor);
+                }
+            }
+        }
+        this.regexRanks = regexRankList.stream().mapToInt(Integer::intValue).toArray();
+        this.regexRouter = regexRouters.create(regexRankList.stream()
+                .map(rank -> descriptors.get(rank).regex())
+                .toList());
+        this.constraintRanks = constraintRankList.stream().mapToInt(Integer::intValue).toArray();
+        this.constraintIndex = new TextConstraintIndex(constraintDescriptors, constraintRanks);
+    }
+
+    /**
+     * Finds the action with the highest precedence that matches the text of the update.
+     *
+     * @param update the update containing a text message
+     * @return the matching action, or an empty {@link Optional} if no action matches
+     */
+    @Override
+    public Optional<Action> find(Update update) {
+        String messageText = update.getMessage().getText();
+        Integer exactRank = exactTexts.get(messageText);
+        int best = exactRank == null ? Integer.MAX_VALUE : exactRank;
+        if (regexRanks.length > 0 && regexRanks[0] < best) {
+            int regex = regexRouter.find(messageText);
+            if (regex >= 0 && regexRanks[regex] < best) {
+                best = regexRanks[regex];
+            }
+        }
+        int constraint = constraintIndex.find(messageText);
+        if (constraint >= 0 && constraintRanks[constraint] < best) {
+            best = constraintRanks[constraint];
+        }
+        return best == Integer.MAX_VALUE ? Optional.empty() : Optional.of(actions[best]);
+    }
+
+    /**
+     * Returns the message text, which alone determines the matching action.
+     *
+     * @param update the update containing a text message
+     * @return the text of the message
+     */
+    @Override
+    public Object routingKey(Update update) {
+        return update.getMessage().getText();
+    }
+}
@@ -0,0 +1,50 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+import com.rainett.javagram.action.Action;
+import com.rainett.javagram.action.annotations.Text;
+import com.rainett.javagram.action.index.ActionIndex;
+import com.rainett.javagram.action.index.ActionIndexFactory;
+import com.rainett.javagram.config.RoutingConfig;
+import java.util.List;
+
+/**
+ * Builds {@link TextIndex} instances for {@link Text} actions.
+ * Implements the {@link ActionIndexFactory} interface.
+ */
+public class TextIndexFactory implements ActionIndexFactory<Text> {
+    private final RegexRouterFactory regexRouters;
+
+    /**
+     * Constructs a factory that evaluates regular expressions as configured.
+     *
+     * @param routingConfig the routing configuration
+     * @param regexMetrics  the counters updated by the regex engine
+     */
+    public TextIndexFactory(RoutingConfig routingConfig, RegexMetrics regexMetrics) {
+        this.regexRouters = new RegexRouterFactory(routingConfig, regexMetrics);
+    }
+
+    /**
+     * Compiles the constraints of the given text actions into a single index.
+     *
+     * @param actions the text actions, sorted from the highest to the lowest precedence
+     * @return the text index
+     */
+    @Override
+    public ActionIndex create(List<Action> actions) {
+        List<TextDescriptor> descriptors = actions.stream()
+                .map(action -> TextDescriptor.of(action.getClass()))
+                .toList();
+        return new TextIndex(actions, descriptors, regexRouters);
+    }
+
+    /**
+     * Returns the annotation type supported by this factory.
+     *
+     * @return the annotation type
+     */
+    @Override
+    public Class<Text> getAnnotationType() {
+        return Text.class;
+    }
+}
@@ -3,8 +3,11 @@ package com.rainett.javagram.action.plugin.impl.text;
 import com.rainett.javagram.action.actionmatcher.ActionUpdateMatcher;
 import com.rainett.javagram.action.annotations.Text;
 import com.rainett.javagram.action.comparator.AnnotationComparator;
+import com.rainett.javagram.action.index.ActionIndexFactory;
 import com.rainett.javagram.action.plugin.UpdateTypePlugin;
 import com.rainett.javagram.action.updatematcher.UpdateTypeResolver;
+import com.rainett.javagram.config.RoutingConfig;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Component;
 
@@ -18,10 +21,16 @@ import org.springframework.stereotype.Component;
  *   <li>An {@link ActionUpdateMatcher} to match an update against the {@code Text} criteria.</li>
  *   <li>An {@link AnnotationComparator} to compare multiple {@code Text} annotations by their
  *   properties.</li>
+ *   <li>An {@link ActionIndexFactory} to route text updates through a single compiled
+ *   index instead of testing every {@code Text} action.</li>
+ *   <li>{@link RegexMetrics} with the counters of the regex engine.</li>
  * </ul>
  */
 @Component
+@RequiredArgsConstructor
 public class TextPlugin implements UpdateTypePlugin<Text> {
+    private final RoutingConfig routingConfig;
+    private final RegexMetrics regexMetrics = new RegexMetrics();
 
     /**
      * Returns the annotation type supported by this plugin.
@@ -76,4 +85,34 @@ public class TextPlugin implements UpdateTypePlugin<Text> {
     public AnnotationComparator<Text> getAnnotationComparator() {
         return new TextComparator();
     }
+
+    /**
+     * Creates and returns an {@link ActionIndexFactory} for {@link Text} annotations.
+     * <p>
+     * The factory compiles exact texts, prefixes, suffixes and substrings of all text actions
+     * into one index, so a message is scanned once regardless of the number of actions.
+     * Regular expressions are evaluated with the engine configured in
+     * {@code bot.routing.regex-engine}.
+     * </p>
+     *
+     * @return a new {@link TextIndexFactory} instance.
+     */
+    @Bean("textIndexFactory")
+    public ActionIndexFactory<Text> getActionIndexFactory() {
+        return new TextIndexFactory(routingConfig, regexMetrics);
+    }
+
+    /**
+     * Returns the {@link RegexMetrics} updated by the text index.
+     * <p>
+     * The counters are only updated by the {@code linear} regex engine, when a regular
+     * expression falls back to {@code java.util.regex}.
+     * </p>
+     *
+     * @return the regex counters
+     */
+    @Bean("textRegexMetrics")
+    public RegexMetrics getRegexMetrics() {
+        return regexMetrics;
+    }
 }
@@ -1,6 +1,7 @@
 package com.rainett.javagram.action.plugin.impl.text;
 
 import com.rainett.javagram.action.annotations.Text;
+import com.rainett.javagram.action.updatematcher.UpdateShape;
 import com.rainett.javagram.action.updatematcher.UpdateTypeResolver;
 import org.telegram.telegrambots.meta.api.objects.Update;
 
@@ -35,4 +36,13 @@ public class TextResolver implements UpdateTypeResolver<Text> {
     public Class<Text> getAnnotationType() {
         return Text.class;
     }
+
+    /**
+     * Returns the shape of a message that has text.
+     * @return the shape bits required by this resolver
+     */
+    @Override
+    public int getShape() {
+        return UpdateShape.MESSAGE | UpdateShape.TEXT;
+    }
 }
@@ -1,10 +1,8 @@
 package com.rainett.javagram.action.plugin.impl.text;
 
+import com.rainett.javagram.action.Action;
 import com.rainett.javagram.action.actionmatcher.AbstractActionUpdateMatcher;
 import com.rainett.javagram.action.annotations.Text;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.function.BiPredicate;
 import org.telegram.telegrambots.meta.api.objects.Update;
 
 /**
@@ -12,10 +10,18 @@ import org.telegram.telegrambots.meta.api.objects.Update;
  * It checks if the text matches the criteria defined in the annotation.
  */
 public class TextUpdateMatcher extends AbstractActionUpdateMatcher<Text> {
-    private static final List<CaseMatcher> CASE_MATCHERS = List.of(
-            new EqualsMatcher(),
-            new RegexMatcher()
-    );
+
+    /**
+     * Matches the update against the cached {@link TextDescriptor} of the action class.
+     *
+     * @param action the action to test
+     * @param update received update from Telegram
+     * @return {@code true} if the update matches the action; {@code false} otherwise
+     */
+    @Override
+    public boolean test(Action action, Update update) {
+        return match(TextDescriptor.of(action.getClass()), update.getMessage().getText());
+    }
 
     /**
      * Matches action's annotation and update.
@@ -28,13 +34,7 @@ public class TextUpdateMatcher extends AbstractActionUpdateMatcher<Text> {
      */
     @Override
     protected boolean match(Text annotation, Update update) {
-        String messageText = update.getMessage().getText();
-        for (CaseMatcher caseMatcher : CASE_MATCHERS) {
-            if (caseMatcher.isCase(annotation)) {
-                return caseMatcher.test(annotation, messageText);
-            }
-        }
-        return matchGeneral(annotation, messageText);
+        return match(TextDescriptor.of(annotation), update.getMessage().getText());
     }
 
     /**
@@ -46,52 +46,20 @@ public class TextUpdateMatcher extends AbstractActionUpdateMatcher<Text> {
         return Text.class;
     }
 
-    private static boolean matchGeneral(Text text, String messageText) {
-        return collectGeneralMatchers(text).stream()
-                .allMatch(matcher -> matcher.test(text, messageText));
-    }
-
-    private static List<BiPredicate<Text, String>> collectGeneralMatchers(Text text) {
-        List<BiPredicate<Text, String>> generalMatchers = new ArrayList<>();
-        if (!text.startsWith().isEmpty()) {
-            generalMatchers.add((t, s) -> s.startsWith(t.startsWith()));
-        }
-        if (!text.endsWith().isEmpty()) {
-            generalMatchers.add((t, s) -> s.endsWith(t.endsWith()));
-        }
-        if (!text.contains().isEmpty()) {
-            generalMatchers.add((t, s) -> s.contains(t.contains()));
-        }
-        return generalMatchers;
-    }
-
-    private interface CaseMatcher {
-        boolean test(Text text, String messageText);
-
-        boolean isCase(Text text);
-    }
-
-    private static class EqualsMatcher implements CaseMatcher {
-        @Override
-        public boolean test(Text text, String messageText) {
-            return messageText.equals(text.equals());
-        }
-
-        @Override
-        public boolean isCase(Text text) {
-            return !text.equals().isEmpty();
-        }
+    private static boolean match(TextDescriptor descriptor, String messageText) {
+        return switch (descriptor.kind()) {
+            case EQUALS -> messageText.equals(descriptor.equals());
+            case REGEX -> descriptor.pattern().matcher(messageText).matches();
+            case GENERAL -> matchGeneral(descriptor, messageText);
+        };
     }
 
-    private static class RegexMatcher implements CaseMatcher {
-        @Override
-        public boolean test(Text text, String messageText) {
-            return messageText.matches(text.regex());
-        }
-
-        @Override
-        public boolean isCase(Text text) {
-            return !text.regex().isEmpty();
-        }
+    private static boolean matchGeneral(TextDescriptor descriptor, String messageText) {
+        String prefix = descriptor.startsWith();
+        String suffix = descriptor.endsWith();
+        String substring = descriptor.contains();
+        return (prefix.isEmpty() || messageText.startsWith(prefix))
+               && (suffix.isEmpty() || messageText.endsWith(suffix))
+               && (substring.isEmpty() || messageText.contains(substring));
     }
 }
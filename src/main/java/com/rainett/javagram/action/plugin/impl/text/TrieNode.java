@@ -0,0 +1,91 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+import java.util.Arrays;
+
+/**
+ * Node of a character trie shared by {@link PatternTrie} and {@link AhoCorasickAutomaton}.
+ * <p>
+ * Children are kept in a sorted label array and looked up by binary search, which keeps
+ * the trie compact for the sparse alphabets of real keyword sets.
+ * </p>
+ */
+final class TrieNode {
+    private static final int[] NO_PATTERNS = new int[0];
+
+    private char[] labels = new char[0];
+    private TrieNode[] children = new TrieNode[0];
+    private int[] patterns = NO_PATTERNS;
+    TrieNode fail;
+    TrieNode output;
+
+    /**
+     * Returns the child reached by the given character.
+     *
+     * @param c the character
+     * @return the child, or {@code null} if there is no such child
+     */
+    TrieNode child(char c) {
+        int position = Arrays.binarySearch(labels, c);
+        return position >= 0 ? children[position] : null;
+    }
+
+    /**
+     * Returns the child reached by the given character, creating it if necessary.
+     *
+     * @param c the character
+     * @return the existing or created child
+     */
+    TrieNode addChild(char c) {
+        int position = Arrays.binarySearch(labels, c);
+        if (position >= 0) {
+            return children[position];
+        }
+        int insertion = -position - 1;
+        TrieNode node = new TrieNode();
+        labels = insert(labels, insertion, c);
+        children = insert(children, insertion, node);
+        return node;
+    }
+
+    /**
+     * Marks the given pattern as ending at this node.
+     *
+     * @param patternId the pattern id
+     */
+    void addPattern(int patternId) {
+        patterns = Arrays.copyOf(patterns, patterns.length + 1);
+        patterns[patterns.length - 1] = patternId;
+    }
+
+    int[] patterns() {
+        return patterns;
+    }
+
+    boolean hasPatterns() {
+        return patterns.length > 0;
+    }
+
+    TrieNode[] children() {
+        return children;
+    }
+
+    char[] labels() {
+        return labels;
+    }
+
+    private static char[] insert(char[] array, int index, char value) {
+        char[] result = new char[array.length + 1];
+        System.arraycopy(array, 0, result, 0, index);
+        result[index] = value;
+        System.arraycopy(array, index, result, index + 1, array.length - index);
+        return result;
+    }
+
+    private static TrieNode[] insert(TrieNode[] array, int index, TrieNode value) {
+        TrieNode[] result = new TrieNode[array.length + 1];
+        System.arraycopy(array, 0, result, 0, index);
+        result[index] = value;
+        System.arraycopy(array, index, result, index + 1, array.length - index);
+        return result;
+    }
+}
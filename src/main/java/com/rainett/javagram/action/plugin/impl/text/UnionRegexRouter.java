@@ -0,0 +1,137 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link RegexRouter} that merges regular expressions into a single alternation.
+ * <p>
+ * Consecutive regular expressions are combined into {@code (?:(r1)|(r2)|...)}. The JDK tries
+ * the alternatives in order and {@link Matcher#matches()} only accepts an alternative that
+ * covers the whole text, so the first captured alternative is the first matching regular
+ * expression. Every alternative is a capturing group, which tells which one matched.
+ * </p>
+ * <p>
+ * Regular expressions that can't be safely embedded into a larger pattern — those with
+ * back references, named groups, inline flags or {@code \Q} quoting — are kept as separate
+ * patterns, and the precedence order is preserved across all segments.
+ * </p>
+ */
+class UnionRegexRouter implements RegexRouter {
+    private static final String INLINE_FLAGS = "idmsuxU-";
+
+    private final List<Segment> segments = new ArrayList<>();
+
+    UnionRegexRouter(List<String> regexes) {
+        List<Pattern> pending = new ArrayList<>();
+        int pendingOffset = 0;
+        for (int i = 0; i < regexes.size(); i++) {
+            Pattern pattern = Pattern.compile(regexes.get(i));
+            if (isEmbeddable(pattern.pattern())) {
+                if (pending.isEmpty()) {
+                    pendingOffset = i;
+                }
+                pending.add(pattern);
+                continue;
+            }
+            flush(pending, pendingOffset);
+            segments.add(new Segment(pattern, null, i));
+        }
+        flush(pending, pendingOffset);
+    }
+
+    @Override
+    public int find(String text) {
+        for (Segment segment : segments) {
+            int position = segment.find(text);
+            if (position >= 0) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private void flush(List<Pattern> pending, int offset) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (pending.size() == 1) {
+            segments.add(new Segment(pending.get(0), null, offset));
+            pending.clear();
+            return;
+        }
+        StringBuilder union = new StringBuilder("(?:");
+        int[] groups = new int[pending.size()];
+        int group = 1;
+        for (int i = 0; i < pending.size(); i++) {
+            Pattern pattern = pending.get(i);
+            if (i > 0) {
+                union.append('|');
+            }
+            union.append('(').append(pattern.pattern()).append(')');
+            groups[i] = group;
+            group += 1 + pattern.matcher("").groupCount();
+        }
+        union.append(')');
+        segments.add(new Segment(Pattern.compile(union.toString()), groups, offset));
+        pending.clear();
+    }
+
+    /**
+     * Checks whether the regular expression keeps its meaning inside a larger pattern.
+     *
+     * @param regex the regular expression
+     * @return {@code true} if the regular expression can be merged with others
+     */
+    static boolean isEmbeddable(String regex) {
+        for (int i = 0; i < regex.length() - 1; i++) {
+            char c = regex.charAt(i);
+            char next = regex.charAt(i + 1);
+            if (c == '\\') {
+                if ((next >= '1' && next <= '9') || next == 'k' || next == 'Q') {
+                    return false;
+                }
+                i++;
+            } else if (c == '(' && next == '?' && i + 2 < regex.length()) {
+                char kind = regex.charAt(i + 2);
+                if (INLINE_FLAGS.indexOf(kind) >= 0) {
+                    return false;
+                }
+                boolean namedGroup = kind == '<' && i + 3 < regex.length()
+                                     && Character.isLetter(regex.charAt(i + 3));
+                if (namedGroup) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A single compiled pattern covering one or more consecutive regular expressions.
+     *
+     * @param pattern the compiled pattern
+     * @param groups  the capturing group of every merged regular expression, or {@code null}
+     *                if the pattern holds a single regular expression
+     * @param offset  the position of the first regular expression of this segment
+     */
+    private record Segment(Pattern pattern, int[] groups, int offset) {
+        int find(String text) {
+            Matcher matcher = pattern.matcher(text);
+            if (!matcher.matches()) {
+                return -1;
+            }
+            if (groups == null) {
+                return offset;
+            }
+            for (int i = 0; i < groups.length; i++) {
+                if (matcher.start(groups[i]) >= 0) {
+                    return offset + i;
+                }
+            }
+            return -1;
+        }
+    }
+}
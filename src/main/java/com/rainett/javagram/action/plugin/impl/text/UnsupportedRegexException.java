@@ -0,0 +1,16 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+/**
+ * Thrown when a regular expression uses a construct the linear-time engine can't evaluate.
+ */
+class UnsupportedRegexException extends RuntimeException {
+
+    /**
+     * Constructs a new UnsupportedRegexException describing the unsupported construct.
+     *
+     * @param message the unsupported construct
+     */
+    UnsupportedRegexException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,92 @@
+package com.rainett.javagram.action.updatematcher;
+
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * Bit flags describing which fields of a Telegram {@link Update} are populated.
+ * <p>
+ * The shape of an update is computed once per update with {@link #of(Update)} and is then used
+ * as an index into the dispatch table of the {@link UpdateTypeClassifier}. Resolvers declare the
+ * bits they require through {@link UpdateTypeResolver#getShape()}.
+ * </p>
+ */
+public final class UpdateShape {
+    /**
+     * Shape of a resolver that does not declare one and must be evaluated with
+     * {@link UpdateTypeResolver#test(Update)}.
+     */
+    public static final int UNDECLARED = 0;
+    public static final int MESSAGE = 1;
+    public static final int TEXT = 1 << 1;
+    public static final int COMMAND = 1 << 2;
+    public static final int CALLBACK_QUERY = 1 << 3;
+    public static final int INLINE_QUERY = 1 << 4;
+    public static final int CHOSEN_INLINE_QUERY = 1 << 5;
+    public static final int EDITED_MESSAGE = 1 << 6;
+    public static final int CHANNEL_POST = 1 << 7;
+    public static final int EDITED_CHANNEL_POST = 1 << 8;
+    public static final int MY_CHAT_MEMBER = 1 << 9;
+    public static final int CHAT_MEMBER = 1 << 10;
+    public static final int CHAT_JOIN_REQUEST = 1 << 11;
+
+    /**
+     * Number of distinct bits; every shape is lower than {@code 1 << BITS}.
+     */
+    public static final int BITS = 12;
+
+    private UpdateShape() {
+    }
+
+    /**
+     * Computes the shape of the given update.
+     * <p>
+     * {@link #TEXT} and {@link #COMMAND} describe the message of the update, so they are only
+     * set together with {@link #MESSAGE}.
+     * </p>
+     *
+     * @param update the update to inspect
+     * @return the bitmask of populated fields
+     */
+    public static int of(Update update) {
+        int shape = 0;
+        if (update.hasMessage()) {
+            shape |= MESSAGE | ofMessage(update.getMessage());
+        }
+        if (update.hasCallbackQuery()) {
+            shape |= CALLBACK_QUERY;
+        }
+        if (update.hasInlineQuery()) {
+            shape |= INLINE_QUERY;
+        }
+        if (update.hasChosenInlineQuery()) {
+            shape |= CHOSEN_INLINE_QUERY;
+        }
+        if (update.hasEditedMessage()) {
+            shape |= EDITED_MESSAGE;
+        }
+        if (update.hasChannelPost()) {
+            shape |= CHANNEL_POST;
+        }
+        if (update.hasEditedChannelPost()) {
+            shape |= EDITED_CHANNEL_POST;
+        }
+        if (update.hasMyChatMember()) {
+            shape |= MY_CHAT_MEMBER;
+        }
+        if (update.hasChatMember()) {
+            shape |= CHAT_MEMBER;
+        }
+        if (update.hasChatJoinRequest()) {
+            shape |= CHAT_JOIN_REQUEST;
+        }
+        return shape;
+    }
+
+    private static int ofMessage(Message message) {
+        if (!message.hasText()) {
+            return 0;
+        }
+        return message.isCommand() ? TEXT | COMMAND : TEXT;
+    }
+}
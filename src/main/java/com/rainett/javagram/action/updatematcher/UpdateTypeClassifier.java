@@ -0,0 +1,104 @@
+package com.rainett.javagram.action.updatematcher;
+
+import com.rainett.javagram.exceptions.UnknownUpdateTypeException;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * Resolves the update type of an {@link Update} with a single table lookup.
+ * <p>
+ * At construction, the resolvers are ordered by descending {@link
+ * UpdateTypeResolver#getPriority() priority}. Ties are broken by the number of declared
+ * {@link UpdateShape} bits (the more specific resolver wins) and then by the name of the
+ * annotation type, so the result never depends on the order in which the resolvers were
+ * registered.
+ * </p>
+ * <p>
+ * For every possible shape, the classifier precomputes the candidates that may accept it: the
+ * resolvers without a declared shape, in order, up to the first resolver whose declared shape is
+ * contained in it. Classifying an update computes its shape once and walks that short list,
+ * which for the built-in resolvers consists of exactly one entry.
+ * </p>
+ */
+public final class UpdateTypeClassifier {
+    private static final Comparator<UpdateTypeResolver<?>> PRIORITY_ORDER =
+            Comparator.<UpdateTypeResolver<?>>comparingInt(UpdateTypeResolver::getPriority)
+                    .thenComparingInt(resolver -> Integer.bitCount(resolver.getShape()))
+                    .reversed()
+                    .thenComparing(resolver -> resolver.getAnnotationType().getName());
+
+    private final Candidate[][] table;
+
+    /**
+     * Constructs a classifier for the given resolvers.
+     *
+     * @param resolvers the update type resolvers; must not be {@code null}
+     */
+    public UpdateTypeClassifier(List<UpdateTypeResolver<?>> resolvers) {
+        List<UpdateTypeResolver<?>> ordered = new ArrayList<>(resolvers);
+        ordered.sort(PRIORITY_ORDER);
+        this.table = new Candidate[1 << UpdateShape.BITS][];
+        Map<List<Candidate>, Candidate[]> shared = new HashMap<>();
+        for (int shape = 0; shape < table.length; shape++) {
+            List<Candidate> candidates = candidatesFor(ordered, shape);
+            table[shape] = shared.computeIfAbsent(candidates,
+                    key -> key.toArray(new Candidate[0]));
+        }
+    }
+
+    /**
+     * Resolves the annotation type of the update type the given update belongs to.
+     *
+     * @param update the update to classify; must not be {@code null}
+     * @return the annotation type of the winning resolver
+     * @throws UnknownUpdateTypeException if no resolver accepts the update
+     */
+    public Class<? extends Annotation> classify(Update update) {
+        Class<? extends Annotation> annotationType = resolve(update);
+        if (annotationType == null) {
+            throw new UnknownUpdateTypeException("Unknown update type: " + update);
+        }
+        return annotationType;
+    }
+
+    /**
+     * Resolves the annotation type of the update type the given update belongs to, without
+     * throwing when no resolver accepts it.
+     *
+     * @param update the update to classify; must not be {@code null}
+     * @return the annotation type of the winning resolver, or {@code null} if there is none
+     */
+    public Class<? extends Annotation> resolve(Update update) {
+        for (Candidate candidate : table[UpdateShape.of(update)]) {
+            if (candidate.declared() || candidate.resolver().test(update)) {
+                return candidate.annotationType();
+            }
+        }
+        return null;
+    }
+
+    private static List<Candidate> candidatesFor(List<UpdateTypeResolver<?>> ordered,
+                                                 int shape) {
+        List<Candidate> candidates = new ArrayList<>();
+        for (UpdateTypeResolver<?> resolver : ordered) {
+            int required = resolver.getShape();
+            if (required == UpdateShape.UNDECLARED) {
+                candidates.add(new Candidate(resolver, resolver.getAnnotationType(), false));
+            } else if ((shape & required) == required) {
+                candidates.add(new Candidate(resolver, resolver.getAnnotationType(), true));
+                break;
+            }
+        }
+        return candidates;
+    }
+
+    private record Candidate(UpdateTypeResolver<?> resolver,
+                             Class<? extends Annotation> annotationType,
+                             boolean declared) {
+    }
+}
@@ -13,10 +13,22 @@ import org.telegram.telegrambots.meta.api.objects.Update;
  * metadata provided by annotations.
  * </p>
  *
+ * <p>
+ * Resolvers may additionally declare the {@link UpdateShape} they accept and a priority. A
+ * declared shape lets the {@link UpdateTypeClassifier} resolve updates with a table lookup
+ * instead of calling {@link #test(Update)}; the priority decides which resolver wins when
+ * several of them accept the same update.
+ * </p>
+ *
  * @param <T> the type of annotation used to identify the update type.
  */
 public interface UpdateTypeResolver<T extends Annotation> extends Predicate<Update> {
 
+    /**
+     * Priority of resolvers that do not declare one.
+     */
+    int DEFAULT_PRIORITY = 0;
+
     /**
      * Evaluates whether the given Telegram update meets the criteria defined by this resolver.
      *
@@ -35,4 +47,30 @@ public interface UpdateTypeResolver<T extends Annotation> extends Predicate<Upda
      * @return the {@link Class} object representing the annotation type {@code T}
      */
     Class<T> getAnnotationType();
+
+    /**
+     * Returns the bits of {@link UpdateShape} that an update must have for this resolver to
+     * accept it.
+     * <p>
+     * A declared shape must be equivalent to {@link #test(Update)}: every update containing
+     * these bits is accepted without calling the predicate. Resolvers that cannot be expressed
+     * as a shape return {@link UpdateShape#UNDECLARED} and are evaluated with
+     * {@link #test(Update)}.
+     * </p>
+     *
+     * @return the required shape bits, or {@link UpdateShape#UNDECLARED}
+     */
+    default int getShape() {
+        return UpdateShape.UNDECLARED;
+    }
+
+    /**
+     * Returns the priority of this resolver. When several resolvers accept the same update, the
+     * one with the highest priority is chosen.
+     *
+     * @return the priority of this resolver
+     */
+    default int getPriority() {
+        return DEFAULT_PRIORITY;
+    }
 }
@@ -1,45 +1,95 @@
 package com.rainett.javagram.bot;
 
+import com.rainett.javagram.bot.polling.OffsetTrackingBot;
+import com.rainett.javagram.bot.polling.OffsetWatermark;
+import com.rainett.javagram.bot.polling.PipelinedBotSession;
 import com.rainett.javagram.config.BotConfig;
-import com.rainett.javagram.update.service.UpdateService;
+import com.rainett.javagram.config.PollingConfig;
+import com.rainett.javagram.update.ingress.Admission;
+import com.rainett.javagram.update.ingress.UpdateIngress;
 import jakarta.annotation.PostConstruct;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.ObjectProvider;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.TelegramBotsApi;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.generics.BotSession;
 import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 
 /**
  * LongPollingBot is a Telegram bot implementation that uses long polling to receive updates.
  * <p>
  * It automatically registers itself with the Telegram Bots API upon initialization and delegates
- * update processing to an injected {@link UpdateService}.
+ * received updates to an injected {@link UpdateIngress}. The session fetching the updates and
+ * the limit and timeout of its requests are configured by a {@link PollingConfig}.
+ * </p>
+ * <p>
+ * With an {@link OffsetWatermark}, the {@link PipelinedBotSession} only confirms updates to
+ * Telegram once they are fully processed, and resumes from the persisted watermark after a
+ * restart.
  * </p>
  */
 @Slf4j
-public class LongPollingBot extends TelegramLongPollingBot {
+public class LongPollingBot extends TelegramLongPollingBot implements OffsetTrackingBot {
     private final BotConfig botConfig;
-    private final ObjectProvider<UpdateService> serviceProvider;
+    private final PollingConfig pollingConfig;
+    private final ObjectProvider<UpdateIngress> ingressProvider;
+    private final OffsetWatermark offsetWatermark;
 
     /**
-     * Constructs a LongPollingBot with the specified configuration and update service provider.
+     * Constructs a LongPollingBot with the specified configuration and update ingress provider,
+     * polling with the default settings.
      *
      * @param botConfig the bot configuration containing credentials and settings.
-     * @param service   the provider for the {@link UpdateService} that handles incoming updates.
+     * @param ingress   the provider for the {@link UpdateIngress} that receives incoming updates.
      */
-    public LongPollingBot(BotConfig botConfig, ObjectProvider<UpdateService> service) {
-        super(botConfig.getToken());
+    public LongPollingBot(BotConfig botConfig, ObjectProvider<UpdateIngress> ingress) {
+        this(botConfig, new PollingConfig(), ingress);
+    }
+
+    /**
+     * Constructs a LongPollingBot with the specified configuration, polling settings and update
+     * ingress provider.
+     *
+     * @param botConfig     the bot configuration containing credentials and settings.
+     * @param pollingConfig the session and request settings of long polling.
+     * @param ingress       the provider for the {@link UpdateIngress} that receives incoming
+     *                      updates.
+     */
+    public LongPollingBot(BotConfig botConfig, PollingConfig pollingConfig,
+                          ObjectProvider<UpdateIngress> ingress) {
+        this(botConfig, pollingConfig, ingress, null);
+    }
+
+    /**
+     * Constructs a LongPollingBot whose processed updates are tracked by a watermark.
+     *
+     * @param botConfig       the bot configuration containing credentials and settings.
+     * @param pollingConfig   the session and request settings of long polling.
+     * @param ingress         the provider for the {@link UpdateIngress} that receives incoming
+     *                        updates.
+     * @param offsetWatermark the watermark of the processed updates, or {@code null} to confirm
+     *                        updates as soon as they are fetched.
+     */
+    public LongPollingBot(BotConfig botConfig, PollingConfig pollingConfig,
+                          ObjectProvider<UpdateIngress> ingress,
+                          OffsetWatermark offsetWatermark) {
+        super(botOptions(pollingConfig), botConfig.getToken());
         this.botConfig = botConfig;
-        this.serviceProvider = service;
+        this.pollingConfig = pollingConfig;
+        this.ingressProvider = ingress;
+        this.offsetWatermark = offsetWatermark;
     }
 
     /**
      * Processes an incoming update from Telegram.
      * <p>
-     * The update is passed to the available {@link UpdateService} for further processing.
-     * If no {@code UpdateService} is available, an {@link IllegalStateException} is thrown.
+     * The update is passed to the available {@link UpdateIngress} for further processing.
+     * If no {@code UpdateIngress} is available, an {@link IllegalStateException} is thrown.
+     * The update has already been confirmed to Telegram, so a rejected update is lost.
      * </p>
      *
      * @param update the update received from Telegram.
@@ -47,13 +97,31 @@ public class LongPollingBot extends TelegramLongPollingBot {
     @Override
     public void onUpdateReceived(Update update) {
         log.info("Received update: {}", update);
-        UpdateService updateService = serviceProvider.getIfAvailable();
-        if (updateService == null) {
-            String errorMessage = "UpdateService is not available";
-            log.error(errorMessage);
-            throw new IllegalStateException(errorMessage);
+        if (ingress().submit(update) == Admission.REJECTED) {
+            log.warn("Update {} was rejected by the ingress and is lost", update.getUpdateId());
+        }
+    }
+
+    /**
+     * Processes a batch of updates fetched by one request.
+     * <p>
+     * The whole batch is passed to {@link UpdateIngress#submitAll(List)}, so that it can be
+     * routed in one pass and its chats processed in parallel, instead of one update at a time.
+     * If no {@code UpdateIngress} is available, an {@link IllegalStateException} is thrown.
+     * </p>
+     *
+     * @param updates the updates received from Telegram.
+     */
+    @Override
+    public void onUpdatesReceived(List<Update> updates) {
+        log.info("Received {} updates", updates.size());
+        List<Admission> admissions = ingress().submitAll(updates);
+        for (int i = 0; i < admissions.size(); i++) {
+            if (admissions.get(i) == Admission.REJECTED) {
+                log.warn("Update {} was rejected by the ingress and is lost",
+                        updates.get(i).getUpdateId());
+            }
         }
-        updateService.handleUpdate(update);
     }
 
     /**
@@ -66,25 +134,67 @@ public class LongPollingBot extends TelegramLongPollingBot {
         return botConfig.getUsername();
     }
 
+    /**
+     * Returns the watermark of the processed updates.
+     *
+     * @return the watermark, or {@code null} if offsets are not tracked.
+     */
+    @Override
+    public OffsetWatermark getOffsetWatermark() {
+        return offsetWatermark;
+    }
+
     /**
      * Registers the bot with the Telegram Bots API after construction.
      * <p>
      * This method is automatically invoked by Spring after bean construction. It attempts to
-     * register the bot with a {@link DefaultBotSession} and logs the result.
+     * register the bot with a {@link DefaultBotSession}, or a {@link PipelinedBotSession} if
+     * {@code bot.polling.engine} is {@code pipelined}, and logs the result.
      * </p>
      *
-     * @throws IllegalStateException if registration with the Telegram API fails.
+     * @throws IllegalStateException if registration with the Telegram API fails, or if offsets
+     *                               are tracked without the pipelined engine.
      */
     @PostConstruct
     private void init() {
+        if (offsetWatermark != null
+                && pollingConfig.getEngine() != PollingConfig.Engine.PIPELINED) {
+            String errorMessage = "bot.polling.offset-file requires the pipelined engine";
+            log.error(errorMessage);
+            throw new IllegalStateException(errorMessage);
+        }
         try {
-            TelegramBotsApi botsApi = new TelegramBotsApi(DefaultBotSession.class);
+            TelegramBotsApi botsApi = new TelegramBotsApi(sessionClass());
             botsApi.registerBot(this);
-            log.info("LongPollingBot registered successfully with username: {}", getBotUsername());
+            log.info("LongPollingBot registered successfully with username: {} ({} engine)",
+                    getBotUsername(), pollingConfig.getEngine());
         } catch (TelegramApiException e) {
             String errorMessage = "Failed to register bot with Telegram Bots API";
             log.error(errorMessage, e);
             throw new IllegalStateException(errorMessage, e);
         }
     }
+
+    private UpdateIngress ingress() {
+        UpdateIngress updateIngress = ingressProvider.getIfAvailable();
+        if (updateIngress == null) {
+            String errorMessage = "UpdateIngress is not available";
+            log.error(errorMessage);
+            throw new IllegalStateException(errorMessage);
+        }
+        return updateIngress;
+    }
+
+    private Class<? extends BotSession> sessionClass() {
+        return pollingConfig.getEngine() == PollingConfig.Engine.PIPELINED
+                ? PipelinedBotSession.class
+                : DefaultBotSession.class;
+    }
+
+    private static DefaultBotOptions botOptions(PollingConfig pollingConfig) {
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setGetUpdatesLimit(pollingConfig.getLimit());
+        options.setGetUpdatesTimeout((int) pollingConfig.getTimeout().toSeconds());
+        return options;
+    }
 }
@@ -0,0 +1,18 @@
+package com.rainett.javagram.bot.polling;
+
+/**
+ * Long polling bot whose processed updates are tracked by an {@link OffsetWatermark}.
+ * <p>
+ * A {@link PipelinedBotSession} registered with such a bot requests updates from the
+ * watermark, so that Telegram only confirms the updates that were fully processed.
+ * </p>
+ */
+public interface OffsetTrackingBot {
+
+    /**
+     * Returns the watermark of the processed updates of the bot.
+     *
+     * @return the watermark, or {@code null} if offsets are not tracked
+     */
+    OffsetWatermark getOffsetWatermark();
+}
@@ -0,0 +1,302 @@
+package com.rainett.javagram.bot.polling;
+
+import com.rainett.javagram.update.service.UpdateCompletionListener;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * Low watermark of the processed updates of a long polling bot, persisted to a local file.
+ * <p>
+ * The {@link PipelinedBotSession} tracks every update it fetches with {@link #begin(int)}, and
+ * the update is completed when its {@link UpdateCompletionListener} is notified. The watermark
+ * is the lowest tracked update id that is not completed yet, or the id following the last
+ * tracked update if all are completed: every update below it has been fully processed.
+ * Updates complete in any order. A completion only records the update, and advances the
+ * watermark if the update was the lowest one in flight, so fast updates never wait for slow
+ * ones.
+ * </p>
+ * <p>
+ * The watermark and the ids of the completed updates above it are written to the file
+ * periodically and on {@link #close()}. The file is replaced atomically, so it holds either
+ * the previous or the new state after a crash. On restart, polling resumes from the persisted
+ * watermark, and updates completed above it are not processed again.
+ * </p>
+ * <p>
+ * Telegram chooses the id of the next update randomly after a week without updates, so the
+ * ids may restart far below a persisted watermark. Updates fetched more than
+ * {@value #MAX_REPLAY_GAP} ids below the watermark are taken as such a restart:
+ * {@link #rebase(int)} then moves the watermark down to them and forgets the tracked updates.
+ * Updates just below the watermark are processed updates that Telegram repeats, and are
+ * skipped.
+ * </p>
+ */
+@Slf4j
+public class OffsetWatermark implements UpdateCompletionListener, AutoCloseable {
+    private static final String WATERMARK_KEY = "watermark=";
+    private static final String COMPLETED_KEY = "completed=";
+
+    /**
+     * Distance below the watermark beyond which fetched update ids are taken as a restart of
+     * the ids by Telegram rather than processed updates repeated.
+     */
+    static final int MAX_REPLAY_GAP = 1_000_000;
+
+    private final Path file;
+    private final ScheduledExecutorService flusher;
+    private final TreeMap<Integer, Boolean> tracked = new TreeMap<>();
+    private int watermark;
+    private long version;
+    private long flushedVersion;
+
+    /**
+     * Loads the watermark from the file, if it exists, and flushes it every
+     * {@code flushInterval}.
+     *
+     * @param file          the file the watermark is persisted to
+     * @param flushInterval the interval between flushes, or {@code null} to only flush on
+     *                      {@link #flush()} and {@link #close()}
+     * @throws UncheckedIOException  if the file cannot be read
+     * @throws IllegalStateException if the file is malformed
+     */
+    public OffsetWatermark(Path file, Duration flushInterval) {
+        this.file = file;
+        load();
+        if (flushInterval == null) {
+            flusher = null;
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "javagram-offset-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = Math.max(1, flushInterval.toMillis());
+        flusher.scheduleWithFixedDelay(this::flushQuietly, millis, millis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the watermark. Every update below it has been processed.
+     *
+     * @return the offset to resume polling from
+     */
+    public synchronized int getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * Returns the number of tracked updates that are not completed.
+     *
+     * @return the number of updates in flight
+     */
+    public synchronized int getInFlight() {
+        int inFlight = 0;
+        for (boolean completed : tracked.values()) {
+            if (!completed) {
+                inFlight++;
+            }
+        }
+        return inFlight;
+    }
+
+    /**
+     * Starts tracking an update.
+     *
+     * @param updateId the id of the fetched update
+     * @return {@code true} if the update is new, {@code false} if it is below the watermark or
+     *         already tracked, in which case it must not be processed again
+     */
+    public synchronized boolean begin(int updateId) {
+        if (updateId < watermark || tracked.containsKey(updateId)) {
+            return false;
+        }
+        tracked.put(updateId, false);
+        return true;
+    }
+
+    /**
+     * Moves the watermark down to a fetched update id if the id is more than
+     * {@value #MAX_REPLAY_GAP} below it, which happens when Telegram restarted the update ids.
+     * Otherwise the update was processed already and nothing changes.
+     *
+     * @param updateId the lowest id of the fetched updates
+     * @return {@code true} if the watermark was moved down to the update id
+     */
+    public synchronized boolean rebase(int updateId) {
+        if ((long) watermark - updateId <= MAX_REPLAY_GAP) {
+            return false;
+        }
+        log.warn("Update {} is far below the watermark {}, Telegram restarted the update ids: "
+                 + "resuming long polling from it", updateId, watermark);
+        tracked.clear();
+        watermark = updateId;
+        version++;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Completes a tracked update and advances the watermark past the completed updates at the
+     * bottom of the tracked ones. Updates that are not tracked are ignored.
+     *
+     * @param updateId the id of the processed update
+     */
+    public synchronized void complete(int updateId) {
+        if (tracked.replace(updateId, true) == null) {
+            return;
+        }
+        version++;
+        int previous = watermark;
+        Map.Entry<Integer, Boolean> lowest = tracked.firstEntry();
+        while (lowest != null && lowest.getValue()) {
+            watermark = lowest.getKey() + 1;
+            tracked.pollFirstEntry();
+            lowest = tracked.firstEntry();
+        }
+        if (watermark != previous) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Completes the update.
+     *
+     * @param update the processed update
+     */
+    @Override
+    public void onUpdateCompleted(Update update) {
+        Integer updateId = update.getUpdateId();
+        if (updateId != null) {
+            complete(updateId);
+        }
+    }
+
+    /**
+     * Waits until the watermark moves past the given value.
+     *
+     * @param from    the watermark the caller has seen
+     * @param timeout the maximum time to wait
+     * @return {@code true} if the watermark advanced
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized boolean awaitAdvance(int from, Duration timeout)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (watermark == from) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Writes the watermark and the completed updates above it to the file, if they changed
+     * since the last flush.
+     *
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public void flush() {
+        String content;
+        long snapshotVersion;
+        synchronized (this) {
+            if (version == flushedVersion) {
+                return;
+            }
+            snapshotVersion = version;
+            content = serialize();
+        }
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(temporary, content, StandardCharsets.UTF_8);
+            try {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write offset file " + file, e);
+        }
+        synchronized (this) {
+            flushedVersion = Math.max(flushedVersion, snapshotVersion);
+        }
+    }
+
+    /**
+     * Stops the periodic flush and flushes the watermark one last time.
+     */
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        flushQuietly();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (UncheckedIOException e) {
+            log.error("Failed to persist the offset watermark", e);
+        }
+    }
+
+    private String serialize() {
+        StringJoiner completed = new StringJoiner(",");
+        tracked.forEach((updateId, done) -> {
+            if (done) {
+                completed.add(updateId.toString());
+            }
+        });
+        return WATERMARK_KEY + watermark + "\n" + COMPLETED_KEY + completed + "\n";
+    }
+
+    private void load() {
+        if (!Files.exists(file)) {
+            log.info("No offset file at {}, polling from the first pending update", file);
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (line.startsWith(WATERMARK_KEY)) {
+                    watermark = Integer.parseInt(line.substring(WATERMARK_KEY.length()).strip());
+                } else if (line.startsWith(COMPLETED_KEY)) {
+                    for (String updateId : line.substring(COMPLETED_KEY.length()).split(",")) {
+                        if (!updateId.isBlank()) {
+                            tracked.put(Integer.parseInt(updateId.strip()), true);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read offset file " + file, e);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Malformed offset file " + file, e);
+        }
+        tracked.headMap(watermark).clear();
+        flushedVersion = version;
+        log.info("Resuming long polling from update {} ({} completed above it)", watermark,
+                tracked.size());
+    }
+}
@@ -0,0 +1,350 @@
+package com.rainett.javagram.bot.polling;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+import org.telegram.telegrambots.meta.api.methods.updates.GetUpdates;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.generics.BotOptions;
+import org.telegram.telegrambots.meta.generics.BotSession;
+import org.telegram.telegrambots.meta.generics.LongPollingBot;
+
+/**
+ * Long polling session that fetches the next batch of updates while the current one is being
+ * processed.
+ * <p>
+ * A fetcher thread requests updates with {@code getUpdates}, using the limit and timeout of the
+ * {@link DefaultBotOptions} of the bot, and queues every non-empty batch. A dispatcher thread
+ * hands each batch as a whole to {@link LongPollingBot#onUpdatesReceived(List)}, so the bot can
+ * fan it out to its executor, and commits the batch once the call returns. The offset of the
+ * session only moves past a batch when it is committed.
+ * </p>
+ * <p>
+ * Telegram confirms every update below the offset of a request, so requesting the next batch
+ * confirms the current one. The fetcher therefore waits until at most one fetched batch is
+ * uncommitted: while the bot processes batch {@code n}, batch {@code n + 1} is fetched, and
+ * batch {@code n + 2} is only requested after batch {@code n} is committed. At most one batch
+ * confirmed to Telegram is lost if the application crashes.
+ * </p>
+ * <p>
+ * If the bot is an {@link OffsetTrackingBot} with an {@link OffsetWatermark}, every request is
+ * sent with the watermark as its offset instead, so Telegram only confirms fully processed
+ * updates and nothing is lost in a crash. Telegram then returns the updates still in flight
+ * again; they are skipped, as are updates that completed above the watermark. When a request
+ * returns nothing but such updates, because a slow update holds the watermark while
+ * {@code limit} updates after it are in flight or done, the fetcher waits for the watermark to
+ * advance. Processing itself never waits for other updates.
+ * </p>
+ * <p>
+ * The first request of a session with a watermark is sent without an offset, so that it
+ * confirms nothing and returns the oldest pending updates. If Telegram restarted the update
+ * ids while the bot was down, they are far below the persisted watermark, which is then moved
+ * down to them with {@link OffsetWatermark#rebase(int)} instead of skipping them forever.
+ * </p>
+ * <p>
+ * The session is created by {@link org.telegram.telegrambots.meta.TelegramBotsApi} and
+ * requests updates through the bot, which must be an {@link AbsSender}. Failed requests are
+ * retried with an exponential backoff from 500 ms up to 30 seconds.
+ * </p>
+ */
+@Slf4j
+public class PipelinedBotSession implements BotSession {
+    private static final int MAX_UNCOMMITTED_BATCHES = 2;
+    private static final Duration MIN_BACKOFF = Duration.ofMillis(500);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+    private static final long POLL_MILLIS = 100;
+    private static final Duration SATURATED_WAIT = Duration.ofSeconds(1);
+
+    private final Duration minBackoff;
+    private final Semaphore uncommitted = new Semaphore(MAX_UNCOMMITTED_BATCHES);
+    private final BlockingQueue<List<Update>> batches = new LinkedBlockingQueue<>();
+    private final LongAdder fetchedBatches = new LongAdder();
+    private final LongAdder committedUpdates = new LongAdder();
+    private final LongAdder failedRequests = new LongAdder();
+
+    private UpdateSource source;
+    private DefaultBotOptions options;
+    private LongPollingBot callback;
+    private OffsetWatermark watermark;
+    private volatile boolean running;
+    private volatile Thread fetcher;
+    private volatile Thread dispatcher;
+    private volatile int committedOffset;
+    private int fetchOffset;
+    private boolean watermarkChecked;
+
+    /**
+     * Creates a session requesting updates through its callback. Used by
+     * {@link org.telegram.telegrambots.meta.TelegramBotsApi}.
+     */
+    public PipelinedBotSession() {
+        this(null, MIN_BACKOFF);
+    }
+
+    PipelinedBotSession(UpdateSource source, Duration minBackoff) {
+        this.source = source;
+        this.minBackoff = minBackoff;
+    }
+
+    @Override
+    public void setOptions(BotOptions options) {
+        if (!(options instanceof DefaultBotOptions defaultOptions)) {
+            throw new IllegalArgumentException("PipelinedBotSession requires DefaultBotOptions");
+        }
+        this.options = defaultOptions;
+    }
+
+    @Override
+    public void setToken(String token) {
+        // Requests are sent by the callback, which holds the token
+    }
+
+    @Override
+    public void setCallback(LongPollingBot callback) {
+        if (source == null) {
+            if (!(callback instanceof AbsSender sender)) {
+                throw new IllegalArgumentException(
+                        "PipelinedBotSession requires a bot extending AbsSender");
+            }
+            source = sender::execute;
+        }
+        if (callback instanceof OffsetTrackingBot trackingBot) {
+            watermark = trackingBot.getOffsetWatermark();
+        }
+        this.callback = callback;
+    }
+
+    /**
+     * Starts the fetcher and dispatcher threads.
+     *
+     * @throws IllegalStateException if the session is already running or not configured
+     */
+    @Override
+    public synchronized void start() {
+        if (running) {
+            throw new IllegalStateException("Session already running");
+        }
+        if (options == null || callback == null) {
+            throw new IllegalStateException("Session options and callback must be set");
+        }
+        running = true;
+        fetcher = new Thread(this::fetchLoop, "javagram-polling-fetcher");
+        dispatcher = new Thread(this::dispatchLoop, "javagram-polling-dispatcher");
+        fetcher.setDaemon(true);
+        dispatcher.setDaemon(true);
+        fetcher.start();
+        dispatcher.start();
+    }
+
+    /**
+     * Stops requesting updates. Batches that were already fetched, and thus confirmed to
+     * Telegram, are still handed to the bot.
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        fetcher.interrupt();
+        callback.onClosing();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Returns the offset following the last committed update, or 0 before the first commit.
+     *
+     * @return the committed offset
+     */
+    public int getCommittedOffset() {
+        return committedOffset;
+    }
+
+    /**
+     * Returns the number of non-empty batches fetched.
+     *
+     * @return the number of fetched batches
+     */
+    public long getFetchedBatches() {
+        return fetchedBatches.sum();
+    }
+
+    /**
+     * Returns the number of updates of committed batches.
+     *
+     * @return the number of committed updates
+     */
+    public long getCommittedUpdates() {
+        return committedUpdates.sum();
+    }
+
+    /**
+     * Returns the number of {@code getUpdates} requests that failed.
+     *
+     * @return the number of failed requests
+     */
+    public long getFailedRequests() {
+        return failedRequests.sum();
+    }
+
+    /**
+     * Waits until the dispatcher has handed every fetched batch to the bot.
+     *
+     * @param timeout the maximum time to wait
+     * @return {@code true} if the dispatcher terminated in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(Duration timeout) throws InterruptedException {
+        Thread thread = dispatcher;
+        if (thread == null) {
+            return true;
+        }
+        thread.join(Math.max(1, timeout.toMillis()));
+        return !thread.isAlive();
+    }
+
+    private void fetchLoop() {
+        Duration backoff = minBackoff;
+        while (running) {
+            try {
+                uncommitted.acquire();
+            } catch (InterruptedException e) {
+                return;
+            }
+            boolean queued = false;
+            try {
+                int offset = nextOffset();
+                List<Update> updates = source.getUpdates(request(offset));
+                backoff = minBackoff;
+                watermarkChecked = true;
+                List<Update> batch = unseen(updates);
+                if (!batch.isEmpty()) {
+                    fetchOffset = lastUpdateId(batch) + 1;
+                    fetchedBatches.increment();
+                    batches.add(batch);
+                    queued = true;
+                } else if (watermark != null && updates != null && !updates.isEmpty()) {
+                    watermark.awaitAdvance(offset, SATURATED_WAIT);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (TelegramApiException | RuntimeException e) {
+                failedRequests.increment();
+                log.error("Failed to fetch updates, retrying in {} ms", backoff.toMillis(), e);
+                if (!sleep(backoff)) {
+                    return;
+                }
+                backoff = min(backoff.multipliedBy(2), MAX_BACKOFF);
+            } finally {
+                if (!queued) {
+                    uncommitted.release();
+                }
+            }
+        }
+    }
+
+    private void dispatchLoop() {
+        while (running || fetcher.isAlive() || !batches.isEmpty()) {
+            List<Update> batch;
+            try {
+                batch = batches.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (batch != null) {
+                dispatch(batch);
+            }
+        }
+    }
+
+    private void dispatch(List<Update> batch) {
+        try {
+            callback.onUpdatesReceived(batch);
+        } catch (RuntimeException e) {
+            log.error("Failed to process a batch of {} updates", batch.size(), e);
+            if (watermark != null) {
+                batch.forEach(watermark::onUpdateCompleted);
+            }
+        }
+        committedOffset = lastUpdateId(batch) + 1;
+        committedUpdates.add(batch.size());
+        uncommitted.release();
+    }
+
+    private int nextOffset() {
+        if (watermark == null) {
+            return fetchOffset;
+        }
+        return watermarkChecked ? watermark.getWatermark() : 0;
+    }
+
+    private GetUpdates request(int offset) {
+        GetUpdates request = new GetUpdates();
+        request.setOffset(offset);
+        request.setLimit(options.getGetUpdatesLimit());
+        request.setTimeout(options.getGetUpdatesTimeout());
+        request.setAllowedUpdates(options.getAllowedUpdates());
+        return request;
+    }
+
+    /**
+     * Drops updates that were already fetched, which Telegram may repeat after a failed
+     * request, or returns again until the watermark passes them. With a watermark, the
+     * remaining updates start being tracked.
+     */
+    private List<Update> unseen(List<Update> updates) {
+        if (updates == null || updates.isEmpty()) {
+            return List.of();
+        }
+        if (watermark != null) {
+            watermark.rebase(updates.stream().mapToInt(Update::getUpdateId).min().getAsInt());
+        }
+        List<Update> batch = new ArrayList<>(updates.size());
+        for (Update update : updates) {
+            int updateId = update.getUpdateId();
+            if (watermark == null ? updateId >= fetchOffset : watermark.begin(updateId)) {
+                batch.add(update);
+            }
+        }
+        return batch;
+    }
+
+    private static int lastUpdateId(List<Update> batch) {
+        return batch.get(batch.size() - 1).getUpdateId();
+    }
+
+    private static Duration min(Duration first, Duration second) {
+        return first.compareTo(second) <= 0 ? first : second;
+    }
+
+    private static boolean sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Sends {@code getUpdates} requests.
+     */
+    @FunctionalInterface
+    interface UpdateSource {
+        List<Update> getUpdates(GetUpdates request) throws TelegramApiException;
+    }
+}
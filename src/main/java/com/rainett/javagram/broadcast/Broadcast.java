@@ -0,0 +1,259 @@
+package com.rainett.javagram.broadcast;
+
+import com.rainett.javagram.outbound.OutboundScheduler;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+
+/**
+ * Broadcast of a message to the recipients of a {@link RecipientSource}, started by the
+ * {@link BroadcastEngine}.
+ * <p>
+ * A dedicated thread streams the recipients and hands a method for each one to the
+ * {@link OutboundScheduler}, keeping at most {@code bot.broadcast.window} of them queued or in
+ * flight. The scheduler sends them at the highest rate Telegram allows and retries those
+ * answered with {@code retry_after}. Every completed send is recorded in the checkpoint of the
+ * broadcast and classified by its {@link DeliveryStatus}; the listeners are notified of the
+ * recipients the bot cannot reach anymore. The recipients whose send failed, or was rejected
+ * by the scheduler, are sent to again when the broadcast is resumed.
+ * </p>
+ */
+@Slf4j
+public class Broadcast {
+    private final String name;
+    private final RecipientSource source;
+    private final Function<String, ? extends BotApiMethod<?>> messages;
+    private final OutboundScheduler scheduler;
+    private final BroadcastCheckpoint checkpoint;
+    private final List<UnreachableRecipientListener> listeners;
+    private final int windowSize;
+    private final Semaphore window;
+    private final long total;
+    private final CompletableFuture<BroadcastProgress> completion = new CompletableFuture<>();
+    private volatile Sample previousSample;
+    private volatile Sample lastSample;
+    private volatile boolean cancelled;
+    private volatile Thread thread;
+
+    Broadcast(String name, RecipientSource source,
+              Function<String, ? extends BotApiMethod<?>> messages, OutboundScheduler scheduler,
+              BroadcastCheckpoint checkpoint, List<UnreachableRecipientListener> listeners,
+              int windowSize, long total) {
+        this.name = name;
+        this.source = source;
+        this.messages = messages;
+        this.scheduler = scheduler;
+        this.checkpoint = checkpoint;
+        this.listeners = listeners;
+        this.windowSize = windowSize;
+        this.window = new Semaphore(windowSize);
+        this.total = total;
+        this.lastSample = new Sample(System.nanoTime(), checkpoint.getProcessed());
+        this.previousSample = lastSample;
+    }
+
+    /**
+     * Returns the name of the broadcast, which also names its checkpoint.
+     *
+     * @return the name of the broadcast
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the progress of the broadcast. The throughput is measured over the last one to
+     * two {@code bot.broadcast.report-interval}s, or since the start of the run before that.
+     *
+     * @return a snapshot of the progress
+     */
+    public BroadcastProgress getProgress() {
+        long now = System.nanoTime();
+        long processed = checkpoint.getProcessed();
+        boolean finished = checkpoint.isFinished();
+        Sample since = previousSample;
+        double seconds = (now - since.nanos()) / 1e9;
+        double throughput = seconds > 0 ? (processed - since.processed()) / seconds : 0;
+        Duration eta = null;
+        if (finished) {
+            eta = Duration.ZERO;
+        } else if (total >= 0 && throughput > 0) {
+            eta = Duration.ofMillis((long) (Math.max(0, total - processed) / throughput * 1000));
+        }
+        return new BroadcastProgress(name, processed, total, checkpoint.getOutcomes(),
+                throughput, eta, finished);
+    }
+
+    /**
+     * Returns a future completed with the final progress once the broadcast is over, either
+     * because every recipient was processed or because it was cancelled, or exceptionally if
+     * the source failed. The checkpoint is written before it completes.
+     *
+     * @return the completion of the broadcast
+     */
+    public CompletableFuture<BroadcastProgress> getCompletion() {
+        return completion;
+    }
+
+    /**
+     * Stops the broadcast after the sends in flight complete. Starting a broadcast with the
+     * same name resumes it.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    void start() {
+        Thread runner = new Thread(this::run, "javagram-broadcast-" + name);
+        runner.setDaemon(true);
+        thread = runner;
+        runner.start();
+    }
+
+    void completeFinished() {
+        completion.complete(getProgress());
+    }
+
+    void interrupt() {
+        Thread runner = thread;
+        if (runner != null) {
+            runner.interrupt();
+        }
+    }
+
+    void report() {
+        previousSample = lastSample;
+        lastSample = new Sample(System.nanoTime(), checkpoint.getProcessed());
+        BroadcastProgress progress = getProgress();
+        log.info("Broadcast {}: {}/{} processed ({} delivered, {} unreachable, {} failed), "
+                 + "{}/s, ETA {}", name, progress.processed(),
+                total >= 0 ? total : "?", progress.count(DeliveryStatus.DELIVERED),
+                progress.unreachable(), progress.count(DeliveryStatus.FAILED),
+                String.format("%.1f", progress.throughput()),
+                progress.eta() == null ? "unknown" : progress.eta());
+    }
+
+    void flush() {
+        try {
+            checkpoint.flush();
+        } catch (UncheckedIOException e) {
+            log.error("Failed to persist the checkpoint of broadcast {}", name, e);
+        }
+    }
+
+    private void run() {
+        long position = checkpoint.getResumePosition();
+        boolean exhausted = false;
+        Throwable failure = null;
+        log.info("Broadcast {} started at recipient {} ({} to retry)", name, position,
+                checkpoint.getRetries());
+        try (Stream<String> recipients = source.recipients(position)) {
+            Iterator<String> iterator = recipients.iterator();
+            while (!cancelled && iterator.hasNext()) {
+                String chatId = iterator.next();
+                long recipient = position++;
+                if (!checkpoint.begin(recipient)) {
+                    continue;
+                }
+                window.acquire();
+                if (cancelled) {
+                    window.release();
+                    break;
+                }
+                send(recipient, chatId);
+            }
+            exhausted = !cancelled;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            log.error("Broadcast {} stopped at recipient {}: the source failed", name,
+                    position, e);
+        }
+        try {
+            if (!Thread.currentThread().isInterrupted()) {
+                window.acquire(windowSize);
+                window.release(windowSize);
+                if (exhausted) {
+                    checkpoint.finish();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        if (failure != null) {
+            completion.completeExceptionally(failure);
+        } else {
+            completion.complete(getProgress());
+        }
+    }
+
+    private void send(long recipient, String chatId) {
+        CompletableFuture<?> result;
+        try {
+            result = execute(messages.apply(chatId));
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((ignored, error) -> onSent(recipient, chatId, error));
+    }
+
+    private <T extends Serializable> CompletableFuture<T> execute(BotApiMethod<T> method) {
+        return scheduler.executeAsync(method);
+    }
+
+    private void onSent(long recipient, String chatId, Throwable error) {
+        try {
+            if (unwrap(error) instanceof RejectedExecutionException) {
+                checkpoint.defer(recipient);
+                log.debug("Broadcast {} could not queue the send to chat {}: {}", name, chatId,
+                        unwrap(error).getMessage());
+                return;
+            }
+            DeliveryStatus status = DeliveryStatus.of(error);
+            checkpoint.complete(recipient, chatId, status);
+            if (status == DeliveryStatus.FAILED) {
+                log.debug("Broadcast {} failed for chat {}", name, chatId, error);
+            } else if (status.isUnreachable()) {
+                notifyUnreachable(chatId, status);
+            }
+        } finally {
+            window.release();
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+               && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private void notifyUnreachable(String chatId, DeliveryStatus status) {
+        for (UnreachableRecipientListener listener : listeners) {
+            try {
+                listener.onUnreachable(chatId, status);
+            } catch (RuntimeException e) {
+                log.error("Unreachable recipient listener {} failed for chat {}",
+                        listener.getClass().getName(), chatId, e);
+            }
+        }
+    }
+
+    private record Sample(long nanos, long processed) {
+    }
+}
@@ -0,0 +1,334 @@
+package com.rainett.javagram.broadcast;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Progress of a broadcast, persisted to a local file so that the broadcast can resume after a
+ * restart.
+ * <p>
+ * Every recipient is identified by its position in the {@link RecipientSource}. The position
+ * of the checkpoint is the lowest position whose send has not completed yet: sends complete in
+ * any order, so the positions completed above it are recorded as well and skipped on resume.
+ * The number of recipients per {@link DeliveryStatus} is kept with them, and the recipients
+ * the bot cannot reach are appended to an outcomes file as {@code chatId STATUS} lines.
+ * </p>
+ * <p>
+ * The recipients whose send {@link DeliveryStatus#FAILED failed} or was not attempted, because
+ * the scheduler rejected it, are recorded as retries instead, and the position moves past them
+ * all the same. A resumed broadcast streams the source again from the lowest retry and sends
+ * to them once more, even if the source was exhausted before. A failed recipient stays counted
+ * as failed until its retry completes with another outcome.
+ * </p>
+ * <p>
+ * The outcomes are appended before the checkpoint file is replaced, atomically, so the
+ * checkpoint never covers a recipient whose outcome is lost. After a crash, the sends that
+ * completed since the last flush are repeated, and their outcomes may be listed twice.
+ * </p>
+ */
+@Slf4j
+class BroadcastCheckpoint {
+    private static final String POSITION_KEY = "position";
+    private static final String COMPLETED_KEY = "completed";
+    private static final String FINISHED_KEY = "finished";
+    private static final String FAILED_RETRIES_KEY = "failed-retries";
+    private static final String UNSENT_RETRIES_KEY = "unsent-retries";
+
+    private final Path file;
+    private final Path outcomesFile;
+    private final Object flushLock = new Object();
+    private final TreeMap<Long, Boolean> tracked = new TreeMap<>();
+    private final TreeMap<Long, Boolean> retries = new TreeMap<>();
+    private final Set<Long> retrying = new HashSet<>();
+    private final long[] counts = new long[DeliveryStatus.values().length];
+    private StringBuilder pendingOutcomes = new StringBuilder();
+    private long position;
+    private boolean finished;
+    private long version;
+    private long flushedVersion;
+
+    /**
+     * Loads the checkpoint from the file, if it exists.
+     *
+     * @param file         the file the checkpoint is persisted to
+     * @param outcomesFile the file the recipients that were not delivered are appended to
+     * @throws UncheckedIOException  if the file cannot be read
+     * @throws IllegalStateException if the file is malformed
+     */
+    BroadcastCheckpoint(Path file, Path outcomesFile) {
+        this.file = file;
+        this.outcomesFile = outcomesFile;
+        load();
+    }
+
+    synchronized long getPosition() {
+        return position;
+    }
+
+    synchronized boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Returns the position the source is streamed from when the broadcast resumes: the lowest
+     * retry, or the position of the checkpoint if there is none below it.
+     *
+     * @return the position of the first recipient to stream
+     */
+    synchronized long getResumePosition() {
+        return retries.isEmpty() ? position : Math.min(position, retries.firstKey());
+    }
+
+    /**
+     * Returns the number of recipients that are sent to again when the broadcast resumes.
+     *
+     * @return the number of retries
+     */
+    synchronized int getRetries() {
+        return retries.size();
+    }
+
+    synchronized long getProcessed() {
+        long processed = 0;
+        for (long count : counts) {
+            processed += count;
+        }
+        return processed;
+    }
+
+    synchronized Map<DeliveryStatus, Long> getOutcomes() {
+        Map<DeliveryStatus, Long> outcomes = new EnumMap<>(DeliveryStatus.class);
+        for (DeliveryStatus status : DeliveryStatus.values()) {
+            outcomes.put(status, counts[status.ordinal()]);
+        }
+        return outcomes;
+    }
+
+    /**
+     * Starts tracking the send to a recipient.
+     *
+     * @param recipient the position of the recipient in the source
+     * @return {@code true} if the recipient must be sent to, {@code false} if its send
+     *         completed before or is in flight
+     */
+    synchronized boolean begin(long recipient) {
+        if (retries.containsKey(recipient)) {
+            return retrying.add(recipient);
+        }
+        if (recipient < position || tracked.containsKey(recipient)) {
+            return false;
+        }
+        tracked.put(recipient, false);
+        return true;
+    }
+
+    /**
+     * Records the outcome of the send to a tracked recipient and advances the position past
+     * the completed recipients at the bottom of the tracked ones.
+     *
+     * @param recipient the position of the recipient in the source
+     * @param chatId    the chat id of the recipient
+     * @param status    the outcome of the send
+     */
+    synchronized void complete(long recipient, String chatId, DeliveryStatus status) {
+        if (retrying.remove(recipient)) {
+            if (Boolean.TRUE.equals(retries.remove(recipient))) {
+                counts[DeliveryStatus.FAILED.ordinal()]--;
+            }
+            record(recipient, chatId, status);
+            version++;
+            return;
+        }
+        if (tracked.replace(recipient, true) == null) {
+            return;
+        }
+        record(recipient, chatId, status);
+        version++;
+        advance();
+    }
+
+    /**
+     * Records that the send to a tracked recipient was not attempted, so that it is sent to
+     * when the broadcast resumes, and advances the position like a completed send.
+     *
+     * @param recipient the position of the recipient in the source
+     */
+    synchronized void defer(long recipient) {
+        if (retrying.remove(recipient)) {
+            return;
+        }
+        if (tracked.replace(recipient, true) == null) {
+            return;
+        }
+        retries.put(recipient, false);
+        version++;
+        advance();
+    }
+
+    private void record(long recipient, String chatId, DeliveryStatus status) {
+        counts[status.ordinal()]++;
+        if (status == DeliveryStatus.FAILED) {
+            retries.put(recipient, true);
+        } else if (status != DeliveryStatus.DELIVERED) {
+            pendingOutcomes.append(chatId).append(' ').append(status).append('\n');
+        }
+    }
+
+    private void advance() {
+        Map.Entry<Long, Boolean> lowest = tracked.firstEntry();
+        while (lowest != null && lowest.getValue()) {
+            position = lowest.getKey() + 1;
+            tracked.pollFirstEntry();
+            lowest = tracked.firstEntry();
+        }
+    }
+
+    /**
+     * Marks every recipient of the source as processed.
+     */
+    synchronized void finish() {
+        finished = true;
+        version++;
+    }
+
+    /**
+     * Appends the new outcomes to the outcomes file and writes the checkpoint, if it changed
+     * since the last flush.
+     *
+     * @throws UncheckedIOException if a file cannot be written
+     */
+    void flush() {
+        synchronized (flushLock) {
+            String content;
+            String outcomes;
+            long snapshotVersion;
+            synchronized (this) {
+                if (version == flushedVersion) {
+                    return;
+                }
+                snapshotVersion = version;
+                content = serialize();
+                outcomes = pendingOutcomes.toString();
+                pendingOutcomes = new StringBuilder();
+            }
+            try {
+                Path parent = file.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                if (!outcomes.isEmpty()) {
+                    Files.writeString(outcomesFile, outcomes, StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                }
+                Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+                Files.writeString(temporary, content, StandardCharsets.UTF_8);
+                try {
+                    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    pendingOutcomes.insert(0, outcomes);
+                }
+                throw new UncheckedIOException("Failed to write broadcast checkpoint " + file, e);
+            }
+            synchronized (this) {
+                flushedVersion = snapshotVersion;
+            }
+        }
+    }
+
+    private String serialize() {
+        StringJoiner completed = new StringJoiner(",");
+        tracked.forEach((recipient, done) -> {
+            if (done) {
+                completed.add(recipient.toString());
+            }
+        });
+        StringJoiner failedRetries = new StringJoiner(",");
+        StringJoiner unsentRetries = new StringJoiner(",");
+        retries.forEach((recipient, failed) ->
+                (failed ? failedRetries : unsentRetries).add(recipient.toString()));
+        StringBuilder content = new StringBuilder()
+                .append(POSITION_KEY).append('=').append(position).append('\n')
+                .append(COMPLETED_KEY).append('=').append(completed).append('\n')
+                .append(FAILED_RETRIES_KEY).append('=').append(failedRetries).append('\n')
+                .append(UNSENT_RETRIES_KEY).append('=').append(unsentRetries).append('\n');
+        for (DeliveryStatus status : DeliveryStatus.values()) {
+            content.append(key(status)).append('=').append(counts[status.ordinal()])
+                    .append('\n');
+        }
+        return content.append(FINISHED_KEY).append('=').append(finished).append('\n')
+                .toString();
+    }
+
+    private void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                int separator = line.indexOf('=');
+                if (separator < 0) {
+                    continue;
+                }
+                String key = line.substring(0, separator).strip();
+                String value = line.substring(separator + 1).strip();
+                if (key.equals(POSITION_KEY)) {
+                    position = Long.parseLong(value);
+                } else if (key.equals(COMPLETED_KEY)) {
+                    parsePositions(value, tracked, true);
+                } else if (key.equals(FAILED_RETRIES_KEY)) {
+                    parsePositions(value, retries, true);
+                } else if (key.equals(UNSENT_RETRIES_KEY)) {
+                    parsePositions(value, retries, false);
+                } else if (key.equals(FINISHED_KEY)) {
+                    finished = Boolean.parseBoolean(value);
+                } else {
+                    for (DeliveryStatus status : DeliveryStatus.values()) {
+                        if (key.equals(key(status))) {
+                            counts[status.ordinal()] = Long.parseLong(value);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read broadcast checkpoint " + file, e);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Malformed broadcast checkpoint " + file, e);
+        }
+        tracked.headMap(position).clear();
+        flushedVersion = version;
+        log.info("Resuming broadcast from {} at recipient {} ({} completed above it, {} to "
+                 + "retry)", file, position, tracked.size(), retries.size());
+    }
+
+    private static void parsePositions(String value, Map<Long, Boolean> positions,
+                                       boolean flag) {
+        for (String recipient : value.split(",")) {
+            if (!recipient.isBlank()) {
+                positions.put(Long.parseLong(recipient.strip()), flag);
+            }
+        }
+    }
+
+    private static String key(DeliveryStatus status) {
+        return status.name().toLowerCase(Locale.ROOT);
+    }
+}
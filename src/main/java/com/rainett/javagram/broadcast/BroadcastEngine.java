@@ -0,0 +1,205 @@
+package com.rainett.javagram.broadcast;
+
+import com.rainett.javagram.config.BroadcastConfig;
+import com.rainett.javagram.outbound.OutboundScheduler;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+
+/**
+ * Sends a message to every recipient of a {@link RecipientSource}, such as the millions of
+ * subscribers of a bot, and resumes where it stopped after a restart.
+ * <p>
+ * A broadcast is started with a name, a source and a function creating the method sent to each
+ * recipient, for example {@code engine.start("release-42", source, chatId -> new
+ * SendMessage(chatId, text))}. Its methods go through the {@link OutboundScheduler}, so they
+ * are sent at the highest rate Telegram allows while sharing the global budget fairly with the
+ * replies of actions. The progress of every broadcast is written to
+ * {@code <bot.broadcast.directory>/<name>.checkpoint} every
+ * {@code bot.broadcast.checkpoint-interval}, and the recipients the bot cannot reach to
+ * {@code <name>.outcomes} with their {@link DeliveryStatus}, so that blocked and deactivated
+ * users can be pruned. Starting a broadcast whose checkpoint exists resumes it, sending again
+ * to the recipients whose send failed, and starting a finished one without such recipients
+ * completes immediately. The progress, throughput and ETA of every running
+ * broadcast are logged every {@code bot.broadcast.report-interval} and available from
+ * {@link Broadcast#getProgress()}.
+ * </p>
+ */
+@Slf4j
+public class BroadcastEngine implements AutoCloseable {
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]*");
+
+    private final OutboundScheduler scheduler;
+    private final List<UnreachableRecipientListener> listeners;
+    private final Path directory;
+    private final int window;
+    private final long checkpointMillis;
+    private final long reportMillis;
+    private final Duration shutdownTimeout;
+    private final Map<String, Broadcast> broadcasts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer;
+    private boolean closed;
+
+    /**
+     * Creates the engine described by {@code bot.broadcast}.
+     *
+     * @param config    the broadcast configuration
+     * @param scheduler the scheduler sending the methods of the broadcasts
+     * @param listeners the listeners notified of unreachable recipients
+     * @throws IllegalArgumentException if the window or an interval is not positive
+     */
+    public BroadcastEngine(BroadcastConfig config, OutboundScheduler scheduler,
+                           List<UnreachableRecipientListener> listeners) {
+        if (config.getWindow() <= 0) {
+            throw new IllegalArgumentException("bot.broadcast.window must be positive: "
+                                               + config.getWindow());
+        }
+        this.checkpointMillis = millis(config.getCheckpointInterval(),
+                "bot.broadcast.checkpoint-interval");
+        this.reportMillis = millis(config.getReportInterval(), "bot.broadcast.report-interval");
+        this.scheduler = scheduler;
+        this.listeners = List.copyOf(listeners);
+        this.directory = config.getDirectory();
+        this.window = config.getWindow();
+        this.shutdownTimeout = config.getShutdownTimeout();
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "javagram-broadcast-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts a broadcast, or resumes it from its checkpoint.
+     *
+     * @param name     the name of the broadcast, made of letters, digits, {@code .}, {@code _}
+     *                 and {@code -}; it names the checkpoint, so reusing it resumes the
+     *                 broadcast
+     * @param source   the recipients, in the same order as in the previous runs
+     * @param messages creates the method sent to a chat id
+     * @return the running broadcast, or a completed one if its checkpoint says it finished
+     *         and no recipient is left to retry
+     * @throws IllegalArgumentException if the name is not valid
+     * @throws IllegalStateException    if a broadcast with this name is running, the engine is
+     *                                  closed or the checkpoint is malformed
+     * @throws UncheckedIOException     if the checkpoint or the source cannot be read
+     */
+    public synchronized Broadcast start(String name, RecipientSource source,
+                                        Function<String, ? extends BotApiMethod<?>> messages) {
+        if (name == null || !NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid broadcast name: " + name);
+        }
+        if (closed) {
+            throw new IllegalStateException("Broadcast engine is closed");
+        }
+        if (broadcasts.containsKey(name)) {
+            throw new IllegalStateException("Broadcast " + name + " is already running");
+        }
+        BroadcastCheckpoint checkpoint = new BroadcastCheckpoint(
+                directory.resolve(name + ".checkpoint"), directory.resolve(name + ".outcomes"));
+        long total;
+        try {
+            total = source.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to count the recipients of " + name, e);
+        }
+        Broadcast broadcast = new Broadcast(name, source, messages, scheduler, checkpoint,
+                listeners, window, total);
+        if (checkpoint.isFinished() && checkpoint.getRetries() == 0) {
+            log.info("Broadcast {} already finished", name);
+            broadcast.completeFinished();
+            return broadcast;
+        }
+        broadcasts.put(name, broadcast);
+        ScheduledFuture<?> flush = timer.scheduleWithFixedDelay(broadcast::flush,
+                checkpointMillis, checkpointMillis, TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> report = timer.scheduleAtFixedRate(broadcast::report,
+                reportMillis, reportMillis, TimeUnit.MILLISECONDS);
+        broadcast.getCompletion().whenComplete((progress, error) -> {
+            flush.cancel(false);
+            report.cancel(false);
+            broadcasts.remove(name, broadcast);
+            if (progress != null) {
+                log.info("Broadcast {} {} after {} recipients ({} delivered, {} unreachable, "
+                         + "{} failed)", name, progress.finished() ? "finished" : "stopped",
+                        progress.processed(), progress.count(DeliveryStatus.DELIVERED),
+                        progress.unreachable(), progress.count(DeliveryStatus.FAILED));
+            }
+        });
+        broadcast.start();
+        return broadcast;
+    }
+
+    /**
+     * Returns a running broadcast.
+     *
+     * @param name the name of the broadcast
+     * @return the broadcast, or {@code null} if no broadcast with this name is running
+     */
+    public Broadcast getBroadcast(String name) {
+        return broadcasts.get(name);
+    }
+
+    /**
+     * Returns the running broadcasts.
+     *
+     * @return a snapshot of the running broadcasts
+     */
+    public Collection<Broadcast> getBroadcasts() {
+        return List.copyOf(broadcasts.values());
+    }
+
+    /**
+     * Cancels the running broadcasts and waits up to {@code bot.broadcast.shutdown-timeout}
+     * for their sends in flight, so that their checkpoints cover them.
+     */
+    @Override
+    public void close() {
+        List<Broadcast> running;
+        synchronized (this) {
+            closed = true;
+            running = new ArrayList<>(broadcasts.values());
+        }
+        running.forEach(Broadcast::cancel);
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        for (Broadcast broadcast : running) {
+            try {
+                broadcast.getCompletion().get(Math.max(0, deadline - System.nanoTime()),
+                        TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                broadcast.interrupt();
+            } catch (TimeoutException e) {
+                log.warn("Broadcast {} did not stop within {}", broadcast.getName(),
+                        shutdownTimeout);
+                broadcast.interrupt();
+            } catch (ExecutionException e) {
+                // The failure was logged by the broadcast.
+            }
+        }
+        timer.shutdownNow();
+    }
+
+    private static long millis(Duration duration, String property) {
+        if (duration == null || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException(property + " must be positive: " + duration);
+        }
+        return Math.max(1, duration.toMillis());
+    }
+}
@@ -0,0 +1,46 @@
+package com.rainett.javagram.broadcast;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Snapshot of the progress of a broadcast, including the runs before a restart.
+ *
+ * @param name       the name of the broadcast
+ * @param processed  the number of recipients whose send completed
+ * @param total      the number of recipients, or -1 if the source does not know it
+ * @param outcomes   the number of recipients per {@link DeliveryStatus}
+ * @param throughput the number of recipients processed per second recently
+ * @param eta        the estimated time until every recipient is processed, or {@code null} if
+ *                   the total or the throughput is unknown
+ * @param finished   whether every recipient of the source was processed
+ */
+public record BroadcastProgress(String name, long processed, long total,
+                                Map<DeliveryStatus, Long> outcomes, double throughput,
+                                Duration eta, boolean finished) {
+
+    /**
+     * Returns the number of recipients with the given outcome.
+     *
+     * @param status the outcome
+     * @return the number of recipients
+     */
+    public long count(DeliveryStatus status) {
+        return outcomes.getOrDefault(status, 0L);
+    }
+
+    /**
+     * Returns the number of recipients the bot cannot reach anymore.
+     *
+     * @return the number of unreachable recipients
+     */
+    public long unreachable() {
+        long unreachable = 0;
+        for (Map.Entry<DeliveryStatus, Long> outcome : outcomes.entrySet()) {
+            if (outcome.getKey().isUnreachable()) {
+                unreachable += outcome.getValue();
+            }
+        }
+        return unreachable;
+    }
+}
@@ -0,0 +1,94 @@
+package com.rainett.javagram.broadcast;
+
+import java.util.Locale;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+/**
+ * Outcome of sending a broadcast to one recipient.
+ */
+public enum DeliveryStatus {
+    /**
+     * The method was accepted by Telegram.
+     */
+    DELIVERED(false),
+
+    /**
+     * The user blocked the bot.
+     */
+    BLOCKED(true),
+
+    /**
+     * The account of the user was deleted.
+     */
+    DEACTIVATED(true),
+
+    /**
+     * The chat does not exist, or the bot never had access to it.
+     */
+    CHAT_NOT_FOUND(true),
+
+    /**
+     * The bot may not write to the chat for another reason, for example because it was
+     * removed from the group or the user never started it.
+     */
+    FORBIDDEN(true),
+
+    /**
+     * The method failed for a reason that does not concern the recipient, such as a network
+     * error or a rate limit that outlasted the retries. The recipient is sent to again when
+     * the broadcast is resumed.
+     */
+    FAILED(false);
+
+    private final boolean unreachable;
+
+    DeliveryStatus(boolean unreachable) {
+        this.unreachable = unreachable;
+    }
+
+    /**
+     * Returns whether the bot cannot reach the recipient anymore, so that it should be
+     * removed from future broadcasts.
+     *
+     * @return {@code true} if the recipient should be pruned
+     */
+    public boolean isUnreachable() {
+        return unreachable;
+    }
+
+    /**
+     * Classifies the outcome of a send from the error it completed with.
+     *
+     * @param error the error of the send, possibly wrapped, or {@code null} if it succeeded
+     * @return the status of the recipient
+     */
+    public static DeliveryStatus of(Throwable error) {
+        if (error == null) {
+            return DELIVERED;
+        }
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+               && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (!(error instanceof TelegramApiRequestException requestException)
+            || requestException.getErrorCode() == null) {
+            return FAILED;
+        }
+        String description = requestException.getApiResponse() == null
+                ? ""
+                : requestException.getApiResponse().toLowerCase(Locale.ROOT);
+        int errorCode = requestException.getErrorCode();
+        if (errorCode == 403) {
+            if (description.contains("blocked")) {
+                return BLOCKED;
+            }
+            return description.contains("deactivated") ? DEACTIVATED : FORBIDDEN;
+        }
+        if (errorCode == 400 && description.contains("chat not found")) {
+            return CHAT_NOT_FOUND;
+        }
+        return FAILED;
+    }
+}
@@ -0,0 +1,35 @@
+package com.rainett.javagram.broadcast;
+
+import java.io.IOException;
+import java.util.stream.Stream;
+
+/**
+ * Source of the chats a broadcast is sent to, such as a file or a database query.
+ * <p>
+ * Recipients are streamed, so that a broadcast to millions of chats does not hold them in
+ * memory. The order must be stable between runs: a resumed broadcast opens the source at the
+ * position it reached and skips the recipients before it.
+ * </p>
+ */
+public interface RecipientSource {
+
+    /**
+     * Opens the recipients, starting at the given position. The stream is closed once the
+     * broadcast is over.
+     *
+     * @param position the number of recipients to skip
+     * @return the chat ids of the recipients from the position on
+     * @throws IOException if the source cannot be read
+     */
+    Stream<String> recipients(long position) throws IOException;
+
+    /**
+     * Returns the total number of recipients, used to estimate the remaining time.
+     *
+     * @return the number of recipients, or -1 if it is unknown
+     * @throws IOException if the source cannot be read
+     */
+    default long size() throws IOException {
+        return -1;
+    }
+}
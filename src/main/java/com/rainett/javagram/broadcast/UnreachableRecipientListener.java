@@ -0,0 +1,22 @@
+package com.rainett.javagram.broadcast;
+
+/**
+ * Listener notified when a broadcast finds a recipient the bot cannot reach anymore.
+ * <p>
+ * Implementations typically remove the recipient from the subscribers, so that later
+ * broadcasts do not spend their rate budget on it. Every bean of this type is registered with
+ * the {@link BroadcastEngine}. Listeners are called on the thread completing the send and
+ * should return quickly.
+ * </p>
+ */
+@FunctionalInterface
+public interface UnreachableRecipientListener {
+
+    /**
+     * Called once the send to an unreachable recipient completed.
+     *
+     * @param chatId the chat id of the recipient
+     * @param status why the recipient is unreachable, see {@link DeliveryStatus#isUnreachable()}
+     */
+    void onUnreachable(String chatId, DeliveryStatus status);
+}
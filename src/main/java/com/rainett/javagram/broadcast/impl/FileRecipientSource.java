@@ -0,0 +1,54 @@
+package com.rainett.javagram.broadcast.impl;
+
+import com.rainett.javagram.broadcast.RecipientSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * {@link RecipientSource} reading one chat id per line from a text file. Blank lines are
+ * skipped and do not count as positions.
+ */
+public class FileRecipientSource implements RecipientSource {
+    private final Path file;
+
+    /**
+     * Creates a source reading the given file.
+     *
+     * @param file the file of chat ids
+     */
+    public FileRecipientSource(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Streams the chat ids of the file lazily, from the given position on.
+     *
+     * @param position the number of chat ids to skip
+     * @return the chat ids, to be closed once read
+     * @throws IOException if the file cannot be opened
+     */
+    @Override
+    public Stream<String> recipients(long position) throws IOException {
+        return chatIds(Files.lines(file, StandardCharsets.UTF_8)).skip(position);
+    }
+
+    /**
+     * Counts the chat ids of the file.
+     *
+     * @return the number of chat ids
+     * @throws IOException if the file cannot be read
+     */
+    @Override
+    public long size() throws IOException {
+        try (Stream<String> chatIds = chatIds(Files.lines(file, StandardCharsets.UTF_8))) {
+            return chatIds.count();
+        }
+    }
+
+    private static Stream<String> chatIds(Stream<String> lines) {
+        return lines.map(String::strip).filter(line -> !line.isEmpty());
+    }
+}
@@ -2,7 +2,26 @@ package com.rainett.javagram.config;
 
 import com.rainett.javagram.bot.LongPollingBot;
 import com.rainett.javagram.bot.WebhookBot;
+import com.rainett.javagram.bot.polling.OffsetWatermark;
+import com.rainett.javagram.broadcast.BroadcastEngine;
+import com.rainett.javagram.broadcast.UnreachableRecipientListener;
+import com.rainett.javagram.outbound.BotApiTransport;
+import com.rainett.javagram.outbound.OutboundScheduler;
+import com.rainett.javagram.outbound.impl.EditCoalescer;
+import com.rainett.javagram.outbound.impl.GcraOutboundScheduler;
+import com.rainett.javagram.outbound.impl.HttpClientTransport;
+import com.rainett.javagram.outbound.impl.SenderTransport;
+import com.rainett.javagram.update.executor.UpdateExecutor;
+import com.rainett.javagram.update.executor.impl.ChatOrderedUpdateExecutor;
+import com.rainett.javagram.update.executor.impl.ConcurrentUpdateExecutor;
+import com.rainett.javagram.update.executor.impl.DirectUpdateExecutor;
+import com.rainett.javagram.update.ingress.UpdateIngress;
+import com.rainett.javagram.update.ingress.impl.BoundedUpdateIngress;
+import com.rainett.javagram.update.ingress.impl.DeduplicatingUpdateIngress;
+import com.rainett.javagram.update.ingress.impl.DirectUpdateIngress;
+import com.rainett.javagram.update.service.UpdateCompletionListener;
 import com.rainett.javagram.update.service.UpdateService;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -25,7 +44,9 @@ import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 @Slf4j
 @Configuration
 @ComponentScan(basePackages = "com.rainett.javagram")
-@EnableConfigurationProperties(BotConfig.class)
+@EnableConfigurationProperties({BotConfig.class, RoutingConfig.class, ExecutionConfig.class,
+        IngressConfig.class, PollingConfig.class, OutboundConfig.class, TransportConfig.class,
+        BroadcastConfig.class, CoalescingConfig.class})
 public class AutoConfig {
 
     /**
@@ -57,15 +78,207 @@ public class AutoConfig {
      * updates.
      * </p>
      *
-     * @param botConfig     the bot configuration properties
-     * @param updateService an optional provider for the {@link UpdateService} to process updates
+     * @param botConfig       the bot configuration properties
+     * @param pollingConfig   the long polling configuration
+     * @param updateIngress   an optional provider for the {@link UpdateIngress} receiving
+     *                        updates
+     * @param offsetWatermark an optional provider for the {@link OffsetWatermark} of the
+     *                        processed updates
      * @return a {@link DefaultAbsSender} configured as a {@link LongPollingBot}
      */
     @Bean
     @ConditionalOnMissingBean(DefaultAbsSender.class)
-    public DefaultAbsSender longPollingBot(BotConfig botConfig,
-                                           ObjectProvider<UpdateService> updateService) {
+    public DefaultAbsSender longPollingBot(BotConfig botConfig, PollingConfig pollingConfig,
+                                           ObjectProvider<UpdateIngress> updateIngress,
+                                           ObjectProvider<OffsetWatermark> offsetWatermark) {
         log.info("Webhook disabled, creating LongPollingBot instance");
-        return new LongPollingBot(botConfig, updateService);
+        return new LongPollingBot(botConfig, pollingConfig, updateIngress,
+                offsetWatermark.getIfAvailable());
+    }
+
+    /**
+     * Creates the {@link OffsetWatermark} of the processed updates if
+     * {@code bot.polling.offset-file} is set.
+     * <p>
+     * The watermark is loaded from the file, flushed every
+     * {@code bot.polling.offset-flush-interval}, and flushed one last time when the context is
+     * closed.
+     * </p>
+     *
+     * @param pollingConfig the long polling configuration
+     * @return the watermark persisted to {@code bot.polling.offset-file}
+     */
+    @Bean
+    @ConditionalOnProperty(name = "bot.polling.offset-file")
+    @ConditionalOnMissingBean(OffsetWatermark.class)
+    public OffsetWatermark offsetWatermark(PollingConfig pollingConfig) {
+        log.info("Tracking processed updates in {}", pollingConfig.getOffsetFile());
+        return new OffsetWatermark(pollingConfig.getOffsetFile(),
+                pollingConfig.getOffsetFlushInterval());
+    }
+
+    /**
+     * Creates the {@link UpdateIngress} if the application does not define one.
+     * <p>
+     * When {@code bot.ingress.enabled} is set, received updates are queued in a
+     * {@link BoundedUpdateIngress}. Unless {@code bot.ingress.overflow-policy} says otherwise,
+     * a full queue blocks long polling and rejects webhook requests. Unless
+     * {@code bot.ingress.dedup-window} is 0, the ingress is wrapped in a
+     * {@link DeduplicatingUpdateIngress} skipping updates that Telegram delivers again.
+     * </p>
+     *
+     * @param ingressConfig       the ingress configuration
+     * @param botConfig           the bot configuration properties
+     * @param updateService       the service processing the updates
+     * @param completionListeners the listeners notified of the updates the ingress discards
+     * @return a {@link BoundedUpdateIngress} if the ingress queue is enabled, or a
+     *         {@link DirectUpdateIngress} otherwise, possibly deduplicated
+     */
+    @Bean
+    @ConditionalOnMissingBean(UpdateIngress.class)
+    public UpdateIngress updateIngress(IngressConfig ingressConfig, BotConfig botConfig,
+                                       UpdateService updateService,
+                                       List<UpdateCompletionListener> completionListeners) {
+        UpdateIngress ingress;
+        if (ingressConfig.isEnabled()) {
+            IngressConfig.OverflowPolicy overflowPolicy = ingressConfig.getOverflowPolicy();
+            if (overflowPolicy == null) {
+                overflowPolicy = botConfig.getPath() == null
+                        ? IngressConfig.OverflowPolicy.BLOCK
+                        : IngressConfig.OverflowPolicy.REJECT;
+            }
+            ingress = new BoundedUpdateIngress(ingressConfig, overflowPolicy, updateService,
+                    completionListeners);
+        } else {
+            ingress = new DirectUpdateIngress(updateService);
+        }
+        return ingressConfig.getDedupWindow() > 0
+                ? new DeduplicatingUpdateIngress(ingress, ingressConfig.getDedupWindow())
+                : ingress;
+    }
+
+    /**
+     * Creates the {@link BotApiTransport} sending methods to the Bot API if
+     * {@code bot.transport.enabled} is set and the application does not define one.
+     * <p>
+     * Replies of actions and the methods paced by the {@link OutboundScheduler} are then sent
+     * through the transport, while the bot keeps its own HTTP client for receiving updates and
+     * sending files.
+     * </p>
+     *
+     * @param transportConfig the transport configuration
+     * @param botConfig       the bot configuration properties holding the token
+     * @param bot             the bot whose base URL the transport uses
+     * @return a {@link HttpClientTransport} sending to the Bot API of the bot
+     */
+    @Bean
+    @ConditionalOnProperty(name = "bot.transport.enabled", havingValue = "true")
+    @ConditionalOnMissingBean(BotApiTransport.class)
+    public BotApiTransport botApiTransport(TransportConfig transportConfig, BotConfig botConfig,
+                                           DefaultAbsSender bot) {
+        return new HttpClientTransport(transportConfig, bot.getOptions().getBaseUrl(),
+                botConfig.getToken());
+    }
+
+    /**
+     * Creates the {@link OutboundScheduler} pacing the methods sent by the bot if
+     * {@code bot.outbound.enabled} is set and the application does not define one.
+     * <p>
+     * Replies of actions are then sent through the scheduler, and actions may inject it to send
+     * their own methods within the rate limits of Telegram.
+     * </p>
+     *
+     * @param outboundConfig the outbound configuration
+     * @param bot            the bot sending the methods
+     * @param transport      an optional provider for the {@link BotApiTransport} sending the
+     *                       methods instead of the bot
+     * @return a {@link GcraOutboundScheduler} sending through the transport, or with the bot
+     */
+    @Bean
+    @ConditionalOnProperty(name = "bot.outbound.enabled", havingValue = "true")
+    @ConditionalOnMissingBean(OutboundScheduler.class)
+    public OutboundScheduler outboundScheduler(OutboundConfig outboundConfig,
+                                               DefaultAbsSender bot,
+                                               ObjectProvider<BotApiTransport> transport) {
+        return new GcraOutboundScheduler(outboundConfig, bot,
+                transport.getIfAvailable(() -> new SenderTransport(bot)));
+    }
+
+    /**
+     * Creates the {@link EditCoalescer} if {@code bot.coalescing.enabled} is set and the
+     * application does not define one.
+     * <p>
+     * Actions streaming their progress into a message edit it through the coalescer, which
+     * sends the latest edit of the message once per {@code bot.coalescing.flush-interval}
+     * instead of every one of them.
+     * </p>
+     *
+     * @param coalescingConfig the coalescing configuration
+     * @param bot              the bot sending the edits
+     * @param scheduler        an optional provider for the {@link OutboundScheduler} pacing
+     *                         the edits
+     * @param transport        an optional provider for the {@link BotApiTransport} sending the
+     *                         edits if there is no scheduler
+     * @return an {@link EditCoalescer} sending through the scheduler, the transport, or with
+     *         the bot
+     */
+    @Bean
+    @ConditionalOnProperty(name = "bot.coalescing.enabled", havingValue = "true")
+    @ConditionalOnMissingBean(EditCoalescer.class)
+    public EditCoalescer editCoalescer(CoalescingConfig coalescingConfig, DefaultAbsSender bot,
+                                       ObjectProvider<OutboundScheduler> scheduler,
+                                       ObjectProvider<BotApiTransport> transport) {
+        OutboundScheduler outboundScheduler = scheduler.getIfAvailable();
+        if (outboundScheduler != null) {
+            return new EditCoalescer(coalescingConfig, outboundScheduler);
+        }
+        return new EditCoalescer(coalescingConfig,
+                transport.getIfAvailable(() -> new SenderTransport(bot)));
+    }
+
+    /**
+     * Creates the {@link BroadcastEngine} if {@code bot.broadcast.enabled} is set and the
+     * application does not define one.
+     * <p>
+     * Broadcasts are sent through the {@link OutboundScheduler}, so that they share the rate
+     * limits of Telegram with the replies of actions instead of exceeding them.
+     * </p>
+     *
+     * @param broadcastConfig the broadcast configuration
+     * @param scheduler       the {@link OutboundScheduler} sending the broadcasts, which
+     *                        requires {@code bot.outbound.enabled}; the engine is closed before
+     *                        it, so the last sends of a broadcast are not rejected
+     * @param listeners       the listeners notified of unreachable recipients
+     * @return the broadcast engine
+     */
+    @Bean
+    @ConditionalOnProperty(name = "bot.broadcast.enabled", havingValue = "true")
+    @ConditionalOnMissingBean(BroadcastEngine.class)
+    public BroadcastEngine broadcastEngine(BroadcastConfig broadcastConfig,
+                                           OutboundScheduler scheduler,
+                                           List<UnreachableRecipientListener> listeners) {
+        return new BroadcastEngine(broadcastConfig, scheduler, listeners);
+    }
+
+    /**
+     * Creates the {@link UpdateExecutor} selected by {@code bot.execution.mode} if the
+     * application does not define one.
+     *
+     * @param executionConfig the execution configuration
+     * @return a {@link ConcurrentUpdateExecutor} in the {@code virtual-threads} mode, wrapped in
+     *         a {@link ChatOrderedUpdateExecutor} if {@code bot.execution.chat-ordered} is
+     *         enabled, or a {@link DirectUpdateExecutor} otherwise
+     */
+    @Bean
+    @ConditionalOnMissingBean(UpdateExecutor.class)
+    public UpdateExecutor updateExecutor(ExecutionConfig executionConfig) {
+        if (executionConfig.getMode() == ExecutionConfig.Mode.VIRTUAL_THREADS) {
+            UpdateExecutor executor = new ConcurrentUpdateExecutor(executionConfig);
+            return executionConfig.isChatOrdered()
+                    ? new ChatOrderedUpdateExecutor(executor, executionConfig.getStripes(),
+                            executionConfig.getMaxConcurrency())
+                    : executor;
+        }
+        return new DirectUpdateExecutor();
     }
 }
@@ -0,0 +1,63 @@
+package com.rainett.javagram.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for broadcasting a message to many chats.
+ * <p>
+ * This class binds properties with the prefix "bot.broadcast" from the application
+ * configuration. All properties are optional:
+ * </p>
+ * <ul>
+ *   <li><b>bot.broadcast.enabled:</b> Whether a
+ *   {@link com.rainett.javagram.broadcast.BroadcastEngine} is available to the application.
+ *   Requires {@code bot.outbound.enabled}. Defaults to {@code false}.</li>
+ *   <li><b>bot.broadcast.directory:</b> The directory the checkpoint and the outcomes of every
+ *   broadcast are written to. Defaults to {@code broadcasts}.</li>
+ *   <li><b>bot.broadcast.window:</b> The maximum number of methods of a broadcast queued in
+ *   the outbound scheduler at the same time. Replies wait behind at most this many methods.
+ *   Defaults to 32.</li>
+ *   <li><b>bot.broadcast.checkpoint-interval:</b> How often the progress of a broadcast is
+ *   written to its checkpoint. Defaults to 1 second.</li>
+ *   <li><b>bot.broadcast.report-interval:</b> How often the progress, throughput and ETA of a
+ *   broadcast are logged. Defaults to 10 seconds.</li>
+ *   <li><b>bot.broadcast.shutdown-timeout:</b> How long to wait for the methods in flight on
+ *   shutdown. Defaults to 10 seconds.</li>
+ * </ul>
+ */
+@Data
+@ConfigurationProperties(prefix = "bot.broadcast")
+public class BroadcastConfig {
+    /**
+     * Whether the broadcast engine is available.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Directory of the checkpoint and outcome files.
+     */
+    private Path directory = Path.of("broadcasts");
+
+    /**
+     * Maximum number of methods of a broadcast queued or in flight.
+     */
+    private int window = 32;
+
+    /**
+     * Interval between writes of the checkpoint of a broadcast.
+     */
+    private Duration checkpointInterval = Duration.ofSeconds(1);
+
+    /**
+     * Interval between progress reports of a broadcast.
+     */
+    private Duration reportInterval = Duration.ofSeconds(10);
+
+    /**
+     * Time to wait for the methods in flight on shutdown before the last checkpoint.
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+}
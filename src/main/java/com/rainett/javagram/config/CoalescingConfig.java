@@ -0,0 +1,42 @@
+package com.rainett.javagram.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for coalescing the edits of a message.
+ * <p>
+ * This class binds properties with the prefix "bot.coalescing" from the application
+ * configuration. All properties are optional:
+ * </p>
+ * <ul>
+ *   <li><b>bot.coalescing.enabled:</b> Whether an
+ *   {@link com.rainett.javagram.outbound.impl.EditCoalescer} is available to actions that edit
+ *   the same message repeatedly. Defaults to {@code false}.</li>
+ *   <li><b>bot.coalescing.flush-interval:</b> The minimum time between two edits sent for the
+ *   same message. The edits made in between are replaced by the latest one. Defaults to 1
+ *   second.</li>
+ *   <li><b>bot.coalescing.max-tracked-messages:</b> The number of messages whose last sent
+ *   content is remembered to skip edits that would not modify them. The least recently edited
+ *   idle messages are forgotten first. Defaults to 10000.</li>
+ * </ul>
+ */
+@Data
+@ConfigurationProperties(prefix = "bot.coalescing")
+public class CoalescingConfig {
+    /**
+     * Whether the edits of a message are coalesced.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Minimum time between two edits sent for the same message.
+     */
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /**
+     * Maximum number of idle messages whose last sent content is remembered.
+     */
+    private int maxTrackedMessages = 10_000;
+}
@@ -0,0 +1,96 @@
+package com.rainett.javagram.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for the execution of actions.
+ * <p>
+ * This class binds properties with the prefix "bot.execution" from the application
+ * configuration. All properties are optional:
+ * </p>
+ * <ul>
+ *   <li><b>bot.execution.mode:</b> How actions are executed, see {@link Mode}. Defaults to
+ *   {@code direct}.</li>
+ *   <li><b>bot.execution.max-concurrency:</b> The maximum number of updates processed at the
+ *   same time in the {@code virtual-threads} mode, and, with {@code bot.execution.chat-ordered},
+ *   the maximum number of updates waiting behind the updates of their chat. Defaults to
+ *   1000.</li>
+ *   <li><b>bot.execution.fallback-pool-size:</b> The number of platform threads used by the
+ *   {@code virtual-threads} mode when the JVM does not support virtual threads. Defaults to
+ *   64.</li>
+ *   <li><b>bot.execution.chat-ordered:</b> Whether the {@code virtual-threads} mode processes
+ *   the updates of a chat in order. Defaults to {@code true}.</li>
+ *   <li><b>bot.execution.stripes:</b> The number of queues chats are distributed over when
+ *   {@code bot.execution.chat-ordered} is enabled. Defaults to 1024.</li>
+ *   <li><b>bot.execution.async-timeout:</b> How long an
+ *   {@link com.rainett.javagram.action.AsyncAction} may take before it is reported as timed
+ *   out. Defaults to 1 minute.</li>
+ *   <li><b>bot.execution.shutdown-timeout:</b> How long to wait for running actions on
+ *   shutdown. Defaults to 30 seconds.</li>
+ * </ul>
+ */
+@Data
+@ConfigurationProperties(prefix = "bot.execution")
+public class ExecutionConfig {
+    /**
+     * How actions are executed.
+     */
+    private Mode mode = Mode.DIRECT;
+
+    /**
+     * Maximum number of updates processed at the same time. When updates are chat-ordered, it
+     * also caps the updates queued behind the updates of their chat. When it is reached, the
+     * thread receiving updates waits until an action completes.
+     */
+    private int maxConcurrency = 1000;
+
+    /**
+     * Number of platform threads used when virtual threads are not available.
+     */
+    private int fallbackPoolSize = 64;
+
+    /**
+     * Whether updates of the same chat are processed one at a time, in the order they were
+     * received. Updates of different chats still run in parallel.
+     */
+    private boolean chatOrdered = true;
+
+    /**
+     * Number of queues chats are distributed over when updates are chat-ordered. Chats sharing
+     * a queue are processed one after another, so it should exceed the number of concurrently
+     * busy chats. Rounded up to a power of two.
+     */
+    private int stripes = 1024;
+
+    /**
+     * Time after which an incomplete async action is reported as timed out. {@code null}
+     * disables the timeout.
+     */
+    private Duration asyncTimeout = Duration.ofMinutes(1);
+
+    /**
+     * Time to wait for running actions on shutdown.
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Execution modes of actions.
+     */
+    public enum Mode {
+        /**
+         * Actions run on the thread that received the update: the long polling thread or the
+         * webhook request thread.
+         */
+        DIRECT,
+
+        /**
+         * Updates are processed on virtual threads, the updates of a chat in order unless
+         * {@code bot.execution.chat-ordered} is disabled. On JVMs without virtual threads
+         * (Java 17-20), a fixed pool of {@code bot.execution.fallback-pool-size} platform
+         * threads is used instead.
+         */
+        VIRTUAL_THREADS
+    }
+}
@@ -0,0 +1,125 @@
+package com.rainett.javagram.config;
+
+import com.rainett.javagram.update.ingress.UpdateKind;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for the ingress of received updates.
+ * <p>
+ * This class binds properties with the prefix "bot.ingress" from the application
+ * configuration. All properties are optional:
+ * </p>
+ * <ul>
+ *   <li><b>bot.ingress.enabled:</b> Whether received updates are queued in a bounded queue
+ *   before they are processed. Webhook requests are then acknowledged as soon as the update is
+ *   queued instead of after its action completes. Defaults to {@code false}.</li>
+ *   <li><b>bot.ingress.capacity:</b> The maximum number of queued updates. Defaults to
+ *   10000.</li>
+ *   <li><b>bot.ingress.overflow-policy:</b> What happens to an update received while the queue
+ *   is full, see {@link OverflowPolicy}. Defaults to {@code block} for long polling and
+ *   {@code reject} for webhooks.</li>
+ *   <li><b>bot.ingress.reject-status:</b> The HTTP status a webhook answers rejected updates
+ *   with. Defaults to 429.</li>
+ *   <li><b>bot.ingress.priorities:</b> The priority of each {@link UpdateKind}, used by the
+ *   {@code drop-lowest-priority} policy. By default, payment queries rank above messages,
+ *   callback queries and membership changes of the bot, which rank above inline queries and
+ *   chat member updates. Kinds that are not listed, such as edits, channel posts and polls,
+ *   have priority 0.</li>
+ *   <li><b>bot.ingress.max-age:</b> Queued updates older than this are dropped instead of
+ *   processed. Disabled by default.</li>
+ *   <li><b>bot.ingress.shutdown-timeout:</b> How long to wait for queued updates to be
+ *   dispatched on shutdown. Defaults to 30 seconds.</li>
+ *   <li><b>bot.ingress.dedup-window:</b> The number of most recent update ids remembered to
+ *   skip updates Telegram delivers again, rounded up to a multiple of 64. 0 disables the
+ *   check. Defaults to 65536, which takes 8 KiB.</li>
+ * </ul>
+ */
+@Data
+@ConfigurationProperties(prefix = "bot.ingress")
+public class IngressConfig {
+    /**
+     * Whether received updates are queued in a bounded queue.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Maximum number of queued updates.
+     */
+    private int capacity = 10_000;
+
+    /**
+     * Policy applied to updates received while the queue is full. If not set, long polling
+     * blocks and webhooks reject.
+     */
+    private OverflowPolicy overflowPolicy;
+
+    /**
+     * HTTP status of the webhook response to rejected updates. Telegram delivers the update
+     * again after any non-2xx response.
+     */
+    private int rejectStatus = 429;
+
+    /**
+     * Priorities of update kinds. Higher priorities are dropped last.
+     */
+    private Map<UpdateKind, Integer> priorities = defaultPriorities();
+
+    /**
+     * Maximum age of a queued update, measured from the date of its message if it has one, or
+     * from its receipt otherwise. {@code null} keeps updates regardless of their age.
+     */
+    private Duration maxAge;
+
+    /**
+     * Time to wait for queued updates to be dispatched on shutdown.
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Number of most recent update ids remembered to skip redelivered updates. 0 disables the
+     * check.
+     */
+    private int dedupWindow = 65_536;
+
+    /**
+     * Policies applied to updates received while the queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * The receiving thread waits until the queue has room. Long polling stops fetching
+         * updates, and Telegram keeps them until it resumes.
+         */
+        BLOCK,
+
+        /**
+         * The update is rejected. A webhook answers with {@code bot.ingress.reject-status}, so
+         * Telegram delivers it again later. Long polling has already confirmed the update, so
+         * it is lost.
+         */
+        REJECT,
+
+        /**
+         * The oldest queued update of the lowest priority is dropped to make room. If the
+         * received update has a lower priority than every queued one, it is dropped instead.
+         */
+        DROP_LOWEST_PRIORITY
+    }
+
+    private static Map<UpdateKind, Integer> defaultPriorities() {
+        Map<UpdateKind, Integer> priorities = new EnumMap<>(UpdateKind.class);
+        priorities.put(UpdateKind.PRE_CHECKOUT_QUERY, 3);
+        priorities.put(UpdateKind.SHIPPING_QUERY, 3);
+        priorities.put(UpdateKind.MESSAGE, 2);
+        priorities.put(UpdateKind.CALLBACK_QUERY, 2);
+        priorities.put(UpdateKind.CHAT_JOIN_REQUEST, 2);
+        priorities.put(UpdateKind.MY_CHAT_MEMBER, 2);
+        priorities.put(UpdateKind.INLINE_QUERY, 1);
+        priorities.put(UpdateKind.CHOSEN_INLINE_QUERY, 1);
+        priorities.put(UpdateKind.CHAT_MEMBER, 1);
+        return priorities;
+    }
+}
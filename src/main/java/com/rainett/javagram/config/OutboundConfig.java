@@ -0,0 +1,95 @@
+package com.rainett.javagram.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for pacing the methods the bot sends to Telegram.
+ * <p>
+ * This class binds properties with the prefix "bot.outbound" from the application
+ * configuration. All properties are optional:
+ * </p>
+ * <ul>
+ *   <li><b>bot.outbound.enabled:</b> Whether an
+ *   {@link com.rainett.javagram.outbound.OutboundScheduler} paces the replies of actions and
+ *   is available to actions. Defaults to {@code false}.</li>
+ *   <li><b>bot.outbound.global-per-second:</b> The maximum number of methods sent per second
+ *   across all chats. Defaults to 30.</li>
+ *   <li><b>bot.outbound.private-chat-per-second:</b> The maximum number of methods sent per
+ *   second to one private chat. Defaults to 1.</li>
+ *   <li><b>bot.outbound.group-per-minute:</b> The maximum number of methods sent per minute to
+ *   one group or channel. Defaults to 20.</li>
+ *   <li><b>bot.outbound.chat-burst:</b> The number of methods a chat that was idle may receive
+ *   at once before its rate applies. Defaults to 1.</li>
+ *   <li><b>bot.outbound.stripes:</b> The number of rate buckets chats are distributed over.
+ *   Defaults to 4096.</li>
+ *   <li><b>bot.outbound.capacity:</b> The maximum number of queued methods. Defaults to
+ *   10000.</li>
+ *   <li><b>bot.outbound.max-in-flight:</b> The maximum number of methods sent at the same time.
+ *   The limit is halved on {@code 429} and {@code 5xx} responses and slowly raised back on
+ *   successes. Defaults to 16.</li>
+ *   <li><b>bot.outbound.max-retries:</b> How many times a method answered with
+ *   {@code 429 Too Many Requests} is sent again after its {@code retry_after}. Defaults to
+ *   3.</li>
+ *   <li><b>bot.outbound.shutdown-timeout:</b> How long to keep sending queued methods on
+ *   shutdown. Defaults to 10 seconds.</li>
+ * </ul>
+ */
+@Data
+@ConfigurationProperties(prefix = "bot.outbound")
+public class OutboundConfig {
+    /**
+     * Whether sent methods are paced by an outbound scheduler.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Maximum number of methods sent per second across all chats.
+     */
+    private int globalPerSecond = 30;
+
+    /**
+     * Maximum number of methods sent per second to one private chat.
+     */
+    private int privateChatPerSecond = 1;
+
+    /**
+     * Maximum number of methods sent per minute to one group, supergroup or channel.
+     */
+    private int groupPerMinute = 20;
+
+    /**
+     * Number of methods an idle chat may receive at once. 1 spaces every method of a chat by
+     * its full interval.
+     */
+    private int chatBurst = 1;
+
+    /**
+     * Number of rate buckets chats are distributed over. Chats sharing a bucket share its
+     * budget, so it should exceed the number of chats receiving methods at the same time.
+     * Rounded up to a power of two.
+     */
+    private int stripes = 4096;
+
+    /**
+     * Maximum number of queued methods. Methods sent while the queue is full fail.
+     */
+    private int capacity = 10_000;
+
+    /**
+     * Upper bound of the adaptive limit of methods sent at the same time.
+     */
+    private int maxInFlight = 16;
+
+    /**
+     * Maximum number of times a method is sent again after a {@code retry_after}. 0 fails it
+     * with the first {@code 429} response.
+     */
+    private int maxRetries = 3;
+
+    /**
+     * Time to keep sending queued methods on shutdown. Methods still queued afterwards fail.
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+}
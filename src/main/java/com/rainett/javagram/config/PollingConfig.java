@@ -0,0 +1,76 @@
+package com.rainett.javagram.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for receiving updates with long polling.
+ * <p>
+ * This class binds properties with the prefix "bot.polling" from the application
+ * configuration. They only apply when {@code bot.path} is not set. All properties are
+ * optional:
+ * </p>
+ * <ul>
+ *   <li><b>bot.polling.engine:</b> The session fetching the updates, see {@link Engine}.
+ *   Defaults to {@code default}.</li>
+ *   <li><b>bot.polling.limit:</b> The maximum number of updates fetched by one
+ *   {@code getUpdates} request, between 1 and 100. Defaults to 100.</li>
+ *   <li><b>bot.polling.timeout:</b> How long Telegram holds a {@code getUpdates} request open
+ *   while there are no updates. Whole seconds, at most 50. Defaults to 50 seconds.</li>
+ *   <li><b>bot.polling.offset-file:</b> The file the watermark of processed updates is
+ *   persisted to. When set, Telegram only confirms updates that were fully processed, and
+ *   polling resumes from the watermark after a restart. Requires the {@code pipelined} engine.
+ *   Disabled by default.</li>
+ *   <li><b>bot.polling.offset-flush-interval:</b> How often the watermark is written to the
+ *   offset file. Defaults to 1 second.</li>
+ * </ul>
+ */
+@Data
+@ConfigurationProperties(prefix = "bot.polling")
+public class PollingConfig {
+    /**
+     * Session fetching the updates.
+     */
+    private Engine engine = Engine.DEFAULT;
+
+    /**
+     * Maximum number of updates fetched by one request.
+     */
+    private int limit = 100;
+
+    /**
+     * Long polling timeout of a request.
+     */
+    private Duration timeout = Duration.ofSeconds(50);
+
+    /**
+     * File the watermark of processed updates is persisted to, or {@code null} to confirm
+     * updates as soon as they are fetched.
+     */
+    private Path offsetFile;
+
+    /**
+     * Interval between writes of the offset file.
+     */
+    private Duration offsetFlushInterval = Duration.ofSeconds(1);
+
+    /**
+     * Sessions fetching updates with long polling.
+     */
+    public enum Engine {
+        /**
+         * The {@code DefaultBotSession} of TelegramBots. It fetches a batch, waits until every
+         * update of it has been handed to the bot, and only then requests the next one.
+         */
+        DEFAULT,
+
+        /**
+         * The {@link com.rainett.javagram.bot.polling.PipelinedBotSession}. It requests the
+         * next batch while the current one is being handed to the bot, and hands the bot whole
+         * batches.
+         */
+        PIPELINED
+    }
+}
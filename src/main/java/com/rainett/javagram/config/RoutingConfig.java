@@ -0,0 +1,103 @@
+package com.rainett.javagram.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for action routing.
+ * <p>
+ * This class binds properties with the prefix "bot.routing" from the application
+ * configuration. All properties are optional:
+ * </p>
+ * <ul>
+ *   <li><b>bot.routing.regex-engine:</b> The engine used to evaluate {@code @Text(regex)}
+ *   actions, see {@link RegexEngine}. Defaults to {@code jdk}.</li>
+ *   <li><b>bot.routing.regex-step-limit:</b> The maximum number of character reads of a single
+ *   {@code java.util.regex} evaluation in the {@code linear} engine. Defaults to 1000000.</li>
+ *   <li><b>bot.routing.generated-index:</b> Whether actions are ordered by the index generated
+ *   at compile time, if one is on the classpath. Defaults to {@code true}.</li>
+ *   <li><b>bot.routing.cache.enabled:</b> Whether routing decisions are cached, see
+ *   {@link Cache}. Defaults to {@code false}.</li>
+ *   <li><b>bot.routing.cache.maximum-size:</b> The maximum number of cached routing decisions.
+ *   Defaults to 10000.</li>
+ *   <li><b>bot.routing.cache.max-key-length:</b> The maximum length of a cached message text.
+ *   Longer texts are routed without the cache. Defaults to 64.</li>
+ * </ul>
+ */
+@Data
+@ConfigurationProperties(prefix = "bot.routing")
+public class RoutingConfig {
+    /**
+     * Engine used to evaluate the regular expressions of text actions.
+     */
+    private RegexEngine regexEngine = RegexEngine.JDK;
+
+    /**
+     * Maximum number of character reads of a regular expression evaluated by
+     * {@code java.util.regex} in the {@link RegexEngine#LINEAR} engine. A longer evaluation is
+     * aborted and treated as a mismatch.
+     */
+    private long regexStepLimit = 1_000_000;
+
+    /**
+     * Whether actions are ordered by a {@link
+     * com.rainett.javagram.action.container.GeneratedActionIndex} found on the classpath instead
+     * of sorting them at startup.
+     */
+    private boolean generatedIndex = true;
+
+    /**
+     * Cache of routing decisions.
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * Configuration of the routing decision cache.
+     * <p>
+     * The cache maps an update type and a routing key, such as the text of a message, to the
+     * resolved action. It pays off when many updates carry the same text, for example the
+     * buttons of a reply keyboard.
+     * </p>
+     */
+    @Data
+    public static class Cache {
+        /**
+         * Whether routing decisions are cached.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Maximum number of cached routing decisions; the least recently used ones are
+         * evicted first.
+         */
+        private int maximumSize = 10_000;
+
+        /**
+         * Maximum length of a cached routing key. Updates with a longer key bypass the cache.
+         */
+        private int maxKeyLength = 64;
+    }
+
+    /**
+     * Engines available for {@code @Text(regex)} routing.
+     */
+    public enum RegexEngine {
+        /**
+         * Every regular expression is compiled once and tested separately, in precedence order.
+         */
+        JDK,
+
+        /**
+         * All regular expressions are merged into one alternation, so a message is matched
+         * by a single pattern instead of one pattern per action.
+         */
+        UNION,
+
+        /**
+         * Regular expressions are compiled into a single NFA that matches in linear time.
+         * Regular expressions that need backtracking are reported at startup and evaluated by
+         * {@code java.util.regex} within {@code bot.routing.regex-step-limit} character reads.
+         */
+        LINEAR
+    }
+}
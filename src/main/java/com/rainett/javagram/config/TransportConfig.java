@@ -0,0 +1,57 @@
+package com.rainett.javagram.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for the HTTP transport sending methods to the Bot API.
+ * <p>
+ * This class binds properties with the prefix "bot.transport" from the application
+ * configuration. All properties are optional:
+ * </p>
+ * <ul>
+ *   <li><b>bot.transport.enabled:</b> Whether methods are sent through a
+ *   {@link com.rainett.javagram.outbound.impl.HttpClientTransport} instead of the HTTP client
+ *   of the bot. Defaults to {@code false}.</li>
+ *   <li><b>bot.transport.max-concurrent-requests:</b> The maximum number of requests sent at
+ *   the same time. Further requests wait without holding a thread. Defaults to 64.</li>
+ *   <li><b>bot.transport.connect-timeout:</b> How long to wait for a connection to the Bot
+ *   API. Defaults to 10 seconds.</li>
+ *   <li><b>bot.transport.request-timeout:</b> How long to wait for the response to a method.
+ *   Defaults to 30 seconds.</li>
+ *   <li><b>bot.transport.method-timeouts:</b> The response timeout of individual methods by
+ *   name, ignoring case, such as {@code bot.transport.method-timeouts.getChatMember=2m}. Methods
+ *   that are not listed use {@code request-timeout}.</li>
+ * </ul>
+ */
+@Data
+@ConfigurationProperties(prefix = "bot.transport")
+public class TransportConfig {
+    /**
+     * Whether methods are sent through the pooled HTTP transport.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Maximum number of requests sent at the same time.
+     */
+    private int maxConcurrentRequests = 64;
+
+    /**
+     * Timeout for connecting to the Bot API.
+     */
+    private Duration connectTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Timeout for the response to a method that has no timeout of its own.
+     */
+    private Duration requestTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Response timeouts of individual methods by method name.
+     */
+    private Map<String, Duration> methodTimeouts = new HashMap<>();
+}
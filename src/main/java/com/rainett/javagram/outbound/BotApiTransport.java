@@ -0,0 +1,27 @@
+package com.rainett.javagram.outbound;
+
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+
+/**
+ * Sends methods to the Bot API over HTTP.
+ * <p>
+ * The {@link OutboundScheduler} hands the methods it paces to a transport, so that the HTTP
+ * client used for them can be replaced without touching the bot, which keeps receiving updates
+ * and sending files with its own client.
+ * </p>
+ */
+public interface BotApiTransport {
+
+    /**
+     * Sends a method without waiting for its response.
+     *
+     * @param method the method to send
+     * @param <T>    the result type of the method
+     * @return a future completed with the result of the method, or exceptionally with a
+     *         {@link org.telegram.telegrambots.meta.exceptions.TelegramApiException} if the
+     *         method is invalid, the request failed or Telegram answered with an error
+     */
+    <T extends Serializable> CompletableFuture<T> executeAsync(BotApiMethod<T> method);
+}
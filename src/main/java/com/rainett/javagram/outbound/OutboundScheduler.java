@@ -0,0 +1,85 @@
+package com.rainett.javagram.outbound;
+
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+/**
+ * Sends methods to Telegram through the bot within the rate limits of the Bot API.
+ * <p>
+ * Telegram accepts about 30 messages per second from a bot, one per second to a private chat
+ * and 20 per minute to a group, and answers further requests with {@code 429 Too Many
+ * Requests}. A scheduler queues the methods sent to a chat and sends each one once every
+ * budget allows it, so that a busy chat only delays its own methods. Methods that are not
+ * addressed to a chat are sent immediately.
+ * </p>
+ */
+public interface OutboundScheduler {
+
+    /**
+     * Schedules a method addressed by its {@code chat_id}.
+     *
+     * @param method the method to send
+     * @param <T>    the result type of the method
+     * @return a future completed with the result of the method once it was sent, or
+     *         exceptionally if it failed or was rejected by the scheduler
+     */
+    <T extends Serializable> CompletableFuture<T> executeAsync(BotApiMethod<T> method);
+
+    /**
+     * Schedules a send to a chat that is not a {@link BotApiMethod}, such as a
+     * {@code SendPhoto}, for example {@code submit(chatId, bot -> bot.executeAsync(sendPhoto))}.
+     *
+     * @param chatId the chat the send is addressed to, or {@code null} to send immediately
+     * @param call   the send, executed with the bot once the budgets allow it
+     * @param <T>    the result type of the send
+     * @return a future completed with the result of the send, or exceptionally if it failed
+     *         or was rejected by the scheduler
+     */
+    <T> CompletableFuture<T> submit(String chatId, SendCall<T> call);
+
+    /**
+     * Schedules a method and waits until it was sent.
+     *
+     * @param method the method to send
+     * @param <T>    the result type of the method
+     * @return the result of the method
+     * @throws TelegramApiException if the method failed, was rejected or the thread was
+     *                              interrupted
+     */
+    default <T extends Serializable> T execute(BotApiMethod<T> method)
+            throws TelegramApiException {
+        try {
+            return executeAsync(method).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TelegramApiException("Interrupted while sending " + method.getMethod(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TelegramApiException telegramException) {
+                throw telegramException;
+            }
+            throw new TelegramApiException("Failed to send " + method.getMethod(), e.getCause());
+        }
+    }
+
+    /**
+     * Send executed by the scheduler with the bot.
+     *
+     * @param <T> the result type of the send
+     */
+    @FunctionalInterface
+    interface SendCall<T> {
+
+        /**
+         * Starts the send.
+         *
+         * @param sender the bot
+         * @return a future completed with the result of the send
+         * @throws TelegramApiException if the send cannot be started
+         */
+        CompletableFuture<T> send(AbsSender sender) throws TelegramApiException;
+    }
+}
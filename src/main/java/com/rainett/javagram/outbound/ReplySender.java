@@ -0,0 +1,52 @@
+package com.rainett.javagram.outbound;
+
+import com.rainett.javagram.action.ReplyingAction;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+/**
+ * Sends the replies of {@link ReplyingAction}s.
+ * <p>
+ * The {@link com.rainett.javagram.update.service.UpdateService} sends the replies of the
+ * actions it routes updates to with this bean. Code running a {@link ReplyingAction} by
+ * itself injects it too, and sends the reply with {@link #run(ReplyingAction, Update)}, so
+ * that the reply takes the same way: through the {@link OutboundScheduler} when one is
+ * available, or else through the {@link BotApiTransport} when one is available, or else with
+ * the bot.
+ * </p>
+ */
+public interface ReplySender {
+
+    /**
+     * Sends a reply without waiting for its response.
+     *
+     * @param reply the method to send
+     * @return a future completed with the result of the method, or exceptionally if it failed
+     * @throws TelegramApiException  if the bot rejected the method before sending it
+     * @throws IllegalStateException if no bot is available to send the reply
+     */
+    CompletableFuture<?> send(BotApiMethod<?> reply) throws TelegramApiException;
+
+    /**
+     * Processes the update with the action and sends its reply, waiting for the result.
+     *
+     * @param action the action to run
+     * @param update the Telegram update to process
+     * @throws IllegalStateException if no bot is available to send the reply
+     * @throws CompletionException   if the reply failed
+     */
+    default void run(ReplyingAction action, Update update) {
+        BotApiMethod<?> reply = action.reply(update);
+        if (reply == null) {
+            return;
+        }
+        try {
+            send(reply).join();
+        } catch (TelegramApiException e) {
+            throw new CompletionException(e);
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package com.rainett.javagram.outbound.impl;
+
+import com.rainett.javagram.config.CoalescingConfig;
+import com.rainett.javagram.outbound.BotApiTransport;
+import com.rainett.javagram.outbound.OutboundScheduler;
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.MessageEntity;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+/**
+ * Coalesces the {@link EditMessageText} calls of actions that stream their progress into a
+ * message, such as long jobs or generated text, which edit the same message many times per
+ * second.
+ * <p>
+ * The edits of a message, identified by its chat id and message id or by its inline message
+ * id, are sent at most once every {@code bot.coalescing.flush-interval} and never while the
+ * previous one is in flight. The first edit of an idle message is sent immediately. The edits
+ * made in between are not queued: only the latest one is kept and sent when the interval
+ * elapses, and the futures of the edits it replaced complete with its result. An edit that
+ * would not modify the message, because its text, parse mode, entities, link preview and
+ * keyboard equal those of the latest edit, is not sent at all and completes with the result of
+ * that edit. A {@code message is not modified} error of the Bot API is treated as a success as
+ * well.
+ * </p>
+ * <p>
+ * The content last sent is remembered for up to {@code bot.coalescing.max-tracked-messages}
+ * idle messages, the least recently edited being forgotten first. The numbers of submitted,
+ * coalesced, dropped and sent edits are exposed for monitoring.
+ * </p>
+ */
+@Slf4j
+public class EditCoalescer implements AutoCloseable {
+    private static final String NOT_MODIFIED = "message is not modified";
+
+    private final Function<EditMessageText, CompletableFuture<Serializable>> sender;
+    private final long intervalNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Entry> entries;
+    private final ScheduledExecutorService timer;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private boolean closed;
+
+    /**
+     * Creates a coalescer sending the edits through the outbound scheduler, so that they also
+     * respect the rate limits of the chat.
+     *
+     * @param config    the coalescing configuration
+     * @param scheduler the scheduler sending the edits
+     * @throws IllegalArgumentException if the flush interval or the number of tracked messages
+     *                                  is not positive
+     */
+    public EditCoalescer(CoalescingConfig config, OutboundScheduler scheduler) {
+        this(config, (Function<EditMessageText, CompletableFuture<Serializable>>)
+                scheduler::executeAsync);
+    }
+
+    /**
+     * Creates a coalescer sending the edits through a transport.
+     *
+     * @param config    the coalescing configuration
+     * @param transport the transport sending the edits
+     * @throws IllegalArgumentException if the flush interval or the number of tracked messages
+     *                                  is not positive
+     */
+    public EditCoalescer(CoalescingConfig config, BotApiTransport transport) {
+        this(config, (Function<EditMessageText, CompletableFuture<Serializable>>)
+                transport::executeAsync);
+    }
+
+    private EditCoalescer(CoalescingConfig config,
+                          Function<EditMessageText, CompletableFuture<Serializable>> sender) {
+        Duration interval = config.getFlushInterval();
+        if (interval == null || interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("bot.coalescing.flush-interval must be positive: "
+                                               + interval);
+        }
+        int maxTracked = config.getMaxTrackedMessages();
+        if (maxTracked <= 0) {
+            throw new IllegalArgumentException(
+                    "bot.coalescing.max-tracked-messages must be positive: " + maxTracked);
+        }
+        this.sender = sender;
+        this.intervalNanos = interval.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxTracked && eldest.getValue().isIdle();
+            }
+        };
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "javagram-edit-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Edits a message, replacing the edit of the message that has not been sent yet, if any.
+     * Edits without a message id are sent immediately.
+     *
+     * @param edit the edit to send
+     * @return a future completed with the result of the edit, or of the later edit that
+     *         replaced it, or with the result of the last edit of the message if the edit did
+     *         not modify it, {@code null} if that result is unknown; or exceptionally if
+     *         the edit failed or the coalescer was closed
+     */
+    public CompletableFuture<Serializable> edit(EditMessageText edit) {
+        submitted.increment();
+        String key = keyOf(edit);
+        if (key == null) {
+            sent.increment();
+            return send(edit);
+        }
+        Content content = Content.of(edit);
+        CompletableFuture<Serializable> result = new CompletableFuture<>();
+        Dispatch dispatch = null;
+        boolean unchanged = false;
+        Serializable lastResult = null;
+        lock.lock();
+        try {
+            if (closed) {
+                return CompletableFuture.failedFuture(
+                        new RejectedExecutionException("Edit coalescer was closed"));
+            }
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry(key);
+                entries.put(key, entry);
+            }
+            if (entry.pending != null) {
+                if (entry.pending.content.equals(content)) {
+                    dropped.increment();
+                } else {
+                    coalesced.increment();
+                    entry.pending.edit = edit;
+                    entry.pending.content = content;
+                }
+                entry.pending.waiters.add(result);
+            } else if (entry.inFlight != null && entry.inFlight.content.equals(content)) {
+                dropped.increment();
+                entry.inFlight.waiters.add(result);
+            } else if (entry.inFlight == null && content.equals(entry.confirmed)) {
+                dropped.increment();
+                unchanged = true;
+                lastResult = entry.lastResult;
+            } else {
+                entry.pending = new Group(edit, content, result);
+                dispatch = next(entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (unchanged) {
+            result.complete(lastResult);
+        }
+        run(dispatch);
+        return result;
+    }
+
+    /**
+     * Returns the number of edits passed to {@link #edit(EditMessageText)}.
+     *
+     * @return the number of submitted edits
+     */
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    /**
+     * Returns the number of edits replaced by a later edit of the same message before they
+     * were sent.
+     *
+     * @return the number of coalesced edits
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Returns the number of edits that were not sent, or were rejected by Telegram, because
+     * they would not modify the message.
+     *
+     * @return the number of dropped edits
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Returns the number of edits sent to Telegram.
+     *
+     * @return the number of sent edits
+     */
+    public long getSent() {
+        return sent.sum();
+    }
+
+    /**
+     * Sends the pending edits without waiting for their interval, and rejects further edits.
+     */
+    @Override
+    public void close() {
+        List<Dispatch> dispatches = new ArrayList<>();
+        lock.lock();
+        try {
+            closed = true;
+            for (Entry entry : entries.values()) {
+                Dispatch dispatch = next(entry);
+                if (dispatch != null) {
+                    dispatches.add(dispatch);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        timer.shutdownNow();
+        dispatches.forEach(this::run);
+    }
+
+    /**
+     * Takes the pending edit of the message if it may be sent now, or schedules its flush.
+     * Called with the lock held.
+     *
+     * @return the edit to send or to complete, or {@code null} if there is none yet
+     */
+    private Dispatch next(Entry entry) {
+        if (entry.pending == null || entry.inFlight != null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (!closed && entry.nextAt - now > 0) {
+            if (!entry.scheduled) {
+                entry.scheduled = true;
+                timer.schedule(() -> flush(entry), entry.nextAt - now, TimeUnit.NANOSECONDS);
+            }
+            return null;
+        }
+        Group group = entry.pending;
+        entry.pending = null;
+        if (group.content.equals(entry.confirmed)) {
+            // The edits since the last one sent reverted the message to its content.
+            dropped.increment();
+            return new Dispatch(entry, group, false, entry.lastResult);
+        }
+        entry.inFlight = group;
+        entry.nextAt = now + intervalNanos;
+        return new Dispatch(entry, group, true, null);
+    }
+
+    private void flush(Entry entry) {
+        Dispatch dispatch;
+        lock.lock();
+        try {
+            entry.scheduled = false;
+            dispatch = next(entry);
+        } finally {
+            lock.unlock();
+        }
+        run(dispatch);
+    }
+
+    private void run(Dispatch dispatch) {
+        if (dispatch == null) {
+            return;
+        }
+        if (!dispatch.send()) {
+            dispatch.group().complete(dispatch.result(), null);
+            return;
+        }
+        sent.increment();
+        send(dispatch.group().edit).whenComplete((result, error) ->
+                onSent(dispatch.entry(), dispatch.group(), result, error));
+    }
+
+    private CompletableFuture<Serializable> send(EditMessageText edit) {
+        try {
+            return sender.apply(edit);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void onSent(Entry entry, Group group, Serializable result, Throwable error) {
+        boolean notModified = error != null && isNotModified(error);
+        Dispatch dispatch;
+        lock.lock();
+        try {
+            entry.inFlight = null;
+            if (error == null) {
+                entry.confirmed = group.content;
+                entry.lastResult = result;
+            } else if (notModified) {
+                dropped.increment();
+                entry.confirmed = group.content;
+                result = entry.lastResult;
+            }
+            dispatch = next(entry);
+        } finally {
+            lock.unlock();
+        }
+        if (error != null && !notModified) {
+            log.debug("Edit of message {} failed", entry.key, error);
+            group.complete(null, error);
+        } else {
+            group.complete(result, null);
+        }
+        run(dispatch);
+    }
+
+    private static boolean isNotModified(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+               && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (!(error instanceof TelegramApiRequestException requestException)) {
+            return false;
+        }
+        Integer errorCode = requestException.getErrorCode();
+        String description = requestException.getApiResponse();
+        return errorCode != null && errorCode == 400 && description != null
+               && description.toLowerCase(Locale.ROOT).contains(NOT_MODIFIED);
+    }
+
+    private static String keyOf(EditMessageText edit) {
+        if (edit.getInlineMessageId() != null) {
+            return "inline:" + edit.getInlineMessageId();
+        }
+        if (edit.getChatId() == null || edit.getMessageId() == null) {
+            return null;
+        }
+        return edit.getChatId() + ":" + edit.getMessageId();
+    }
+
+    /**
+     * Edits of a message that are sent together: the latest one is sent and the futures of all
+     * of them complete with its result.
+     */
+    private static final class Group {
+        private final List<CompletableFuture<Serializable>> waiters = new ArrayList<>(1);
+        private EditMessageText edit;
+        private Content content;
+
+        private Group(EditMessageText edit, Content content,
+                      CompletableFuture<Serializable> waiter) {
+            this.edit = edit;
+            this.content = content;
+            this.waiters.add(waiter);
+        }
+
+        private void complete(Serializable result, Throwable error) {
+            for (CompletableFuture<Serializable> waiter : waiters) {
+                if (error == null) {
+                    waiter.complete(result);
+                } else {
+                    waiter.completeExceptionally(error);
+                }
+            }
+        }
+    }
+
+    /**
+     * State of the edits of a message, guarded by the lock.
+     */
+    private static final class Entry {
+        private final String key;
+        private Group pending;
+        private Group inFlight;
+        private Content confirmed;
+        private Serializable lastResult;
+        private long nextAt = System.nanoTime();
+        private boolean scheduled;
+
+        private Entry(String key) {
+            this.key = key;
+        }
+
+        private boolean isIdle() {
+            return pending == null && inFlight == null;
+        }
+    }
+
+    private record Dispatch(Entry entry, Group group, boolean send, Serializable result) {
+    }
+
+    /**
+     * The part of an edit that determines how the message looks.
+     */
+    private record Content(String text, String parseMode, List<MessageEntity> entities,
+                           Boolean disableWebPagePreview, InlineKeyboardMarkup replyMarkup) {
+
+        private static Content of(EditMessageText edit) {
+            return new Content(edit.getText(), edit.getParseMode(), edit.getEntities(),
+                    edit.getDisableWebPagePreview(), edit.getReplyMarkup());
+        }
+    }
+}
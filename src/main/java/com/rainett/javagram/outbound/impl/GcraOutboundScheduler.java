@@ -0,0 +1,626 @@
+package com.rainett.javagram.outbound.impl;
+
+import com.rainett.javagram.config.OutboundConfig;
+import com.rainett.javagram.outbound.BotApiTransport;
+import com.rainett.javagram.outbound.OutboundScheduler;
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.objects.ResponseParameters;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+/**
+ * {@link OutboundScheduler} that paces sends with the generic cell rate algorithm (GCRA), a
+ * token bucket stored as a single timestamp.
+ * <p>
+ * Every budget is a theoretical arrival time: the moment its next send would be on schedule.
+ * A send is allowed once the time is at most the burst tolerance before it, and moves it one
+ * interval past the later of itself and now. There is one global budget, and chats are hashed
+ * to a fixed number of striped budgets, so the memory used does not depend on the number of
+ * chats. Chats whose id is negative or a {@code @username} are groups or channels and use the
+ * group interval, other chats the private one. Chats sharing a stripe share its budget.
+ * </p>
+ * <p>
+ * Sends are queued per chat, and only chats with queued sends are tracked. A single dispatcher
+ * thread takes the chat whose budget allows a send earliest, breaking ties in the order the
+ * chats became ready, sends its oldest method, and puts the chat back behind the others if it
+ * has more. A hot group therefore only waits for its own budget and cannot starve other chats
+ * of the global one. The dispatcher only starts the asynchronous send of the transport, so slow
+ * requests do not hold it up.
+ * </p>
+ * <p>
+ * When Telegram answers a paced send with {@code 429 Too Many Requests} and a
+ * {@code retry_after}, the budget of its chat is pushed back by that many seconds and the send
+ * is queued again at the head of its chat, up to {@code bot.outbound.max-retries} times, so no
+ * thread waits for it and other chats keep sending. The number of sends in flight is limited
+ * as well, additive-increase/multiplicative-decrease: every successful send raises the limit
+ * by the inverse of the limit, up to {@code bot.outbound.max-in-flight}, and a 429 or 5xx
+ * response halves it, at most once per round of sends started since the previous decrease.
+ * Other errors, including 5xx responses, are not retried, as the method may have taken effect.
+ * </p>
+ * <p>
+ * The numbers of sent, rejected and retried methods, the queued methods, the chats waiting,
+ * the concurrency limit, the sends in flight and the total time methods waited in the queue
+ * are exposed for monitoring.
+ * </p>
+ */
+@Slf4j
+public class GcraOutboundScheduler implements OutboundScheduler, AutoCloseable {
+    private static final ClassValue<Method> CHAT_ID_GETTERS = new ClassValue<>() {
+        @Override
+        protected Method computeValue(Class<?> type) {
+            try {
+                return type.getMethod("getChatId");
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+    };
+
+    private final AbsSender sender;
+    private final BotApiTransport transport;
+    private final long globalInterval;
+    private final long privateInterval;
+    private final long groupInterval;
+    private final int chatBurst;
+    private final long[] chatArrivals;
+    private final int shift;
+    private final int capacity;
+    private final int maxInFlight;
+    private final int maxRetries;
+    private final Duration shutdownTimeout;
+    private final Map<String, ChatQueue> chats = new HashMap<>();
+    private final PriorityQueue<ChatQueue> ready;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Thread dispatcher;
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final long origin;
+    private long globalArrival;
+    private long sequence;
+    private int queued;
+    private double concurrencyLimit;
+    private int inFlight;
+    private long decreases;
+    private boolean closed;
+    private boolean stopped;
+
+    /**
+     * Creates the scheduler described by {@code bot.outbound} and starts its dispatcher
+     * thread.
+     *
+     * @param config the outbound configuration
+     * @param sender the bot sending the methods
+     * @throws IllegalArgumentException if a rate, the burst, the number of stripes, the
+     *                                  capacity or the in-flight limit is not positive, or
+     *                                  the number of retries is negative
+     */
+    public GcraOutboundScheduler(OutboundConfig config, AbsSender sender) {
+        this(config, sender, new SenderTransport(sender));
+    }
+
+    /**
+     * Creates the scheduler described by {@code bot.outbound}, sending methods through a
+     * transport, and starts its dispatcher thread.
+     *
+     * @param config    the outbound configuration
+     * @param sender    the bot executing the sends that are not a {@link BotApiMethod}
+     * @param transport the transport sending the methods
+     * @throws IllegalArgumentException if a rate, the burst, the number of stripes, the
+     *                                  capacity or the in-flight limit is not positive, or
+     *                                  the number of retries is negative
+     */
+    public GcraOutboundScheduler(OutboundConfig config, AbsSender sender,
+                                 BotApiTransport transport) {
+        this.sender = sender;
+        this.transport = transport;
+        this.globalInterval = interval(TimeUnit.SECONDS, config.getGlobalPerSecond(),
+                "bot.outbound.global-per-second");
+        this.privateInterval = interval(TimeUnit.SECONDS, config.getPrivateChatPerSecond(),
+                "bot.outbound.private-chat-per-second");
+        this.groupInterval = interval(TimeUnit.MINUTES, config.getGroupPerMinute(),
+                "bot.outbound.group-per-minute");
+        if (config.getChatBurst() <= 0) {
+            throw new IllegalArgumentException("bot.outbound.chat-burst must be positive: "
+                                               + config.getChatBurst());
+        }
+        if (config.getCapacity() <= 0) {
+            throw new IllegalArgumentException("bot.outbound.capacity must be positive: "
+                                               + config.getCapacity());
+        }
+        if (config.getMaxInFlight() <= 0) {
+            throw new IllegalArgumentException("bot.outbound.max-in-flight must be positive: "
+                                               + config.getMaxInFlight());
+        }
+        if (config.getMaxRetries() < 0) {
+            throw new IllegalArgumentException("bot.outbound.max-retries must not be negative: "
+                                               + config.getMaxRetries());
+        }
+        int stripes = config.getStripes();
+        if (stripes <= 0 || stripes > 1 << 30) {
+            throw new IllegalArgumentException("bot.outbound.stripes must be between 1 and "
+                                               + (1 << 30) + ": " + stripes);
+        }
+        int stripeCount = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.chatBurst = config.getChatBurst();
+        this.capacity = config.getCapacity();
+        this.maxInFlight = config.getMaxInFlight();
+        this.maxRetries = config.getMaxRetries();
+        this.concurrencyLimit = maxInFlight;
+        this.shutdownTimeout = config.getShutdownTimeout();
+        this.shift = Integer.SIZE - Integer.numberOfTrailingZeros(stripeCount);
+        this.origin = System.nanoTime();
+        this.globalArrival = origin;
+        this.chatArrivals = new long[stripeCount];
+        Arrays.fill(chatArrivals, origin);
+        this.ready = new PriorityQueue<>(Comparator
+                .comparingLong((ChatQueue chat) -> chat.eligibleAt - origin)
+                .thenComparingLong(chat -> chat.sequence));
+        this.dispatcher = new Thread(this::dispatch, "javagram-outbound-scheduler");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Schedules a method addressed by its {@code chat_id}. Methods without a chat id are sent
+     * immediately.
+     *
+     * @param method the method to send
+     * @param <T>    the result type of the method
+     * @return a future completed with the result of the method once it was sent
+     */
+    @Override
+    public <T extends Serializable> CompletableFuture<T> executeAsync(BotApiMethod<T> method) {
+        return submit(chatIdOf(method), bot -> transport.executeAsync(method));
+    }
+
+    /**
+     * Queues a send behind the pending sends of its chat.
+     *
+     * @param chatId the chat the send is addressed to, or {@code null} to send immediately
+     * @param call   the send, executed with the bot once the budgets allow it
+     * @param <T>    the result type of the send
+     * @return a future completed with the result of the send, or exceptionally with a
+     *         {@link RejectedExecutionException} if the queue is full or the scheduler closed
+     */
+    @Override
+    public <T> CompletableFuture<T> submit(String chatId, SendCall<T> call) {
+        Send<T> send = new Send<>(chatId, call);
+        if (chatId == null) {
+            start(send);
+            return send.result;
+        }
+        lock.lock();
+        try {
+            if (closed || queued >= capacity) {
+                rejected.increment();
+                send.result.completeExceptionally(new RejectedExecutionException(closed
+                        ? "Outbound scheduler is closed"
+                        : "Outbound queue is full (" + capacity + " methods)"));
+                return send.result;
+            }
+            ChatQueue chat = chats.get(chatId);
+            if (chat == null) {
+                chat = new ChatQueue(chatId, stripeIndex(chatId), isGroup(chatId));
+                chats.put(chatId, chat);
+                enqueue(chat);
+            }
+            send.queuedAt = System.nanoTime();
+            chat.sends.add(send);
+            queued++;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        return send.result;
+    }
+
+    /**
+     * Returns the number of methods handed to the bot.
+     *
+     * @return the number of sent methods
+     */
+    public long getSent() {
+        return sent.sum();
+    }
+
+    /**
+     * Returns the number of methods rejected because the queue was full or closed.
+     *
+     * @return the number of rejected methods
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Returns the number of sends queued again because Telegram answered them with
+     * {@code retry_after}.
+     *
+     * @return the number of retried methods
+     */
+    public long getRetried() {
+        return retried.sum();
+    }
+
+    /**
+     * Returns the total time methods waited in the queue before they were sent, including the
+     * waits for {@code retry_after}.
+     *
+     * @return the total queue wait time
+     */
+    public Duration getTotalQueueWait() {
+        return Duration.ofNanos(queueWaitNanos.sum());
+    }
+
+    /**
+     * Returns the current limit of paced sends in flight.
+     *
+     * @return the concurrency limit
+     */
+    public int getConcurrencyLimit() {
+        lock.lock();
+        try {
+            return (int) concurrencyLimit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of paced sends started and not completed yet.
+     *
+     * @return the number of sends in flight
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of methods waiting for their budget.
+     *
+     * @return the number of queued methods
+     */
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of chats with queued methods.
+     *
+     * @return the number of waiting chats
+     */
+    public int getWaitingChats() {
+        lock.lock();
+        try {
+            return chats.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting methods and keeps sending the queued ones for up to
+     * {@code bot.outbound.shutdown-timeout}. Methods still queued afterwards fail.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            dispatcher.join(shutdownTimeout.toMillis());
+            if (dispatcher.isAlive()) {
+                log.warn("Queued methods were not sent within {}, {} left", shutdownTimeout,
+                        getQueued());
+                dispatcher.interrupt();
+            }
+        } catch (InterruptedException e) {
+            dispatcher.interrupt();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    int stripeIndex(String chatId) {
+        int hash = chatId.hashCode() * 0x9E3779B9;
+        return shift == Integer.SIZE ? 0 : hash >>> shift;
+    }
+
+    private void dispatch() {
+        while (true) {
+            Send<?> send;
+            lock.lock();
+            try {
+                send = next();
+            } catch (InterruptedException e) {
+                failQueued();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            if (send == null) {
+                return;
+            }
+            start(send);
+        }
+    }
+
+    /**
+     * Waits until the earliest ready chat may send and a send may start, and charges the
+     * budgets. Called with the lock held.
+     *
+     * @return the oldest send of the chat, or {@code null} once closed and drained
+     */
+    private Send<?> next() throws InterruptedException {
+        while (true) {
+            ChatQueue chat = ready.peek();
+            if (chat == null) {
+                if (closed && inFlight == 0) {
+                    return null;
+                }
+                changed.await();
+                continue;
+            }
+            if (inFlight >= (int) concurrencyLimit) {
+                changed.await();
+                continue;
+            }
+            long eligibleAt = eligibleAt(chat);
+            if (eligibleAt - chat.eligibleAt > 0) {
+                // Another chat of the stripe spent its budget since the chat was queued.
+                ready.poll();
+                chat.eligibleAt = eligibleAt;
+                ready.add(chat);
+                continue;
+            }
+            long now = System.nanoTime();
+            long wait = Math.max(eligibleAt - now, globalArrival - now);
+            if (wait > 0) {
+                changed.awaitNanos(wait);
+                continue;
+            }
+            ready.poll();
+            Send<?> send = chat.sends.poll();
+            queued--;
+            inFlight++;
+            send.round = decreases;
+            queueWaitNanos.add(now - send.queuedAt);
+            chatArrivals[chat.stripe] = later(chatArrivals[chat.stripe], now)
+                                        + (chat.group ? groupInterval : privateInterval);
+            globalArrival = later(globalArrival, now) + globalInterval;
+            if (chat.sends.isEmpty()) {
+                chats.remove(chat.chatId);
+            } else {
+                enqueue(chat);
+            }
+            return send;
+        }
+    }
+
+    private void enqueue(ChatQueue chat) {
+        chat.eligibleAt = eligibleAt(chat);
+        chat.sequence = sequence++;
+        ready.add(chat);
+    }
+
+    private long eligibleAt(ChatQueue chat) {
+        long interval = chat.group ? groupInterval : privateInterval;
+        return chatArrivals[chat.stripe] - (chatBurst - 1) * interval;
+    }
+
+    private void failQueued() {
+        lock.lock();
+        try {
+            RejectedExecutionException exception =
+                    new RejectedExecutionException("Outbound scheduler was closed");
+            for (ChatQueue chat : chats.values()) {
+                for (Send<?> send : chat.sends) {
+                    rejected.increment();
+                    send.result.completeExceptionally(exception);
+                }
+            }
+            chats.clear();
+            ready.clear();
+            queued = 0;
+            stopped = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T> void start(Send<T> send) {
+        sent.increment();
+        CompletableFuture<T> pending;
+        try {
+            pending = send.call.send(sender);
+        } catch (TelegramApiException | RuntimeException e) {
+            onCompleted(send, null, e);
+            return;
+        }
+        pending.whenComplete((result, error) -> onCompleted(send, result, error));
+    }
+
+    private <T> void onCompleted(Send<T> send, T result, Throwable error) {
+        if (send.chatId != null && retryLater(send, error)) {
+            return;
+        }
+        if (error == null) {
+            send.result.complete(result);
+        } else {
+            send.result.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Adjusts the concurrency limit to the outcome of a paced send, and queues the send again
+     * if Telegram asked to retry it later.
+     *
+     * @return {@code true} if the send was queued again
+     */
+    private boolean retryLater(Send<?> send, Throwable error) {
+        Integer errorCode = null;
+        Integer retryAfter = null;
+        if (unwrap(error) instanceof TelegramApiRequestException requestException) {
+            errorCode = requestException.getErrorCode();
+            ResponseParameters parameters = requestException.getParameters();
+            retryAfter = parameters == null ? null : parameters.getRetryAfter();
+        }
+        lock.lock();
+        try {
+            inFlight--;
+            changed.signal();
+            if (error == null) {
+                concurrencyLimit = Math.min(maxInFlight, concurrencyLimit + 1 / concurrencyLimit);
+                return false;
+            }
+            if (errorCode == null) {
+                return false;
+            }
+            if ((errorCode == 429 || errorCode >= 500) && send.round == decreases) {
+                concurrencyLimit = Math.max(1, concurrencyLimit / 2);
+                decreases++;
+                log.warn("Telegram answered {}, sending at most {} methods at a time",
+                        errorCode, (int) concurrencyLimit);
+            }
+            if (errorCode != 429 || retryAfter == null || send.retries >= maxRetries
+                || stopped) {
+                return false;
+            }
+            send.retries++;
+            retried.increment();
+            requeue(send, retryAfter);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Puts a send back at the head of its chat, whose budget allows it again in
+     * {@code retryAfter} seconds. Called with the lock held.
+     */
+    private void requeue(Send<?> send, int retryAfter) {
+        ChatQueue chat = chats.get(send.chatId);
+        boolean idle = chat == null;
+        if (idle) {
+            chat = new ChatQueue(send.chatId, stripeIndex(send.chatId), isGroup(send.chatId));
+            chats.put(send.chatId, chat);
+        }
+        long now = System.nanoTime();
+        long interval = chat.group ? groupInterval : privateInterval;
+        long retryAt = now + TimeUnit.SECONDS.toNanos(retryAfter) + (chatBurst - 1) * interval;
+        chatArrivals[chat.stripe] = later(chatArrivals[chat.stripe], retryAt);
+        if (idle) {
+            enqueue(chat);
+        }
+        send.queuedAt = now;
+        chat.sends.addFirst(send);
+        queued++;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private static long later(long time, long other) {
+        return other - time > 0 ? other : time;
+    }
+
+    private static long interval(TimeUnit unit, int limit, String property) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException(property + " must be positive: " + limit);
+        }
+        return unit.toNanos(1) / limit;
+    }
+
+    private static boolean isGroup(String chatId) {
+        return chatId.startsWith("-") || chatId.startsWith("@");
+    }
+
+    private static String chatIdOf(BotApiMethod<?> method) {
+        Method getter = CHAT_ID_GETTERS.get(method.getClass());
+        if (getter == null) {
+            return null;
+        }
+        try {
+            Object chatId = getter.invoke(method);
+            return chatId == null ? null : chatId.toString();
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            log.warn("Failed to read the chat of {}, sending it unpaced", method.getMethod(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Send of a method and the state of its attempts.
+     */
+    private static final class Send<T> {
+        private final String chatId;
+        private final SendCall<T> call;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private long queuedAt;
+        private long round;
+        private int retries;
+
+        private Send(String chatId, SendCall<T> call) {
+            this.chatId = chatId;
+            this.call = call;
+        }
+    }
+
+    /**
+     * Queued sends of a chat and the time its budget allows the next one.
+     */
+    private static final class ChatQueue {
+        private final String chatId;
+        private final int stripe;
+        private final boolean group;
+        private final ArrayDeque<Send<?>> sends = new ArrayDeque<>();
+        private long eligibleAt;
+        private long sequence;
+
+        private ChatQueue(String chatId, int stripe, boolean group) {
+            this.chatId = chatId;
+            this.stripe = stripe;
+            this.group = group;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.rainett.javagram.outbound.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rainett.javagram.config.TransportConfig;
+import com.rainett.javagram.outbound.BotApiTransport;
+import java.io.Serializable;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+/**
+ * {@link BotApiTransport} built on the {@link HttpClient} of the JDK.
+ * <p>
+ * The TelegramBots sender runs every asynchronous method on a thread of its pool that blocks
+ * until the response arrives, so the number of methods in flight is bounded by the number of
+ * threads. This transport sends the requests asynchronously instead: no thread waits for a
+ * response, and the client keeps its connections to the Bot API alive and reuses them,
+ * multiplexing requests over a single connection where HTTP/2 is available and falling back
+ * to a pool of HTTP/1.1 connections otherwise.
+ * </p>
+ * <p>
+ * At most {@code bot.transport.max-concurrent-requests} requests are sent at the same time.
+ * Further methods wait in a queue, without holding a thread, and are sent in the order they
+ * arrived as earlier requests complete. Each request times out after the timeout of its
+ * method in {@code bot.transport.method-timeouts}, or {@code bot.transport.request-timeout}.
+ * Methods are serialized to JSON and their responses parsed as the TelegramBots sender does,
+ * so Telegram errors surface as the same exceptions. Files are not sent through the transport.
+ * </p>
+ * <p>
+ * The numbers of requests in flight, waiting methods, sent methods and failed requests are
+ * exposed for monitoring.
+ * </p>
+ */
+@Slf4j
+public class HttpClientTransport implements BotApiTransport, AutoCloseable {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client;
+    private final String baseUrl;
+    private final int maxConcurrentRequests;
+    private final Duration requestTimeout;
+    private final Map<String, Duration> methodTimeouts = new HashMap<>();
+    private final ArrayDeque<Request<?>> waiting = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private int inFlight;
+    private boolean closed;
+
+    /**
+     * Creates the transport described by {@code bot.transport}.
+     *
+     * @param config   the transport configuration
+     * @param baseUrl  the base URL of the Bot API, such as {@code https://api.telegram.org/bot}
+     * @param botToken the token of the bot
+     * @throws IllegalArgumentException if the number of concurrent requests or a timeout is not
+     *                                  positive
+     */
+    public HttpClientTransport(TransportConfig config, String baseUrl, String botToken) {
+        if (config.getMaxConcurrentRequests() <= 0) {
+            throw new IllegalArgumentException(
+                    "bot.transport.max-concurrent-requests must be positive: "
+                    + config.getMaxConcurrentRequests());
+        }
+        this.requestTimeout = positive(config.getRequestTimeout(),
+                "bot.transport.request-timeout");
+        config.getMethodTimeouts().forEach((method, timeout) -> methodTimeouts.put(
+                method.toLowerCase(Locale.ROOT),
+                positive(timeout, "bot.transport.method-timeouts." + method)));
+        this.maxConcurrentRequests = config.getMaxConcurrentRequests();
+        this.baseUrl = baseUrl + botToken + "/";
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(positive(config.getConnectTimeout(),
+                        "bot.transport.connect-timeout"))
+                .build();
+    }
+
+    /**
+     * Sends a method once fewer than {@code bot.transport.max-concurrent-requests} requests
+     * are in flight.
+     *
+     * @param method the method to send
+     * @param <T>    the result type of the method
+     * @return a future completed with the result of the method, or exceptionally with a
+     *         {@link TelegramApiException} if it failed, or a
+     *         {@link RejectedExecutionException} if the transport is closed
+     */
+    @Override
+    public <T extends Serializable> CompletableFuture<T> executeAsync(BotApiMethod<T> method) {
+        HttpRequest request;
+        try {
+            method.validate();
+            request = HttpRequest.newBuilder(URI.create(baseUrl + method.getMethod()))
+                    .timeout(timeoutOf(method))
+                    .header("Content-Type", "application/json; charset=UTF-8")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(
+                            objectMapper.writeValueAsBytes(method)))
+                    .build();
+        } catch (TelegramApiException e) {
+            return CompletableFuture.failedFuture(e);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new TelegramApiException(
+                    "Unable to serialize " + method.getMethod() + " method", e));
+        }
+        Request<T> send = new Request<>(method, request);
+        lock.lock();
+        try {
+            if (closed) {
+                send.result.completeExceptionally(
+                        new RejectedExecutionException("Bot API transport is closed"));
+                return send.result;
+            }
+            if (inFlight >= maxConcurrentRequests) {
+                waiting.add(send);
+                return send.result;
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+        send(send);
+        return send.result;
+    }
+
+    /**
+     * Returns the number of requests currently in flight.
+     *
+     * @return the number of requests in flight
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of methods waiting for a request slot.
+     *
+     * @return the number of waiting methods
+     */
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of requests sent to the Bot API.
+     *
+     * @return the number of sent requests
+     */
+    public long getSent() {
+        return sent.sum();
+    }
+
+    /**
+     * Returns the number of requests that failed without a response, including timeouts.
+     *
+     * @return the number of failed requests
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * Stops accepting methods and fails the methods still waiting. Requests in flight
+     * complete normally.
+     */
+    @Override
+    public void close() {
+        ArrayDeque<Request<?>> dropped;
+        lock.lock();
+        try {
+            closed = true;
+            dropped = new ArrayDeque<>(waiting);
+            waiting.clear();
+        } finally {
+            lock.unlock();
+        }
+        if (!dropped.isEmpty()) {
+            log.info("Bot API transport closed, failing {} waiting methods", dropped.size());
+        }
+        RejectedExecutionException exception =
+                new RejectedExecutionException("Bot API transport was closed");
+        for (Request<?> send : dropped) {
+            send.result.completeExceptionally(exception);
+        }
+    }
+
+    private <T extends Serializable> void send(Request<T> send) {
+        sent.increment();
+        client.sendAsync(send.request,
+                        HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                .whenComplete((response, error) -> {
+                    release();
+                    if (error != null) {
+                        failed.increment();
+                        Throwable cause = error instanceof CompletionException
+                                          && error.getCause() != null ? error.getCause() : error;
+                        send.result.completeExceptionally(new TelegramApiException(
+                                "Unable to execute " + send.method.getMethod() + " method",
+                                cause));
+                        return;
+                    }
+                    try {
+                        send.result.complete(send.method.deserializeResponse(response.body()));
+                    } catch (TelegramApiException | RuntimeException e) {
+                        send.result.completeExceptionally(e);
+                    }
+                });
+    }
+
+    private void release() {
+        Request<?> next;
+        lock.lock();
+        try {
+            next = waiting.poll();
+            if (next == null) {
+                inFlight--;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (next != null) {
+            send(next);
+        }
+    }
+
+    private Duration timeoutOf(BotApiMethod<?> method) {
+        Duration timeout = methodTimeouts.get(method.getMethod().toLowerCase(Locale.ROOT));
+        return timeout == null ? requestTimeout : timeout;
+    }
+
+    private static Duration positive(Duration duration, String property) {
+        if (duration == null || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException(property + " must be positive: " + duration);
+        }
+        return duration;
+    }
+
+    private static final class Request<T extends Serializable> {
+        private final BotApiMethod<T> method;
+        private final HttpRequest request;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Request(BotApiMethod<T> method, HttpRequest request) {
+            this.method = method;
+            this.request = request;
+        }
+    }
+}
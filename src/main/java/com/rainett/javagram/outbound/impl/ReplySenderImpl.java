@@ -0,0 +1,53 @@
+package com.rainett.javagram.outbound.impl;
+
+import com.rainett.javagram.outbound.BotApiTransport;
+import com.rainett.javagram.outbound.OutboundScheduler;
+import com.rainett.javagram.outbound.ReplySender;
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+/**
+ * Implementation of the {@link ReplySender} interface that sends the replies through the
+ * {@link OutboundScheduler} when one is available, so that they respect the rate limits of
+ * Telegram, or else through the {@link BotApiTransport} when one is available, or else with
+ * the bot.
+ * <p>
+ * The beans are looked up for every reply, so that the bot, which receives the updates
+ * handled by the actions, does not have to exist when this sender is created.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+public class ReplySenderImpl implements ReplySender {
+    private final ObjectProvider<AbsSender> senderProvider;
+    private final ObjectProvider<BotApiTransport> transportProvider;
+    private final ObjectProvider<OutboundScheduler> schedulerProvider;
+
+    @Override
+    public CompletableFuture<?> send(BotApiMethod<?> reply) throws TelegramApiException {
+        OutboundScheduler scheduler = schedulerProvider.getIfAvailable();
+        if (scheduler != null) {
+            return scheduler.executeAsync(reply);
+        }
+        BotApiTransport transport = transportProvider.getIfAvailable();
+        if (transport != null) {
+            return transport.executeAsync(reply);
+        }
+        AbsSender sender = senderProvider.getIfAvailable();
+        if (sender == null) {
+            throw new IllegalStateException("No bot is available to send the reply: " + reply);
+        }
+        return executeAsync(sender, reply);
+    }
+
+    private static <T extends Serializable> CompletableFuture<T> executeAsync(
+            AbsSender sender, BotApiMethod<T> method) throws TelegramApiException {
+        return sender.executeAsync(method);
+    }
+}
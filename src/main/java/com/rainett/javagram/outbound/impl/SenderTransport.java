@@ -0,0 +1,40 @@
+package com.rainett.javagram.outbound.impl;
+
+import com.rainett.javagram.outbound.BotApiTransport;
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+/**
+ * {@link BotApiTransport} sending methods with the HTTP client and thread pool of the bot.
+ */
+public class SenderTransport implements BotApiTransport {
+    private final AbsSender sender;
+
+    /**
+     * Creates a transport sending with the given bot.
+     *
+     * @param sender the bot sending the methods
+     */
+    public SenderTransport(AbsSender sender) {
+        this.sender = sender;
+    }
+
+    /**
+     * Sends a method with the bot.
+     *
+     * @param method the method to send
+     * @param <T>    the result type of the method
+     * @return the future of the bot, or a failed future if the bot could not start the send
+     */
+    @Override
+    public <T extends Serializable> CompletableFuture<T> executeAsync(BotApiMethod<T> method) {
+        try {
+            return sender.executeAsync(method);
+        } catch (TelegramApiException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.rainett.javagram.processor;
+
+import com.rainett.javagram.action.Action;
+import com.rainett.javagram.action.annotations.Callback;
+import com.rainett.javagram.action.annotations.Command;
+import com.rainett.javagram.action.annotations.Text;
+import com.rainett.javagram.action.comparator.AnnotationComparator;
+import com.rainett.javagram.action.container.GeneratedActionIndex;
+import com.rainett.javagram.action.plugin.impl.callback.CallbackComparator;
+import com.rainett.javagram.action.plugin.impl.command.CommandComparator;
+import com.rainett.javagram.action.plugin.impl.text.TextComparator;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor that generates a {@link GeneratedActionIndex} of the {@link Command},
+ * {@link Callback} and {@link Text} actions of a compilation.
+ * <p>
+ * Every concrete class implementing {@link Action} with one of these annotations is recorded
+ * under its annotation type. Each group is sorted with the same {@link AnnotationComparator}
+ * the runtime uses, ties are broken by class name, and the result is written to a class named
+ * {@value #CLASS_NAME} that is registered in {@code META-INF/services}. The package of the
+ * class is the common package of the actions, or the value of the {@value #PACKAGE_OPTION}
+ * processor option.
+ * </p>
+ * <p>
+ * The processor is registered in {@code META-INF/services/javax.annotation.processing.Processor}
+ * and is discovered from the compile classpath. Builds that declare
+ * {@code annotationProcessorPaths} must list this library there as well. Actions that are not
+ * part of the index, for example subclasses of annotated abstract classes, are still collected
+ * reflectively at startup.
+ * </p>
+ */
+@SupportedAnnotationTypes({
+        "com.rainett.javagram.action.annotations.Command",
+        "com.rainett.javagram.action.annotations.Callback",
+        "com.rainett.javagram.action.annotations.Text"
+})
+@SupportedOptions(ActionIndexProcessor.PACKAGE_OPTION)
+public class ActionIndexProcessor extends AbstractProcessor {
+    /**
+     * Processor option overriding the package of the generated index.
+     */
+    public static final String PACKAGE_OPTION = "javagram.index.package";
+
+    /**
+     * Simple name of the generated index class.
+     */
+    public static final String CLASS_NAME = "JavagramActionIndex";
+
+    private static final String DEFAULT_PACKAGE = "javagram";
+    private static final int CHUNK_SIZE = 1000;
+    private static final Map<Class<? extends Annotation>, AnnotationComparator<?>> COMPARATORS =
+            comparators();
+
+    private final Map<String, IndexedAction> actions = new TreeMap<>();
+    private final List<Element> originatingElements = new ArrayList<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * Records the annotated actions of every round and writes the index in the last round.
+     *
+     * @param annotations the annotation types requested to be processed
+     * @param roundEnv    environment for information about the current and prior round
+     * @return {@code false}, so that other processors may process the same annotations
+     */
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            if (!actions.isEmpty()) {
+                writeIndex();
+            }
+            return false;
+        }
+        for (Class<? extends Annotation> annotationType : COMPARATORS.keySet()) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotationType)) {
+                record(element);
+            }
+        }
+        return false;
+    }
+
+    private void record(Element element) {
+        if ((element.getKind() != ElementKind.CLASS && element.getKind() != ElementKind.RECORD)
+            || element.getModifiers().contains(Modifier.ABSTRACT)) {
+            return;
+        }
+        TypeElement type = (TypeElement) element;
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        if (actions.containsKey(binaryName)) {
+            return;
+        }
+        Class<? extends Annotation> annotationType = actionAnnotationType(type);
+        if (!isAction(type)) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Class is annotated with @" + annotationType.getSimpleName()
+                    + " but does not implement " + Action.class.getName(), type);
+            return;
+        }
+        actions.put(binaryName, new IndexedAction(binaryName, annotationType,
+                type.getAnnotation(annotationType)));
+        originatingElements.add(type);
+    }
+
+    /**
+     * Returns the first supported annotation declared on the type, the one the runtime would
+     * group the action by.
+     */
+    private Class<? extends Annotation> actionAnnotationType(TypeElement type) {
+        for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+            String name = ((TypeElement) mirror.getAnnotationType().asElement())
+                    .getQualifiedName().toString();
+            for (Class<? extends Annotation> annotationType : COMPARATORS.keySet()) {
+                if (annotationType.getName().equals(name)) {
+                    return annotationType;
+                }
+            }
+        }
+        throw new IllegalStateException("No action annotation on " + type);
+    }
+
+    private boolean isAction(TypeElement type) {
+        TypeMirror actionType = processingEnv.getElementUtils()
+                .getTypeElement(Action.class.getName()).asType();
+        return processingEnv.getTypeUtils().isAssignable(
+                processingEnv.getTypeUtils().erasure(type.asType()), actionType);
+    }
+
+    private void writeIndex() {
+        String packageName = packageName();
+        String qualifiedName = packageName + "." + CLASS_NAME;
+        try {
+            try (Writer writer = processingEnv.getFiler()
+                    .createSourceFile(qualifiedName, originatingElements.toArray(Element[]::new))
+                    .openWriter()) {
+                writer.write(generateSource(packageName, sortedGroups()));
+            }
+            try (Writer writer = processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", "META-INF/services/"
+                                    + GeneratedActionIndex.class.getName(),
+                            originatingElements.toArray(Element[]::new))
+                    .openWriter()) {
+                writer.write(qualifiedName + "\n");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to write " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    private String packageName() {
+        String option = processingEnv.getOptions().get(PACKAGE_OPTION);
+        if (option != null && !option.isBlank()) {
+            return option.strip();
+        }
+        String common = null;
+        for (String binaryName : actions.keySet()) {
+            int lastDot = binaryName.lastIndexOf('.');
+            String packageName = lastDot < 0 ? "" : binaryName.substring(0, lastDot);
+            common = common == null ? packageName : commonPackage(common, packageName);
+        }
+        return common == null || common.isEmpty() ? DEFAULT_PACKAGE : common;
+    }
+
+    private static String commonPackage(String first, String second) {
+        String[] firstParts = first.split("\\.");
+        String[] secondParts = second.split("\\.");
+        StringBuilder common = new StringBuilder();
+        for (int i = 0; i < Math.min(firstParts.length, secondParts.length)
+                        && firstParts[i].equals(secondParts[i]); i++) {
+            if (i > 0) {
+                common.append('.');
+            }
+            common.append(firstParts[i]);
+        }
+        return common.toString();
+    }
+
+    private Map<Class<? extends Annotation>, List<IndexedAction>> sortedGroups() {
+        Map<Class<? extends Annotation>, List<IndexedAction>> groups = new LinkedHashMap<>();
+        for (IndexedAction action : actions.values()) {
+            groups.computeIfAbsent(action.annotationType(), key -> new ArrayList<>()).add(action);
+        }
+        groups.forEach((annotationType, group) -> group.sort(
+                precedence(COMPARATORS.get(annotationType))
+                        .thenComparing(IndexedAction::binaryName)));
+        return groups;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Annotation> Comparator<IndexedAction> precedence(
+            AnnotationComparator<T> comparator) {
+        return (first, second) ->
+                comparator.compare((T) second.annotation(), (T) first.annotation());
+    }
+
+    private static String generateSource(String packageName,
+                                         Map<Class<? extends Annotation>, List<IndexedAction>>
+                                                 groups) {
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(packageName).append(";\n\n")
+                .append("import ").append(GeneratedActionIndex.class.getName()).append(";\n")
+                .append("import java.lang.annotation.Annotation;\n")
+                .append("import java.util.ArrayList;\n")
+                .append("import java.util.LinkedHashMap;\n")
+                .append("import java.util.List;\n")
+                .append("import java.util.Map;\n")
+                .append("import javax.annotation.processing.Generated;\n\n")
+                .append("@Generated(\"").append(ActionIndexProcessor.class.getName())
+                .append("\")\n")
+                .append("public final class ").append(CLASS_NAME)
+                .append(" implements GeneratedActionIndex {\n\n")
+                .append("    @Override\n")
+                .append("    public Map<Class<? extends Annotation>, List<String>> "
+                        + "actionClassNames() {\n")
+                .append("        Map<Class<? extends Annotation>, List<String>> index = "
+                        + "new LinkedHashMap<>();\n");
+        StringBuilder chunks = new StringBuilder();
+        int groupNumber = 0;
+        for (Map.Entry<Class<? extends Annotation>, List<IndexedAction>> group
+                : groups.entrySet()) {
+            List<IndexedAction> groupActions = group.getValue();
+            String variable = "group" + groupNumber;
+            source.append("        List<String> ").append(variable)
+                    .append(" = new ArrayList<>(").append(groupActions.size()).append(");\n");
+            for (int start = 0; start < groupActions.size(); start += CHUNK_SIZE) {
+                String method = variable + "Chunk" + start / CHUNK_SIZE;
+                source.append("        ").append(method).append("(").append(variable)
+                        .append(");\n");
+                chunks.append("\n    private static void ").append(method)
+                        .append("(List<String> names) {\n");
+                for (IndexedAction action : groupActions.subList(start,
+                        Math.min(start + CHUNK_SIZE, groupActions.size()))) {
+                    chunks.append("        names.add(\"").append(action.binaryName())
+                            .append("\");\n");
+                }
+                chunks.append("    }\n");
+            }
+            source.append("        index.put(").append(group.getKey().getCanonicalName())
+                    .append(".class, List.copyOf(").append(variable).append("));\n");
+            groupNumber++;
+        }
+        source.append("        return index;\n")
+                .append("    }\n")
+                .append(chunks)
+                .append("}\n");
+        return source.toString();
+    }
+
+    private static Map<Class<? extends Annotation>, AnnotationComparator<?>> comparators() {
+        Map<Class<? extends Annotation>, AnnotationComparator<?>> comparators =
+                new LinkedHashMap<>();
+        comparators.put(Command.class, new CommandComparator());
+        comparators.put(Callback.class, new CallbackComparator());
+        comparators.put(Text.class, new TextComparator());
+        return comparators;
+    }
+
+    private record IndexedAction(String binaryName,
+                                 Class<? extends Annotation> annotationType,
+                                 Annotation annotation) {
+    }
+}
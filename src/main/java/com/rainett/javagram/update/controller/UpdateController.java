@@ -1,6 +1,9 @@
 package com.rainett.javagram.update.controller;
 
-import com.rainett.javagram.update.service.UpdateService;
+import com.rainett.javagram.config.IngressConfig;
+import com.rainett.javagram.update.ingress.Admission;
+import com.rainett.javagram.update.ingress.Submission;
+import com.rainett.javagram.update.ingress.UpdateIngress;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -10,13 +13,31 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
 import org.telegram.telegrambots.meta.api.objects.Update;
 
 /**
  * REST controller for receiving Telegram updates.
  * <p>
  * This controller exposes endpoints to accept Telegram update requests.
- * The POST endpoint processes an incoming update and delegates handling to {@link UpdateService}.
+ * The POST endpoint submits an incoming update to the {@link UpdateIngress}. Updates the
+ * ingress rejects are answered with {@code bot.ingress.reject-status}, so Telegram delivers
+ * them again later. Updates Telegram delivers again are skipped by the
+ * {@link com.rainett.javagram.update.ingress.impl.DeduplicatingUpdateIngress}, if the
+ * application uses the default ingress, and acknowledged.
+ * </p>
+ * <p>
+ * By default the update is processed before the response is sent, so a slow action holds one
+ * of the few webhook connections Telegram opens per bot. With {@code bot.ingress.enabled}, the
+ * update is only queued and acknowledged immediately; the request is answered with a non-2xx
+ * status only while the queue is full. Queued updates are processed by the
+ * {@link com.rainett.javagram.update.executor.UpdateExecutor}, so slow actions should be
+ * combined with {@code bot.execution.mode=virtual-threads}.
+ * </p>
+ * <p>
+ * If the update is processed before the response and its action is a
+ * {@link com.rainett.javagram.action.ReplyingAction}, the reply is returned in the response
+ * body, and Telegram executes it without a separate request from the bot.
  * </p>
  */
 @Slf4j
@@ -25,20 +46,30 @@ import org.telegram.telegrambots.meta.api.objects.Update;
 @ConditionalOnProperty(name = "bot.path")
 @RequestMapping("/")
 public class UpdateController {
-    private final UpdateService updateService;
+    private final UpdateIngress updateIngress;
+    private final IngressConfig ingressConfig;
 
     /**
      * Endpoint to receive and process Telegram updates.
      *
      * @param update the update received from Telegram
-     * @return HTTP 202 (Accepted) if the update was processed successfully;
+     * @return HTTP 200 (OK) with the reply to the update, if there is one;
+     *         HTTP 202 (Accepted) if the update was accepted, dropped or a duplicate;
+     *         {@code bot.ingress.reject-status} if the ingress rejected it;
      *         HTTP 500 (Internal Server Error) in case of failure.
      */
     @PostMapping
-    public ResponseEntity<Void> onUpdateReceived(@RequestBody Update update) {
+    public ResponseEntity<BotApiMethod<?>> onUpdateReceived(@RequestBody Update update) {
         log.info("Received update: {}", update);
         try {
-            updateService.handleUpdate(update);
+            Submission submission = updateIngress.submitWebhookUpdate(update);
+            if (submission.admission() == Admission.REJECTED) {
+                log.warn("Update {} was rejected by the ingress", update.getUpdateId());
+                return ResponseEntity.status(ingressConfig.getRejectStatus()).build();
+            }
+            if (submission.reply() != null) {
+                return ResponseEntity.ok(submission.reply());
+            }
             return ResponseEntity.accepted().build();
         } catch (Exception e) {
             log.error("Error processing update: {}", update, e);
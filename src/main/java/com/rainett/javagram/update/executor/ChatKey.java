@@ -0,0 +1,85 @@
+package com.rainett.javagram.update.executor;
+
+import org.telegram.telegrambots.meta.api.objects.ChatMemberUpdated;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.User;
+
+/**
+ * Key of the conversation an update belongs to, used to keep updates of the same conversation
+ * in order.
+ * <p>
+ * Messages, edited messages, channel posts and chat member updates are keyed by the id of their
+ * chat. Updates that are not bound to a chat, such as callback queries, inline queries, chosen
+ * inline results, shipping and pre-checkout queries and poll answers, are keyed by the id of
+ * the user who sent them. In private chats the chat id equals the user id, so the messages and
+ * button presses of a conversation share a key. Poll updates have no key.
+ * </p>
+ */
+public final class ChatKey {
+
+    private ChatKey() {
+    }
+
+    /**
+     * Returns the key of the update.
+     *
+     * @param update the update
+     * @return the chat id or user id of the update, or {@code null} if the update has neither
+     */
+    public static Long of(Update update) {
+        if (update.hasMessage()) {
+            return chatId(update.getMessage());
+        }
+        if (update.hasCallbackQuery()) {
+            return userId(update.getCallbackQuery().getFrom());
+        }
+        if (update.hasEditedMessage()) {
+            return chatId(update.getEditedMessage());
+        }
+        if (update.hasChannelPost()) {
+            return chatId(update.getChannelPost());
+        }
+        if (update.hasEditedChannelPost()) {
+            return chatId(update.getEditedChannelPost());
+        }
+        if (update.hasInlineQuery()) {
+            return userId(update.getInlineQuery().getFrom());
+        }
+        if (update.hasChosenInlineQuery()) {
+            return userId(update.getChosenInlineQuery().getFrom());
+        }
+        if (update.hasShippingQuery()) {
+            return userId(update.getShippingQuery().getFrom());
+        }
+        if (update.hasPreCheckoutQuery()) {
+            return userId(update.getPreCheckoutQuery().getFrom());
+        }
+        if (update.hasPollAnswer()) {
+            return userId(update.getPollAnswer().getUser());
+        }
+        if (update.hasMyChatMember()) {
+            return chatId(update.getMyChatMember());
+        }
+        if (update.hasChatMember()) {
+            return chatId(update.getChatMember());
+        }
+        if (update.hasChatJoinRequest() && update.getChatJoinRequest().getChat() != null) {
+            return update.getChatJoinRequest().getChat().getId();
+        }
+        return null;
+    }
+
+    private static Long chatId(Message message) {
+        return message == null ? null : message.getChatId();
+    }
+
+    private static Long chatId(ChatMemberUpdated chatMemberUpdated) {
+        return chatMemberUpdated == null || chatMemberUpdated.getChat() == null
+                ? null : chatMemberUpdated.getChat().getId();
+    }
+
+    private static Long userId(User user) {
+        return user == null ? null : user.getId();
+    }
+}
@@ -0,0 +1,30 @@
+package com.rainett.javagram.update.executor;
+
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * Executes the processing of Telegram updates.
+ * <p>
+ * The {@link com.rainett.javagram.update.service.UpdateService} hands the routing and
+ * execution of every update to an {@code UpdateExecutor}, which decides on which thread, and
+ * when, the work runs. Implementations may block the caller to limit the number of updates in
+ * flight.
+ * </p>
+ */
+public interface UpdateExecutor extends AutoCloseable {
+
+    /**
+     * Executes the processing of an update.
+     *
+     * @param update the update being processed
+     * @param task   the processing of the update; must not throw
+     */
+    void execute(Update update, Runnable task);
+
+    /**
+     * Stops accepting updates and waits for the running ones to complete.
+     */
+    @Override
+    default void close() {
+    }
+}
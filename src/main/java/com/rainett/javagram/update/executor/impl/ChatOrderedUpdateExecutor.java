@@ -0,0 +1,170 @@
+package com.rainett.javagram.update.executor.impl;
+
+import com.rainett.javagram.update.executor.ChatKey;
+import com.rainett.javagram.update.executor.UpdateExecutor;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * {@link UpdateExecutor} that processes the updates of a chat in the order they were received
+ * and the updates of different chats in parallel.
+ * <p>
+ * Every update is assigned by its {@link ChatKey} to one of a fixed number of stripes, each a
+ * lock-free queue. A stripe is drained by at most one task of the delegate executor at a time,
+ * so the updates of a stripe, and therefore of a chat, never overlap, while different stripes
+ * run concurrently. The memory used does not depend on the number of chats: idle chats hold
+ * nothing, and a stripe holds only its pending updates. Updates of different chats that share
+ * a stripe are serialized as well, so the number of stripes should exceed the expected number
+ * of concurrently busy chats. Updates without a key are passed to the delegate unordered.
+ * </p>
+ * <p>
+ * The number of updates queued or running in the stripes is capped, like the updates in flight
+ * of a {@link ConcurrentUpdateExecutor}: when the cap is reached, {@link #execute} blocks the
+ * calling thread until an update completes, so that a busy chat slows down long polling
+ * instead of queueing updates without bound.
+ * </p>
+ */
+@Slf4j
+public class ChatOrderedUpdateExecutor implements UpdateExecutor {
+    private final UpdateExecutor delegate;
+    private final Stripe[] stripes;
+    private final int shift;
+    private final Semaphore permits;
+
+    /**
+     * Creates an executor that drains its stripes on the given executor.
+     *
+     * @param delegate   executor running the stripes
+     * @param stripes    number of stripes, rounded up to a power of two
+     * @param maxPending maximum number of updates queued or running in the stripes
+     * @throws IllegalArgumentException if the number of stripes or the cap is not positive
+     */
+    public ChatOrderedUpdateExecutor(UpdateExecutor delegate, int stripes, int maxPending) {
+        if (stripes <= 0 || stripes > 1 << 30) {
+            throw new IllegalArgumentException("bot.execution.stripes must be between 1 and "
+                                               + (1 << 30) + ": " + stripes);
+        }
+        if (maxPending <= 0) {
+            throw new IllegalArgumentException("bot.execution.max-concurrency must be positive: "
+                                               + maxPending);
+        }
+        int stripeCount = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.delegate = delegate;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.shift = Integer.SIZE - Integer.numberOfTrailingZeros(stripeCount);
+        this.permits = new Semaphore(maxPending);
+    }
+
+    /**
+     * Queues the task behind the pending updates of its chat, blocking while the cap of
+     * pending updates is reached. If the calling thread is interrupted while waiting, the task
+     * is queued all the same so that the update is neither lost nor reordered.
+     *
+     * @param update the update being processed
+     * @param task   the processing of the update
+     */
+    @Override
+    public void execute(Update update, Runnable task) {
+        Long key = ChatKey.of(update);
+        if (key == null) {
+            delegate.execute(update, task);
+            return;
+        }
+        boolean permitted = true;
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            permitted = false;
+        }
+        Stripe stripe = stripes[stripeIndex(key)];
+        stripe.pending.offer(new PendingUpdate(update, task, permitted));
+        if (stripe.compareAndSet(false, true)) {
+            delegate.execute(update, stripe::drain);
+        }
+    }
+
+    /**
+     * Returns the number of stripes.
+     *
+     * @return the number of stripes
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Returns the number of updates that can be queued before the caller blocks.
+     *
+     * @return the number of available permits
+     */
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * Closes the delegate executor.
+     */
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    int stripeIndex(long key) {
+        int hash = Long.hashCode(key) * 0x9E3779B9;
+        return shift == Integer.SIZE ? 0 : hash >>> shift;
+    }
+
+    /**
+     * Pending updates of the chats of a stripe. The stripe itself is the flag telling whether
+     * a drain is scheduled.
+     */
+    private final class Stripe extends AtomicBoolean {
+        private final Queue<PendingUpdate> pending = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Runs the pending updates until the queue is empty. An update queued after the flag is
+         * cleared schedules a new drain unless this one takes it over first. If an update
+         * throws an {@link Error}, the flag is cleared all the same, and the remaining updates
+         * are handed to a new drain before the error propagates.
+         */
+        void drain() {
+            boolean drained = false;
+            try {
+                do {
+                    PendingUpdate next;
+                    while ((next = pending.poll()) != null) {
+                        try {
+                            next.task().run();
+                        } catch (RuntimeException e) {
+                            log.error("Error processing update", e);
+                        } finally {
+                            if (next.permitted()) {
+                                permits.release();
+                            }
+                        }
+                    }
+                    set(false);
+                } while (!pending.isEmpty() && compareAndSet(false, true));
+                drained = true;
+            } finally {
+                if (!drained) {
+                    set(false);
+                    if (!pending.isEmpty() && compareAndSet(false, true)) {
+                        delegate.execute(pending.peek().update(), this::drain);
+                    }
+                }
+            }
+        }
+    }
+
+    private record PendingUpdate(Update update, Runnable task, boolean permitted) {
+    }
+}
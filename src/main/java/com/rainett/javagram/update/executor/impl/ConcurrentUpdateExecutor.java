@@ -0,0 +1,160 @@
+package com.rainett.javagram.update.executor.impl;
+
+import com.rainett.javagram.config.ExecutionConfig;
+import com.rainett.javagram.update.executor.UpdateExecutor;
+import java.lang.reflect.InvocationTargetException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * {@link UpdateExecutor} that processes every update on a virtual thread of its own.
+ * <p>
+ * The number of updates in flight is capped by {@code bot.execution.max-concurrency}: when the
+ * cap is reached, {@link #execute} blocks the calling thread until an update completes, which
+ * slows down long polling instead of queueing updates without bound. On JVMs without virtual
+ * threads, updates run on a fixed pool of {@code bot.execution.fallback-pool-size} platform
+ * threads.
+ * </p>
+ */
+@Slf4j
+public class ConcurrentUpdateExecutor implements UpdateExecutor {
+    private final ExecutorService executorService;
+    private final Semaphore permits;
+    private final Duration shutdownTimeout;
+    private final boolean virtualThreads;
+
+    /**
+     * Creates the executor described by {@code bot.execution}.
+     *
+     * @param config the execution configuration
+     * @throws IllegalArgumentException if the concurrency cap or the fallback pool size is not
+     *                                  positive
+     */
+    public ConcurrentUpdateExecutor(ExecutionConfig config) {
+        this(virtualThreadExecutor(), config);
+    }
+
+    private ConcurrentUpdateExecutor(ExecutorService virtualThreadExecutor,
+                                     ExecutionConfig config) {
+        this(virtualThreadExecutor != null ? virtualThreadExecutor
+                                           : platformThreadPool(config.getFallbackPoolSize()),
+                virtualThreadExecutor != null, config.getMaxConcurrency(),
+                config.getShutdownTimeout());
+    }
+
+    ConcurrentUpdateExecutor(ExecutorService executorService, boolean virtualThreads,
+                             int maxConcurrency, Duration shutdownTimeout) {
+        if (maxConcurrency <= 0) {
+            executorService.shutdown();
+            throw new IllegalArgumentException("bot.execution.max-concurrency must be positive: "
+                                               + maxConcurrency);
+        }
+        this.executorService = executorService;
+        this.permits = new Semaphore(maxConcurrency);
+        this.shutdownTimeout = shutdownTimeout;
+        this.virtualThreads = virtualThreads;
+        log.info("Executing actions on {} with at most {} concurrent updates",
+                virtualThreads ? "virtual threads" : "a platform thread pool", maxConcurrency);
+    }
+
+    /**
+     * Returns whether updates run on virtual threads.
+     *
+     * @return {@code true} for virtual threads, {@code false} for the platform thread pool
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Returns the number of updates that can be submitted before the caller blocks.
+     *
+     * @return the number of available permits
+     */
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * Submits the task, blocking while the concurrency cap is reached. If the calling thread is
+     * interrupted while waiting, or the executor is shut down, the task runs on the calling
+     * thread so that the update is not lost.
+     *
+     * @param update the update being processed
+     * @param task   the processing of the update
+     */
+    @Override
+    public void execute(Update update, Runnable task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.run();
+            return;
+        }
+        try {
+            executorService.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            log.warn("Executor is shut down, processing update {} on the calling thread",
+                    update.getUpdateId());
+            task.run();
+        }
+    }
+
+    /**
+     * Stops accepting updates and waits up to {@code bot.execution.shutdown-timeout} for the
+     * running ones to complete.
+     */
+    @Override
+    public void close() {
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(shutdownTimeout.toMillis(),
+                    TimeUnit.MILLISECONDS)) {
+                log.warn("Actions did not complete within {}, interrupting them",
+                        shutdownTimeout);
+                executorService.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executorService.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns a virtual-thread-per-task executor, or {@code null} if the JVM does not support
+     * virtual threads (before Java 21, or Java 19-20 without preview features). The factory
+     * method is looked up reflectively because the library targets Java 17.
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException
+                 | InvocationTargetException e) {
+            log.debug("Virtual threads are not available: {}", e.toString());
+            return null;
+        }
+    }
+
+    private static ExecutorService platformThreadPool(int poolSize) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException(
+                    "bot.execution.fallback-pool-size must be positive: " + poolSize);
+        }
+        return Executors.newFixedThreadPool(poolSize);
+    }
+}
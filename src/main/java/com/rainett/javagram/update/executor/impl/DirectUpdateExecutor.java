@@ -0,0 +1,21 @@
+package com.rainett.javagram.update.executor.impl;
+
+import com.rainett.javagram.update.executor.UpdateExecutor;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * {@link UpdateExecutor} that processes every update on the calling thread.
+ */
+public class DirectUpdateExecutor implements UpdateExecutor {
+
+    /**
+     * Runs the task on the calling thread.
+     *
+     * @param update the update being processed
+     * @param task   the processing of the update
+     */
+    @Override
+    public void execute(Update update, Runnable task) {
+        task.run();
+    }
+}
@@ -0,0 +1,29 @@
+package com.rainett.javagram.update.ingress;
+
+/**
+ * Outcome of submitting an update to an {@link UpdateIngress}.
+ */
+public enum Admission {
+    /**
+     * The update was accepted and will be processed.
+     */
+    ACCEPTED,
+
+    /**
+     * The update was not accepted because the ingress is overloaded or closed. A webhook should
+     * answer with an error status so that Telegram delivers the update again.
+     */
+    REJECTED,
+
+    /**
+     * The update was shed to relieve an overload and will not be processed. It must not be
+     * delivered again.
+     */
+    DROPPED,
+
+    /**
+     * The update was received before and will not be processed again. Telegram delivers a
+     * webhook update again when the response to it is slow or fails.
+     */
+    DUPLICATE
+}
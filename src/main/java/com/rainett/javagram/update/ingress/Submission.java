@@ -0,0 +1,12 @@
+package com.rainett.javagram.update.ingress;
+
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+
+/**
+ * Outcome of submitting an update received by the webhook to an {@link UpdateIngress}.
+ *
+ * @param admission whether the update was accepted, rejected or dropped
+ * @param reply     the method to send in the webhook response, or {@code null} if there is none
+ */
+public record Submission(Admission admission, BotApiMethod<?> reply) {
+}
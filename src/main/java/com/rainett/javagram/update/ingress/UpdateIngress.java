@@ -0,0 +1,52 @@
+package com.rainett.javagram.update.ingress;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * Entry point of received updates, between the long polling bot or the webhook controller
+ * and the {@link com.rainett.javagram.update.service.UpdateService}.
+ * <p>
+ * An ingress may process updates immediately or queue them, and decides what happens to
+ * updates that arrive faster than they can be processed.
+ * </p>
+ */
+public interface UpdateIngress {
+
+    /**
+     * Submits a received update for processing.
+     *
+     * @param update the received update
+     * @return whether the update was accepted, rejected or dropped
+     */
+    Admission submit(Update update);
+
+    /**
+     * Submits a batch of updates received together for processing.
+     * <p>
+     * The default implementation submits the updates one by one with {@link #submit(Update)}.
+     * </p>
+     *
+     * @param updates the received updates
+     * @return the admission of every update, in the order of the list
+     */
+    default List<Admission> submitAll(List<Update> updates) {
+        List<Admission> admissions = new ArrayList<>(updates.size());
+        for (Update update : updates) {
+            admissions.add(submit(update));
+        }
+        return admissions;
+    }
+
+    /**
+     * Submits an update received by the webhook for processing. If the update is processed
+     * before this method returns, the reply of its action is returned for the webhook response.
+     *
+     * @param update the received update
+     * @return the admission of the update and the reply to it, if any
+     */
+    default Submission submitWebhookUpdate(Update update) {
+        return new Submission(submit(update), null);
+    }
+}
@@ -0,0 +1,80 @@
+package com.rainett.javagram.update.ingress;
+
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * Kinds of Telegram updates, named after the field of the update that is set.
+ */
+public enum UpdateKind {
+    MESSAGE,
+    EDITED_MESSAGE,
+    CHANNEL_POST,
+    EDITED_CHANNEL_POST,
+    CALLBACK_QUERY,
+    INLINE_QUERY,
+    CHOSEN_INLINE_QUERY,
+    SHIPPING_QUERY,
+    PRE_CHECKOUT_QUERY,
+    POLL,
+    POLL_ANSWER,
+    MY_CHAT_MEMBER,
+    CHAT_MEMBER,
+    CHAT_JOIN_REQUEST,
+
+    /**
+     * An update without any of the known fields, for example of a newer Bot API version.
+     */
+    OTHER;
+
+    /**
+     * Returns the kind of the update.
+     *
+     * @param update the update
+     * @return the kind of the update
+     */
+    public static UpdateKind of(Update update) {
+        if (update.hasMessage()) {
+            return MESSAGE;
+        }
+        if (update.hasCallbackQuery()) {
+            return CALLBACK_QUERY;
+        }
+        if (update.hasEditedMessage()) {
+            return EDITED_MESSAGE;
+        }
+        if (update.hasChannelPost()) {
+            return CHANNEL_POST;
+        }
+        if (update.hasEditedChannelPost()) {
+            return EDITED_CHANNEL_POST;
+        }
+        if (update.hasInlineQuery()) {
+            return INLINE_QUERY;
+        }
+        if (update.hasChosenInlineQuery()) {
+            return CHOSEN_INLINE_QUERY;
+        }
+        if (update.hasShippingQuery()) {
+            return SHIPPING_QUERY;
+        }
+        if (update.hasPreCheckoutQuery()) {
+            return PRE_CHECKOUT_QUERY;
+        }
+        if (update.hasPoll()) {
+            return POLL;
+        }
+        if (update.hasPollAnswer()) {
+            return POLL_ANSWER;
+        }
+        if (update.hasMyChatMember()) {
+            return MY_CHAT_MEMBER;
+        }
+        if (update.hasChatMember()) {
+            return CHAT_MEMBER;
+        }
+        if (update.hasChatJoinRequest()) {
+            return CHAT_JOIN_REQUEST;
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,393 @@
+package com.rainett.javagram.update.ingress.impl;
+
+import com.rainett.javagram.config.IngressConfig;
+import com.rainett.javagram.config.IngressConfig.OverflowPolicy;
+import com.rainett.javagram.update.ingress.Admission;
+import com.rainett.javagram.update.ingress.UpdateIngress;
+import com.rainett.javagram.update.ingress.UpdateKind;
+import com.rainett.javagram.update.service.UpdateCompletionListener;
+import com.rainett.javagram.update.service.UpdateService;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * {@link UpdateIngress} that queues received updates in a bounded queue, from which a single
+ * dispatcher thread passes them to the {@link UpdateService} in the order they were received.
+ * <p>
+ * When the queue is full, the {@link OverflowPolicy} decides whether the receiving thread
+ * waits, the update is rejected, or the oldest update of the lowest priority is dropped.
+ * Updates that are older than {@code bot.ingress.max-age} when they are dequeued are dropped as
+ * well. The queue depth and the number of accepted, rejected, dropped and expired updates are
+ * exposed for monitoring. Rejected, dropped and expired updates are reported to the
+ * {@link UpdateCompletionListener completion listeners}, as their handling is over.
+ * </p>
+ * <p>
+ * Updates are kept in one FIFO queue per distinct priority, and the dispatcher always takes
+ * the update that was received first across all of them, so shedding costs a constant time
+ * and does not reorder the remaining updates.
+ * </p>
+ * <p>
+ * Any error thrown while dispatching an update is logged, and the dispatcher moves on to the
+ * next one. A {@link VirtualMachineError} is rethrown after a new dispatcher thread has been
+ * started, so that the queue keeps draining and a receiving thread waiting for room is not
+ * blocked forever.
+ * </p>
+ */
+@Slf4j
+public class BoundedUpdateIngress implements UpdateIngress, AutoCloseable {
+    private final UpdateService updateService;
+    private final List<UpdateCompletionListener> completionListeners;
+    private final OverflowPolicy overflowPolicy;
+    private final int capacity;
+    private final long maxAgeMillis;
+    private final Duration shutdownTimeout;
+    private final Clock clock;
+    private final int[] levelOfKind;
+    private final ArrayDeque<Entry>[] levels;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private Thread dispatcher;
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private int size;
+    private long sequence;
+    private boolean closed;
+
+    /**
+     * Creates the ingress described by {@code bot.ingress} and starts its dispatcher thread.
+     *
+     * @param config              the ingress configuration
+     * @param overflowPolicy      the policy applied when the queue is full
+     * @param updateService       the service processing the dispatched updates
+     * @param completionListeners listeners notified of rejected, dropped and expired updates
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public BoundedUpdateIngress(IngressConfig config, OverflowPolicy overflowPolicy,
+                                UpdateService updateService,
+                                List<UpdateCompletionListener> completionListeners) {
+        this(config, overflowPolicy, updateService, completionListeners, Clock.systemUTC());
+    }
+
+    @SuppressWarnings("unchecked")
+    BoundedUpdateIngress(IngressConfig config, OverflowPolicy overflowPolicy,
+                         UpdateService updateService,
+                         List<UpdateCompletionListener> completionListeners, Clock clock) {
+        if (config.getCapacity() <= 0) {
+            throw new IllegalArgumentException("bot.ingress.capacity must be positive: "
+                                               + config.getCapacity());
+        }
+        this.updateService = updateService;
+        this.completionListeners = List.copyOf(completionListeners);
+        this.overflowPolicy = overflowPolicy;
+        this.capacity = config.getCapacity();
+        this.maxAgeMillis = config.getMaxAge() == null ? 0 : config.getMaxAge().toMillis();
+        this.shutdownTimeout = config.getShutdownTimeout();
+        this.clock = clock;
+        this.levelOfKind = levelOfKind(overflowPolicy == OverflowPolicy.DROP_LOWEST_PRIORITY
+                ? config.getPriorities() : Map.of());
+        int levelCount = 0;
+        for (int level : levelOfKind) {
+            levelCount = Math.max(levelCount, level + 1);
+        }
+        this.levels = new ArrayDeque[levelCount];
+        for (int i = 0; i < levelCount; i++) {
+            levels[i] = new ArrayDeque<>();
+        }
+        this.dispatcher = startDispatcher();
+        log.info("Queueing received updates, capacity: {}, overflow policy: {}", capacity,
+                overflowPolicy);
+    }
+
+    /**
+     * Queues the update, applying the overflow policy if the queue is full.
+     *
+     * @param update the received update
+     * @return {@link Admission#ACCEPTED} if the update was queued,
+     *         {@link Admission#REJECTED} if the queue is full and the policy rejects updates,
+     *         the ingress is closed, or the thread was interrupted while waiting, and
+     *         {@link Admission#DROPPED} if the update has a lower priority than every queued one
+     */
+    @Override
+    public Admission submit(Update update) {
+        Outcome outcome = admit(update);
+        if (outcome.shed() != null) {
+            notifyCompleted(outcome.shed().update());
+        }
+        if (outcome.admission() != Admission.ACCEPTED) {
+            notifyCompleted(update);
+        }
+        return outcome.admission();
+    }
+
+    private Outcome admit(Update update) {
+        Entry shed = null;
+        int level = levelOfKind[UpdateKind.of(update).ordinal()];
+        lock.lock();
+        try {
+            while (size >= capacity && !closed) {
+                if (overflowPolicy == OverflowPolicy.REJECT) {
+                    rejected.increment();
+                    return new Outcome(Admission.REJECTED, shed);
+                }
+                if (overflowPolicy == OverflowPolicy.DROP_LOWEST_PRIORITY) {
+                    int lowest = lowestNonEmptyLevel();
+                    if (lowest > level) {
+                        dropped.increment();
+                        return new Outcome(Admission.DROPPED, shed);
+                    }
+                    shed = levels[lowest].pollFirst();
+                    size--;
+                    dropped.increment();
+                    log.debug("Ingress queue full, dropped update {}", shed.update().getUpdateId());
+                } else {
+                    try {
+                        notFull.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        rejected.increment();
+                        return new Outcome(Admission.REJECTED, shed);
+                    }
+                }
+            }
+            if (closed) {
+                rejected.increment();
+                return new Outcome(Admission.REJECTED, shed);
+            }
+            levels[level].addLast(new Entry(update, sequence++, clock.millis()));
+            size++;
+            accepted.increment();
+            notEmpty.signal();
+            return new Outcome(Admission.ACCEPTED, shed);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of queued updates.
+     *
+     * @return the queue depth
+     */
+    public int getDepth() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the maximum number of queued updates.
+     *
+     * @return the capacity of the queue
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of updates accepted into the queue.
+     *
+     * @return the number of accepted updates
+     */
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    /**
+     * Returns the number of updates rejected because the queue was full or closed.
+     *
+     * @return the number of rejected updates
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Returns the number of updates dropped by the {@code drop-lowest-priority} policy.
+     *
+     * @return the number of dropped updates
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Returns the number of updates dropped because they exceeded {@code bot.ingress.max-age}.
+     *
+     * @return the number of expired updates
+     */
+    public long getExpired() {
+        return expired.sum();
+    }
+
+    /**
+     * Stops accepting updates and waits up to {@code bot.ingress.shutdown-timeout} for the
+     * queued ones to be dispatched.
+     */
+    @Override
+    public void close() {
+        Thread dispatcher;
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+            dispatcher = this.dispatcher;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            dispatcher.join(shutdownTimeout.toMillis());
+            if (dispatcher.isAlive()) {
+                log.warn("Queued updates were not dispatched within {}, {} left",
+                        shutdownTimeout, getDepth());
+                dispatcher.interrupt();
+            }
+        } catch (InterruptedException e) {
+            dispatcher.interrupt();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatch() {
+        while (true) {
+            Entry entry;
+            lock.lock();
+            try {
+                while (size == 0) {
+                    if (closed) {
+                        return;
+                    }
+                    notEmpty.await();
+                }
+                entry = pollFirstReceived();
+                size--;
+                notFull.signal();
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            if (isExpired(entry)) {
+                expired.increment();
+                log.debug("Dropped expired update {}", entry.update().getUpdateId());
+                notifyCompleted(entry.update());
+                continue;
+            }
+            try {
+                updateService.handleUpdate(entry.update());
+            } catch (Throwable e) {
+                log.error("Error processing update: {}", entry.update(), e);
+                if (e instanceof VirtualMachineError fatal) {
+                    replaceDispatcher();
+                    throw fatal;
+                }
+            }
+        }
+    }
+
+    private Thread startDispatcher() {
+        Thread thread = new Thread(this::dispatch, "javagram-ingress");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Starts a new dispatcher thread in place of the current one, which is about to die,
+     * unless the ingress is closed.
+     */
+    private void replaceDispatcher() {
+        lock.lock();
+        try {
+            if (!closed) {
+                dispatcher = startDispatcher();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void notifyCompleted(Update update) {
+        for (UpdateCompletionListener listener : completionListeners) {
+            try {
+                listener.onUpdateCompleted(update);
+            } catch (RuntimeException e) {
+                log.error("Completion listener {} failed for update: {}",
+                        listener.getClass().getName(), update, e);
+            }
+        }
+    }
+
+    private Entry pollFirstReceived() {
+        ArrayDeque<Entry> first = null;
+        for (ArrayDeque<Entry> level : levels) {
+            Entry head = level.peekFirst();
+            if (head != null && (first == null || head.sequence() < first.peekFirst().sequence())) {
+                first = level;
+            }
+        }
+        return first.pollFirst();
+    }
+
+    private int lowestNonEmptyLevel() {
+        for (int i = 0; i < levels.length; i++) {
+            if (!levels[i].isEmpty()) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Queue is full but all levels are empty");
+    }
+
+    private boolean isExpired(Entry entry) {
+        if (maxAgeMillis <= 0) {
+            return false;
+        }
+        long sentAt = entry.receivedAt();
+        Message message = entry.update().hasMessage() ? entry.update().getMessage()
+                : entry.update().getChannelPost();
+        if (message != null && message.getDate() != null && message.getDate() > 0) {
+            sentAt = Math.min(sentAt, TimeUnit.SECONDS.toMillis(message.getDate()));
+        }
+        return clock.millis() - sentAt > maxAgeMillis;
+    }
+
+    /**
+     * Maps every update kind to the index of its priority among the distinct priorities, from
+     * the lowest to the highest.
+     */
+    private static int[] levelOfKind(Map<UpdateKind, Integer> priorities) {
+        TreeSet<Integer> distinct = new TreeSet<>();
+        for (UpdateKind kind : UpdateKind.values()) {
+            distinct.add(priorities.getOrDefault(kind, 0));
+        }
+        int[] levelOfKind = new int[UpdateKind.values().length];
+        for (UpdateKind kind : UpdateKind.values()) {
+            levelOfKind[kind.ordinal()] =
+                    distinct.headSet(priorities.getOrDefault(kind, 0)).size();
+        }
+        return levelOfKind;
+    }
+
+    private record Outcome(Admission admission, Entry shed) {
+    }
+
+    private record Entry(Update update, long sequence, long receivedAt) {
+    }
+}
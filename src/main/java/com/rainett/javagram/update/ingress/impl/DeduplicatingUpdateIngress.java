@@ -0,0 +1,164 @@
+package com.rainett.javagram.update.ingress.impl;
+
+import com.rainett.javagram.update.ingress.Admission;
+import com.rainett.javagram.update.ingress.Submission;
+import com.rainett.javagram.update.ingress.UpdateIngress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * {@link UpdateIngress} that skips updates received before and passes the others to a
+ * delegate.
+ * <p>
+ * Telegram delivers a webhook update again when the response to it is slow or fails, and
+ * processing it twice repeats the side effects of its action. Every update id is recorded in a
+ * sliding window of the {@code bot.ingress.dedup-window} most recent ids before the update
+ * reaches the delegate, so a redelivery is answered with {@link Admission#DUPLICATE} even while
+ * the first delivery is still being processed. The window has a constant size, the check
+ * takes a constant time, and a jump of the ids clears the window a word of 64 ids at a time,
+ * so it costs at most {@code dedup-window / 64} writes. Updates older than the window are
+ * passed on without clearing it. Updates the delegate rejects are forgotten, so that Telegram
+ * can deliver them again. Updates without an id are always passed on. The number of skipped
+ * duplicates is exposed for monitoring.
+ * </p>
+ */
+@Slf4j
+public class DeduplicatingUpdateIngress implements UpdateIngress, AutoCloseable {
+    private final UpdateIngress delegate;
+    private final UpdateIdWindow window;
+    private final LongAdder duplicates = new LongAdder();
+
+    /**
+     * Creates an ingress remembering the given number of update ids.
+     *
+     * @param delegate   the ingress receiving the updates that were not seen before
+     * @param windowSize the number of most recent update ids remembered
+     * @throws IllegalArgumentException if the window size is not positive
+     */
+    public DeduplicatingUpdateIngress(UpdateIngress delegate, int windowSize) {
+        this.delegate = delegate;
+        this.window = new UpdateIdWindow(windowSize);
+    }
+
+    /**
+     * Passes the update to the delegate unless it was received before.
+     *
+     * @param update the received update
+     * @return {@link Admission#DUPLICATE} if the update was received before, or the admission
+     *         of the delegate otherwise
+     */
+    @Override
+    public Admission submit(Update update) {
+        if (isDuplicate(update)) {
+            return Admission.DUPLICATE;
+        }
+        return forgetRejected(update, delegate.submit(update));
+    }
+
+    /**
+     * Passes the updates of the batch that were not received before to the delegate, as one
+     * batch.
+     *
+     * @param updates the received updates
+     * @return the admission of every update, in the order of the list
+     */
+    @Override
+    public List<Admission> submitAll(List<Update> updates) {
+        List<Update> fresh = new ArrayList<>(updates.size());
+        for (Update update : updates) {
+            if (!isDuplicate(update)) {
+                fresh.add(update);
+            }
+        }
+        if (fresh.size() == updates.size()) {
+            return forgetRejected(updates, delegate.submitAll(updates));
+        }
+        List<Admission> freshAdmissions = forgetRejected(fresh,
+                fresh.isEmpty() ? List.of() : delegate.submitAll(fresh));
+        List<Admission> admissions = new ArrayList<>(updates.size());
+        int next = 0;
+        for (Update update : updates) {
+            if (next < fresh.size() && fresh.get(next) == update) {
+                admissions.add(freshAdmissions.get(next++));
+            } else {
+                admissions.add(Admission.DUPLICATE);
+            }
+        }
+        return admissions;
+    }
+
+    /**
+     * Passes the update to the delegate unless it was received before.
+     *
+     * @param update the received update
+     * @return {@link Admission#DUPLICATE} without a reply if the update was received before,
+     *         or the submission of the delegate otherwise
+     */
+    @Override
+    public Submission submitWebhookUpdate(Update update) {
+        if (isDuplicate(update)) {
+            return new Submission(Admission.DUPLICATE, null);
+        }
+        Submission submission = delegate.submitWebhookUpdate(update);
+        forgetRejected(update, submission.admission());
+        return submission;
+    }
+
+    /**
+     * Returns the number of updates skipped because they were received before.
+     *
+     * @return the number of duplicate updates
+     */
+    public long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    /**
+     * Returns the ingress receiving the updates that were not seen before.
+     *
+     * @return the delegate ingress
+     */
+    public UpdateIngress getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Closes the delegate if it is {@link AutoCloseable}.
+     *
+     * @throws Exception if the delegate fails to close
+     */
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private boolean isDuplicate(Update update) {
+        Integer updateId = update.getUpdateId();
+        if (updateId == null || window.add(updateId)) {
+            return false;
+        }
+        duplicates.increment();
+        log.info("Update {} was already received, skipping it", updateId);
+        return true;
+    }
+
+    private Admission forgetRejected(Update update, Admission admission) {
+        Integer updateId = update.getUpdateId();
+        if (admission == Admission.REJECTED && updateId != null) {
+            window.remove(updateId);
+        }
+        return admission;
+    }
+
+    private List<Admission> forgetRejected(List<Update> updates, List<Admission> admissions) {
+        for (int i = 0; i < admissions.size(); i++) {
+            forgetRejected(updates.get(i), admissions.get(i));
+        }
+        return admissions;
+    }
+}
@@ -0,0 +1,54 @@
+package com.rainett.javagram.update.ingress.impl;
+
+import com.rainett.javagram.update.ingress.Admission;
+import com.rainett.javagram.update.ingress.Submission;
+import com.rainett.javagram.update.ingress.UpdateIngress;
+import com.rainett.javagram.update.service.UpdateService;
+import java.util.Collections;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * {@link UpdateIngress} that passes every update straight to the {@link UpdateService} on the
+ * calling thread. Exceptions thrown by the service propagate to the caller.
+ */
+@RequiredArgsConstructor
+public class DirectUpdateIngress implements UpdateIngress {
+    private final UpdateService updateService;
+
+    /**
+     * Processes the update with the {@link UpdateService}.
+     *
+     * @param update the received update
+     * @return {@link Admission#ACCEPTED}
+     */
+    @Override
+    public Admission submit(Update update) {
+        updateService.handleUpdate(update);
+        return Admission.ACCEPTED;
+    }
+
+    /**
+     * Processes the batch with {@link UpdateService#handleUpdates(List)}.
+     *
+     * @param updates the received updates
+     * @return {@link Admission#ACCEPTED} for every update
+     */
+    @Override
+    public List<Admission> submitAll(List<Update> updates) {
+        updateService.handleUpdates(updates);
+        return Collections.nCopies(updates.size(), Admission.ACCEPTED);
+    }
+
+    /**
+     * Processes the update with the {@link UpdateService} and returns its reply.
+     *
+     * @param update the received update
+     * @return {@link Admission#ACCEPTED} and the reply to the update, if any
+     */
+    @Override
+    public Submission submitWebhookUpdate(Update update) {
+        return new Submission(Admission.ACCEPTED, updateService.handleWebhookUpdate(update));
+    }
+}
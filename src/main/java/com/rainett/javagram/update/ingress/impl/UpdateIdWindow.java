@@ -0,0 +1,125 @@
+package com.rainett.javagram.update.ingress.impl;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window of the most recently received update ids, used to recognize redelivered
+ * updates.
+ * <p>
+ * Telegram assigns update ids sequentially, so the window is a ring of bits covering the
+ * {@code size} ids up to the highest one received. A new highest id slides the window forward
+ * and clears the bits it passes, a whole word of 64 ids at a time, so a jump costs at most
+ * {@code size / 64} word writes. Ids that fall behind the window can no longer be checked and
+ * are taken as new without changing the window. An id more than {@value #MAX_REPLAY_GAP} below
+ * the highest one restarts the window there, as Telegram picks a random id for the first update
+ * after a week without updates.
+ * The window holds {@code size / 8} bytes regardless of traffic and never allocates after
+ * construction.
+ * </p>
+ */
+final class UpdateIdWindow {
+    /**
+     * Distance below the highest id beyond which a received id is taken as a restart of the
+     * ids by Telegram rather than a late delivery.
+     */
+    static final int MAX_REPLAY_GAP = 1_000_000;
+
+    private final long[] words;
+    private final int size;
+    private boolean empty = true;
+    private int highest;
+
+    /**
+     * Creates a window of at least the given number of ids.
+     *
+     * @param size the number of ids covered, rounded up to a multiple of 64
+     * @throws IllegalArgumentException if the size is not positive
+     */
+    UpdateIdWindow(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Window size must be positive: " + size);
+        }
+        this.words = new long[(size + Long.SIZE - 1) / Long.SIZE];
+        this.size = words.length * Long.SIZE;
+    }
+
+    /**
+     * Records a received update id.
+     *
+     * @param updateId the id of the received update
+     * @return {@code true} if the id is new or behind the window, {@code false} if it was
+     *         already recorded
+     */
+    synchronized boolean add(int updateId) {
+        long ahead = (long) updateId - highest;
+        if (empty || ahead >= size || -ahead > Math.max(MAX_REPLAY_GAP, size - 1)) {
+            Arrays.fill(words, 0L);
+            empty = false;
+            highest = updateId;
+        } else if (ahead > 0) {
+            clearRange(highest + 1, (int) ahead - 1);
+            highest = updateId;
+        } else if (-ahead >= size) {
+            return true;
+        } else if (isSet(updateId)) {
+            return false;
+        }
+        set(updateId);
+        return true;
+    }
+
+    /**
+     * Forgets a recorded update id, so that a later delivery of it is taken as new.
+     *
+     * @param updateId the id of an update that was not processed
+     */
+    synchronized void remove(int updateId) {
+        long behind = (long) highest - updateId;
+        if (!empty && behind >= 0 && behind < size) {
+            clear(updateId);
+        }
+    }
+
+    /**
+     * Returns the number of ids covered by the window.
+     *
+     * @return the size of the window
+     */
+    int size() {
+        return size;
+    }
+
+    private boolean isSet(int updateId) {
+        int bit = Math.floorMod(updateId, size);
+        return (words[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    private void set(int updateId) {
+        int bit = Math.floorMod(updateId, size);
+        words[bit >>> 6] |= 1L << bit;
+    }
+
+    /**
+     * Clears the bits of {@code count} consecutive ids, less than the size, starting at the
+     * given one. Whole words are cleared at once and only the words at either end are masked.
+     */
+    private void clearRange(int firstId, int count) {
+        int bit = Math.floorMod(firstId, size);
+        while (count > 0) {
+            int offset = bit & (Long.SIZE - 1);
+            int length = Math.min(count, Long.SIZE - offset);
+            long mask = length == Long.SIZE ? -1L : ((1L << length) - 1) << offset;
+            words[bit >>> 6] &= ~mask;
+            count -= length;
+            bit += length;
+            if (bit == size) {
+                bit = 0;
+            }
+        }
+    }
+
+    private void clear(int updateId) {
+        int bit = Math.floorMod(updateId, size);
+        words[bit >>> 6] &= ~(1L << bit);
+    }
+}
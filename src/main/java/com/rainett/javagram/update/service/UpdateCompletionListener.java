@@ -0,0 +1,24 @@
+package com.rainett.javagram.update.service;
+
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * Listener notified when the handling of a received update is over.
+ * <p>
+ * Listeners registered as beans are called once per update: when its action completes or
+ * fails, when no action handles it, or when the ingress discards it. For an
+ * {@link com.rainett.javagram.action.AsyncAction}, the listener is called when its stage
+ * completes or times out. Listeners are called on the thread that finished the update and
+ * should return quickly.
+ * </p>
+ */
+@FunctionalInterface
+public interface UpdateCompletionListener {
+
+    /**
+     * Called when the handling of the update is over.
+     *
+     * @param update the completed update
+     */
+    void onUpdateCompleted(Update update);
+}
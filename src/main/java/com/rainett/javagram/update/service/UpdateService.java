@@ -1,5 +1,7 @@
 package com.rainett.javagram.update.service;
 
+import java.util.List;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
 import org.telegram.telegrambots.meta.api.objects.Update;
 
 /**
@@ -16,4 +18,35 @@ public interface UpdateService {
      * @param update the Telegram update to process
      */
     void handleUpdate(Update update);
+
+    /**
+     * Processes a batch of updates received together, in the order of the list for every
+     * chat.
+     * <p>
+     * The default implementation processes the updates one by one with
+     * {@link #handleUpdate(Update)}.
+     * </p>
+     *
+     * @param updates the Telegram updates to process
+     */
+    default void handleUpdates(List<Update> updates) {
+        updates.forEach(this::handleUpdate);
+    }
+
+    /**
+     * Processes an update received by the webhook and returns the method to send in the webhook
+     * response.
+     * <p>
+     * A reply can only be returned if the update is processed before this method returns.
+     * Replies produced later are sent with the bot instead.
+     * </p>
+     *
+     * @param update the Telegram update to process
+     * @return the reply of a {@link com.rainett.javagram.action.ReplyingAction}, or
+     *         {@code null} if there is none to return
+     */
+    default BotApiMethod<?> handleWebhookUpdate(Update update) {
+        handleUpdate(update);
+        return null;
+    }
 }
@@ -1,10 +1,26 @@
 package com.rainett.javagram.update.service.impl;
 
 import com.rainett.javagram.action.Action;
+import java.lang.annotation.Annotation;
 
 /**
  * Default action interface. It should be implemented to provide a default action
  * when no specific action is found for a given update.
+ * <p>
+ * A default action applies to every update type unless {@link #getAnnotationType()} narrows
+ * it to a single one, such as {@link com.rainett.javagram.action.annotations.Command}. A
+ * default action of the update's type takes precedence over a global one.
+ * </p>
  */
 public interface DefaultAction extends Action {
+
+    /**
+     * Returns the annotation type of the update type this default action handles.
+     *
+     * @return the annotation type, or {@code null} if this default action handles every update
+     * type, including updates of an unknown type
+     */
+    default Class<? extends Annotation> getAnnotationType() {
+        return null;
+    }
 }
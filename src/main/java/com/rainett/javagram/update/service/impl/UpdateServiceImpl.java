@@ -1,15 +1,37 @@
 package com.rainett.javagram.update.service.impl;
 
 import com.rainett.javagram.action.Action;
+import com.rainett.javagram.action.AsyncAction;
+import com.rainett.javagram.action.ReplyingAction;
 import com.rainett.javagram.action.container.ActionContainer;
-import com.rainett.javagram.exceptions.ActionNotFoundException;
-import com.rainett.javagram.exceptions.UnknownUpdateTypeException;
+import com.rainett.javagram.action.container.RouteResult;
+import com.rainett.javagram.config.ExecutionConfig;
+import com.rainett.javagram.outbound.ReplySender;
+import com.rainett.javagram.update.executor.ChatKey;
+import com.rainett.javagram.update.executor.UpdateExecutor;
+import com.rainett.javagram.update.service.UpdateCompletionListener;
 import com.rainett.javagram.update.service.UpdateService;
-import java.util.Optional;
+import java.lang.annotation.Annotation;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
 import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
 /**
  * Implementation of the {@link UpdateService} interface.
@@ -18,53 +40,355 @@ import org.telegram.telegrambots.meta.api.objects.Update;
  * obtained from an {@link ActionContainer}. It logs key events and handles exceptions
  * to ensure that errors are captured and managed appropriately.
  * </p>
+ * <p>
+ * Updates are routed with {@link ActionContainer#route(Update)}, so a routing miss does not
+ * throw. A miss runs the {@link DefaultAction} registered for the resolved update type, or the
+ * global default action if there is none.
+ * </p>
+ * <p>
+ * Every update is processed through the {@link UpdateExecutor}, which decides whether it runs
+ * on the calling thread or concurrently with other updates.
+ * </p>
+ * <p>
+ * A batch passed to {@link #handleUpdates(List)} is routed in one pass on the calling thread
+ * and grouped by {@link ChatKey chat}. Every group is a single task of the
+ * {@link UpdateExecutor}, which processes its updates in order, so the groups run in parallel
+ * when the executor is concurrent.
+ * </p>
+ * <p>
+ * An {@link AsyncAction} is started and not awaited. Its outcome is recorded when its stage
+ * completes: a failure, or a stage still incomplete after {@code bot.execution.async-timeout},
+ * is logged as an error like the failure of a synchronous action. The numbers of completed,
+ * failed, timed out and pending actions are exposed for monitoring.
+ * </p>
+ * <p>
+ * The reply of a {@link ReplyingAction} is returned to the webhook if the update was processed
+ * within {@link #handleWebhookUpdate(Update)}, and is executed asynchronously with the bot
+ * otherwise, like an async action, with the {@link ReplySender}. It sends the reply through the
+ * {@link com.rainett.javagram.outbound.OutboundScheduler} when one is available, so that it
+ * respects the rate limits of Telegram.
+ * </p>
+ * <p>
+ * Every {@link UpdateCompletionListener} is notified once the handling of an update is over,
+ * including failures, routing misses and async actions.
+ * </p>
  */
 @Slf4j
 @Service
 public class UpdateServiceImpl implements UpdateService {
     private final ActionContainer actionContainer;
-    private final Optional<DefaultAction> defaultActionOptional;
+    private final UpdateExecutor updateExecutor;
+    private final Duration asyncTimeout;
+    private final ReplySender replySender;
+    private final DefaultAction globalDefaultAction;
+    private final Map<Class<? extends Annotation>, DefaultAction> typedDefaultActions;
+    private final List<UpdateCompletionListener> completionListeners;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder pending = new LongAdder();
 
     /**
-     * Constructor for UpdateService with optional default action.
-     * @param actionContainer container of actions
-     * @param defaultAction default action, executed when no suitable actions were found
+     * Constructor for UpdateService with optional default actions and completion listeners.
+     * @param actionContainer     container of actions
+     * @param updateExecutor      executor processing the updates
+     * @param executionConfig     execution configuration
+     * @param replySender         sender of the replies of actions
+     * @param defaultActions      default actions, executed when no suitable actions were found;
+     *                            at most one global default action and one per update type
+     * @param completionListeners listeners notified when the handling of an update is over
+     * @throws IllegalStateException if several default actions handle the same update type
      */
-    public UpdateServiceImpl(ActionContainer actionContainer,
-                             @Autowired(required = false) DefaultAction defaultAction) {
+    @Autowired
+    public UpdateServiceImpl(ActionContainer actionContainer, UpdateExecutor updateExecutor,
+                             ExecutionConfig executionConfig,
+                             ReplySender replySender,
+                             List<DefaultAction> defaultActions,
+                             List<UpdateCompletionListener> completionListeners) {
         this.actionContainer = actionContainer;
-        this.defaultActionOptional = Optional.ofNullable(defaultAction);
+        this.completionListeners = List.copyOf(completionListeners);
+        this.updateExecutor = updateExecutor;
+        this.asyncTimeout = executionConfig.getAsyncTimeout();
+        this.replySender = replySender;
+        DefaultAction global = null;
+        Map<Class<? extends Annotation>, DefaultAction> typed = new HashMap<>();
+        for (DefaultAction defaultAction : defaultActions) {
+            Class<? extends Annotation> annotationType = defaultAction.getAnnotationType();
+            DefaultAction previous;
+            if (annotationType == null) {
+                previous = global;
+                global = defaultAction;
+            } else {
+                previous = typed.putIfAbsent(annotationType, defaultAction);
+            }
+            if (previous != null) {
+                throw new IllegalStateException("Multiple default actions registered for "
+                        + (annotationType == null ? "all update types"
+                                                  : annotationType.getSimpleName())
+                        + ": " + previous.getClass().getName() + ", "
+                        + defaultAction.getClass().getName());
+            }
+        }
+        this.globalDefaultAction = global;
+        this.typedDefaultActions = typed;
     }
 
     /**
      * Processes an incoming Telegram update.
      * <p>
      * The update is used to determine the appropriate {@link Action} from the
-     * {@link ActionContainer}. If an action is found, it is executed; otherwise, a warning
-     * is logged. Any exceptions thrown during the process are caught and logged as errors.
+     * {@link ActionContainer}. If an action is found, it is executed; otherwise, the matching
+     * default action is executed, if any. Any exceptions thrown during the process are caught
+     * and logged as errors.
      * </p>
      *
      * @param update the Telegram update to process
      */
     @Override
     public void handleUpdate(Update update) {
+        updateExecutor.execute(update, () -> process(update, null));
+    }
+
+    /**
+     * Processes a batch of updates.
+     * <p>
+     * Every update is routed first, on the calling thread. The routed updates are then grouped
+     * by chat, and every group is handed to the {@link UpdateExecutor} as one task that
+     * processes the updates of the chat in the order of the batch. Updates without a chat are
+     * handed over one by one. A failure to route or process an update is logged and does not
+     * affect the other updates of its group.
+     * </p>
+     *
+     * @param updates the Telegram updates to process
+     */
+    @Override
+    public void handleUpdates(List<Update> updates) {
+        Map<Long, List<RoutedUpdate>> chats = new LinkedHashMap<>();
+        List<RoutedUpdate> unkeyed = new ArrayList<>();
+        for (Update update : updates) {
+            RouteResult route;
+            try {
+                route = actionContainer.route(update);
+            } catch (Exception e) {
+                onFailure(update, e);
+                notifyCompleted(update);
+                continue;
+            }
+            RoutedUpdate routed = new RoutedUpdate(update, route);
+            Long chat = ChatKey.of(update);
+            if (chat == null) {
+                unkeyed.add(routed);
+            } else {
+                chats.computeIfAbsent(chat, key -> new ArrayList<>()).add(routed);
+            }
+        }
+        for (List<RoutedUpdate> group : chats.values()) {
+            updateExecutor.execute(group.get(0).update(), () -> {
+                for (RoutedUpdate routed : group) {
+                    process(routed.update(), routed.route(), null);
+                }
+            });
+        }
+        for (RoutedUpdate routed : unkeyed) {
+            updateExecutor.execute(routed.update(),
+                    () -> process(routed.update(), routed.route(), null));
+        }
+    }
+
+    /**
+     * Processes an update received by the webhook and returns the reply of its
+     * {@link ReplyingAction}, if the {@link UpdateExecutor} processed the update before
+     * returning. A reply produced after this method returns is executed with the bot.
+     *
+     * @param update the Telegram update to process
+     * @return the reply to the update, or {@code null} if there is none to return
+     */
+    @Override
+    public BotApiMethod<?> handleWebhookUpdate(Update update) {
+        ReplySlot slot = new ReplySlot();
+        updateExecutor.execute(update, () -> process(update, slot));
+        return slot.close();
+    }
+
+    /**
+     * Returns the number of actions that completed successfully.
+     *
+     * @return the number of completed actions
+     */
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    /**
+     * Returns the number of updates whose processing failed, excluding timeouts.
+     *
+     * @return the number of failed updates
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * Returns the number of async actions that did not complete within
+     * {@code bot.execution.async-timeout}.
+     *
+     * @return the number of timed out actions
+     */
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+
+    /**
+     * Returns the number of async actions that were started and have not completed yet.
+     *
+     * @return the number of pending actions
+     */
+    public long getPending() {
+        return pending.sum();
+    }
+
+    private void process(Update update, ReplySlot slot) {
+        RouteResult route;
+        try {
+            route = actionContainer.route(update);
+        } catch (Exception e) {
+            onFailure(update, e);
+            notifyCompleted(update);
+            return;
+        }
+        process(update, route, slot);
+    }
+
+    private void process(Update update, RouteResult route, ReplySlot slot) {
+        boolean tracked = false;
         try {
-            Action botAction = actionContainer.findByUpdate(update);
-            log.debug("Executing action: {} for update: {}",
-                    botAction.getClass().getSimpleName(), update);
-            botAction.run(update);
-        } catch (ActionNotFoundException | UnknownUpdateTypeException e) {
-            defaultActionOptional.ifPresentOrElse(
-                    action -> executeDefaultAction(update, action),
-                    () -> log.warn(e.getMessage())
-            );
+            if (route.isMatched()) {
+                Action botAction = route.getAction();
+                log.debug("Executing action: {} for update: {}",
+                        botAction.getClass().getSimpleName(), update);
+                tracked = execute(botAction, update, slot);
+                return;
+            }
+            DefaultAction defaultAction = findDefaultAction(route);
+            if (defaultAction != null) {
+                log.debug("Executing default action for update: {}", update);
+                tracked = execute(defaultAction, update, slot);
+            } else {
+                log.debug("No action found ({}) for update: {}", route.getStatus(), update);
+            }
         } catch (Exception e) {
-            log.error("Error processing update: {}", update, e);
+            onFailure(update, e);
+        } finally {
+            if (!tracked) {
+                notifyCompleted(update);
+            }
         }
     }
 
-    private static void executeDefaultAction(Update update, DefaultAction action) {
-        log.info("Executing default action for update: {}", update);
+    /**
+     * Executes the action.
+     *
+     * @return {@code true} if the outcome is tracked asynchronously
+     */
+    private boolean execute(Action action, Update update, ReplySlot slot)
+            throws TelegramApiException {
+        if (action instanceof ReplyingAction replyingAction) {
+            BotApiMethod<?> reply = replyingAction.reply(update);
+            if (reply == null || slot != null && slot.offer(reply)) {
+                completed.increment();
+                return false;
+            }
+            track(update, replySender.send(reply));
+            return true;
+        }
+        if (action instanceof AsyncAction asyncAction) {
+            CompletionStage<?> stage = asyncAction.runAsync(update);
+            if (stage == null) {
+                completed.increment();
+                return false;
+            }
+            track(update, stage);
+            return true;
+        }
         action.run(update);
+        completed.increment();
+        return false;
+    }
+
+    private void track(Update update, CompletionStage<?> stage) {
+        pending.increment();
+        CompletableFuture<?> future = stage.toCompletableFuture().copy();
+        if (asyncTimeout != null) {
+            future.orTimeout(asyncTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        future.whenComplete((result, error) -> {
+            pending.decrement();
+            if (error == null) {
+                completed.increment();
+            } else {
+                onFailure(update, unwrap(error));
+            }
+            notifyCompleted(update);
+        });
+    }
+
+    private void notifyCompleted(Update update) {
+        for (UpdateCompletionListener listener : completionListeners) {
+            try {
+                listener.onUpdateCompleted(update);
+            } catch (RuntimeException e) {
+                log.error("Completion listener {} failed for update: {}",
+                        listener.getClass().getName(), update, e);
+            }
+        }
+    }
+
+    private void onFailure(Update update, Throwable error) {
+        if (error instanceof TimeoutException) {
+            timedOut.increment();
+            log.error("Action did not complete within {} for update: {}", asyncTimeout, update);
+            return;
+        }
+        failed.increment();
+        log.error("Error processing update: {}", update, error);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+               && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private DefaultAction findDefaultAction(RouteResult route) {
+        Class<? extends Annotation> updateType = route.getUpdateType();
+        if (updateType != null) {
+            DefaultAction defaultAction = typedDefaultActions.get(updateType);
+            if (defaultAction != null) {
+                return defaultAction;
+            }
+        }
+        return globalDefaultAction;
+    }
+
+    private record RoutedUpdate(Update update, RouteResult route) {
+    }
+
+    /**
+     * Hands the reply of an action over to {@link #handleWebhookUpdate(Update)}, unless the
+     * webhook response has already been decided, in which case the action sends it itself.
+     */
+    private static final class ReplySlot {
+        private static final Object CLOSED = new Object();
+        private final AtomicReference<Object> reply = new AtomicReference<>();
+
+        boolean offer(BotApiMethod<?> method) {
+            return reply.compareAndSet(null, method);
+        }
+
+        BotApiMethod<?> close() {
+            return reply.getAndSet(CLOSED) instanceof BotApiMethod<?> method ? method : null;
+        }
     }
 }
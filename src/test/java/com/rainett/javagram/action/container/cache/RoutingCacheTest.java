@@ -0,0 +1,96 @@
+package com.rainett.javagram.action.container.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.rainett.javagram.action.annotations.Callback;
+import com.rainett.javagram.action.annotations.Text;
+import com.rainett.javagram.action.container.RouteResult;
+import com.rainett.javagram.config.RoutingConfig;
+import org.junit.jupiter.api.Test;
+
+class RoutingCacheTest {
+
+    @Test
+    void testDisabledCacheStoresNothing() {
+        RoutingCache cache = new RoutingCache(new RoutingConfig());
+        cache.put(Text.class, "Menu", RouteResult.noMatchingAction(Text.class));
+        assertFalse(cache.isEnabled());
+        assertNull(cache.get(Text.class, "Menu"));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBypasses());
+    }
+
+    @Test
+    void testCountsHitsAndMisses() {
+        RoutingCache cache = new RoutingCache(config(100, 64));
+        RouteResult result = RouteResult.noMatchingAction(Text.class);
+        assertNull(cache.get(Text.class, "Menu"));
+        cache.put(Text.class, "Menu", result);
+        assertSame(result, cache.get(Text.class, "Menu"));
+        assertSame(result, cache.get(Text.class, "Menu"));
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void testKeysAreScopedByUpdateType() {
+        RoutingCache cache = new RoutingCache(config(100, 64));
+        cache.put(Text.class, "Back", RouteResult.noMatchingAction(Text.class));
+        assertNull(cache.get(Callback.class, "Back"));
+    }
+
+    @Test
+    void testBypassesMissingAndLongKeys() {
+        RoutingCache cache = new RoutingCache(config(100, 4));
+        cache.put(Text.class, "Settings", RouteResult.noMatchingAction(Text.class));
+        cache.put(Text.class, null, RouteResult.noMatchingAction(Text.class));
+        assertNull(cache.get(Text.class, "Settings"));
+        assertNull(cache.get(Text.class, null));
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.getBypasses());
+        assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed() {
+        RoutingCache cache = new RoutingCache(config(3, 64));
+        cache.put(Text.class, "a", RouteResult.noMatchingAction(Text.class));
+        cache.put(Text.class, "b", RouteResult.noMatchingAction(Text.class));
+        cache.put(Text.class, "c", RouteResult.noMatchingAction(Text.class));
+        cache.get(Text.class, "a");
+        cache.put(Text.class, "d", RouteResult.noMatchingAction(Text.class));
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get(Text.class, "b"));
+        assertTrue(cache.get(Text.class, "a") != null);
+    }
+
+    @Test
+    void testSizeIsBounded() {
+        RoutingCache cache = new RoutingCache(config(1000, 64));
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(Text.class, "text " + i, RouteResult.noMatchingAction(Text.class));
+        }
+        assertTrue(cache.size() <= 1000);
+        assertEquals(10_000 - cache.size(), cache.getEvictions());
+    }
+
+    @Test
+    void testRejectsNonPositiveSize() {
+        RoutingConfig routingConfig = config(0, 64);
+        assertThrows(IllegalArgumentException.class, () -> new RoutingCache(routingConfig));
+    }
+
+    private static RoutingConfig config(int maximumSize, int maxKeyLength) {
+        RoutingConfig routingConfig = new RoutingConfig();
+        routingConfig.getCache().setEnabled(true);
+        routingConfig.getCache().setMaximumSize(maximumSize);
+        routingConfig.getCache().setMaxKeyLength(maxKeyLength);
+        return routingConfig;
+    }
+}
@@ -9,6 +9,8 @@ import static org.mockito.Mockito.when;
 import com.rainett.javagram.action.Action;
 import com.rainett.javagram.action.annotations.BotAction;
 import com.rainett.javagram.action.comparator.ActionComparatorService;
+import com.rainett.javagram.action.container.GeneratedActionIndex;
+import com.rainett.javagram.config.RoutingConfig;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -94,7 +96,8 @@ class ActionCollectorImplTest {
         when(comparatorService.getActionComparator(TestBotAnnotationB.class)).thenReturn(
                 comparatorB);
 
-        ActionCollectorImpl collector = new ActionCollectorImpl(context, comparatorService);
+        ActionCollectorImpl collector = new ActionCollectorImpl(context, comparatorService,
+                new RoutingConfig());
         Map<Class<? extends Annotation>, List<Action>> collectedActions =
                 collector.collectActions();
 
@@ -135,11 +138,43 @@ class ActionCollectorImplTest {
 
         ActionComparatorService comparatorService = mock(ActionComparatorService.class);
         // The comparator service won't be used because extraction fails first.
-        ActionCollectorImpl collector = new ActionCollectorImpl(context, comparatorService);
+        ActionCollectorImpl collector = new ActionCollectorImpl(context, comparatorService,
+                new RoutingConfig());
 
         IllegalStateException exception =
                 assertThrows(IllegalStateException.class, collector::collectActions);
         assertTrue(exception.getMessage().contains("Cannot find required annotation for action"),
                 "Expected exception message indicating missing annotation.");
     }
+
+    @Test
+    void testCollectActionsOrdersByGeneratedIndex() {
+        Map<String, Action> beans = new HashMap<>();
+        DummyActionA first = new DummyActionA(1);
+        DummyActionB second = new DummyActionB(2);
+        DummyActionB unindexed = new DummyActionB(3);
+        beans.put("first", first);
+        beans.put("second", second);
+        beans.put("unindexed", unindexed);
+        beans.put("defaultAction", new DummyActionWithoutBotAction());
+
+        ApplicationContext context = mock(ApplicationContext.class);
+        when(context.getBeansOfType(Action.class)).thenReturn(beans);
+
+        ActionComparatorService comparatorService = mock(ActionComparatorService.class);
+        when(comparatorService.getActionComparator(TestBotAnnotationB.class)).thenReturn(
+                Comparator.comparingInt(action -> ((DummyActionB) action).order()));
+
+        GeneratedActionIndex index = () -> Map.of(
+                TestBotAnnotationA.class, List.of(DummyActionA.class.getName()),
+                TestBotAnnotationB.class, List.of("com.example.Missing"));
+        ActionCollectorImpl collector = new ActionCollectorImpl(context, comparatorService,
+                new RoutingConfig());
+        Map<Class<? extends Annotation>, List<Action>> collectedActions =
+                collector.collectActions(List.of(index));
+
+        assertEquals(2, collectedActions.size());
+        assertEquals(List.of(first), collectedActions.get(TestBotAnnotationA.class));
+        assertEquals(List.of(unindexed, second), collectedActions.get(TestBotAnnotationB.class));
+    }
 }
@@ -1,6 +1,7 @@
 package com.rainett.javagram.action.container.impl;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -11,7 +12,12 @@ import com.rainett.javagram.action.Action;
 import com.rainett.javagram.action.actionmatcher.ActionUpdateMatcher;
 import com.rainett.javagram.action.annotations.BotAction;
 import com.rainett.javagram.action.container.ActionCollector;
+import com.rainett.javagram.action.container.RouteResult;
+import com.rainett.javagram.action.container.cache.RoutingCache;
+import com.rainett.javagram.action.index.ActionIndex;
+import com.rainett.javagram.action.index.ActionIndexFactory;
 import com.rainett.javagram.action.updatematcher.UpdateTypeResolver;
+import com.rainett.javagram.config.RoutingConfig;
 import com.rainett.javagram.exceptions.ActionNotFoundException;
 import com.rainett.javagram.exceptions.UnknownUpdateTypeException;
 import java.lang.annotation.Annotation;
@@ -20,6 +26,8 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.Test;
 import org.telegram.telegrambots.meta.api.objects.Update;
@@ -67,7 +75,9 @@ class ActionContainerImplTest {
         ActionContainerImpl container = new ActionContainerImpl(
                 actionCollector,
                 List.of(updateTypeResolver),
-                List.of(actionUpdateMatcher)
+                List.of(actionUpdateMatcher),
+                List.of(),
+                new RoutingCache(new RoutingConfig())
         );
         invokeInit(container);
         Update update = new Update();
@@ -89,7 +99,9 @@ class ActionContainerImplTest {
         ActionContainerImpl container = new ActionContainerImpl(
                 actionCollector,
                 List.of(updateTypeResolver),
-                List.of()
+                List.of(),
+                List.of(),
+                new RoutingCache(new RoutingConfig())
         );
         invokeInit(container);
         Update update = new Update();
@@ -121,7 +133,9 @@ class ActionContainerImplTest {
         ActionContainerImpl container = new ActionContainerImpl(
                 actionCollector,
                 List.of(updateTypeResolver),
-                List.of(actionUpdateMatcher)
+                List.of(actionUpdateMatcher),
+                List.of(),
+                new RoutingCache(new RoutingConfig())
         );
         invokeInit(container);
         Update update = new Update();
@@ -148,7 +162,9 @@ class ActionContainerImplTest {
         ActionContainerImpl container = new ActionContainerImpl(
                 actionCollector,
                 List.of(updateTypeResolver),
-                List.of()
+                List.of(),
+                List.of(),
+                new RoutingCache(new RoutingConfig())
         );
         invokeInit(container);
         Update update = new Update();
@@ -158,6 +174,136 @@ class ActionContainerImplTest {
                 .contains("No action matcher registered for annotation type"));
     }
 
+    @Test
+    @SneakyThrows
+    void testFindByUpdateUsesIndexFactory() {
+        DummyAction firstAction = new DummyAction(1);
+        DummyAction indexedAction = new DummyAction(2);
+        ActionCollector actionCollector = mock(ActionCollector.class);
+        when(actionCollector.collectActions()).thenReturn(Map.of(
+                TestBotAnnotationA.class, List.of(firstAction, indexedAction)
+        ));
+
+        @SuppressWarnings("unchecked")
+        UpdateTypeResolver<TestBotAnnotationA> updateTypeResolver =
+                (UpdateTypeResolver<TestBotAnnotationA>) mock(UpdateTypeResolver.class);
+        when(updateTypeResolver.test(any(Update.class))).thenReturn(true);
+        when(updateTypeResolver.getAnnotationType()).thenReturn(TestBotAnnotationA.class);
+
+        @SuppressWarnings("unchecked")
+        ActionUpdateMatcher<TestBotAnnotationA> actionUpdateMatcher =
+                (ActionUpdateMatcher<TestBotAnnotationA>) mock(ActionUpdateMatcher.class);
+        when(actionUpdateMatcher.getAnnotationType()).thenReturn(TestBotAnnotationA.class);
+        when(actionUpdateMatcher.test(any(Action.class), any(Update.class))).thenReturn(true);
+
+        @SuppressWarnings("unchecked")
+        ActionIndexFactory<TestBotAnnotationA> indexFactory =
+                (ActionIndexFactory<TestBotAnnotationA>) mock(ActionIndexFactory.class);
+        when(indexFactory.getAnnotationType()).thenReturn(TestBotAnnotationA.class);
+        when(indexFactory.create(List.of(firstAction, indexedAction)))
+                .thenReturn(update -> Optional.of(indexedAction));
+
+        ActionContainerImpl container = new ActionContainerImpl(
+                actionCollector,
+                List.of(updateTypeResolver),
+                List.of(actionUpdateMatcher),
+                List.of(indexFactory),
+                new RoutingCache(new RoutingConfig())
+        );
+        invokeInit(container);
+        assertEquals(indexedAction, container.findByUpdate(new Update()));
+    }
+
+    @Test
+    @SneakyThrows
+    void testRouteReportsMissesWithoutThrowing() {
+        ActionCollector actionCollector = mock(ActionCollector.class);
+        when(actionCollector.collectActions()).thenReturn(Map.of(
+                TestBotAnnotationA.class, List.of(new DummyAction(1))
+        ));
+
+        @SuppressWarnings("unchecked")
+        UpdateTypeResolver<TestBotAnnotationA> updateTypeResolver =
+                (UpdateTypeResolver<TestBotAnnotationA>) mock(UpdateTypeResolver.class);
+        Update known = new Update();
+        known.setUpdateId(1);
+        when(updateTypeResolver.test(known)).thenReturn(true);
+        when(updateTypeResolver.getAnnotationType()).thenReturn(TestBotAnnotationA.class);
+
+        @SuppressWarnings("unchecked")
+        ActionUpdateMatcher<TestBotAnnotationA> actionUpdateMatcher =
+                (ActionUpdateMatcher<TestBotAnnotationA>) mock(ActionUpdateMatcher.class);
+        when(actionUpdateMatcher.getAnnotationType()).thenReturn(TestBotAnnotationA.class);
+        when(actionUpdateMatcher.test(any(Action.class), any(Update.class))).thenReturn(false);
+
+        ActionContainerImpl container = new ActionContainerImpl(
+                actionCollector,
+                List.of(updateTypeResolver),
+                List.of(actionUpdateMatcher),
+                List.of(),
+                new RoutingCache(new RoutingConfig())
+        );
+        invokeInit(container);
+
+        RouteResult miss = container.route(known);
+        assertEquals(RouteResult.Status.NO_MATCHING_ACTION, miss.getStatus());
+        assertEquals(TestBotAnnotationA.class, miss.getUpdateType());
+        assertSame(miss, container.route(known));
+        assertSame(RouteResult.unknownUpdateType(), container.route(new Update()));
+    }
+
+    @Test
+    @SneakyThrows
+    void testRouteCachesDecisionsByRoutingKey() {
+        DummyAction action = new DummyAction(1);
+        ActionCollector actionCollector = mock(ActionCollector.class);
+        when(actionCollector.collectActions()).thenReturn(Map.of(
+                TestBotAnnotationA.class, List.of(action)
+        ));
+
+        @SuppressWarnings("unchecked")
+        UpdateTypeResolver<TestBotAnnotationA> updateTypeResolver =
+                (UpdateTypeResolver<TestBotAnnotationA>) mock(UpdateTypeResolver.class);
+        when(updateTypeResolver.test(any(Update.class))).thenReturn(true);
+        when(updateTypeResolver.getAnnotationType()).thenReturn(TestBotAnnotationA.class);
+
+        AtomicInteger lookups = new AtomicInteger();
+        ActionIndex index = new ActionIndex() {
+            @Override
+            public Optional<Action> find(Update update) {
+                lookups.incrementAndGet();
+                return Optional.of(action);
+            }
+
+            @Override
+            public Object routingKey(Update update) {
+                return "Menu";
+            }
+        };
+        @SuppressWarnings("unchecked")
+        ActionIndexFactory<TestBotAnnotationA> indexFactory =
+                (ActionIndexFactory<TestBotAnnotationA>) mock(ActionIndexFactory.class);
+        when(indexFactory.getAnnotationType()).thenReturn(TestBotAnnotationA.class);
+        when(indexFactory.create(List.of(action))).thenReturn(index);
+
+        RoutingConfig routingConfig = new RoutingConfig();
+        routingConfig.getCache().setEnabled(true);
+        RoutingCache routingCache = new RoutingCache(routingConfig);
+        ActionContainerImpl container = new ActionContainerImpl(
+                actionCollector,
+                List.of(updateTypeResolver),
+                List.of(),
+                List.of(indexFactory),
+                routingCache
+        );
+        invokeInit(container);
+
+        assertEquals(action, container.findByUpdate(new Update()));
+        assertEquals(action, container.findByUpdate(new Update()));
+        assertEquals(1, lookups.get());
+        assertEquals(1, routingCache.getHits());
+    }
+
     private static void invokeInit(ActionContainerImpl container) throws Exception {
         Method init = ActionContainerImpl.class.getDeclaredMethod("init");
         init.setAccessible(true);
@@ -0,0 +1,50 @@
+package com.rainett.javagram.action.descriptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class ActionDescriptorsTest {
+
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface TestAnnotation {
+        String value();
+    }
+
+    @TestAnnotation(" value ")
+    public static class AnnotatedAction {
+    }
+
+    public static class NonAnnotatedAction {
+    }
+
+    @Test
+    void buildsDescriptorOncePerClass() {
+        AtomicInteger calls = new AtomicInteger();
+        ActionDescriptors<TestAnnotation, String> descriptors =
+                new ActionDescriptors<>(TestAnnotation.class, annotation -> {
+                    calls.incrementAndGet();
+                    return annotation.value().trim();
+                });
+
+        String first = descriptors.get(AnnotatedAction.class);
+        String second = descriptors.get(AnnotatedAction.class);
+
+        assertEquals("value", first);
+        assertSame(first, second);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void returnsNullForClassWithoutAnnotation() {
+        ActionDescriptors<TestAnnotation, TestAnnotation> annotations =
+                ActionDescriptors.annotations(TestAnnotation.class);
+
+        assertNull(annotations.get(NonAnnotatedAction.class));
+    }
+}
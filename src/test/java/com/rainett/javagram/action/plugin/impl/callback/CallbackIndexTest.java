@@ -0,0 +1,110 @@
+package com.rainett.javagram.action.plugin.impl.callback;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.rainett.javagram.action.Action;
+import com.rainett.javagram.action.annotations.Callback;
+import com.rainett.javagram.action.index.ActionIndex;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+class CallbackIndexTest {
+    private final CallbackIndexFactory factory = new CallbackIndexFactory();
+
+    @Callback("next-page")
+    static class NextPageAction implements Action {
+        @Override
+        public void run(Update update) {
+            // No-op for testing.
+        }
+    }
+
+    @Callback("next-page")
+    static class DuplicateNextPageAction implements Action {
+        @Override
+        public void run(Update update) {
+            // No-op for testing.
+        }
+    }
+
+    // "Aa" and "BB" share the same String hash code.
+    @Callback("Aa")
+    static class FirstCollidingAction implements Action {
+        @Override
+        public void run(Update update) {
+            // No-op for testing.
+        }
+    }
+
+    @Callback("BB")
+    static class SecondCollidingAction implements Action {
+        @Override
+        public void run(Update update) {
+            // No-op for testing.
+        }
+    }
+
+    @Callback
+    static class WildcardAction implements Action {
+        @Override
+        public void run(Update update) {
+            // No-op for testing.
+        }
+    }
+
+    @Test
+    void findsActionByKeyPrefix() {
+        Action nextPage = new NextPageAction();
+        ActionIndex index = factory.create(List.of(nextPage, new WildcardAction()));
+
+        assertEquals(Optional.of(nextPage), index.find(update("next-page")));
+        assertEquals(Optional.of(nextPage), index.find(update("next-page:42:7")));
+    }
+
+    @Test
+    void fallsBackToWildcard() {
+        Action wildcard = new WildcardAction();
+        ActionIndex index = factory.create(List.of(new NextPageAction(), wildcard));
+
+        assertEquals(Optional.of(wildcard), index.find(update("next")));
+        assertEquals(Optional.of(wildcard), index.find(update("next-page-2:1")));
+        assertEquals(Optional.of(wildcard), index.find(update(null)));
+    }
+
+    @Test
+    void keepsPrecedenceOfSortedActions() {
+        Action first = new DuplicateNextPageAction();
+        ActionIndex index = factory.create(List.of(first, new NextPageAction()));
+
+        assertEquals(Optional.of(first), index.find(update("next-page:1")));
+    }
+
+    @Test
+    void resolvesCollidingKeys() {
+        Action first = new FirstCollidingAction();
+        Action second = new SecondCollidingAction();
+        ActionIndex index = factory.create(List.of(first, second));
+
+        assertEquals(Optional.of(first), index.find(update("Aa:1")));
+        assertEquals(Optional.of(second), index.find(update("BB")));
+    }
+
+    @Test
+    void returnsEmptyWithoutMatch() {
+        ActionIndex index = factory.create(List.of(new NextPageAction()));
+
+        assertTrue(index.find(update("prev-page:1")).isEmpty());
+    }
+
+    private static Update update(String callbackData) {
+        CallbackQuery callbackQuery = new CallbackQuery();
+        callbackQuery.setData(callbackData);
+        Update update = new Update();
+        update.setCallbackQuery(callbackQuery);
+        return update;
+    }
+}
@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import com.rainett.javagram.action.actionmatcher.ActionUpdateMatcher;
 import com.rainett.javagram.action.annotations.Callback;
 import com.rainett.javagram.action.comparator.AnnotationComparator;
+import com.rainett.javagram.action.index.ActionIndexFactory;
 import com.rainett.javagram.action.updatematcher.UpdateTypeResolver;
 import org.junit.jupiter.api.Test;
 
@@ -34,4 +35,11 @@ class CallbackPluginTest {
         AnnotationComparator<Callback> comparator = callbackPlugin.getAnnotationComparator();
         assertNotNull(comparator);
     }
+
+    @Test
+    void testGetActionIndexFactory() {
+        ActionIndexFactory<Callback> factory = callbackPlugin.getActionIndexFactory();
+        assertNotNull(factory);
+        assertEquals(Callback.class, factory.getAnnotationType());
+    }
 }
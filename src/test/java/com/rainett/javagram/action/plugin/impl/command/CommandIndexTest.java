@@ -0,0 +1,105 @@
+package com.rainett.javagram.action.plugin.impl.command;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.rainett.javagram.action.Action;
+import com.rainett.javagram.action.annotations.Command;
+import com.rainett.javagram.action.index.ActionIndex;
+import com.rainett.javagram.config.BotConfig;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+class CommandIndexTest {
+    private final BotConfig botConfig = new BotConfig();
+    private CommandIndexFactory factory;
+
+    @Command("/start")
+    static class StartAction implements Action {
+        @Override
+        public void run(Update update) {
+            // No-op for testing.
+        }
+    }
+
+    @Command(" /start ")
+    static class PaddedStartAction implements Action {
+        @Override
+        public void run(Update update) {
+            // No-op for testing.
+        }
+    }
+
+    @Command("/status")
+    static class StatusAction implements Action {
+        @Override
+        public void run(Update update) {
+            // No-op for testing.
+        }
+    }
+
+    @Command
+    static class WildcardAction implements Action {
+        @Override
+        public void run(Update update) {
+            // No-op for testing.
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        botConfig.setUsername("@testbot");
+        factory = new CommandIndexFactory(botConfig);
+    }
+
+    @Test
+    void findsExactCommand() {
+        Action status = new StatusAction();
+        ActionIndex index = factory.create(List.of(new StartAction(), status,
+                new WildcardAction()));
+
+        assertEquals(Optional.of(status), index.find(update("/status now")));
+        assertEquals(Optional.of(status), index.find(update("  /status@TestBot")));
+    }
+
+    @Test
+    void fallsBackToWildcard() {
+        Action wildcard = new WildcardAction();
+        ActionIndex index = factory.create(List.of(new StartAction(), wildcard));
+
+        assertEquals(Optional.of(wildcard), index.find(update("/stat")));
+        assertEquals(Optional.of(wildcard), index.find(update("/start@otherbot")));
+    }
+
+    @Test
+    void keepsPrecedenceOfSortedActions() {
+        Action padded = new PaddedStartAction();
+        ActionIndex index = factory.create(List.of(padded, new StartAction()));
+
+        assertEquals(Optional.of(padded), index.find(update("/start")));
+    }
+
+    @Test
+    void returnsEmptyWithoutMatch() {
+        ActionIndex index = factory.create(List.of(new StartAction()));
+
+        assertTrue(index.find(update("/help")).isEmpty());
+    }
+
+    @Test
+    void returnsCommandAnnotationType() {
+        assertEquals(Command.class, factory.getAnnotationType());
+    }
+
+    private static Update update(String text) {
+        Message message = new Message();
+        message.setText(text);
+        Update update = new Update();
+        update.setMessage(message);
+        return update;
+    }
+}
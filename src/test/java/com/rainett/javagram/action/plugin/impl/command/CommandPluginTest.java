@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import com.rainett.javagram.action.actionmatcher.ActionUpdateMatcher;
 import com.rainett.javagram.action.annotations.Command;
 import com.rainett.javagram.action.comparator.AnnotationComparator;
+import com.rainett.javagram.action.index.ActionIndexFactory;
 import com.rainett.javagram.action.updatematcher.UpdateTypeResolver;
 import com.rainett.javagram.config.BotConfig;
 import org.junit.jupiter.api.BeforeEach;
@@ -47,4 +48,11 @@ class CommandPluginTest {
         AnnotationComparator<Command> comparator = commandPlugin.getAnnotationComparator();
         assertNotNull(comparator);
     }
+
+    @Test
+    void testGetActionIndexFactory() {
+        ActionIndexFactory<Command> factory = commandPlugin.getActionIndexFactory();
+        assertNotNull(factory);
+        assertEquals(Command.class, factory.getAnnotationType());
+    }
 }
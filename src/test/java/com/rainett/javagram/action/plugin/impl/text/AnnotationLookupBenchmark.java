@@ -0,0 +1,118 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+import com.rainett.javagram.action.Action;
+import com.rainett.javagram.action.annotations.Text;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * Cost of matching a text update against every text action.
+ * <p>
+ * {@code reflectiveLookup} repeats the former path: the annotation is looked up with
+ * {@link AnnotationUtils} and read through its proxy on every match.
+ * {@code descriptorLookup} uses {@link TextUpdateMatcher#test(Action, Update)}, which reads the
+ * cached {@link TextDescriptor}. Run with {@code mvn test-compile exec:java
+ * -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.rainett.javagram.action.plugin.impl.text.AnnotationLookupBenchmark}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AnnotationLookupBenchmark {
+    private final TextUpdateMatcher matcher = new TextUpdateMatcher();
+    private List<Action> actions;
+    private Update update;
+
+    @Text(equals = "/start")
+    static class ExactAction implements Action {
+        @Override
+        public void run(Update update) {
+            // No-op for benchmarking.
+        }
+    }
+
+    @Text(regex = "order-[0-9]+")
+    static class RegexAction implements Action {
+        @Override
+        public void run(Update update) {
+            // No-op for benchmarking.
+        }
+    }
+
+    @Text(startsWith = "buy", endsWith = "now")
+    static class PrefixSuffixAction implements Action {
+        @Override
+        public void run(Update update) {
+            // No-op for benchmarking.
+        }
+    }
+
+    @Text(contains = "help")
+    static class ContainsAction implements Action {
+        @Override
+        public void run(Update update) {
+            // No-op for benchmarking.
+        }
+    }
+
+    @Text
+    static class WildcardAction implements Action {
+        @Override
+        public void run(Update update) {
+            // No-op for benchmarking.
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        actions = List.of(new ExactAction(), new RegexAction(), new PrefixSuffixAction(),
+                new ContainsAction(), new WildcardAction());
+        Message message = new Message();
+        message.setText("could you help me with my order?");
+        update = new Update();
+        update.setMessage(message);
+    }
+
+    @Benchmark
+    public void reflectiveLookup(Blackhole blackhole) {
+        for (Action action : actions) {
+            Text text = AnnotationUtils.findAnnotation(action.getClass(), Text.class);
+            blackhole.consume(matcher.match(text, update));
+        }
+    }
+
+    @Benchmark
+    public void descriptorLookup(Blackhole blackhole) {
+        for (Action action : actions) {
+            blackhole.consume(matcher.test(action, update));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AnnotationLookupBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,172 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class LinearRegexCompilerTest {
+    private static final String ALPHABET = "ab1 \n-";
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "(a+)+\\1", "a(?=b)", "a(?!b)", "(?<=a)b", "(?<!a)b", "(?>a)", "a*+", "(?i)a",
+        "\\bword\\b", "\\p{L}+", "[a-z&&[^e]]", "[[a]b]", "\\Qa.b\\E", "a^b", "a$b",
+        "(?<x>a)\\k<x>", "\\x{61}", "\\0141", "a{1001}"
+    })
+    void rejectsUnsupportedRegex(String regex) {
+        Pattern.compile(regex);
+        NfaProgram.Builder builder = new NfaProgram.Builder();
+
+        assertThrows(UnsupportedRegexException.class,
+                () -> LinearRegexCompiler.compile(regex, 0, builder));
+        assertEquals(0, builder.size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "^order-\\d+$", "(?:buy|sell) item[0-9]{1,3}", "(?<cmd>[a-z]+)\\s+\\S*", "\\w+@\\w+\\.com",
+        "[^\\s]+", "[-a\\]]+", "a{2,}b??", "\\u0041\\x42\\t", "(|a)(a*)*", ".*"
+    })
+    void matchesLikeJdkOnSampleRegex(String regex) {
+        String[] texts = {"", "order-42", "buy item7", "sell item1234", "go  home", "me@site.com",
+            "a-]", "aab", "AB\t", "aaaa", "line\nbreak", "😀"};
+        NfaProgram program = compile(regex);
+        for (String text : texts) {
+            assertEquals(Pattern.matches(regex, text), program.find(text) == 0,
+                    "Failed for regex: " + regex + " and text: " + text);
+        }
+    }
+
+    @Test
+    void matchesLikeJdkOnRandomRegex() {
+        Random random = new Random(7);
+        for (int round = 0; round < 2000; round++) {
+            String regex = randomRegex(random, 3);
+            try {
+                Pattern.compile(regex);
+            } catch (PatternSyntaxException e) {
+                continue;
+            }
+            NfaProgram program = compile(regex);
+            for (int i = 0; i < 30; i++) {
+                String text = randomText(random);
+                assertEquals(Pattern.matches(regex, text), program.find(text) == 0,
+                        "Failed for regex: " + regex + " and text: " + text);
+            }
+        }
+    }
+
+    @Test
+    void reportsLowestMatchingId() {
+        NfaProgram.Builder builder = new NfaProgram.Builder();
+        LinearRegexCompiler.compile("a+", 0, builder);
+        LinearRegexCompiler.compile("[ab]+", 1, builder);
+        LinearRegexCompiler.compile(".*", 2, builder);
+        NfaProgram program = builder.build();
+
+        assertEquals(0, program.find("aa"));
+        assertEquals(1, program.find("ab"));
+        assertEquals(2, program.find("c"));
+        assertEquals(-1, program.find("\n"));
+    }
+
+    @Test
+    void limitsTheSizeOfEachPatternSeparately() {
+        NfaProgram.Builder builder = new NfaProgram.Builder();
+        String large = "(?:a{1000}){15}";
+        LinearRegexCompiler.compile(large, 0, builder);
+        LinearRegexCompiler.compile(large, 1, builder);
+        for (int id = 2; id < 100; id++) {
+            LinearRegexCompiler.compile("b" + id, id, builder);
+        }
+        int size = builder.size();
+
+        assertThrows(UnsupportedRegexException.class,
+                () -> LinearRegexCompiler.compile("(?:a{1000}){21}", 100, builder));
+        assertEquals(size, builder.size());
+        NfaProgram program = builder.build();
+        assertEquals(0, program.find("a".repeat(15_000)));
+        assertEquals(99, program.find("b99"));
+    }
+
+    @Test
+    void matchesLongTextOfCatastrophicRegexInLinearTime() {
+        NfaProgram program = compile("(a+)+b");
+
+        assertEquals(-1, program.find("a".repeat(100_000) + "c"));
+    }
+
+    @Test
+    void reusesScanBuffersAcrossThreads() throws InterruptedException {
+        NfaProgram program = compile("(?:a|b)+c");
+        int[] results = new int[50];
+        for (int i = 0; i < results.length; i++) {
+            int index = i;
+            String text = i % 2 == 0 ? "ababc" : "abacb";
+            Thread thread = new Thread(() -> results[index] = program.find(text));
+            thread.start();
+            thread.join();
+        }
+
+        assertEquals(1, program.pooledScratch());
+        assertEquals(0, results[0]);
+        assertEquals(-1, results[1]);
+    }
+
+    private static NfaProgram compile(String regex) {
+        NfaProgram.Builder builder = new NfaProgram.Builder();
+        LinearRegexCompiler.compile(regex, 0, builder);
+        return builder.build();
+    }
+
+    private static String randomRegex(Random random, int depth) {
+        StringBuilder regex = new StringBuilder();
+        int items = 1 + random.nextInt(3);
+        for (int i = 0; i < items; i++) {
+            regex.append(randomAtom(random, depth));
+            switch (random.nextInt(10)) {
+                case 0 -> regex.append('*');
+                case 1 -> regex.append('+');
+                case 2 -> regex.append('?');
+                case 3 -> regex.append('{').append(random.nextInt(3)).append(",")
+                        .append(2 + random.nextInt(2)).append('}');
+                case 4 -> regex.append("*?");
+                default -> {
+                }
+            }
+        }
+        if (random.nextInt(5) == 0) {
+            regex.append('|').append(randomRegex(random, depth - 1));
+        }
+        return regex.toString();
+    }
+
+    private static String randomAtom(Random random, int depth) {
+        int kind = random.nextInt(depth > 0 ? 9 : 6);
+        return switch (kind) {
+            case 0 -> ".";
+            case 1 -> "[ab]";
+            case 2 -> "[^a\\d]";
+            case 3 -> random.nextBoolean() ? "\\d" : "\\s";
+            case 4 -> "[a-b-]";
+            case 5, 6 -> String.valueOf(ALPHABET.charAt(random.nextInt(3)));
+            case 7 -> "(" + randomRegex(random, depth - 1) + ")";
+            default -> "(?:" + randomRegex(random, depth - 1) + ")";
+        };
+    }
+
+    private static String randomText(Random random) {
+        StringBuilder text = new StringBuilder();
+        int length = random.nextInt(7);
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,51 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class LinearRegexRouterTest {
+    private final RegexMetrics metrics = new RegexMetrics();
+
+    @Test
+    void keepsOrderBetweenLinearAndFallbackRegex() {
+        RegexRouter router = new LinearRegexRouter(
+                List.of("x+", "(a)\\1", "a.", "(?i)A+", "a+"), 1_000, metrics);
+
+        assertEquals(0, router.find("xx"));
+        assertEquals(1, router.find("aa"));
+        assertEquals(2, router.find("ab"));
+        assertEquals(3, router.find("aaa"));
+        assertEquals(-1, router.find("b"));
+    }
+
+    @Test
+    void skipsFallbackRegexAfterEarlierMatch() {
+        RegexRouter router = new LinearRegexRouter(List.of("a+", "(a)\\1"), 1_000, metrics);
+
+        assertEquals(0, router.find("aa"));
+        assertEquals(0, metrics.getFallbackEvaluations());
+    }
+
+    @Test
+    void abortsAndCountsCatastrophicFallback() {
+        RegexRouter router = new LinearRegexRouter(List.of("(a+)+\\1c", "a*!"), 100_000, metrics);
+        String text = "a".repeat(40) + "!";
+
+        int result = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> router.find(text));
+
+        assertEquals(1, result);
+        assertEquals(1, metrics.getFallbackEvaluations());
+        assertEquals(1, metrics.getTimeouts());
+    }
+
+    @Test
+    void findsNothingWithoutRegex() {
+        RegexRouter router = new LinearRegexRouter(List.of(), 1_000, metrics);
+
+        assertEquals(-1, router.find("text"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+import com.rainett.javagram.config.RoutingConfig;
+import com.rainett.javagram.config.RoutingConfig.RegexEngine;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Throughput of {@code @Text(regex)} routing for 10, 100 and 1000 regex actions.
+ * <p>
+ * Compares the former {@link String#matches(String)} loop with the {@link RegexEngine}
+ * implementations. Every invocation routes one message matched by the last regex and one
+ * message matched by none, which are the worst cases for an ordered scan. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.rainett.javagram.action.plugin.impl.text.RegexRoutingBenchmark}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RegexRoutingBenchmark {
+    private static final String MISS = "hello, how are you doing today?";
+
+    @Param({"10", "100", "1000"})
+    private int regexCount;
+
+    @Param({"JDK", "UNION", "LINEAR"})
+    private RegexEngine engine;
+
+    private List<String> regexes;
+    private String hit;
+    private RegexRouter router;
+
+    @Setup
+    public void setUp() {
+        regexes = new ArrayList<>();
+        for (int i = 0; i < regexCount; i++) {
+            regexes.add(i % 2 == 0
+                    ? "order-" + i + "-[0-9]+"
+                    : "(?:buy|sell) item" + i + " x[0-9]{1,3}");
+        }
+        int last = regexCount - 1;
+        hit = last % 2 == 0 ? "order-" + last + "-12345" : "sell item" + last + " x12";
+        RoutingConfig routingConfig = new RoutingConfig();
+        routingConfig.setRegexEngine(engine);
+        router = new RegexRouterFactory(routingConfig, new RegexMetrics()).create(regexes);
+    }
+
+    @Benchmark
+    public int route() {
+        return router.find(hit) + router.find(MISS);
+    }
+
+    @Benchmark
+    public int uncompiledMatches() {
+        return uncompiledFind(hit) + uncompiledFind(MISS);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RegexRoutingBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+    private int uncompiledFind(String text) {
+        for (int i = 0; i < regexes.size(); i++) {
+            if (text.matches(regexes.get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
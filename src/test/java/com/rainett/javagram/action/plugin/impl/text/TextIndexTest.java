@@ -0,0 +1,197 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.rainett.javagram.action.Action;
+import com.rainett.javagram.action.annotations.Text;
+import com.rainett.javagram.action.index.ActionIndex;
+import com.rainett.javagram.config.RoutingConfig;
+import com.rainett.javagram.config.RoutingConfig.RegexEngine;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+class TextIndexTest {
+    private final TextIndexFactory factory =
+            new TextIndexFactory(new RoutingConfig(), new RegexMetrics());
+    private final TextUpdateMatcher matcher = new TextUpdateMatcher();
+
+    @Text(equals = "hello")
+    static class HelloAction implements Action {
+        @Override
+        public void run(Update update) {
+            // No-op for testing.
+        }
+    }
+
+    @Text(regex = "h.*o")
+    static class RegexAction implements Action {
+        @Override
+        public void run(Update update) {
+            // No-op for testing.
+        }
+    }
+
+    @Text(startsWith = "he", contains = "ll")
+    static class StartsWithContainsAction implements Action {
+        @Override
+        public void run(Update update) {
+            // No-op for testing.
+        }
+    }
+
+    @Text(contains = "ll")
+    static class ContainsAction implements Action {
+        @Override
+        public void run(Update update) {
+            // No-op for testing.
+        }
+    }
+
+    @Text
+    static class WildcardAction implements Action {
+        @Override
+        public void run(Update update) {
+            // No-op for testing.
+        }
+    }
+
+    @Test
+    void followsTextPrecedence() {
+        Action hello = new HelloAction();
+        Action regex = new RegexAction();
+        Action startsWithContains = new StartsWithContainsAction();
+        Action contains = new ContainsAction();
+        Action wildcard = new WildcardAction();
+        ActionIndex index = factory.create(
+                List.of(hello, regex, startsWithContains, contains, wildcard));
+
+        assertEquals(Optional.of(hello), index.find(update("hello")));
+        assertEquals(Optional.of(regex), index.find(update("hallo")));
+        assertEquals(Optional.of(startsWithContains), index.find(update("hell")));
+        assertEquals(Optional.of(contains), index.find(update("all")));
+        assertEquals(Optional.of(wildcard), index.find(update("bye")));
+    }
+
+    @Test
+    void returnsEmptyWithoutMatchingAction() {
+        ActionIndex index = factory.create(List.of(new HelloAction(), new ContainsAction()));
+
+        assertTrue(index.find(update("bye")).isEmpty());
+    }
+
+    @Test
+    void requiresEveryConstraintOnce() {
+        Action action = new TestAction();
+        TextIndex index = new TextIndex(List.of(action),
+                List.of(TextDescriptor.of(new TestTextAnnotation("", "aa", "aa", "", ""))),
+                regexRouters(RegexEngine.JDK));
+
+        assertEquals(Optional.of(action), index.find(update("aa")));
+        assertEquals(Optional.of(action), index.find(update("aaba")));
+        assertTrue(index.find(update("baab")).isEmpty());
+    }
+
+    @ParameterizedTest
+    @EnumSource(RegexEngine.class)
+    void matchesLinearScanOnRandomActions(RegexEngine regexEngine) {
+        Random random = new Random(42);
+        TextComparator comparator = new TextComparator();
+        for (int round = 0; round < 200; round++) {
+            List<Text> annotations = new ArrayList<>();
+            for (int i = 0; i < 1 + random.nextInt(12); i++) {
+                annotations.add(randomAnnotation(random));
+            }
+            annotations.sort(Comparator.comparing((Text text) -> text, comparator).reversed());
+            List<Action> actions = new ArrayList<>();
+            annotations.forEach(annotation -> actions.add(new TestAction()));
+            TextIndex index = new TextIndex(actions,
+                    annotations.stream().map(TextDescriptor::of).toList(),
+                    regexRouters(regexEngine));
+
+            for (int i = 0; i < 50; i++) {
+                Update update = update(randomWord(random, 8));
+                Optional<Action> expected = Optional.empty();
+                for (int j = 0; j < annotations.size(); j++) {
+                    if (matcher.match(annotations.get(j), update)) {
+                        expected = Optional.of(actions.get(j));
+                        break;
+                    }
+                }
+                assertEquals(expected, index.find(update), "Failed for text: "
+                        + update.getMessage().getText() + " and annotations: " + annotations);
+            }
+        }
+    }
+
+    private static RegexRouterFactory regexRouters(RegexEngine regexEngine) {
+        RoutingConfig routingConfig = new RoutingConfig();
+        routingConfig.setRegexEngine(regexEngine);
+        return new RegexRouterFactory(routingConfig, new RegexMetrics());
+    }
+
+    private static Text randomAnnotation(Random random) {
+        return switch (random.nextInt(6)) {
+            case 0 -> new TestTextAnnotation(randomWord(random, 3), "", "", "", "");
+            case 1 -> new TestTextAnnotation("", "", "", "", randomRegex(random));
+            default -> new TestTextAnnotation("",
+                    randomOptionalWord(random),
+                    randomOptionalWord(random),
+                    randomOptionalWord(random),
+                    "");
+        };
+    }
+
+    private static String randomRegex(Random random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> "[ab]*" + randomWord(random, 2);
+            case 1 -> "(" + randomWord(random, 2) + ")+c?";
+            case 2 -> "(a|b)\\1" + randomWord(random, 2);
+            default -> "(?i)" + randomWord(random, 3).toUpperCase() + ".*";
+        };
+    }
+
+    private static String randomOptionalWord(Random random) {
+        return random.nextBoolean() ? "" : randomWord(random, 3);
+    }
+
+    private static String randomWord(Random random, int maxLength) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < 1 + random.nextInt(maxLength); i++) {
+            word.append((char) ('a' + random.nextInt(3)));
+        }
+        return word.toString();
+    }
+
+    private static Update update(String text) {
+        Message message = new Message();
+        message.setText(text);
+        Update update = new Update();
+        update.setMessage(message);
+        return update;
+    }
+
+    private static class TestAction implements Action {
+        @Override
+        public void run(Update update) {
+            // No-op for testing.
+        }
+    }
+
+    private record TestTextAnnotation(String equals, String contains, String startsWith,
+                                      String endsWith, String regex) implements Text {
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return Text.class;
+        }
+    }
+}
@@ -6,7 +6,9 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import com.rainett.javagram.action.actionmatcher.ActionUpdateMatcher;
 import com.rainett.javagram.action.annotations.Text;
 import com.rainett.javagram.action.comparator.AnnotationComparator;
+import com.rainett.javagram.action.index.ActionIndexFactory;
 import com.rainett.javagram.action.updatematcher.UpdateTypeResolver;
+import com.rainett.javagram.config.RoutingConfig;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -15,7 +17,7 @@ class TextPluginTest {
 
     @BeforeEach
     void setUp() {
-        textPlugin = new TextPlugin();
+        textPlugin = new TextPlugin(new RoutingConfig());
     }
 
     @Test
@@ -40,4 +42,18 @@ class TextPluginTest {
         AnnotationComparator<Text> comparator = textPlugin.getAnnotationComparator();
         assertNotNull(comparator);
     }
+
+    @Test
+    void testGetActionIndexFactory() {
+        ActionIndexFactory<Text> factory = textPlugin.getActionIndexFactory();
+        assertNotNull(factory);
+        assertEquals(Text.class, factory.getAnnotationType());
+    }
+
+    @Test
+    void testGetRegexMetrics() {
+        RegexMetrics metrics = textPlugin.getRegexMetrics();
+        assertNotNull(metrics);
+        assertEquals(0, metrics.getTimeouts());
+    }
 }
@@ -0,0 +1,64 @@
+package com.rainett.javagram.action.plugin.impl.text;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+import org.junit.jupiter.api.Test;
+
+class UnionRegexRouterTest {
+
+    @Test
+    void returnsFirstMatchingRegex() {
+        RegexRouter router = new UnionRegexRouter(List.of("a+", "[ab]+", ".*"));
+
+        assertEquals(0, router.find("aaa"));
+        assertEquals(1, router.find("abab"));
+        assertEquals(2, router.find("xyz"));
+    }
+
+    @Test
+    void requiresWholeTextMatch() {
+        RegexRouter router = new UnionRegexRouter(List.of("ab", "b"));
+
+        assertEquals(-1, router.find("abc"));
+        assertEquals(1, router.find("b"));
+    }
+
+    @Test
+    void countsNestedGroups() {
+        RegexRouter router = new UnionRegexRouter(List.of("(a)(b(c))", "((x)|y)z", "(q)"));
+
+        assertEquals(0, router.find("abc"));
+        assertEquals(1, router.find("xz"));
+        assertEquals(2, router.find("q"));
+    }
+
+    @Test
+    void keepsOrderAcrossSeparatePatterns() {
+        RegexRouter router = new UnionRegexRouter(
+                List.of("x", "(a)\\1", "a.", "(?i)A+", "a+"));
+
+        assertEquals(1, router.find("aa"));
+        assertEquals(2, router.find("ab"));
+        assertEquals(3, router.find("aaa"));
+        assertEquals(-1, router.find("b"));
+    }
+
+    @Test
+    void detectsRegexesThatCannotBeMerged() {
+        assertTrue(UnionRegexRouter.isEmbeddable("(?:a|b)(?=c)(?<=d)(?<!e)\\\\1"));
+        assertFalse(UnionRegexRouter.isEmbeddable("(a)\\1"));
+        assertFalse(UnionRegexRouter.isEmbeddable("(?<name>a)"));
+        assertFalse(UnionRegexRouter.isEmbeddable("(?i)a"));
+        assertFalse(UnionRegexRouter.isEmbeddable("\\Qa|b"));
+    }
+
+    @Test
+    void rejectsInvalidRegexAtCompileTime() {
+        assertThrows(PatternSyntaxException.class, () -> new UnionRegexRouter(List.of("a(")));
+    }
+}
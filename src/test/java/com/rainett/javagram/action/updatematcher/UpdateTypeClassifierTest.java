@@ -0,0 +1,125 @@
+package com.rainett.javagram.action.updatematcher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.rainett.javagram.action.annotations.Callback;
+import com.rainett.javagram.action.annotations.Command;
+import com.rainett.javagram.action.annotations.Text;
+import com.rainett.javagram.action.plugin.impl.callback.CallbackResolver;
+import com.rainett.javagram.action.plugin.impl.command.CommandResolver;
+import com.rainett.javagram.action.plugin.impl.text.TextResolver;
+import com.rainett.javagram.exceptions.UnknownUpdateTypeException;
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.List;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.MessageEntity;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+class UpdateTypeClassifierTest {
+
+    @Test
+    void testCommandOutranksTextInAnyOrder() {
+        Update update = commandUpdate();
+        UpdateTypeClassifier textFirst = new UpdateTypeClassifier(List.of(
+                new TextResolver(), new CommandResolver(), new CallbackResolver()));
+        UpdateTypeClassifier commandFirst = new UpdateTypeClassifier(List.of(
+                new CallbackResolver(), new CommandResolver(), new TextResolver()));
+        assertEquals(Command.class, textFirst.classify(update));
+        assertEquals(Command.class, commandFirst.classify(update));
+    }
+
+    @Test
+    void testClassifiesBuiltInShapes() {
+        UpdateTypeClassifier classifier = builtIn();
+        assertEquals(Text.class, classifier.classify(textUpdate("hello")));
+        assertEquals(Callback.class, classifier.classify(callbackUpdate()));
+    }
+
+    @Test
+    void testUnknownUpdateThrows() {
+        UpdateTypeClassifier classifier = builtIn();
+        Update update = new Update();
+        update.setMessage(new Message());
+        assertThrows(UnknownUpdateTypeException.class, () -> classifier.classify(update));
+        assertThrows(UnknownUpdateTypeException.class, () -> classifier.classify(new Update()));
+    }
+
+    @Test
+    void testUndeclaredResolverIsTestedByPriority() {
+        UpdateTypeClassifier classifier = new UpdateTypeClassifier(List.of(
+                new TextResolver(),
+                new CustomResolver(update -> update.getMessage().getText().startsWith("!"), 1)));
+        assertEquals(Custom.class, classifier.classify(textUpdate("!ping")));
+        assertEquals(Text.class, classifier.classify(textUpdate("ping")));
+    }
+
+    @Test
+    void testLowPriorityUndeclaredResolverIsNotReached() {
+        UpdateTypeClassifier classifier = new UpdateTypeClassifier(List.of(
+                new CustomResolver(update -> true, -1), new TextResolver()));
+        assertEquals(Text.class, classifier.classify(textUpdate("ping")));
+        assertEquals(Custom.class, classifier.classify(new Update()));
+    }
+
+    @Test
+    void testShapeOfCommand() {
+        assertEquals(UpdateShape.MESSAGE | UpdateShape.TEXT | UpdateShape.COMMAND,
+                UpdateShape.of(commandUpdate()));
+        assertEquals(UpdateShape.CALLBACK_QUERY, UpdateShape.of(callbackUpdate()));
+        assertEquals(0, UpdateShape.of(new Update()));
+    }
+
+    private static UpdateTypeClassifier builtIn() {
+        return new UpdateTypeClassifier(List.of(
+                new CommandResolver(), new TextResolver(), new CallbackResolver()));
+    }
+
+    private static Update commandUpdate() {
+        Update update = textUpdate("/start");
+        update.getMessage().setEntities(List.of(new MessageEntity("bot_command", 0, 6)));
+        return update;
+    }
+
+    private static Update textUpdate(String text) {
+        Update update = new Update();
+        Message message = new Message();
+        message.setText(text);
+        update.setMessage(message);
+        return update;
+    }
+
+    private static Update callbackUpdate() {
+        Update update = new Update();
+        update.setCallbackQuery(new CallbackQuery());
+        return update;
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    private @interface Custom {
+    }
+
+    private record CustomResolver(Predicate<Update> predicate, int priority)
+            implements UpdateTypeResolver<Custom> {
+
+        @Override
+        public boolean test(Update update) {
+            return predicate.test(update);
+        }
+
+        @Override
+        public Class<Custom> getAnnotationType() {
+            return Custom.class;
+        }
+
+        @Override
+        public int getPriority() {
+            return priority;
+        }
+    }
+}
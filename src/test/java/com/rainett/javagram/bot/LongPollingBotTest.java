@@ -2,19 +2,27 @@ package com.rainett.javagram.bot;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockConstruction;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.rainett.javagram.bot.polling.OffsetWatermark;
+import com.rainett.javagram.bot.polling.PipelinedBotSession;
 import com.rainett.javagram.config.BotConfig;
-import com.rainett.javagram.update.service.UpdateService;
+import com.rainett.javagram.config.PollingConfig;
+import com.rainett.javagram.update.ingress.Admission;
+import com.rainett.javagram.update.ingress.UpdateIngress;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -26,6 +34,7 @@ import org.telegram.telegrambots.meta.TelegramBotsApi;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.meta.generics.BotSession;
+import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 
 class LongPollingBotTest {
 
@@ -33,21 +42,23 @@ class LongPollingBotTest {
     private BotConfig botConfig;
 
     @Mock
-    private ObjectProvider<UpdateService> serviceProvider;
+    private ObjectProvider<UpdateIngress> ingressProvider;
 
     @Mock
-    private UpdateService updateService;
+    private UpdateIngress updateIngress;
 
     private LongPollingBot longPollingBot;
 
+    private final List<Object> sessionClasses = new ArrayList<>();
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
         when(botConfig.getToken()).thenReturn("test-token");
         when(botConfig.getUsername()).thenReturn("@TestBot");
-        when(serviceProvider.getIfAvailable()).thenReturn(updateService);
+        when(ingressProvider.getIfAvailable()).thenReturn(updateIngress);
 
-        longPollingBot = new LongPollingBot(botConfig, serviceProvider);
+        longPollingBot = new LongPollingBot(botConfig, ingressProvider);
     }
 
     @Test
@@ -58,23 +69,56 @@ class LongPollingBotTest {
     @Test
     void testOnUpdateReceived_Success() {
         Update update = mock(Update.class);
-        doNothing().when(updateService).handleUpdate(update);
+        when(updateIngress.submit(update)).thenReturn(Admission.ACCEPTED);
+
+        longPollingBot.onUpdateReceived(update);
+
+        verify(updateIngress, times(1)).submit(update);
+    }
+
+    @Test
+    void testOnUpdateReceived_Rejected() {
+        Update update = mock(Update.class);
+        when(updateIngress.submit(update)).thenReturn(Admission.REJECTED);
 
         longPollingBot.onUpdateReceived(update);
 
-        verify(updateService, times(1)).handleUpdate(update);
+        verify(updateIngress, times(1)).submit(update);
+    }
+
+    @Test
+    void testOnUpdatesReceived_SubmitsWholeBatch() {
+        List<Update> updates = List.of(mock(Update.class), mock(Update.class));
+        when(updateIngress.submitAll(updates))
+                .thenReturn(List.of(Admission.ACCEPTED, Admission.REJECTED));
+
+        longPollingBot.onUpdatesReceived(updates);
+
+        verify(updateIngress, times(1)).submitAll(updates);
+        verify(updateIngress, never()).submit(any());
+    }
+
+    @Test
+    void testOnUpdatesReceived_NoUpdateIngress() {
+        when(ingressProvider.getIfAvailable()).thenReturn(null);
+        List<Update> updates = List.of(mock(Update.class));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> longPollingBot.onUpdatesReceived(updates));
+
+        assertEquals("UpdateIngress is not available", exception.getMessage());
     }
 
     @Test
-    void testOnUpdateReceived_NoUpdateService() {
-        when(serviceProvider.getIfAvailable()).thenReturn(null);
+    void testOnUpdateReceived_NoUpdateIngress() {
+        when(ingressProvider.getIfAvailable()).thenReturn(null);
         Update update = mock(Update.class);
 
         IllegalStateException exception = assertThrows(IllegalStateException.class, () -> {
             longPollingBot.onUpdateReceived(update);
         });
 
-        assertEquals("UpdateService is not available", exception.getMessage());
+        assertEquals("UpdateIngress is not available", exception.getMessage());
     }
 
     /**
@@ -86,10 +130,10 @@ class LongPollingBotTest {
         BotSession dummySession = mock(BotSession.class);
 
         try (MockedConstruction<TelegramBotsApi> mocked =
-                     mockConstruction(TelegramBotsApi.class,
-                             (mock, context) ->
-                                     when(mock.registerBot(longPollingBot)).thenReturn(
-                                             dummySession))) {
+                     mockConstruction(TelegramBotsApi.class, (mock, context) -> {
+                         sessionClasses.add(context.arguments().get(0));
+                         when(mock.registerBot(longPollingBot)).thenReturn(dummySession);
+                     })) {
 
             Method initMethod = LongPollingBot.class.getDeclaredMethod("init");
             initMethod.setAccessible(true);
@@ -99,6 +143,61 @@ class LongPollingBotTest {
             assertEquals(1, constructed.size(),
                     "Expected one TelegramBotsApi instance to be created");
             verify(constructed.get(0), times(1)).registerBot(longPollingBot);
+            assertEquals(List.of(DefaultBotSession.class), sessionClasses);
+        }
+    }
+
+    /**
+     * Test that the pipelined engine registers the bot with a PipelinedBotSession and that the
+     * limit and timeout are passed to the session through the bot options.
+     */
+    @Test
+    void testInit_PipelinedEngine() throws Exception {
+        PollingConfig pollingConfig = new PollingConfig();
+        pollingConfig.setEngine(PollingConfig.Engine.PIPELINED);
+        pollingConfig.setLimit(25);
+        pollingConfig.setTimeout(Duration.ofSeconds(10));
+        LongPollingBot pipelinedBot = new LongPollingBot(botConfig, pollingConfig,
+                ingressProvider);
+
+        try (MockedConstruction<TelegramBotsApi> mocked =
+                     mockConstruction(TelegramBotsApi.class, (mock, context) ->
+                             sessionClasses.add(context.arguments().get(0)))) {
+
+            Method initMethod = LongPollingBot.class.getDeclaredMethod("init");
+            initMethod.setAccessible(true);
+            initMethod.invoke(pipelinedBot);
+
+            verify(mocked.constructed().get(0), times(1)).registerBot(pipelinedBot);
+            assertEquals(List.of(PipelinedBotSession.class), sessionClasses);
+            assertEquals(25, pipelinedBot.getOptions().getGetUpdatesLimit());
+            assertEquals(10, pipelinedBot.getOptions().getGetUpdatesTimeout());
+        }
+    }
+
+    /**
+     * Test that tracking offsets is refused with the default engine, whose offset cannot be
+     * controlled, before anything is registered.
+     */
+    @Test
+    void testInit_OffsetWatermarkRequiresPipelinedEngine() throws Exception {
+        OffsetWatermark watermark = mock(OffsetWatermark.class);
+        LongPollingBot trackingBot = new LongPollingBot(botConfig, new PollingConfig(),
+                ingressProvider, watermark);
+        assertSame(watermark, trackingBot.getOffsetWatermark());
+
+        try (MockedConstruction<TelegramBotsApi> mocked =
+                     mockConstruction(TelegramBotsApi.class)) {
+            Method initMethod = LongPollingBot.class.getDeclaredMethod("init");
+            initMethod.setAccessible(true);
+
+            InvocationTargetException invocationEx =
+                    assertThrows(InvocationTargetException.class, () ->
+                            initMethod.invoke(trackingBot)
+                    );
+
+            assertInstanceOf(IllegalStateException.class, invocationEx.getCause());
+            assertTrue(mocked.constructed().isEmpty());
         }
     }
 
@@ -0,0 +1,143 @@
+package com.rainett.javagram.bot.polling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+class OffsetWatermarkTest {
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testAdvancesOnlyPastContiguousCompletions() {
+        OffsetWatermark watermark = new OffsetWatermark(directory.resolve("offset"), null);
+        for (int updateId = 10; updateId <= 13; updateId++) {
+            assertTrue(watermark.begin(updateId));
+        }
+
+        watermark.complete(12);
+        watermark.complete(11);
+        assertEquals(0, watermark.getWatermark());
+        assertEquals(2, watermark.getInFlight());
+
+        watermark.complete(10);
+        assertEquals(13, watermark.getWatermark());
+        assertEquals(1, watermark.getInFlight());
+
+        watermark.onUpdateCompleted(update(13));
+        assertEquals(14, watermark.getWatermark());
+        assertEquals(0, watermark.getInFlight());
+    }
+
+    @Test
+    void testBeginRejectsTrackedAndProcessedUpdates() {
+        OffsetWatermark watermark = new OffsetWatermark(directory.resolve("offset"), null);
+        assertTrue(watermark.begin(1));
+        assertTrue(watermark.begin(2));
+        assertFalse(watermark.begin(2));
+
+        watermark.complete(1);
+        watermark.complete(7);
+        assertFalse(watermark.begin(1));
+        assertEquals(2, watermark.getWatermark());
+    }
+
+    @Test
+    void testPersistsWatermarkAndCompletedUpdates() throws IOException {
+        Path file = directory.resolve("state").resolve("offset");
+        OffsetWatermark watermark = new OffsetWatermark(file, null);
+        watermark.begin(1);
+        watermark.begin(2);
+        watermark.begin(3);
+        watermark.complete(1);
+        watermark.complete(3);
+        watermark.close();
+
+        assertEquals("watermark=2\ncompleted=3\n", Files.readString(file));
+        OffsetWatermark restored = new OffsetWatermark(file, null);
+        assertEquals(2, restored.getWatermark());
+        assertFalse(restored.begin(3), "3 was processed before the restart");
+        assertTrue(restored.begin(2));
+        restored.complete(2);
+        assertEquals(4, restored.getWatermark());
+    }
+
+    @Test
+    void testRebasesOnlyWhenUpdateIdsRestart() throws IOException {
+        Path file = directory.resolve("offset");
+        Files.writeString(file, "watermark=5000000\ncompleted=5000002\n");
+        OffsetWatermark watermark = new OffsetWatermark(file, null);
+
+        assertFalse(watermark.rebase(4_999_990), "a repeated update is not a restart");
+        assertFalse(watermark.begin(4_999_990));
+        assertEquals(5_000_000, watermark.getWatermark());
+
+        assertTrue(watermark.rebase(12));
+        assertEquals(12, watermark.getWatermark());
+        assertTrue(watermark.begin(12));
+        assertTrue(watermark.begin(5_000_002), "updates tracked before the restart are gone");
+        watermark.complete(12);
+        watermark.close();
+        assertEquals(13, new OffsetWatermark(file, null).getWatermark());
+    }
+
+    @Test
+    void testFlushesPeriodically() throws InterruptedException {
+        Path file = directory.resolve("offset");
+        OffsetWatermark watermark = new OffsetWatermark(file, Duration.ofMillis(10));
+        try {
+            watermark.begin(5);
+            watermark.complete(5);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!Files.exists(file) && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(6, new OffsetWatermark(file, null).getWatermark());
+        } finally {
+            watermark.close();
+        }
+    }
+
+    @Test
+    void testRejectsMalformedFile() throws IOException {
+        Path file = directory.resolve("offset");
+        Files.writeString(file, "watermark=abc\n");
+        assertThrows(IllegalStateException.class, () -> new OffsetWatermark(file, null));
+    }
+
+    @Test
+    void testAwaitAdvance() throws Exception {
+        OffsetWatermark watermark = new OffsetWatermark(directory.resolve("offset"), null);
+        watermark.begin(1);
+        assertFalse(watermark.awaitAdvance(0, Duration.ofMillis(20)));
+
+        CompletableFuture<Boolean> advanced = CompletableFuture.supplyAsync(() -> {
+            try {
+                return watermark.awaitAdvance(0, Duration.ofSeconds(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+        Thread.sleep(20);
+        watermark.complete(1);
+        assertTrue(advanced.get(5, TimeUnit.SECONDS));
+    }
+
+    private static Update update(int updateId) {
+        Update update = new Update();
+        update.setUpdateId(updateId);
+        return update;
+    }
+}
@@ -0,0 +1,316 @@
+package com.rainett.javagram.bot.polling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+import org.telegram.telegrambots.meta.api.methods.updates.GetUpdates;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.generics.BotOptions;
+import org.telegram.telegrambots.meta.generics.LongPollingBot;
+
+class PipelinedBotSessionTest {
+    private final BlockingQueue<Object> responses = new LinkedBlockingQueue<>();
+    private final List<GetUpdates> requests = new CopyOnWriteArrayList<>();
+    private final List<List<Integer>> received = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch closed = new CountDownLatch(1);
+    private volatile boolean blockFirstBatch;
+    private OffsetWatermark watermark;
+    private PipelinedBotSession session;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (session != null) {
+            session.stop();
+        }
+    }
+
+    @Test
+    void testHandsWholeBatchesAndAdvancesOffset() throws InterruptedException {
+        responses.add(updates(1, 2, 3));
+        responses.add(updates(4, 5));
+        session = start();
+
+        awaitReceived(2);
+        awaitCommittedOffset(6);
+        awaitRequests(3);
+        assertEquals(List.of(List.of(1, 2, 3), List.of(4, 5)), received);
+        assertEquals(5, session.getCommittedUpdates());
+        assertEquals(2, session.getFetchedBatches());
+        assertEquals(List.of(0, 4, 6), List.copyOf(requests).subList(0, 3).stream()
+                .map(GetUpdates::getOffset).toList());
+        assertEquals(Integer.valueOf(10), requests.get(0).getLimit());
+        assertEquals(Integer.valueOf(1), requests.get(0).getTimeout());
+    }
+
+    @Test
+    void testPrefetchesOneBatchWhileProcessing() throws InterruptedException {
+        blockFirstBatch = true;
+        responses.add(updates(1));
+        responses.add(updates(2));
+        responses.add(updates(3));
+        session = start();
+
+        awaitRequests(2);
+        Thread.sleep(100);
+        assertEquals(2, requests.size(), "the third batch would confirm an uncommitted one");
+        assertEquals(0, session.getCommittedOffset());
+
+        release.countDown();
+        awaitReceived(3);
+        awaitCommittedOffset(4);
+        assertEquals(List.of(List.of(1), List.of(2), List.of(3)), received);
+    }
+
+    @Test
+    void testRetriesFailedRequests() throws InterruptedException {
+        responses.add(new TelegramApiException("Bad Gateway"));
+        responses.add(updates(7));
+        session = start();
+
+        awaitReceived(1);
+        assertEquals(List.of(List.of(7)), received);
+        assertEquals(1, session.getFailedRequests());
+        assertEquals(List.of(0, 0), List.copyOf(requests).subList(0, 2).stream()
+                .map(GetUpdates::getOffset).toList());
+    }
+
+    @Test
+    void testSkipsRepeatedUpdates() throws InterruptedException {
+        responses.add(updates(1, 2));
+        responses.add(updates(2, 3));
+        session = start();
+
+        awaitReceived(2);
+        assertEquals(List.of(List.of(1, 2), List.of(3)), received);
+    }
+
+    @Test
+    void testStopDispatchesFetchedBatches() throws InterruptedException {
+        blockFirstBatch = true;
+        responses.add(updates(1));
+        responses.add(updates(2));
+        session = start();
+        awaitRequests(2);
+        Thread.sleep(50);
+
+        session.stop();
+        assertFalse(session.isRunning());
+        assertTrue(closed.await(1, TimeUnit.SECONDS));
+        release.countDown();
+
+        assertTrue(session.awaitTermination(Duration.ofSeconds(5)));
+        assertEquals(List.of(List.of(1), List.of(2)), received);
+        assertEquals(3, session.getCommittedOffset());
+    }
+
+    @Test
+    void testRequestsFromWatermarkAndSkipsTrackedUpdates(@TempDir Path directory)
+            throws InterruptedException {
+        Path file = directory.resolve("offset");
+        watermark = new OffsetWatermark(file, null);
+        responses.add(updates(1, 2, 3));
+        responses.add(updates(1, 2, 3, 4));
+        session = start();
+
+        awaitReceived(2);
+        assertEquals(List.of(List.of(1, 2, 3), List.of(4)), received);
+        assertEquals(List.of(0, 0), List.copyOf(requests).subList(0, 2).stream()
+                .map(GetUpdates::getOffset).toList());
+
+        watermark.complete(2);
+        watermark.complete(4);
+        watermark.complete(1);
+        int seen = requests.size();
+        awaitRequests(seen + 2);
+        assertEquals(Integer.valueOf(3), requests.get(requests.size() - 1).getOffset());
+
+        watermark.complete(3);
+        session.stop();
+        assertTrue(session.awaitTermination(Duration.ofSeconds(5)));
+        watermark.close();
+        assertEquals(5, new OffsetWatermark(file, null).getWatermark());
+    }
+
+    @Test
+    void testFollowsUpdateIdsRestartedBelowTheWatermark(@TempDir Path directory)
+            throws Exception {
+        Path file = directory.resolve("offset");
+        Files.writeString(file, "watermark=5000000\ncompleted=\n");
+        watermark = new OffsetWatermark(file, null);
+        responses.add(updates(7, 8));
+        session = start();
+
+        awaitReceived(1);
+        assertEquals(List.of(List.of(7, 8)), received);
+        assertEquals(Integer.valueOf(0), requests.get(0).getOffset());
+
+        watermark.complete(7);
+        watermark.complete(8);
+        int seen = requests.size();
+        awaitRequests(seen + 2);
+        assertEquals(Integer.valueOf(9), requests.get(requests.size() - 1).getOffset());
+    }
+
+    @Test
+    void testWaitsForWatermarkWhenSaturated(@TempDir Path directory)
+            throws InterruptedException {
+        watermark = new OffsetWatermark(directory.resolve("offset"), null);
+        responses.add(updates(1));
+        responses.add(updates(1));
+        session = start();
+
+        awaitReceived(1);
+        awaitRequests(2);
+        Thread.sleep(100);
+        assertEquals(2, requests.size(), "nothing new can be fetched until 1 completes");
+
+        watermark.complete(1);
+        awaitRequests(3);
+        assertEquals(Integer.valueOf(2), requests.get(2).getOffset());
+        assertEquals(List.of(List.of(1)), received);
+    }
+
+    @Test
+    void testRequiresDefaultBotOptions() {
+        PipelinedBotSession unconfigured = new PipelinedBotSession();
+        assertThrows(IllegalArgumentException.class,
+                () -> unconfigured.setOptions(() -> "http://localhost/bot"));
+        assertThrows(IllegalStateException.class, unconfigured::start);
+    }
+
+    private PipelinedBotSession start() {
+        PipelinedBotSession started = new PipelinedBotSession(this::fetch, Duration.ofMillis(10));
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setGetUpdatesLimit(10);
+        options.setGetUpdatesTimeout(1);
+        started.setOptions(options);
+        started.setCallback(new RecordingBot(options));
+        started.start();
+        return started;
+    }
+
+    private List<Update> fetch(GetUpdates request) throws TelegramApiException {
+        requests.add(request);
+        Object response;
+        try {
+            response = responses.poll(20, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        }
+        if (response instanceof TelegramApiException exception) {
+            throw exception;
+        }
+        @SuppressWarnings("unchecked")
+        List<Update> updates = response == null ? List.of() : (List<Update>) response;
+        return updates;
+    }
+
+    private void awaitReceived(int batches) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (received.size() < batches && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(batches, received.size());
+    }
+
+    private void awaitCommittedOffset(int offset) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (session.getCommittedOffset() < offset && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(offset, session.getCommittedOffset());
+    }
+
+    private void awaitRequests(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (requests.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(requests.size() >= count);
+    }
+
+    private static List<Update> updates(int... ids) {
+        List<Update> updates = new ArrayList<>();
+        for (int id : ids) {
+            Update update = new Update();
+            update.setUpdateId(id);
+            updates.add(update);
+        }
+        return updates;
+    }
+
+    private final class RecordingBot implements LongPollingBot, OffsetTrackingBot {
+        private final DefaultBotOptions options;
+
+        private RecordingBot(DefaultBotOptions options) {
+            this.options = options;
+        }
+
+        @Override
+        public void onUpdateReceived(Update update) {
+            throw new UnsupportedOperationException("Batches are expected");
+        }
+
+        @Override
+        public void onUpdatesReceived(List<Update> updates) {
+            boolean first = received.isEmpty();
+            received.add(updates.stream().map(Update::getUpdateId).toList());
+            if (first && blockFirstBatch) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public OffsetWatermark getOffsetWatermark() {
+            return watermark;
+        }
+
+        @Override
+        public BotOptions getOptions() {
+            return options;
+        }
+
+        @Override
+        public void clearWebhook() {
+        }
+
+        @Override
+        public void onClosing() {
+            closed.countDown();
+        }
+
+        @Override
+        public String getBotUsername() {
+            return "@TestBot";
+        }
+
+        @Override
+        public String getBotToken() {
+            return "test-token";
+        }
+    }
+}
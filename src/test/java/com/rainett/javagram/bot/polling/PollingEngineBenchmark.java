@@ -0,0 +1,217 @@
+package com.rainett.javagram.bot.polling;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+import org.telegram.telegrambots.bots.TelegramLongPollingBot;
+import org.telegram.telegrambots.meta.TelegramBotsApi;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.generics.BotSession;
+import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
+
+/**
+ * Time to receive a backlog of updates from a local fake Bot API server with each polling
+ * engine.
+ * <p>
+ * The fake server answers every {@code getUpdates} request after {@code latencyMillis} ms with
+ * up to {@code limit} updates starting at the requested offset, as Telegram does for a bot
+ * with {@value #BACKLOG} pending updates. The bot spends {@code processMicros} µs on every
+ * update. Every operation registers a new bot, waits until it has received the whole backlog
+ * and stops its session. {@code DEFAULT} is the {@link DefaultBotSession} of TelegramBots and
+ * {@code PIPELINED} the {@link PipelinedBotSession}. Throughput in updates per second is
+ * {@code 10000 * 1000 / score}. Run with {@code mvn test-compile exec:java
+ * -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.rainett.javagram.bot.polling.PollingEngineBenchmark}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class PollingEngineBenchmark {
+    private static final int BACKLOG = 10_000;
+    private static final String TOKEN = "123456:benchmark";
+
+    @Param({"DEFAULT", "PIPELINED"})
+    private String engine;
+
+    @Param({"20"})
+    private int latencyMillis;
+
+    @Param({"100"})
+    private int limit;
+
+    @Param({"200"})
+    private int processMicros;
+
+    private FakeBotApi botApi;
+    private int firstUpdateId = 1;
+    private BenchmarkBot bot;
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        botApi = new FakeBotApi(latencyMillis);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        botApi.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareBacklog() {
+        botApi.setBacklog(firstUpdateId, firstUpdateId + BACKLOG);
+        firstUpdateId += BACKLOG;
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setBaseUrl(botApi.baseUrl());
+        options.setGetUpdatesLimit(limit);
+        options.setGetUpdatesTimeout(0);
+        bot = new BenchmarkBot(options, BACKLOG, processMicros);
+    }
+
+    @Benchmark
+    public void receiveBacklog() throws TelegramApiException, InterruptedException {
+        Class<? extends BotSession> sessionClass = "PIPELINED".equals(engine)
+                ? PipelinedBotSession.class
+                : DefaultBotSession.class;
+        BotSession session = new TelegramBotsApi(sessionClass).registerBot(bot);
+        try {
+            bot.received.await();
+        } finally {
+            session.stop();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PollingEngineBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    private static final class BenchmarkBot extends TelegramLongPollingBot {
+        private final CountDownLatch received;
+        private final long processNanos;
+
+        private BenchmarkBot(DefaultBotOptions options, int updates, int processMicros) {
+            super(options, TOKEN);
+            this.received = new CountDownLatch(updates);
+            this.processNanos = TimeUnit.MICROSECONDS.toNanos(processMicros);
+        }
+
+        @Override
+        public void onUpdateReceived(Update update) {
+            LockSupport.parkNanos(processNanos);
+            received.countDown();
+        }
+
+        @Override
+        public String getBotUsername() {
+            return "@BenchmarkBot";
+        }
+    }
+
+    /**
+     * Bot API server answering {@code getUpdates} from a fixed range of update ids and every
+     * other method with {@code true}.
+     */
+    private static final class FakeBotApi implements AutoCloseable {
+        private static final Pattern OFFSET = Pattern.compile("\"offset\"\\s*:\\s*(-?\\d+)");
+        private static final Pattern LIMIT = Pattern.compile("\"limit\"\\s*:\\s*(\\d+)");
+
+        private final HttpServer server;
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+        private final long latencyMillis;
+        private volatile int firstId;
+        private volatile int endId;
+
+        private FakeBotApi(long latencyMillis) throws IOException {
+            this.latencyMillis = latencyMillis;
+            server = HttpServer.create(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.createContext("/", this::handle);
+            server.setExecutor(executor);
+            server.start();
+        }
+
+        String baseUrl() {
+            return "http://127.0.0.1:" + server.getAddress().getPort() + "/bot";
+        }
+
+        void setBacklog(int firstId, int endId) {
+            this.endId = endId;
+            this.firstId = firstId;
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            String body = new String(exchange.getRequestBody().readAllBytes(),
+                    StandardCharsets.UTF_8);
+            String response = exchange.getRequestURI().getPath().toLowerCase().endsWith(
+                    "/getupdates") ? updates(body) : "{\"ok\":true,\"result\":true}";
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+            byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+
+        private String updates(String request) {
+            int from = Math.max(firstId, intParameter(OFFSET, request, 0));
+            int to = Math.min(endId, from + intParameter(LIMIT, request, 100));
+            StringBuilder result = new StringBuilder("{\"ok\":true,\"result\":[");
+            for (int id = from; id < to; id++) {
+                if (id > from) {
+                    result.append(',');
+                }
+                result.append("{\"update_id\":").append(id)
+                        .append(",\"message\":{\"message_id\":").append(id)
+                        .append(",\"date\":0,\"chat\":{\"id\":").append(id % 1000)
+                        .append(",\"type\":\"private\"},\"text\":\"hello\"}}");
+            }
+            return result.append("]}").toString();
+        }
+
+        private static int intParameter(Pattern pattern, String request, int defaultValue) {
+            Matcher matcher = pattern.matcher(request);
+            return matcher.find() ? Integer.parseInt(matcher.group(1)) : defaultValue;
+        }
+
+        @Override
+        public void close() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
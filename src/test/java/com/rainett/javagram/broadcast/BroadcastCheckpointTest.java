@@ -0,0 +1,111 @@
+package com.rainett.javagram.broadcast;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BroadcastCheckpointTest {
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testAdvancesOnlyPastContiguousCompletions() {
+        BroadcastCheckpoint checkpoint = checkpoint();
+        for (long recipient = 0; recipient < 3; recipient++) {
+            assertTrue(checkpoint.begin(recipient));
+        }
+
+        checkpoint.complete(2, "30", DeliveryStatus.DELIVERED);
+        checkpoint.complete(1, "20", DeliveryStatus.BLOCKED);
+        assertEquals(0, checkpoint.getPosition());
+        assertEquals(2, checkpoint.getProcessed());
+
+        checkpoint.complete(0, "10", DeliveryStatus.DELIVERED);
+        assertEquals(3, checkpoint.getPosition());
+        assertEquals(2, (long) checkpoint.getOutcomes().get(DeliveryStatus.DELIVERED));
+        assertEquals(1, (long) checkpoint.getOutcomes().get(DeliveryStatus.BLOCKED));
+        assertFalse(checkpoint.begin(1));
+    }
+
+    @Test
+    void testPersistsProgressAndAppendsOutcomes() throws IOException {
+        BroadcastCheckpoint checkpoint = checkpoint();
+        checkpoint.begin(0);
+        checkpoint.begin(1);
+        checkpoint.begin(2);
+        checkpoint.complete(0, "10", DeliveryStatus.DEACTIVATED);
+        checkpoint.complete(2, "30", DeliveryStatus.DELIVERED);
+        checkpoint.flush();
+
+        assertEquals("10 DEACTIVATED\n", Files.readString(directory.resolve("b.outcomes")));
+        BroadcastCheckpoint restored = checkpoint();
+        assertEquals(1, restored.getPosition());
+        assertEquals(2, restored.getProcessed());
+        assertTrue(restored.begin(1));
+        assertFalse(restored.begin(2), "2 was sent before the restart");
+        restored.complete(1, "20", DeliveryStatus.CHAT_NOT_FOUND);
+        restored.finish();
+        restored.flush();
+
+        assertEquals("10 DEACTIVATED\n20 CHAT_NOT_FOUND\n",
+                Files.readString(directory.resolve("b.outcomes")));
+        BroadcastCheckpoint finished = checkpoint();
+        assertTrue(finished.isFinished());
+        assertEquals(3, finished.getPosition());
+        assertEquals(3, finished.getProcessed());
+    }
+
+    @Test
+    void testKeepsFailedAndDeferredRecipientsForRetry() throws IOException {
+        BroadcastCheckpoint checkpoint = checkpoint();
+        for (long recipient = 0; recipient < 4; recipient++) {
+            checkpoint.begin(recipient);
+        }
+        checkpoint.complete(0, "10", DeliveryStatus.DELIVERED);
+        checkpoint.complete(1, "20", DeliveryStatus.FAILED);
+        checkpoint.defer(2);
+        checkpoint.complete(3, "40", DeliveryStatus.FAILED);
+        assertEquals(4, checkpoint.getPosition());
+        assertEquals(3, checkpoint.getProcessed());
+        checkpoint.finish();
+        checkpoint.flush();
+
+        assertFalse(Files.exists(directory.resolve("b.outcomes")));
+        BroadcastCheckpoint restored = checkpoint();
+        assertEquals(1, restored.getResumePosition());
+        assertEquals(3, restored.getRetries());
+        assertFalse(restored.begin(0));
+        assertTrue(restored.begin(1));
+        assertFalse(restored.begin(1), "1 is in flight");
+        assertTrue(restored.begin(2));
+        assertTrue(restored.begin(3));
+        restored.complete(1, "20", DeliveryStatus.DELIVERED);
+        restored.complete(2, "30", DeliveryStatus.BLOCKED);
+        restored.complete(3, "40", DeliveryStatus.FAILED);
+
+        assertEquals(1, restored.getRetries());
+        assertEquals(3, restored.getResumePosition());
+        assertEquals(4, restored.getProcessed());
+        assertEquals(2, (long) restored.getOutcomes().get(DeliveryStatus.DELIVERED));
+        assertEquals(1, (long) restored.getOutcomes().get(DeliveryStatus.FAILED));
+        assertEquals(4, restored.getPosition());
+    }
+
+    @Test
+    void testRejectsMalformedFile() throws IOException {
+        Files.writeString(directory.resolve("b.checkpoint"), "position=abc\n");
+        assertThrows(IllegalStateException.class, this::checkpoint);
+    }
+
+    private BroadcastCheckpoint checkpoint() {
+        return new BroadcastCheckpoint(directory.resolve("b.checkpoint"),
+                directory.resolve("b.outcomes"));
+    }
+}
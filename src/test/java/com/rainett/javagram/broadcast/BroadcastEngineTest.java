@@ -0,0 +1,289 @@
+package com.rainett.javagram.broadcast;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.rainett.javagram.config.BroadcastConfig;
+import com.rainett.javagram.outbound.OutboundScheduler;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Message;
+
+class BroadcastEngineTest {
+    @TempDir
+    private Path directory;
+
+    private final FakeScheduler scheduler = new FakeScheduler();
+    private final List<String> unreachable = new CopyOnWriteArrayList<>();
+    private BroadcastEngine engine;
+
+    @AfterEach
+    void tearDown() {
+        scheduler.hold = false;
+        scheduler.releaseAll();
+        if (engine != null) {
+            engine.close();
+        }
+    }
+
+    @Test
+    void testSendsToEveryRecipientAndFinishes() throws Exception {
+        engine = engine(4);
+        List<String> recipients = chatIds(100);
+
+        BroadcastProgress progress = engine.start("news", source(recipients), this::message)
+                .getCompletion().get(5, TimeUnit.SECONDS);
+
+        assertEquals(recipients, scheduler.sent);
+        assertTrue(scheduler.maxInFlight.get() <= 4, "in flight: " + scheduler.maxInFlight);
+        assertTrue(progress.finished());
+        assertEquals(100, progress.processed());
+        assertEquals(100, progress.total());
+        assertEquals(100, progress.count(DeliveryStatus.DELIVERED));
+        assertEquals(Duration.ZERO, progress.eta());
+        assertTrue(Files.readString(directory.resolve("news.checkpoint"))
+                .contains("finished=true"));
+        assertTrue(engine.getBroadcasts().isEmpty());
+
+        Broadcast again = engine.start("news", source(recipients), this::message);
+        assertTrue(again.getCompletion().get(5, TimeUnit.SECONDS).finished());
+        assertEquals(100, scheduler.sent.size());
+    }
+
+    @Test
+    void testClassifiesUnreachableRecipients() throws Exception {
+        engine = engine(8);
+        scheduler.failures.put("2", DeliveryStatusTest.apiError(403,
+                "Forbidden: bot was blocked by the user"));
+        scheduler.failures.put("3", DeliveryStatusTest.apiError(403,
+                "Forbidden: user is deactivated"));
+        scheduler.failures.put("4", DeliveryStatusTest.apiError(500, "Internal Server Error"));
+
+        BroadcastProgress progress = engine.start("news", source(chatIds(6)), this::message)
+                .getCompletion().get(5, TimeUnit.SECONDS);
+
+        assertEquals(3, progress.count(DeliveryStatus.DELIVERED));
+        assertEquals(2, progress.unreachable());
+        assertEquals(1, progress.count(DeliveryStatus.FAILED));
+        assertEquals(Set.of("2 BLOCKED", "3 DEACTIVATED"), Set.copyOf(unreachable));
+        assertEquals(Set.of("2 BLOCKED", "3 DEACTIVATED"),
+                Set.copyOf(Files.readAllLines(directory.resolve("news.outcomes"))));
+    }
+
+    @Test
+    void testRetriesFailedAndRejectedRecipientsOnResume() throws Exception {
+        engine = engine(8);
+        scheduler.failures.put("2", DeliveryStatusTest.apiError(500, "Internal Server Error"));
+        scheduler.failures.put("4", new RejectedExecutionException("Outbound queue is full"));
+        List<String> recipients = chatIds(6);
+
+        BroadcastProgress first = engine.start("news", source(recipients), this::message)
+                .getCompletion().get(5, TimeUnit.SECONDS);
+
+        assertTrue(first.finished());
+        assertEquals(5, first.processed());
+        assertEquals(1, first.count(DeliveryStatus.FAILED));
+        scheduler.failures.clear();
+        scheduler.sent.clear();
+        BroadcastProgress retried = engine.start("news", source(recipients), this::message)
+                .getCompletion().get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("2", "4"), scheduler.sent);
+        assertTrue(retried.finished());
+        assertEquals(6, retried.processed());
+        assertEquals(6, retried.count(DeliveryStatus.DELIVERED));
+        assertEquals(0, retried.count(DeliveryStatus.FAILED));
+        engine.start("news", source(recipients), this::message)
+                .getCompletion().get(5, TimeUnit.SECONDS);
+        assertEquals(2, scheduler.sent.size());
+    }
+
+    @Test
+    void testResumesAfterCancel() throws Exception {
+        engine = engine(2);
+        scheduler.hold = true;
+        List<String> recipients = chatIds(10);
+        Broadcast broadcast = engine.start("news", source(recipients), this::message);
+        awaitSize(scheduler.pending, 2);
+
+        broadcast.cancel();
+        scheduler.releaseAll();
+        BroadcastProgress stopped = broadcast.getCompletion().get(5, TimeUnit.SECONDS);
+
+        assertFalse(stopped.finished());
+        assertEquals(2, stopped.processed());
+        assertEquals(recipients.subList(0, 2), scheduler.sent);
+        scheduler.hold = false;
+        BroadcastProgress finished = engine.start("news", source(recipients), this::message)
+                .getCompletion().get(5, TimeUnit.SECONDS);
+        assertTrue(finished.finished());
+        assertEquals(10, finished.processed());
+        assertEquals(recipients, scheduler.sent);
+    }
+
+    @Test
+    void testCloseStopsRunningBroadcasts() throws Exception {
+        engine = engine(2);
+        scheduler.hold = true;
+        Broadcast broadcast = engine.start("news", source(chatIds(10)), this::message);
+        awaitSize(scheduler.pending, 2);
+        CompletableFuture.runAsync(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            scheduler.releaseAll();
+        });
+
+        engine.close();
+
+        BroadcastProgress progress = broadcast.getCompletion().get(5, TimeUnit.SECONDS);
+        assertEquals(2, progress.processed());
+        assertTrue(Files.readString(directory.resolve("news.checkpoint"))
+                .startsWith("position=2\n"));
+        assertThrows(IllegalStateException.class,
+                () -> engine.start("other", source(chatIds(1)), this::message));
+    }
+
+    @Test
+    void testRejectsInvalidAndDuplicateNames() throws Exception {
+        engine = engine(2);
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.start("../news", source(chatIds(1)), this::message));
+
+        scheduler.hold = true;
+        engine.start("news", source(chatIds(10)), this::message);
+        awaitSize(scheduler.pending, 2);
+        assertThrows(IllegalStateException.class,
+                () -> engine.start("news", source(chatIds(10)), this::message));
+        assertEquals("news", engine.getBroadcast("news").getName());
+    }
+
+    @Test
+    void testRejectsInvalidConfig() {
+        BroadcastConfig window = new BroadcastConfig();
+        window.setWindow(0);
+        assertThrows(IllegalArgumentException.class,
+                () -> new BroadcastEngine(window, scheduler, List.of()));
+
+        BroadcastConfig interval = new BroadcastConfig();
+        interval.setReportInterval(Duration.ZERO);
+        assertThrows(IllegalArgumentException.class,
+                () -> new BroadcastEngine(interval, scheduler, List.of()));
+    }
+
+    private BroadcastEngine engine(int window) {
+        BroadcastConfig config = new BroadcastConfig();
+        config.setDirectory(directory);
+        config.setWindow(window);
+        config.setCheckpointInterval(Duration.ofMillis(10));
+        config.setShutdownTimeout(Duration.ofSeconds(5));
+        return new BroadcastEngine(config, scheduler,
+                List.of((chatId, status) -> unreachable.add(chatId + " " + status)));
+    }
+
+    private SendMessage message(String chatId) {
+        return new SendMessage(chatId, "announcement");
+    }
+
+    private static List<String> chatIds(int count) {
+        return IntStream.range(0, count).mapToObj(String::valueOf)
+                .collect(Collectors.toList());
+    }
+
+    private static RecipientSource source(List<String> chatIds) {
+        return new RecipientSource() {
+            @Override
+            public Stream<String> recipients(long position) {
+                return chatIds.stream().skip(position);
+            }
+
+            @Override
+            public long size() {
+                return chatIds.size();
+            }
+        };
+    }
+
+    private static void awaitSize(List<?> list, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (list.size() < size && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(size, list.size());
+    }
+
+    /**
+     * Scheduler completing sends asynchronously, or holding them until released.
+     */
+    private static final class FakeScheduler implements OutboundScheduler {
+        private final List<String> sent = new CopyOnWriteArrayList<>();
+        private final List<CompletableFuture<Message>> pending = new CopyOnWriteArrayList<>();
+        private final Map<String, Exception> failures = new HashMap<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private volatile boolean hold;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T extends Serializable> CompletableFuture<T> executeAsync(
+                BotApiMethod<T> method) {
+            String chatId = ((SendMessage) method).getChatId();
+            sent.add(chatId);
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            CompletableFuture<Message> result = new CompletableFuture<>();
+            Exception failure = failures.get(chatId);
+            if (hold) {
+                pending.add(result);
+            } else {
+                CompletableFuture.runAsync(() -> complete(result, failure));
+            }
+            return (CompletableFuture<T>) result;
+        }
+
+        @Override
+        public <T> CompletableFuture<T> submit(String chatId, SendCall<T> call) {
+            throw new UnsupportedOperationException();
+        }
+
+        void releaseAll() {
+            for (CompletableFuture<Message> result : new ArrayList<>(pending)) {
+                if (!result.isDone()) {
+                    complete(result, null);
+                }
+            }
+        }
+
+        private void complete(CompletableFuture<Message> result, Exception failure) {
+            inFlight.decrementAndGet();
+            if (failure == null) {
+                result.complete(new Message());
+            } else {
+                result.completeExceptionally(failure);
+            }
+        }
+    }
+}
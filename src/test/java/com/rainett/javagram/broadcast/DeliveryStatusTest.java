@@ -0,0 +1,64 @@
+package com.rainett.javagram.broadcast;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+class DeliveryStatusTest {
+
+    @Test
+    void testClassifiesTelegramErrors() {
+        assertEquals(DeliveryStatus.DELIVERED, DeliveryStatus.of(null));
+        assertEquals(DeliveryStatus.BLOCKED,
+                DeliveryStatus.of(apiError(403, "Forbidden: bot was blocked by the user")));
+        assertEquals(DeliveryStatus.DEACTIVATED,
+                DeliveryStatus.of(apiError(403, "Forbidden: user is deactivated")));
+        assertEquals(DeliveryStatus.FORBIDDEN,
+                DeliveryStatus.of(apiError(403, "Forbidden: bot was kicked from the group chat")));
+        assertEquals(DeliveryStatus.CHAT_NOT_FOUND,
+                DeliveryStatus.of(apiError(400, "Bad Request: chat not found")));
+        assertEquals(DeliveryStatus.FAILED,
+                DeliveryStatus.of(apiError(400, "Bad Request: message text is empty")));
+        assertEquals(DeliveryStatus.FAILED,
+                DeliveryStatus.of(apiError(429, "Too Many Requests: retry after 5")));
+    }
+
+    @Test
+    void testUnwrapsCompletionExceptions() {
+        assertEquals(DeliveryStatus.BLOCKED, DeliveryStatus.of(new CompletionException(
+                apiError(403, "Forbidden: bot was blocked by the user"))));
+        assertEquals(DeliveryStatus.FAILED, DeliveryStatus.of(new CompletionException(
+                new TelegramApiException("Unable to execute sendmessage method",
+                        new IOException("Connection reset")))));
+    }
+
+    @Test
+    void testOnlyRecipientErrorsAreUnreachable() {
+        assertFalse(DeliveryStatus.DELIVERED.isUnreachable());
+        assertTrue(DeliveryStatus.BLOCKED.isUnreachable());
+        assertTrue(DeliveryStatus.DEACTIVATED.isUnreachable());
+        assertTrue(DeliveryStatus.CHAT_NOT_FOUND.isUnreachable());
+        assertTrue(DeliveryStatus.FORBIDDEN.isUnreachable());
+        assertFalse(DeliveryStatus.FAILED.isUnreachable());
+    }
+
+    static TelegramApiRequestException apiError(int errorCode, String description) {
+        return new TelegramApiRequestException("Error " + errorCode) {
+            @Override
+            public Integer getErrorCode() {
+                return errorCode;
+            }
+
+            @Override
+            public String getApiResponse() {
+                return description;
+            }
+        };
+    }
+}
@@ -0,0 +1,31 @@
+package com.rainett.javagram.broadcast.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileRecipientSourceTest {
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testStreamsChatIdsFromPosition() throws IOException {
+        Path file = directory.resolve("subscribers.txt");
+        Files.writeString(file, "10\n 20 \n\n-1001\n@news\n");
+        FileRecipientSource source = new FileRecipientSource(file);
+
+        assertEquals(4, source.size());
+        try (Stream<String> recipients = source.recipients(0)) {
+            assertEquals(List.of("10", "20", "-1001", "@news"), recipients.toList());
+        }
+        try (Stream<String> recipients = source.recipients(2)) {
+            assertEquals(List.of("-1001", "@news"), recipients.toList());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.rainett.javagram.outbound.impl;
+
+import com.rainett.javagram.config.TransportConfig;
+import com.rainett.javagram.outbound.BotApiTransport;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.telegram.telegrambots.bots.DefaultAbsSender;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.DeleteMessage;
+
+/**
+ * Time to send a batch of methods to a local stub Bot API server with each transport.
+ * <p>
+ * The stub server answers every request with {@code true} after {@code latencyMillis} ms, on
+ * as many threads as requests arrive, with Nagle's algorithm disabled so that delayed
+ * acknowledgements do not add 40 ms to every response. Every operation starts {@value #METHODS}
+ * {@code deleteMessage} methods at once and waits until all of them completed, with at most
+ * {@code concurrency} requests in flight. {@code BOT_SENDER} sends them with the thread pool
+ * and HTTP client of a TelegramBots sender with {@code concurrency} threads, and
+ * {@code HTTP_CLIENT} with an {@link HttpClientTransport} limited to {@code concurrency}
+ * requests. Throughput in methods per second is {@code 2000 * 1000 / score}. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.rainett.javagram.outbound.impl.BotApiTransportBenchmark}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class BotApiTransportBenchmark {
+    private static final int METHODS = 2000;
+    private static final String TOKEN = "123456:benchmark";
+
+    @Param({"BOT_SENDER", "HTTP_CLIENT"})
+    private String transportType;
+
+    @Param({"5"})
+    private int latencyMillis;
+
+    @Param({"16", "64"})
+    private int concurrency;
+
+    private StubBotApi botApi;
+    private BotApiTransport transport;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        botApi = new StubBotApi(latencyMillis);
+        if ("HTTP_CLIENT".equals(transportType)) {
+            TransportConfig config = new TransportConfig();
+            config.setMaxConcurrentRequests(concurrency);
+            transport = new HttpClientTransport(config, botApi.baseUrl(), TOKEN);
+        } else {
+            DefaultBotOptions options = new DefaultBotOptions();
+            options.setBaseUrl(botApi.baseUrl());
+            options.setMaxThreads(concurrency);
+            transport = new SenderTransport(new DefaultAbsSender(options, TOKEN) {
+            });
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (transport instanceof HttpClientTransport httpClientTransport) {
+            httpClientTransport.close();
+        }
+        botApi.close();
+    }
+
+    @Benchmark
+    public void sendBatch() {
+        CompletableFuture<?>[] results = new CompletableFuture<?>[METHODS];
+        for (int i = 0; i < METHODS; i++) {
+            results[i] = transport.executeAsync(new DeleteMessage(String.valueOf(i % 100), i));
+        }
+        CompletableFuture.allOf(results).join();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BotApiTransportBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * Bot API server answering every method with {@code true}.
+     */
+    private static final class StubBotApi implements AutoCloseable {
+        private static final byte[] RESPONSE =
+                "{\"ok\":true,\"result\":true}".getBytes(StandardCharsets.UTF_8);
+
+        private final HttpServer server;
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+        private final long latencyMillis;
+
+        private StubBotApi(long latencyMillis) throws IOException {
+            this.latencyMillis = latencyMillis;
+            server = HttpServer.create(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.createContext("/", this::handle);
+            server.setExecutor(executor);
+            server.start();
+        }
+
+        String baseUrl() {
+            return "http://127.0.0.1:" + server.getAddress().getPort() + "/bot";
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            exchange.getRequestBody().readAllBytes();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, RESPONSE.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(RESPONSE);
+            }
+        }
+
+        @Override
+        public void close() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
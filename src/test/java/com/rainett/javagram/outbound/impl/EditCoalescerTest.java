@@ -0,0 +1,239 @@
+package com.rainett.javagram.outbound.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.rainett.javagram.config.CoalescingConfig;
+import com.rainett.javagram.outbound.BotApiTransport;
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+class EditCoalescerTest {
+    private final FakeTransport transport = new FakeTransport();
+    private EditCoalescer coalescer;
+
+    @AfterEach
+    void tearDown() {
+        transport.hold = false;
+        transport.releaseAll();
+        if (coalescer != null) {
+            coalescer.close();
+        }
+    }
+
+    @Test
+    void testSendsOnlyTheLatestEditPerInterval() throws Exception {
+        coalescer = new EditCoalescer(config(Duration.ofMillis(200)), transport);
+
+        List<CompletableFuture<Serializable>> results = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            results.add(coalescer.edit(edit("1", 10, "progress " + i)));
+        }
+        Serializable last = results.get(49).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("1:10 progress 1", "1:10 progress 50"), transport.sent);
+        for (CompletableFuture<Serializable> result : results.subList(1, 49)) {
+            assertSame(last, result.getNow(null));
+        }
+        assertEquals(50, coalescer.getSubmitted());
+        assertEquals(48, coalescer.getCoalesced());
+        assertEquals(2, coalescer.getSent());
+    }
+
+    @Test
+    void testWaitsForTheEditInFlightAndKeepsMessagesApart() throws Exception {
+        coalescer = new EditCoalescer(config(Duration.ofMillis(1)), transport);
+        transport.hold = true;
+
+        coalescer.edit(edit("1", 10, "a"));
+        coalescer.edit(edit("2", 10, "b"));
+        CompletableFuture<Serializable> next = coalescer.edit(edit("1", 10, "c"));
+        Thread.sleep(20);
+
+        assertEquals(List.of("1:10 a", "2:10 b"), transport.sent);
+        transport.hold = false;
+        transport.releaseAll();
+        next.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("1:10 a", "2:10 b", "1:10 c"), transport.sent);
+    }
+
+    @Test
+    void testDropsEditsThatDoNotModifyTheMessage() throws Exception {
+        coalescer = new EditCoalescer(config(Duration.ofMillis(1)), transport);
+
+        Serializable first = coalescer.edit(edit("1", 10, "done")).get(5, TimeUnit.SECONDS);
+        CompletableFuture<Serializable> again = coalescer.edit(edit("1", 10, "done"));
+
+        assertTrue(again.isDone());
+        assertSame(first, again.get());
+        assertEquals(List.of("1:10 done"), transport.sent);
+        assertEquals(1, coalescer.getDropped());
+
+        EditMessageText html = edit("1", 10, "done");
+        html.setParseMode("HTML");
+        coalescer.edit(html).get(5, TimeUnit.SECONDS);
+        assertEquals(2, transport.sent.size());
+    }
+
+    @Test
+    void testDropsEditsRevertingThePendingOne() throws Exception {
+        coalescer = new EditCoalescer(config(Duration.ofMillis(100)), transport);
+
+        coalescer.edit(edit("1", 10, "a")).get(5, TimeUnit.SECONDS);
+        coalescer.edit(edit("1", 10, "b"));
+        CompletableFuture<Serializable> reverted = coalescer.edit(edit("1", 10, "a"));
+        reverted.get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("1:10 a"), transport.sent);
+        assertEquals(1, coalescer.getCoalesced());
+        assertEquals(1, coalescer.getDropped());
+    }
+
+    @Test
+    void testTreatsMessageNotModifiedAsSuccess() throws Exception {
+        coalescer = new EditCoalescer(config(Duration.ofMillis(1)), transport);
+        transport.failures.put("1:10 same", apiError(400, "Bad Request: message is not "
+                + "modified: specified new message content and reply markup are exactly the same "
+                + "as a current content and reply markup of the message"));
+
+        assertNull(coalescer.edit(edit("1", 10, "same")).get(5, TimeUnit.SECONDS));
+        coalescer.edit(edit("1", 10, "same")).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("1:10 same"), transport.sent);
+        assertEquals(2, coalescer.getDropped());
+    }
+
+    @Test
+    void testFailsTheEditsReplacedByAFailedEdit() throws Exception {
+        coalescer = new EditCoalescer(config(Duration.ofMillis(50)), transport);
+        TelegramApiRequestException failure = apiError(400, "Bad Request: message to edit "
+                + "not found");
+        transport.failures.put("1:10 c", failure);
+
+        coalescer.edit(edit("1", 10, "a")).get(5, TimeUnit.SECONDS);
+        CompletableFuture<Serializable> replaced = coalescer.edit(edit("1", 10, "b"));
+        CompletableFuture<Serializable> failed = coalescer.edit(edit("1", 10, "c"));
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> failed.get(5, TimeUnit.SECONDS));
+        assertSame(failure, exception.getCause());
+        assertTrue(replaced.isCompletedExceptionally());
+
+        assertTrue(coalescer.edit(edit("1", 10, "a")).isDone());
+        assertEquals(1, coalescer.getDropped());
+        assertEquals(List.of("1:10 a", "1:10 c"), transport.sent);
+    }
+
+    @Test
+    void testCloseSendsPendingEditsAndRejectsNewOnes() throws Exception {
+        coalescer = new EditCoalescer(config(Duration.ofHours(1)), transport);
+
+        coalescer.edit(edit("1", 10, "a")).get(5, TimeUnit.SECONDS);
+        CompletableFuture<Serializable> pending = coalescer.edit(edit("1", 10, "b"));
+        assertFalse(pending.isDone());
+
+        coalescer.close();
+
+        pending.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("1:10 a", "1:10 b"), transport.sent);
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> coalescer.edit(edit("1", 10, "c")).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+    }
+
+    @Test
+    void testRejectsInvalidConfig() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new EditCoalescer(config(Duration.ZERO), transport));
+
+        CoalescingConfig tracked = config(Duration.ofSeconds(1));
+        tracked.setMaxTrackedMessages(0);
+        assertThrows(IllegalArgumentException.class,
+                () -> new EditCoalescer(tracked, transport));
+    }
+
+    private static CoalescingConfig config(Duration flushInterval) {
+        CoalescingConfig config = new CoalescingConfig();
+        config.setFlushInterval(flushInterval);
+        return config;
+    }
+
+    private static EditMessageText edit(String chatId, int messageId, String text) {
+        EditMessageText edit = new EditMessageText();
+        edit.setChatId(chatId);
+        edit.setMessageId(messageId);
+        edit.setText(text);
+        return edit;
+    }
+
+    private static TelegramApiRequestException apiError(int errorCode, String description) {
+        return new TelegramApiRequestException("Error " + errorCode) {
+            @Override
+            public Integer getErrorCode() {
+                return errorCode;
+            }
+
+            @Override
+            public String getApiResponse() {
+                return description;
+            }
+        };
+    }
+
+    /**
+     * Transport recording the edits it sends and completing them, or holding them until
+     * released.
+     */
+    private static final class FakeTransport implements BotApiTransport {
+        private final List<String> sent = new CopyOnWriteArrayList<>();
+        private final List<CompletableFuture<Message>> pending = new CopyOnWriteArrayList<>();
+        private final Map<String, Exception> failures = new HashMap<>();
+        private volatile boolean hold;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T extends Serializable> CompletableFuture<T> executeAsync(
+                BotApiMethod<T> method) {
+            EditMessageText edit = (EditMessageText) method;
+            String key = edit.getChatId() + ":" + edit.getMessageId() + " " + edit.getText();
+            sent.add(key);
+            Exception failure = failures.get(key);
+            if (failure != null) {
+                return CompletableFuture.failedFuture(failure);
+            }
+            CompletableFuture<Message> result = new CompletableFuture<>();
+            if (hold) {
+                pending.add(result);
+            } else {
+                result.complete(new Message());
+            }
+            return (CompletableFuture<T>) result;
+        }
+
+        void releaseAll() {
+            for (CompletableFuture<Message> result : new ArrayList<>(pending)) {
+                result.complete(new Message());
+            }
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.rainett.javagram.outbound.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.rainett.javagram.config.OutboundConfig;
+import com.rainett.javagram.outbound.BotApiTransport;
+import com.rainett.javagram.outbound.OutboundScheduler.SendCall;
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.ResponseParameters;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+class GcraOutboundSchedulerTest {
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private final List<Long> sentAt = new CopyOnWriteArrayList<>();
+    private GcraOutboundScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.close();
+        }
+    }
+
+    @Test
+    void testSpacesSendsToAChat() throws Exception {
+        scheduler = new GcraOutboundScheduler(config(1000, 20, 600), null);
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            results.add(scheduler.submit("1", record("1#" + i)));
+        }
+        for (CompletableFuture<String> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(List.of("1#0", "1#1", "1#2"), sent);
+        assertSpacedBy(Duration.ofMillis(50));
+        assertTrue(scheduler.getTotalQueueWait().toMillis() >= 140,
+                "waited " + scheduler.getTotalQueueWait());
+        assertEquals(3, scheduler.getSent());
+        assertEquals(0, scheduler.getQueued());
+        assertEquals(0, scheduler.getWaitingChats());
+    }
+
+    @Test
+    void testHotGroupDoesNotHoldUpOtherChats() throws Exception {
+        scheduler = new GcraOutboundScheduler(config(1000, 1000, 600), null);
+
+        for (int i = 0; i < 4; i++) {
+            scheduler.submit("-100", record("group#" + i));
+        }
+        CompletableFuture<String> other = scheduler.submit("2", record("private"));
+        CompletableFuture<String> channel = scheduler.submit("@news", record("channel"));
+        other.get(5, TimeUnit.SECONDS);
+        channel.get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("group#0", "private", "channel"), sent);
+    }
+
+    @Test
+    void testChatsShareTheGlobalBudget() throws Exception {
+        scheduler = new GcraOutboundScheduler(config(20, 1000, 6000), null);
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int chat = 1; chat <= 3; chat++) {
+            results.add(scheduler.submit(String.valueOf(chat), record("chat" + chat)));
+        }
+        for (CompletableFuture<String> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(List.of("chat1", "chat2", "chat3"), sent);
+        assertSpacedBy(Duration.ofMillis(50));
+    }
+
+    @Test
+    void testBurstOfAnIdleChat() throws Exception {
+        OutboundConfig config = config(1000, 1, 600);
+        config.setChatBurst(3);
+        scheduler = new GcraOutboundScheduler(config, null);
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(scheduler.submit("1", record("1#" + i)));
+        }
+        results.get(2).get(5, TimeUnit.SECONDS);
+        Thread.sleep(100);
+
+        assertEquals(List.of("1#0", "1#1", "1#2"), sent);
+        assertEquals(1, scheduler.getQueued());
+    }
+
+    @Test
+    void testRejectsWhenFull() throws Exception {
+        OutboundConfig config = config(1000, 1000, 600);
+        config.setCapacity(1);
+        scheduler = new GcraOutboundScheduler(config, null);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.submit("1", sender -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return CompletableFuture.completedFuture("blocking");
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<String> queued = scheduler.submit("2", record("queued"));
+        CompletableFuture<String> overflow = scheduler.submit("3", record("overflow"));
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> overflow.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+        assertEquals(1, scheduler.getRejected());
+        release.countDown();
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testSendsWithoutChatImmediately() throws Exception {
+        scheduler = new GcraOutboundScheduler(config(1, 1, 1), null);
+        scheduler.submit("1", record("paced"));
+
+        Thread caller = Thread.currentThread();
+        CompletableFuture<String> result = scheduler.submit(null, sender -> {
+            assertSame(caller, Thread.currentThread());
+            return CompletableFuture.completedFuture("callback answer");
+        });
+
+        assertEquals("callback answer", result.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testFailedSendCompletesExceptionally() {
+        scheduler = new GcraOutboundScheduler(config(1000, 1000, 600), null);
+        TelegramApiException failure = new TelegramApiException("Bad Request");
+
+        CompletableFuture<String> result = scheduler.submit("1", sender -> {
+            throw failure;
+        });
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> result.get(5, TimeUnit.SECONDS));
+        assertSame(failure, exception.getCause());
+    }
+
+    @Test
+    void testCloseSendsQueuedMethodsAndRejectsNewOnes() throws Exception {
+        scheduler = new GcraOutboundScheduler(config(1000, 20, 600), null);
+        CompletableFuture<String> first = scheduler.submit("1", record("first"));
+        CompletableFuture<String> second = scheduler.submit("1", record("second"));
+
+        scheduler.close();
+
+        assertEquals("first", first.get(1, TimeUnit.SECONDS));
+        assertEquals("second", second.get(1, TimeUnit.SECONDS));
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> scheduler.submit("1", record("late")).get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+    }
+
+    @Test
+    void testRetriesAfterRetryAfterWithoutHoldingOtherChats() throws Exception {
+        scheduler = new GcraOutboundScheduler(config(1000, 1000, 60_000), null);
+        AtomicInteger attempts = new AtomicInteger();
+        long start = System.nanoTime();
+
+        CompletableFuture<String> throttled = scheduler.submit("1", sender -> {
+            sent.add("throttled#" + attempts.incrementAndGet());
+            return attempts.get() == 1
+                    ? CompletableFuture.failedFuture(apiError(429, 1))
+                    : CompletableFuture.completedFuture("throttled");
+        });
+        Thread.sleep(50);
+        CompletableFuture<String> other = scheduler.submit("2", record("other"));
+
+        assertEquals("other", other.get(500, TimeUnit.MILLISECONDS));
+        assertFalse(throttled.isDone());
+        assertEquals("throttled", throttled.get(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(990));
+        assertEquals(List.of("throttled#1", "other", "throttled#2"), sent);
+        assertEquals(1, scheduler.getRetried());
+        assertTrue(scheduler.getTotalQueueWait().toMillis() >= 950);
+    }
+
+    @Test
+    void testFailsWhenRetriesAreExhausted() {
+        OutboundConfig config = config(1000, 1000, 60_000);
+        config.setMaxRetries(0);
+        scheduler = new GcraOutboundScheduler(config, null);
+        TelegramApiRequestException failure = apiError(429, 1);
+
+        CompletableFuture<String> result = scheduler.submit("1",
+                sender -> CompletableFuture.failedFuture(failure));
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> result.get(5, TimeUnit.SECONDS));
+        assertSame(failure, exception.getCause());
+        assertEquals(0, scheduler.getRetried());
+    }
+
+    @Test
+    void testLimitsSendsInFlight() throws Exception {
+        OutboundConfig config = config(1000, 1000, 60_000);
+        config.setMaxInFlight(2);
+        scheduler = new GcraOutboundScheduler(config, null);
+        List<CompletableFuture<String>> pending = new CopyOnWriteArrayList<>();
+        for (int chat = 1; chat <= 3; chat++) {
+            scheduler.submit(String.valueOf(chat), sender -> {
+                CompletableFuture<String> response = new CompletableFuture<>();
+                pending.add(response);
+                return response;
+            });
+        }
+        Thread.sleep(100);
+        assertEquals(2, pending.size());
+        assertEquals(2, scheduler.getInFlight());
+
+        pending.get(0).complete("done");
+        awaitSize(pending, 3);
+        assertEquals(2, scheduler.getInFlight());
+    }
+
+    @Test
+    void testHalvesConcurrencyOncePerRoundAndRecovers() throws Exception {
+        OutboundConfig config = config(1000, 1000, 60_000);
+        config.setMaxInFlight(8);
+        scheduler = new GcraOutboundScheduler(config, null);
+        List<CompletableFuture<String>> pending = new CopyOnWriteArrayList<>();
+        for (int chat = 1; chat <= 2; chat++) {
+            scheduler.submit(String.valueOf(chat), sender -> {
+                CompletableFuture<String> response = new CompletableFuture<>();
+                pending.add(response);
+                return response;
+            });
+        }
+        awaitSize(pending, 2);
+
+        pending.get(0).completeExceptionally(apiError(502, null));
+        pending.get(1).completeExceptionally(apiError(429, null));
+        assertEquals(4, scheduler.getConcurrencyLimit());
+
+        for (int i = 0; i < 5; i++) {
+            scheduler.submit("1", record("ok#" + i)).get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(5, scheduler.getConcurrencyLimit());
+        scheduler.submit("1", sender -> CompletableFuture.failedFuture(apiError(500, null)))
+                .exceptionally(error -> null).get(5, TimeUnit.SECONDS);
+        assertEquals(2, scheduler.getConcurrencyLimit());
+    }
+
+    @Test
+    void testExecuteAsyncAddressesTheChatOfTheMethod() throws Exception {
+        AbsSender sender = mock(AbsSender.class);
+        SendMessage method = new SendMessage("-100", "hello");
+        Message message = new Message();
+        doReturn(CompletableFuture.completedFuture(message)).when(sender).executeAsync(method);
+        scheduler = new GcraOutboundScheduler(config(1000, 1000, 600), sender);
+
+        assertSame(message, scheduler.execute(method));
+
+        verify(sender).executeAsync(method);
+        assertEquals(1, scheduler.getSent());
+    }
+
+    @Test
+    void testExecuteAsyncSendsThroughTheTransport() throws Exception {
+        SendMessage method = new SendMessage("-100", "hello");
+        Message message = new Message();
+        List<Object> transported = new CopyOnWriteArrayList<>();
+        BotApiTransport transport = new BotApiTransport() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T extends Serializable> CompletableFuture<T> executeAsync(
+                    BotApiMethod<T> botApiMethod) {
+                transported.add(botApiMethod);
+                return CompletableFuture.completedFuture((T) message);
+            }
+        };
+        scheduler = new GcraOutboundScheduler(config(1000, 1000, 600), null, transport);
+
+        assertSame(message, scheduler.execute(method));
+        assertEquals(List.of(method), transported);
+    }
+
+    @Test
+    void testRejectsInvalidConfig() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new GcraOutboundScheduler(config(0, 1, 1), null));
+        OutboundConfig config = config(1, 1, 1);
+        config.setStripes(0);
+        assertThrows(IllegalArgumentException.class,
+                () -> new GcraOutboundScheduler(config, null));
+    }
+
+    private SendCall<String> record(String name) {
+        return sender -> {
+            sentAt.add(System.nanoTime());
+            sent.add(name);
+            return CompletableFuture.completedFuture(name);
+        };
+    }
+
+    private static void awaitSize(List<?> list, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (list.size() < size && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(size, list.size());
+    }
+
+    private static TelegramApiRequestException apiError(int errorCode, Integer retryAfter) {
+        ResponseParameters parameters = new ResponseParameters() {
+            @Override
+            public Integer getRetryAfter() {
+                return retryAfter;
+            }
+        };
+        return new TelegramApiRequestException("Error " + errorCode) {
+            @Override
+            public Integer getErrorCode() {
+                return errorCode;
+            }
+
+            @Override
+            public ResponseParameters getParameters() {
+                return parameters;
+            }
+        };
+    }
+
+    private void assertSpacedBy(Duration interval) {
+        long tolerance = TimeUnit.MILLISECONDS.toNanos(5);
+        for (int i = 1; i < sentAt.size(); i++) {
+            long gap = sentAt.get(i) - sentAt.get(i - 1);
+            assertTrue(gap >= interval.toNanos() - tolerance,
+                    "sends " + (i - 1) + " and " + i + " were " + gap + " ns apart");
+        }
+    }
+
+    private static OutboundConfig config(int globalPerSecond, int privateChatPerSecond,
+                                         int groupPerMinute) {
+        OutboundConfig config = new OutboundConfig();
+        config.setGlobalPerSecond(globalPerSecond);
+        config.setPrivateChatPerSecond(privateChatPerSecond);
+        config.setGroupPerMinute(groupPerMinute);
+        config.setStripes(64);
+        config.setShutdownTimeout(Duration.ofSeconds(5));
+        return config;
+    }
+}
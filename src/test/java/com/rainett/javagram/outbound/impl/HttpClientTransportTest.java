@@ -0,0 +1,259 @@
+package com.rainett.javagram.outbound.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.rainett.javagram.config.TransportConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiValidationException;
+
+class HttpClientTransportTest {
+    private static final String TOKEN = "123456:test";
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private volatile boolean blocking;
+    private volatile int status = 200;
+    private volatile String response = "{\"ok\":true,\"result\":\"pong\"}";
+    private HttpServer server;
+    private HttpClientTransport transport;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (transport != null) {
+            transport.close();
+        }
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testPostsMethodAsJsonToTheBotUrl() throws Exception {
+        transport = new HttpClientTransport(new TransportConfig(), baseUrl(), TOKEN);
+
+        String result = transport.executeAsync(new Echo("ping")).get(5, TimeUnit.SECONDS);
+
+        assertEquals("{\"ok\":true,\"result\":\"pong\"}", result);
+        assertEquals(1, requests.size());
+        String request = requests.get(0);
+        assertTrue(request.startsWith("POST /bot" + TOKEN + "/echo application/json"), request);
+        assertTrue(request.contains("\"text\":\"ping\""), request);
+        assertEquals(1, transport.getSent());
+        assertEquals(0, transport.getInFlight());
+    }
+
+    @Test
+    void testTelegramErrorsSurfaceAsRequestExceptions() {
+        status = 400;
+        response = "{\"ok\":false,\"error_code\":400,\"description\":\"Bad Request\"}";
+        transport = new HttpClientTransport(new TransportConfig(), baseUrl(), TOKEN);
+
+        CompletableFuture<String> result = transport.executeAsync(new Echo("ping"));
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TelegramApiRequestException.class, exception.getCause());
+        assertEquals(0, transport.getFailed());
+    }
+
+    @Test
+    void testInvalidMethodFailsWithoutRequest() {
+        transport = new HttpClientTransport(new TransportConfig(), baseUrl(), TOKEN);
+
+        CompletableFuture<String> result = transport.executeAsync(new Echo(null));
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TelegramApiValidationException.class, exception.getCause());
+        assertEquals(0, transport.getSent());
+        assertTrue(requests.isEmpty());
+    }
+
+    @Test
+    void testLimitsConcurrentRequests() throws Exception {
+        blocking = true;
+        TransportConfig config = new TransportConfig();
+        config.setMaxConcurrentRequests(2);
+        transport = new HttpClientTransport(config, baseUrl(), TOKEN);
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(transport.executeAsync(new Echo("ping" + i)));
+        }
+        awaitSize(requests, 2);
+        Thread.sleep(50);
+
+        assertEquals(2, requests.size());
+        assertEquals(2, transport.getInFlight());
+        assertEquals(3, transport.getWaiting());
+        release.countDown();
+        for (CompletableFuture<String> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(5, requests.size());
+        assertEquals(2, maxActive.get());
+        assertEquals(0, transport.getInFlight());
+        assertEquals(0, transport.getWaiting());
+    }
+
+    @Test
+    void testTimesOutPerMethod() {
+        blocking = true;
+        TransportConfig config = new TransportConfig();
+        config.setMethodTimeouts(Map.of("ECHO", Duration.ofMillis(100)));
+        transport = new HttpClientTransport(config, baseUrl(), TOKEN);
+
+        CompletableFuture<String> result = transport.executeAsync(new Echo("ping"));
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TelegramApiException.class, exception.getCause());
+        assertInstanceOf(HttpTimeoutException.class, exception.getCause().getCause());
+        assertEquals(1, transport.getFailed());
+        assertEquals(0, transport.getInFlight());
+    }
+
+    @Test
+    void testCloseFailsWaitingMethods() throws Exception {
+        blocking = true;
+        TransportConfig config = new TransportConfig();
+        config.setMaxConcurrentRequests(1);
+        transport = new HttpClientTransport(config, baseUrl(), TOKEN);
+        CompletableFuture<String> first = transport.executeAsync(new Echo("first"));
+        CompletableFuture<String> second = transport.executeAsync(new Echo("second"));
+        awaitSize(requests, 1);
+
+        transport.close();
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> second.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+        CompletableFuture<String> late = transport.executeAsync(new Echo("late"));
+        assertTrue(late.isCompletedExceptionally());
+        release.countDown();
+        assertEquals("{\"ok\":true,\"result\":\"pong\"}", first.get(5, TimeUnit.SECONDS));
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    void testRejectsInvalidConfig() {
+        TransportConfig concurrency = new TransportConfig();
+        concurrency.setMaxConcurrentRequests(0);
+        assertThrows(IllegalArgumentException.class,
+                () -> new HttpClientTransport(concurrency, baseUrl(), TOKEN));
+
+        TransportConfig timeout = new TransportConfig();
+        timeout.setMethodTimeouts(Map.of("sendMessage", Duration.ZERO));
+        assertThrows(IllegalArgumentException.class,
+                () -> new HttpClientTransport(timeout, baseUrl(), TOKEN));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int current = active.incrementAndGet();
+        maxActive.accumulateAndGet(current, Math::max);
+        try {
+            String body = new String(exchange.getRequestBody().readAllBytes(),
+                    StandardCharsets.UTF_8);
+            requests.add(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath()
+                         + " " + exchange.getRequestHeaders().getFirst("Content-Type") + " "
+                         + body);
+            if (blocking) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            active.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/bot";
+    }
+
+    private static void awaitSize(List<?> list, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (list.size() < size && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static final class Echo extends BotApiMethod<String> {
+        private final String text;
+
+        private Echo(String text) {
+            this.text = text;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        @Override
+        public String getMethod() {
+            return "echo";
+        }
+
+        @Override
+        public String deserializeResponse(String answer) throws TelegramApiRequestException {
+            if (!answer.contains("\"ok\":true")) {
+                throw new TelegramApiRequestException("Error executing echo method");
+            }
+            return answer;
+        }
+
+        @Override
+        public void validate() throws TelegramApiValidationException {
+            if (text == null) {
+                throw new TelegramApiValidationException("Text parameter can't be empty", this);
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.rainett.javagram.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.rainett.javagram.action.annotations.Callback;
+import com.rainett.javagram.action.annotations.Command;
+import com.rainett.javagram.action.annotations.Text;
+import com.rainett.javagram.action.container.GeneratedActionIndex;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.Test;
+
+class ActionIndexProcessorTest {
+    private static final String IMPORTS = """
+            import com.rainett.javagram.action.Action;
+            import com.rainett.javagram.action.annotations.Callback;
+            import com.rainett.javagram.action.annotations.Command;
+            import com.rainett.javagram.action.annotations.Text;
+            import org.telegram.telegrambots.meta.api.objects.Update;
+            """;
+
+    @Test
+    void testGeneratesSortedIndex() throws Exception {
+        Compilation compilation = compile(List.of(
+                source("com.example.bot.StartAction", "@Command(\"/start\")",
+                        "class StartAction"),
+                source("com.example.bot.AnyCommandAction", "@Command",
+                        "class AnyCommandAction"),
+                source("com.example.bot.menu.MenuAction", "@Text(equals = \"Menu\")",
+                        "public class MenuAction"),
+                source("com.example.bot.menu.ContainsAction", "@Text(contains = \"menu\")",
+                        "public class ContainsAction"),
+                source("com.example.bot.menu.RegexAction", "@Text(regex = \"m.*\")",
+                        "public class RegexAction"),
+                source("com.example.bot.ButtonAction", "@Callback(\"button\")",
+                        "class ButtonAction")), List.of());
+        assertTrue(compilation.success(), compilation.diagnostics().toString());
+
+        Map<Class<? extends Annotation>, List<String>> index = compilation.loadIndex();
+        assertEquals(List.of("com.example.bot.StartAction", "com.example.bot.AnyCommandAction"),
+                index.get(Command.class));
+        assertEquals(List.of("com.example.bot.ButtonAction"), index.get(Callback.class));
+        assertEquals(List.of("com.example.bot.menu.MenuAction",
+                        "com.example.bot.menu.RegexAction",
+                        "com.example.bot.menu.ContainsAction"),
+                index.get(Text.class));
+        assertTrue(Files.exists(compilation.output()
+                .resolve("com/example/bot/" + ActionIndexProcessor.CLASS_NAME + ".class")));
+    }
+
+    @Test
+    void testSkipsAbstractAndNonActionClasses() throws Exception {
+        Compilation compilation = compile(List.of(
+                source("com.example.AbstractAction", "@Command(\"/base\")",
+                        "abstract class AbstractAction"),
+                new SourceFile("com.example.NotAction", "package com.example;\n" + IMPORTS
+                        + "@Command(\"/nope\") class NotAction { }\n"),
+                source("com.example.Outer", "@Command(\"/outer\")", "class Outer")),
+                List.of());
+        assertTrue(compilation.success(), compilation.diagnostics().toString());
+        assertTrue(compilation.diagnostics().stream()
+                .anyMatch(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.WARNING
+                        && diagnostic.getMessage(null).contains("does not implement")));
+        assertEquals(List.of("com.example.Outer"), compilation.loadIndex().get(Command.class));
+    }
+
+    @Test
+    void testPackageOption() throws Exception {
+        Compilation compilation = compile(List.of(
+                source("com.example.StartAction", "@Command(\"/start\")", "class StartAction")),
+                List.of("-A" + ActionIndexProcessor.PACKAGE_OPTION + "=com.example.routing"));
+        assertTrue(compilation.success(), compilation.diagnostics().toString());
+        assertTrue(Files.exists(compilation.output()
+                .resolve("com/example/routing/" + ActionIndexProcessor.CLASS_NAME + ".class")));
+    }
+
+    @Test
+    void testNoIndexWithoutActions() throws Exception {
+        Compilation compilation = compile(List.of(new SourceFile("com.example.Plain",
+                "package com.example;\nclass Plain { }\n")), List.of());
+        assertTrue(compilation.success(), compilation.diagnostics().toString());
+        Path services = compilation.output()
+                .resolve("META-INF/services/" + GeneratedActionIndex.class.getName());
+        assertFalse(Files.exists(services));
+    }
+
+    private static SourceFile source(String className, String annotation, String declaration) {
+        String packageName = className.substring(0, className.lastIndexOf('.'));
+        return new SourceFile(className, "package " + packageName + ";\n" + IMPORTS
+                + annotation + "\n" + declaration + " implements Action {\n"
+                + "    public void run(Update update) { }\n}\n");
+    }
+
+    private static Compilation compile(List<SourceFile> sources, List<String> extraOptions)
+            throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Path output = Files.createTempDirectory("action-index");
+        List<String> options = new ArrayList<>(List.of(
+                "-d", output.toString(),
+                "-classpath", System.getProperty("java.class.path")));
+        options.addAll(extraOptions);
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics, options,
+                null, sources);
+        task.setProcessors(List.of(new ActionIndexProcessor()));
+        boolean success = task.call();
+        return new Compilation(success, output, diagnostics.getDiagnostics());
+    }
+
+    private record Compilation(boolean success, Path output,
+                               List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+
+        Map<Class<? extends Annotation>, List<String>> loadIndex() throws IOException {
+            try (URLClassLoader classLoader = new URLClassLoader(
+                    new URL[] {output.toUri().toURL()}, getClass().getClassLoader())) {
+                List<GeneratedActionIndex> indexes = new ArrayList<>();
+                ServiceLoader.load(GeneratedActionIndex.class, classLoader)
+                        .forEach(indexes::add);
+                assertEquals(1, indexes.size());
+                return indexes.get(0).actionClassNames();
+            }
+        }
+    }
+
+    private static final class SourceFile extends SimpleJavaFileObject {
+        private final String content;
+
+        SourceFile(String className, String content) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension),
+                    Kind.SOURCE);
+            this.content = content;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+        }
+    }
+}
@@ -1,11 +1,21 @@
 package com.rainett.javagram.update.controller;
 
-import static org.mockito.Mockito.doNothing;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-import com.rainett.javagram.update.service.UpdateService;
+import com.rainett.javagram.config.IngressConfig;
+import com.rainett.javagram.update.ingress.Admission;
+import com.rainett.javagram.update.ingress.Submission;
+import com.rainett.javagram.update.ingress.UpdateIngress;
+import com.rainett.javagram.update.ingress.impl.BoundedUpdateIngress;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,6 +25,8 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Update;
 
 @WebMvcTest(UpdateController.class)
 class UpdateControllerTest {
@@ -24,24 +36,25 @@ class UpdateControllerTest {
     private MockMvc mockMvc;
 
     @MockBean
-    private UpdateService updateService;
+    private UpdateIngress updateIngress;
 
     @Configuration
     static class TestConfig {
         @Bean
-        public UpdateService updateService() {
-            return Mockito.mock(UpdateService.class);
+        public UpdateIngress updateIngress() {
+            return Mockito.mock(UpdateIngress.class);
         }
 
         @Bean
-        public UpdateController updateController(UpdateService updateService) {
-            return new UpdateController(updateService);
+        public UpdateController updateController(UpdateIngress updateIngress) {
+            return new UpdateController(updateIngress, new IngressConfig());
         }
     }
 
     @Test
     void onUpdateReceived_Success() throws Exception {
-        doNothing().when(updateService).handleUpdate(Mockito.any());
+        when(updateIngress.submitWebhookUpdate(Mockito.any()))
+                .thenReturn(new Submission(Admission.ACCEPTED, null));
 
         mockMvc.perform(post("/")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -49,14 +62,77 @@ class UpdateControllerTest {
                 .andExpect(status().isAccepted());
     }
 
+    @Test
+    void onUpdateReceived_Reply() throws Exception {
+        when(updateIngress.submitWebhookUpdate(Mockito.any()))
+                .thenReturn(new Submission(Admission.ACCEPTED, new SendMessage("1", "pong")));
+
+        mockMvc.perform(post("/")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(UPDATE_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.method").value("sendmessage"))
+                .andExpect(jsonPath("$.text").value("pong"));
+    }
+
+    @Test
+    void onUpdateReceived_Dropped() throws Exception {
+        when(updateIngress.submitWebhookUpdate(Mockito.any()))
+                .thenReturn(new Submission(Admission.DROPPED, null));
+
+        mockMvc.perform(post("/")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(UPDATE_JSON))
+                .andExpect(status().isAccepted());
+    }
+
+    @Test
+    void onUpdateReceived_Rejected() throws Exception {
+        when(updateIngress.submitWebhookUpdate(Mockito.any()))
+                .thenReturn(new Submission(Admission.REJECTED, null));
+
+        mockMvc.perform(post("/")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(UPDATE_JSON))
+                .andExpect(status().isTooManyRequests());
+    }
+
     @Test
     void onUpdateReceived_Error() throws Exception {
         doThrow(new RuntimeException("Service Error"))
-                .when(updateService).handleUpdate(Mockito.any());
+                .when(updateIngress).submitWebhookUpdate(Mockito.any());
 
         mockMvc.perform(post("/")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(UPDATE_JSON))
                 .andExpect(status().isInternalServerError());
     }
+
+    @Test
+    void onUpdateReceived_FastAckRejectsOnlyWhenQueueFull() throws Exception {
+        IngressConfig config = new IngressConfig();
+        config.setEnabled(true);
+        config.setCapacity(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BoundedUpdateIngress ingress = new BoundedUpdateIngress(config,
+                IngressConfig.OverflowPolicy.REJECT, update -> {
+                    started.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, List.of());
+        UpdateController controller = new UpdateController(ingress, config);
+        try {
+            assertEquals(202, controller.onUpdateReceived(new Update()).getStatusCode().value());
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertEquals(202, controller.onUpdateReceived(new Update()).getStatusCode().value());
+            assertEquals(429, controller.onUpdateReceived(new Update()).getStatusCode().value());
+        } finally {
+            release.countDown();
+            ingress.close();
+        }
+    }
 }
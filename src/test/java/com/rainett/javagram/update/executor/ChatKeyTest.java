@@ -0,0 +1,56 @@
+package com.rainett.javagram.update.executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.User;
+
+class ChatKeyTest {
+
+    @Test
+    void testMessageKeyedByChat() {
+        Update update = new Update();
+        update.setMessage(message(-100L, 7L));
+        assertEquals(Long.valueOf(-100L), ChatKey.of(update));
+    }
+
+    @Test
+    void testEditedMessageAndChannelPostKeyedByChat() {
+        Update edited = new Update();
+        edited.setEditedMessage(message(42L, 7L));
+        assertEquals(Long.valueOf(42L), ChatKey.of(edited));
+
+        Update channelPost = new Update();
+        channelPost.setChannelPost(message(-200L, null));
+        assertEquals(Long.valueOf(-200L), ChatKey.of(channelPost));
+    }
+
+    @Test
+    void testCallbackQueryKeyedByUser() {
+        CallbackQuery callbackQuery = new CallbackQuery();
+        callbackQuery.setFrom(new User(7L, "user", false));
+        callbackQuery.setMessage(message(-100L, 1L));
+        Update update = new Update();
+        update.setCallbackQuery(callbackQuery);
+        assertEquals(Long.valueOf(7L), ChatKey.of(update));
+    }
+
+    @Test
+    void testUpdateWithoutChatHasNoKey() {
+        assertNull(ChatKey.of(new Update()));
+    }
+
+    private static Message message(Long chatId, Long userId) {
+        Message message = new Message();
+        message.setChat(new Chat(chatId, chatId < 0 ? "supergroup" : "private"));
+        if (userId != null) {
+            message.setFrom(new User(userId, "user", false));
+        }
+        return message;
+    }
+}
@@ -0,0 +1,193 @@
+package com.rainett.javagram.update.executor.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+class ChatOrderedUpdateExecutorTest {
+    private ChatOrderedUpdateExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ChatOrderedUpdateExecutor(new ConcurrentUpdateExecutor(
+                Executors.newFixedThreadPool(8), false, 64, Duration.ofSeconds(10)), 64, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void testKeepsOrderWithinChat() {
+        int chats = 16;
+        int updatesPerChat = 500;
+        Map<Long, List<Integer>> processed = new ConcurrentHashMap<>();
+        Map<Long, AtomicInteger> running = new ConcurrentHashMap<>();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < updatesPerChat; i++) {
+            for (long chatId = 0; chatId < chats; chatId++) {
+                long chat = chatId;
+                int sequence = i;
+                executor.execute(update(chat), () -> {
+                    if (running.computeIfAbsent(chat, key -> new AtomicInteger())
+                            .incrementAndGet() > 1) {
+                        overlapped.set(true);
+                    }
+                    threads.add(Thread.currentThread());
+                    processed.computeIfAbsent(chat, key -> new ArrayList<>()).add(sequence);
+                    running.get(chat).decrementAndGet();
+                });
+            }
+        }
+        executor.close();
+
+        assertFalse(overlapped.get());
+        assertEquals(chats, processed.size());
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < updatesPerChat; i++) {
+            expected.add(i);
+        }
+        processed.values().forEach(sequence -> assertEquals(expected, sequence));
+        assertTrue(threads.size() > 1);
+    }
+
+    @Test
+    void testRunsDifferentChatsInParallel() throws InterruptedException {
+        long busyChat = 1;
+        long otherChat = chatOnOtherStripe(busyChat);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherDone = new CountDownLatch(1);
+        executor.execute(update(busyChat), () -> await(release));
+        executor.execute(update(otherChat), otherDone::countDown);
+        assertTrue(otherDone.await(5, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    void testSerializesUpdatesOfSameChat() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch secondDone = new CountDownLatch(1);
+        executor.execute(update(1), () -> await(release));
+        executor.execute(update(1), secondDone::countDown);
+        assertFalse(secondDone.await(200, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertTrue(secondDone.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testContinuesAfterFailedUpdate() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(update(1), () -> {
+            throw new IllegalStateException("action failed");
+        });
+        executor.execute(update(1), done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testContinuesAfterError() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        executor.execute(update(1), () -> {
+            await(release);
+            throw new AssertionError("action failed");
+        });
+        executor.execute(update(1), done::countDown);
+        release.countDown();
+        executor.execute(update(1), done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testBlocksWhenTooManyUpdatesArePending() throws InterruptedException {
+        executor.close();
+        executor = new ChatOrderedUpdateExecutor(new ConcurrentUpdateExecutor(
+                Executors.newFixedThreadPool(8), false, 64, Duration.ofSeconds(10)), 64, 3);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 3; i++) {
+            executor.execute(update(1), () -> await(release));
+        }
+        assertEquals(0, executor.availablePermits());
+
+        CountDownLatch queued = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            executor.execute(update(2), () -> { });
+            queued.countDown();
+        });
+        producer.start();
+        assertFalse(queued.await(200, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        assertTrue(queued.await(5, TimeUnit.SECONDS));
+        executor.close();
+        assertEquals(3, executor.availablePermits());
+    }
+
+    @Test
+    void testUpdatesWithoutChatBypassOrdering() {
+        AtomicBoolean ran = new AtomicBoolean();
+        ChatOrderedUpdateExecutor direct =
+                new ChatOrderedUpdateExecutor(new DirectUpdateExecutor(), 4, 16);
+        direct.execute(new Update(), () -> ran.set(true));
+        assertTrue(ran.get());
+    }
+
+    @Test
+    void testStripeCountRoundedToPowerOfTwo() {
+        assertEquals(1, new ChatOrderedUpdateExecutor(new DirectUpdateExecutor(), 1, 16)
+                .getStripeCount());
+        assertEquals(1024, new ChatOrderedUpdateExecutor(new DirectUpdateExecutor(), 1000, 16)
+                .getStripeCount());
+        assertThrows(IllegalArgumentException.class,
+                () -> new ChatOrderedUpdateExecutor(new DirectUpdateExecutor(), 0, 16));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ChatOrderedUpdateExecutor(new DirectUpdateExecutor(), 4, 0));
+    }
+
+    private long chatOnOtherStripe(long chatId) {
+        long other = chatId + 1;
+        while (executor.stripeIndex(other) == executor.stripeIndex(chatId)) {
+            other++;
+        }
+        assertNotEquals(executor.stripeIndex(chatId), executor.stripeIndex(other));
+        return other;
+    }
+
+    private static Update update(long chatId) {
+        Message message = new Message();
+        message.setChat(new Chat(chatId, "private"));
+        Update update = new Update();
+        update.setMessage(message);
+        return update;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.rainett.javagram.update.executor.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.rainett.javagram.config.ExecutionConfig;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+class ConcurrentUpdateExecutorTest {
+    private final Update update = new Update();
+
+    @Test
+    void testRunsUpdatesConcurrently() throws InterruptedException {
+        ConcurrentUpdateExecutor executor = executor(Executors.newFixedThreadPool(4), 4);
+        CountDownLatch started = new CountDownLatch(3);
+        CountDownLatch release = new CountDownLatch(1);
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 3; i++) {
+            executor.execute(update, () -> {
+                threads.add(Thread.currentThread());
+                started.countDown();
+                await(release);
+            });
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(3, threads.size());
+        assertFalse(threads.contains(Thread.currentThread()));
+        release.countDown();
+        executor.close();
+        assertEquals(4, executor.availablePermits());
+    }
+
+    @Test
+    void testBlocksCallerAtConcurrencyCap() throws InterruptedException {
+        ConcurrentUpdateExecutor executor = executor(Executors.newFixedThreadPool(4), 2);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(update, () -> await(release));
+        executor.execute(update, () -> await(release));
+        assertEquals(0, executor.availablePermits());
+
+        CountDownLatch submitted = new CountDownLatch(1);
+        Thread caller = new Thread(() -> {
+            executor.execute(update, () -> { });
+            submitted.countDown();
+        });
+        caller.start();
+        assertFalse(submitted.await(200, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertTrue(submitted.await(5, TimeUnit.SECONDS));
+        executor.close();
+    }
+
+    @Test
+    void testReleasesPermitWhenTaskThrows() throws InterruptedException {
+        ConcurrentUpdateExecutor executor = executor(Executors.newSingleThreadExecutor(), 1);
+        executor.execute(update, () -> {
+            throw new IllegalStateException("action failed");
+        });
+        AtomicBoolean ran = new AtomicBoolean();
+        executor.execute(update, () -> ran.set(true));
+        executor.close();
+        assertTrue(ran.get());
+        assertEquals(1, executor.availablePermits());
+    }
+
+    @Test
+    void testCloseWaitsForRunningUpdates() {
+        ConcurrentUpdateExecutor executor = executor(Executors.newFixedThreadPool(2), 2);
+        AtomicBoolean completed = new AtomicBoolean();
+        executor.execute(update, () -> {
+            sleep(100);
+            completed.set(true);
+        });
+        executor.close();
+        assertTrue(completed.get());
+    }
+
+    @Test
+    void testRunsOnCallingThreadAfterClose() {
+        ConcurrentUpdateExecutor executor = executor(Executors.newSingleThreadExecutor(), 1);
+        executor.close();
+        AtomicBoolean ranOnCaller = new AtomicBoolean();
+        Thread caller = Thread.currentThread();
+        executor.execute(update, () -> ranOnCaller.set(Thread.currentThread() == caller));
+        assertTrue(ranOnCaller.get());
+        assertEquals(1, executor.availablePermits());
+    }
+
+    @Test
+    void testFallsBackToPlatformThreadsBeforeJava21() {
+        ExecutionConfig config = new ExecutionConfig();
+        config.setMode(ExecutionConfig.Mode.VIRTUAL_THREADS);
+        config.setFallbackPoolSize(2);
+        ConcurrentUpdateExecutor executor = new ConcurrentUpdateExecutor(config);
+        assertEquals(Runtime.version().feature() >= 21, executor.isVirtualThreads());
+        assertEquals(config.getMaxConcurrency(), executor.availablePermits());
+        executor.close();
+    }
+
+    @Test
+    void testRejectsNonPositiveConcurrency() {
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        assertThrows(IllegalArgumentException.class, () -> executor(executorService, 0));
+        assertTrue(executorService.isShutdown());
+    }
+
+    private static ConcurrentUpdateExecutor executor(ExecutorService executorService,
+                                                     int maxConcurrency) {
+        return new ConcurrentUpdateExecutor(executorService, false, maxConcurrency,
+                Duration.ofSeconds(5));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.rainett.javagram.update.executor.impl;
+
+import com.rainett.javagram.config.ExecutionConfig;
+import com.rainett.javagram.update.executor.UpdateExecutor;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * Time to process a burst of I/O-bound updates with the {@code virtual-threads} execution mode.
+ * <p>
+ * Every operation submits {@code updates} updates whose action blocks for
+ * {@value #IO_MILLIS} ms, as a call to the Bot API would, and waits for all of them to
+ * complete. The concurrency cap equals the burst size, so only the threads limit the
+ * throughput. {@code PLATFORM_POOL} is the fallback used on Java 17-20 with the default
+ * {@code bot.execution.fallback-pool-size}; {@code VIRTUAL_THREADS} requires Java 21 and fails
+ * on older JVMs. Throughput in updates per second is {@code updates * 1000 / score}. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.rainett.javagram.update.executor.impl.UpdateExecutorBenchmark}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+public class UpdateExecutorBenchmark {
+    private static final long IO_MILLIS = 10;
+
+    @Param({"1000", "10000", "50000"})
+    private int updates;
+
+    @Param({"PLATFORM_POOL", "VIRTUAL_THREADS"})
+    private String threads;
+
+    private final Update update = new Update();
+    private UpdateExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ExecutionConfig config = new ExecutionConfig();
+        config.setMode(ExecutionConfig.Mode.VIRTUAL_THREADS);
+        config.setMaxConcurrency(updates);
+        if ("VIRTUAL_THREADS".equals(threads)) {
+            ConcurrentUpdateExecutor virtualExecutor = new ConcurrentUpdateExecutor(config);
+            if (!virtualExecutor.isVirtualThreads()) {
+                virtualExecutor.close();
+                throw new IllegalStateException("Virtual threads require Java 21 or later");
+            }
+            executor = virtualExecutor;
+        } else {
+            executor = new ConcurrentUpdateExecutor(
+                    Executors.newFixedThreadPool(config.getFallbackPoolSize()), false,
+                    updates, Duration.ofSeconds(30));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Benchmark
+    public void processBurst() throws InterruptedException {
+        CountDownLatch completed = new CountDownLatch(updates);
+        for (int i = 0; i < updates; i++) {
+            executor.execute(update, () -> {
+                try {
+                    Thread.sleep(IO_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                completed.countDown();
+            });
+        }
+        completed.await();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UpdateExecutorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
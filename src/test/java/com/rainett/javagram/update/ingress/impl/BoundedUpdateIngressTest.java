@@ -0,0 +1,264 @@
+package com.rainett.javagram.update.ingress.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.rainett.javagram.config.IngressConfig;
+import com.rainett.javagram.config.IngressConfig.OverflowPolicy;
+import com.rainett.javagram.update.ingress.Admission;
+import com.rainett.javagram.update.service.UpdateService;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+class BoundedUpdateIngressTest {
+    private final List<Integer> processed = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch firstStarted = new CountDownLatch(1);
+    private final MutableClock clock = new MutableClock();
+    private BoundedUpdateIngress ingress;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        ingress.close();
+    }
+
+    @Test
+    void testDispatchesInReceivedOrder() {
+        ingress = ingress(config(100), OverflowPolicy.BLOCK, this::record);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            assertEquals(Admission.ACCEPTED, ingress.submit(message(i)));
+            expected.add(i);
+        }
+        ingress.close();
+        assertEquals(expected, processed);
+        assertEquals(50, ingress.getAccepted());
+        assertEquals(0, ingress.getDepth());
+    }
+
+    @Test
+    void testRejectsWhenFull() throws InterruptedException {
+        ingress = ingress(config(2), OverflowPolicy.REJECT, this::blockOnFirst);
+        fillBehindBlockedUpdate(2);
+
+        assertEquals(Admission.REJECTED, ingress.submit(message(3)));
+        assertEquals(1, ingress.getRejected());
+        assertEquals(2, ingress.getDepth());
+
+        release.countDown();
+        ingress.close();
+        assertEquals(List.of(0, 1, 2), processed);
+    }
+
+    @Test
+    void testBlocksWhenFull() throws InterruptedException {
+        ingress = ingress(config(2), OverflowPolicy.BLOCK, this::blockOnFirst);
+        fillBehindBlockedUpdate(2);
+
+        AtomicReference<Admission> admission = new AtomicReference<>();
+        Thread poller = new Thread(() -> admission.set(ingress.submit(message(3))));
+        poller.start();
+        poller.join(200);
+        assertTrue(poller.isAlive());
+
+        release.countDown();
+        poller.join(5000);
+        assertEquals(Admission.ACCEPTED, admission.get());
+        ingress.close();
+        assertEquals(List.of(0, 1, 2, 3), processed);
+    }
+
+    @Test
+    void testDropsLowestPriorityFirst() throws InterruptedException {
+        ingress = ingress(config(2), OverflowPolicy.DROP_LOWEST_PRIORITY, this::blockOnFirst);
+        assertEquals(Admission.ACCEPTED, ingress.submit(message(0)));
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        assertEquals(Admission.ACCEPTED, ingress.submit(editedMessage(1)));
+        assertEquals(Admission.ACCEPTED, ingress.submit(message(2)));
+
+        assertEquals(Admission.ACCEPTED, ingress.submit(message(3)));
+        assertEquals(Admission.DROPPED, ingress.submit(editedMessage(4)));
+        assertEquals(2, ingress.getDropped());
+
+        release.countDown();
+        ingress.close();
+        assertEquals(List.of(0, 2, 3), processed);
+    }
+
+    @Test
+    void testDropsExpiredUpdates() throws InterruptedException {
+        IngressConfig config = config(10);
+        config.setMaxAge(Duration.ofSeconds(30));
+        ingress = ingress(config, OverflowPolicy.BLOCK, this::blockOnFirst);
+        fillBehindBlockedUpdate(2);
+
+        clock.advance(Duration.ofSeconds(31));
+        assertEquals(Admission.ACCEPTED, ingress.submit(message(3)));
+        release.countDown();
+        ingress.close();
+
+        assertEquals(List.of(0, 3), processed);
+        assertEquals(2, ingress.getExpired());
+    }
+
+    @Test
+    void testRejectsAfterClose() {
+        ingress = ingress(config(10), OverflowPolicy.BLOCK, this::record);
+        ingress.close();
+        assertEquals(Admission.REJECTED, ingress.submit(message(1)));
+        assertEquals(1, ingress.getRejected());
+    }
+
+    @Test
+    void testContinuesAfterFailedUpdate() {
+        ingress = ingress(config(10), OverflowPolicy.BLOCK, update -> {
+            record(update);
+            throw new IllegalStateException("action failed");
+        });
+        ingress.submit(message(1));
+        ingress.submit(message(2));
+        ingress.close();
+        assertEquals(List.of(1, 2), processed);
+    }
+
+    @Test
+    void testNotifiesListenersOfDiscardedUpdates() throws InterruptedException {
+        List<Integer> discarded = new CopyOnWriteArrayList<>();
+        IngressConfig config = config(2);
+        config.setMaxAge(Duration.ofSeconds(30));
+        ingress = new BoundedUpdateIngress(config, OverflowPolicy.DROP_LOWEST_PRIORITY,
+                this::blockOnFirst, List.of(update -> discarded.add(update.getUpdateId())),
+                clock);
+        assertEquals(Admission.ACCEPTED, ingress.submit(message(0)));
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        assertEquals(Admission.ACCEPTED, ingress.submit(editedMessage(1)));
+        assertEquals(Admission.ACCEPTED, ingress.submit(message(2)));
+
+        assertEquals(Admission.ACCEPTED, ingress.submit(message(3)));
+        assertEquals(Admission.DROPPED, ingress.submit(editedMessage(4)));
+        assertEquals(List.of(1, 4), discarded);
+
+        clock.advance(Duration.ofSeconds(31));
+        release.countDown();
+        ingress.close();
+        assertEquals(List.of(1, 4, 2, 3), discarded);
+        assertEquals(List.of(0), processed);
+    }
+
+    @Test
+    void testKeepsDispatchingAfterErrors() {
+        ingress = ingress(config(1), OverflowPolicy.BLOCK, update -> {
+            record(update);
+            switch (update.getUpdateId()) {
+                case 0 -> throw new AssertionError("action failed");
+                case 1 -> throw new StackOverflowError("action failed");
+                default -> {
+                }
+            }
+        });
+        for (int i = 0; i < 4; i++) {
+            assertEquals(Admission.ACCEPTED, ingress.submit(message(i)));
+        }
+        ingress.close();
+        assertEquals(List.of(0, 1, 2, 3), processed);
+    }
+
+    /**
+     * Submits update 0, waits until the dispatcher is blocked processing it, and queues the
+     * updates 1 to {@code count}.
+     */
+    private void fillBehindBlockedUpdate(int count) throws InterruptedException {
+        assertEquals(Admission.ACCEPTED, ingress.submit(message(0)));
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= count; i++) {
+            assertEquals(Admission.ACCEPTED, ingress.submit(message(i)));
+        }
+        assertFalse(processed.size() > 1);
+    }
+
+    private BoundedUpdateIngress ingress(IngressConfig config, OverflowPolicy policy,
+                                         UpdateService updateService) {
+        return new BoundedUpdateIngress(config, policy, updateService, List.of(), clock);
+    }
+
+    private void record(Update update) {
+        processed.add(update.getUpdateId());
+    }
+
+    private void blockOnFirst(Update update) {
+        record(update);
+        if (update.getUpdateId() == 0) {
+            firstStarted.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static IngressConfig config(int capacity) {
+        IngressConfig config = new IngressConfig();
+        config.setCapacity(capacity);
+        config.setShutdownTimeout(Duration.ofSeconds(5));
+        return config;
+    }
+
+    private static Update message(int updateId) {
+        Update update = new Update();
+        update.setUpdateId(updateId);
+        update.setMessage(new Message());
+        return update;
+    }
+
+    private static Update editedMessage(int updateId) {
+        Update update = new Update();
+        update.setUpdateId(updateId);
+        update.setEditedMessage(new Message());
+        return update;
+    }
+
+    private static final class MutableClock extends Clock {
+        private final AtomicLong millis = new AtomicLong(1_700_000_000_000L);
+
+        void advance(Duration duration) {
+            millis.addAndGet(duration.toMillis());
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis.get());
+        }
+
+        @Override
+        public long millis() {
+            return millis.get();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.rainett.javagram.update.ingress.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.rainett.javagram.update.ingress.Admission;
+import com.rainett.javagram.update.ingress.Submission;
+import com.rainett.javagram.update.ingress.UpdateIngress;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+class DeduplicatingUpdateIngressTest {
+    private final List<Integer> submitted = new ArrayList<>();
+    private final List<List<Integer>> batches = new ArrayList<>();
+    private Admission admission = Admission.ACCEPTED;
+
+    private final UpdateIngress recording = new UpdateIngress() {
+        @Override
+        public Admission submit(Update update) {
+            submitted.add(update.getUpdateId());
+            return admission;
+        }
+
+        @Override
+        public List<Admission> submitAll(List<Update> updates) {
+            batches.add(updates.stream().map(Update::getUpdateId).toList());
+            return updates.stream().map(update -> admission).toList();
+        }
+
+        @Override
+        public Submission submitWebhookUpdate(Update update) {
+            submitted.add(update.getUpdateId());
+            return new Submission(admission, new SendMessage("1", "pong"));
+        }
+    };
+
+    private final DeduplicatingUpdateIngress ingress =
+            new DeduplicatingUpdateIngress(recording, 1024);
+
+    @Test
+    void testSkipsRedeliveredUpdates() {
+        assertEquals(Admission.ACCEPTED, ingress.submit(update(1)));
+        assertEquals(Admission.ACCEPTED, ingress.submit(update(2)));
+        assertEquals(Admission.DUPLICATE, ingress.submit(update(1)));
+
+        assertEquals(List.of(1, 2), submitted);
+        assertEquals(1, ingress.getDuplicates());
+    }
+
+    @Test
+    void testSkipsRedeliveredWebhookUpdates() {
+        assertEquals(Admission.ACCEPTED, ingress.submitWebhookUpdate(update(7)).admission());
+
+        Submission duplicate = ingress.submitWebhookUpdate(update(7));
+
+        assertEquals(Admission.DUPLICATE, duplicate.admission());
+        assertNull(duplicate.reply());
+        assertEquals(List.of(7), submitted);
+    }
+
+    @Test
+    void testFiltersBatchesInOrder() {
+        ingress.submit(update(2));
+
+        List<Admission> admissions = ingress.submitAll(
+                List.of(update(1), update(2), update(3), update(3), update(4)));
+
+        assertEquals(List.of(Admission.ACCEPTED, Admission.DUPLICATE, Admission.ACCEPTED,
+                Admission.DUPLICATE, Admission.ACCEPTED), admissions);
+        assertEquals(List.of(List.of(1, 3, 4)), batches);
+        assertEquals(List.of(Admission.DUPLICATE, Admission.DUPLICATE),
+                ingress.submitAll(List.of(update(1), update(4))));
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    void testForgetsRejectedUpdates() {
+        admission = Admission.REJECTED;
+        assertEquals(Admission.REJECTED, ingress.submit(update(5)));
+        assertEquals(List.of(Admission.REJECTED), ingress.submitAll(List.of(update(6))));
+
+        admission = Admission.ACCEPTED;
+        assertEquals(Admission.ACCEPTED, ingress.submit(update(5)));
+        assertEquals(Admission.ACCEPTED, ingress.submit(update(6)));
+        assertEquals(0, ingress.getDuplicates());
+    }
+
+    @Test
+    void testPassesUpdatesWithoutId() {
+        ingress.submit(new Update());
+        ingress.submit(new Update());
+
+        assertEquals(2, submitted.size());
+        assertSame(recording, ingress.getDelegate());
+    }
+
+    private static Update update(int updateId) {
+        Update update = new Update();
+        update.setUpdateId(updateId);
+        return update;
+    }
+}
@@ -0,0 +1,124 @@
+package com.rainett.javagram.update.ingress.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class UpdateIdWindowTest {
+
+    @Test
+    void testRecognizesRepeatedIds() {
+        UpdateIdWindow window = new UpdateIdWindow(64);
+        assertTrue(window.add(100));
+        assertTrue(window.add(101));
+        assertFalse(window.add(100));
+        assertFalse(window.add(101));
+        assertTrue(window.add(102));
+    }
+
+    @Test
+    void testAcceptsOutOfOrderIdsInsideTheWindow() {
+        UpdateIdWindow window = new UpdateIdWindow(64);
+        assertTrue(window.add(110));
+        assertTrue(window.add(105));
+        assertTrue(window.add(120));
+        assertTrue(window.add(107));
+        assertFalse(window.add(105));
+        assertFalse(window.add(110));
+    }
+
+    @Test
+    void testSlidingClearsPassedIds() {
+        UpdateIdWindow window = new UpdateIdWindow(64);
+        for (int updateId = 0; updateId < 64; updateId++) {
+            assertTrue(window.add(updateId));
+        }
+        assertTrue(window.add(64 + 10));
+        for (int updateId = 64; updateId < 74; updateId++) {
+            assertTrue(window.add(updateId), "bit of " + (updateId - 64) + " was not cleared");
+        }
+        assertFalse(window.add(20));
+    }
+
+    @Test
+    void testJumpsClearPartialAndWholeWords() {
+        UpdateIdWindow window = new UpdateIdWindow(256);
+        for (int updateId = 0; updateId < 256; updateId++) {
+            window.add(updateId);
+        }
+        assertTrue(window.add(256 + 200));
+        for (int updateId = 256; updateId < 456; updateId++) {
+            assertTrue(window.add(updateId), "bit of " + (updateId - 256) + " was not cleared");
+        }
+        for (int updateId = 201; updateId < 256; updateId++) {
+            assertFalse(window.add(updateId), "bit of " + updateId + " was cleared");
+        }
+    }
+
+    @Test
+    void testMatchesASetOfTheIdsInsideTheWindow() {
+        UpdateIdWindow window = new UpdateIdWindow(256);
+        Set<Integer> recorded = new HashSet<>();
+        Random random = new Random(11);
+        int highest = 1_000;
+        window.add(highest);
+        recorded.add(highest);
+        for (int i = 0; i < 20_000; i++) {
+            int updateId = random.nextInt(4) == 0
+                    ? highest + random.nextInt(300)
+                    : highest - random.nextInt(256);
+            if (updateId > highest) {
+                highest = updateId;
+                int lowest = highest - 255;
+                recorded.removeIf(recordedId -> recordedId < lowest);
+            }
+            assertEquals(recorded.add(updateId), window.add(updateId), "id " + updateId);
+        }
+    }
+
+    @Test
+    void testRestartsFarFromTheWindow() {
+        UpdateIdWindow window = new UpdateIdWindow(64);
+        assertTrue(window.add(2_000_000));
+        assertTrue(window.add(5), "ids restarted from a random value");
+        assertTrue(window.add(6));
+        assertFalse(window.add(5));
+        assertTrue(window.add(Integer.MAX_VALUE));
+        assertTrue(window.add(Integer.MIN_VALUE));
+    }
+
+    @Test
+    void testPassesIdsBehindTheWindowThroughWithoutClearingIt() {
+        UpdateIdWindow window = new UpdateIdWindow(64);
+        assertTrue(window.add(1_000));
+        assertTrue(window.add(1_001));
+        assertTrue(window.add(900), "late delivery behind the window");
+        assertTrue(window.add(900), "ids behind the window cannot be checked");
+        assertFalse(window.add(1_000));
+        assertFalse(window.add(1_001));
+        assertTrue(window.add(1_002));
+    }
+
+    @Test
+    void testRemoveForgetsId() {
+        UpdateIdWindow window = new UpdateIdWindow(64);
+        window.add(1);
+        window.add(2);
+        window.remove(1);
+        assertTrue(window.add(1));
+        assertFalse(window.add(2));
+    }
+
+    @Test
+    void testRoundsSizeToWholeWords() {
+        assertEquals(64, new UpdateIdWindow(1).size());
+        assertEquals(128, new UpdateIdWindow(65).size());
+        assertThrows(IllegalArgumentException.class, () -> new UpdateIdWindow(0));
+    }
+}
@@ -0,0 +1,137 @@
+package com.rainett.javagram.update.service.impl;
+
+import com.rainett.javagram.action.Action;
+import com.rainett.javagram.action.annotations.Text;
+import com.rainett.javagram.action.container.ActionContainer;
+import com.rainett.javagram.action.container.RouteResult;
+import com.rainett.javagram.config.ExecutionConfig;
+import com.rainett.javagram.update.executor.UpdateExecutor;
+import com.rainett.javagram.update.executor.impl.ChatOrderedUpdateExecutor;
+import com.rainett.javagram.update.executor.impl.ConcurrentUpdateExecutor;
+import com.rainett.javagram.update.executor.impl.DirectUpdateExecutor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * Time to process a batch of {@value #BATCH_SIZE} CPU-bound updates received by long polling.
+ * <p>
+ * {@code SEQUENTIAL} passes the updates one by one to {@link UpdateServiceImpl#handleUpdate}
+ * with the {@code direct} execution mode, as the bot did before batches were delivered whole.
+ * {@code BATCHED} passes the batch to {@link UpdateServiceImpl#handleUpdates} with the
+ * chat-ordered {@code virtual-threads} mode, whose fallback pool has one thread per core.
+ * The updates are spread over {@code chats} chats, and every action burns {@code tokens} of
+ * {@link Blackhole#consumeCPU(long)}. With enough chats, {@code BATCHED} should approach the
+ * number of cores times the throughput of {@code SEQUENTIAL}. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.rainett.javagram.update.service.impl.BatchDispatchBenchmark}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BatchDispatchBenchmark {
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"SEQUENTIAL", "BATCHED"})
+    private String dispatch;
+
+    @Param({"1", "10", "100"})
+    private int chats;
+
+    @Param({"10000"})
+    private long tokens;
+
+    private final List<Update> batch = new ArrayList<>(BATCH_SIZE);
+    private volatile CountDownLatch processed;
+    private UpdateExecutor executor;
+    private UpdateServiceImpl updateService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Message message = new Message();
+            message.setChat(new Chat((long) i % chats, "private"));
+            Update update = new Update();
+            update.setUpdateId(i);
+            update.setMessage(message);
+            batch.add(update);
+        }
+        ExecutionConfig config = new ExecutionConfig();
+        if ("BATCHED".equals(dispatch)) {
+            config.setMode(ExecutionConfig.Mode.VIRTUAL_THREADS);
+            config.setFallbackPoolSize(Runtime.getRuntime().availableProcessors());
+            executor = new ChatOrderedUpdateExecutor(new ConcurrentUpdateExecutor(config),
+                    config.getStripes(), config.getMaxConcurrency());
+        } else {
+            executor = new DirectUpdateExecutor();
+        }
+        Action action = update -> {
+            Blackhole.consumeCPU(tokens);
+            processed.countDown();
+        };
+        RouteResult route = RouteResult.matched(Text.class, action);
+        ActionContainer actionContainer = new ActionContainer() {
+            @Override
+            public Action findByUpdate(Update update) {
+                return action;
+            }
+
+            @Override
+            public RouteResult route(Update update) {
+                return route;
+            }
+        };
+        // The benchmarked action does not reply, so no reply sender is needed.
+        updateService = new UpdateServiceImpl(actionContainer, executor, config, null, List.of(),
+                List.of());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        executor.close();
+    }
+
+    @Benchmark
+    public void processBatch() throws InterruptedException {
+        processed = new CountDownLatch(BATCH_SIZE);
+        if ("BATCHED".equals(dispatch)) {
+            updateService.handleUpdates(batch);
+        } else {
+            for (Update update : batch) {
+                updateService.handleUpdate(update);
+            }
+        }
+        processed.await();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BatchDispatchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
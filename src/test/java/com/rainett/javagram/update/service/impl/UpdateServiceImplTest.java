@@ -1,7 +1,14 @@
 package com.rainett.javagram.update.service.impl;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -9,15 +16,37 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.rainett.javagram.action.Action;
+import com.rainett.javagram.action.AsyncAction;
+import com.rainett.javagram.action.ReplyingAction;
+import com.rainett.javagram.action.annotations.Command;
+import com.rainett.javagram.action.annotations.Text;
 import com.rainett.javagram.action.container.ActionContainer;
-import com.rainett.javagram.exceptions.ActionNotFoundException;
-import com.rainett.javagram.exceptions.UnknownUpdateTypeException;
+import com.rainett.javagram.action.container.RouteResult;
+import com.rainett.javagram.config.ExecutionConfig;
+import com.rainett.javagram.outbound.BotApiTransport;
+import com.rainett.javagram.outbound.OutboundScheduler;
+import com.rainett.javagram.outbound.ReplySender;
+import com.rainett.javagram.outbound.impl.ReplySenderImpl;
+import com.rainett.javagram.update.executor.UpdateExecutor;
+import com.rainett.javagram.update.executor.impl.DirectUpdateExecutor;
+import com.rainett.javagram.update.service.UpdateCompletionListener;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
 import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
 class UpdateServiceImplTest {
     @Mock
@@ -29,73 +58,422 @@ class UpdateServiceImplTest {
     @Mock
     private DefaultAction defaultAction;
 
-    @InjectMocks
+    @Mock
+    private ObjectProvider<AbsSender> senderProvider;
+
+    @Mock
+    private AbsSender sender;
+
+    @Mock
+    private ObjectProvider<BotApiTransport> transportProvider;
+
+    @Mock
+    private ObjectProvider<OutboundScheduler> schedulerProvider;
+
+    private final UpdateExecutor updateExecutor = new DirectUpdateExecutor();
+
+    private final ExecutionConfig executionConfig = new ExecutionConfig();
+
+    private ReplySender replySender;
+
     private UpdateServiceImpl updateService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(senderProvider.getIfAvailable()).thenReturn(sender);
+        replySender = new ReplySenderImpl(senderProvider, transportProvider, schedulerProvider);
+        updateService = service(updateExecutor, List.of(), List.of());
     }
 
     @Test
     void handleUpdate_Success() {
         Update update = mock(Update.class);
-        when(actionContainer.findByUpdate(update)).thenReturn(action);
+        when(actionContainer.route(update)).thenReturn(RouteResult.matched(Text.class, action));
         doNothing().when(action).run(update);
 
         updateService.handleUpdate(update);
 
-        verify(actionContainer, times(1)).findByUpdate(update);
+        verify(actionContainer, times(1)).route(update);
         verify(action, times(1)).run(update);
     }
 
     @Test
     void handleUpdate_ActionNotFound() {
         Update update = mock(Update.class);
-        when(actionContainer.findByUpdate(update)).thenThrow(
-                new ActionNotFoundException("Action not found"));
+        when(actionContainer.route(update))
+                .thenReturn(RouteResult.noMatchingAction(Text.class));
 
         updateService.handleUpdate(update);
 
-        verify(actionContainer, times(1)).findByUpdate(update);
+        verify(actionContainer, times(1)).route(update);
         verify(action, never()).run(any());
     }
 
     @Test
     void handleUpdate_UnknownUpdateType() {
         Update update = mock(Update.class);
-        when(actionContainer.findByUpdate(update)).thenThrow(
-                new UnknownUpdateTypeException("Unknown update type"));
+        when(actionContainer.route(update)).thenReturn(RouteResult.unknownUpdateType());
 
-        updateService = new UpdateServiceImpl(actionContainer, null);
+        updateService = service(updateExecutor, List.of(), List.of());
         updateService.handleUpdate(update);
 
-        verify(actionContainer, times(1)).findByUpdate(update);
+        verify(actionContainer, times(1)).route(update);
         verify(action, never()).run(any());
     }
 
     @Test
     void handleUpdate_DefaultAction() {
         Update update = mock(Update.class);
-        when(actionContainer.findByUpdate(update)).thenThrow(
-                new UnknownUpdateTypeException("Unknown update type"));
-        updateService = new UpdateServiceImpl(actionContainer, defaultAction);
+        when(actionContainer.route(update)).thenReturn(RouteResult.unknownUpdateType());
+        updateService = service(updateExecutor, List.of(defaultAction), List.of());
 
         updateService.handleUpdate(update);
 
-        verify(actionContainer, times(1)).findByUpdate(update);
+        verify(actionContainer, times(1)).route(update);
         verify(defaultAction, times(1)).run(any());
     }
 
     @Test
     void handleUpdate_GenericException() {
         Update update = mock(Update.class);
-        when(actionContainer.findByUpdate(update)).thenThrow(
+        when(actionContainer.route(update)).thenThrow(
                 new RuntimeException("Unexpected error"));
 
         updateService.handleUpdate(update);
 
-        verify(actionContainer, times(1)).findByUpdate(update);
+        verify(actionContainer, times(1)).route(update);
         verify(action, never()).run(any());
     }
+
+    @Test
+    void handleUpdate_TypedDefaultActionTakesPrecedence() {
+        Update update = mock(Update.class);
+        DefaultAction commandDefault = mock(DefaultAction.class);
+        doReturn(Command.class).when(commandDefault).getAnnotationType();
+        when(actionContainer.route(update))
+                .thenReturn(RouteResult.noMatchingAction(Command.class));
+        updateService = service(updateExecutor, List.of(defaultAction, commandDefault),
+                List.of());
+
+        updateService.handleUpdate(update);
+
+        verify(commandDefault, times(1)).run(update);
+        verify(defaultAction, never()).run(any());
+    }
+
+    @Test
+    void handleUpdate_GlobalDefaultActionForOtherTypes() {
+        Update update = mock(Update.class);
+        DefaultAction commandDefault = mock(DefaultAction.class);
+        doReturn(Command.class).when(commandDefault).getAnnotationType();
+        when(actionContainer.route(update))
+                .thenReturn(RouteResult.noMatchingAction(Text.class));
+        updateService = service(updateExecutor, List.of(defaultAction, commandDefault),
+                List.of());
+
+        updateService.handleUpdate(update);
+
+        verify(defaultAction, times(1)).run(update);
+        verify(commandDefault, never()).run(any());
+    }
+
+    @Test
+    void constructor_DuplicateDefaultActionsFail() {
+        DefaultAction otherDefault = mock(DefaultAction.class);
+        List<DefaultAction> defaultActions = List.of(defaultAction, otherDefault);
+        assertThrows(IllegalStateException.class,
+                () -> service(updateExecutor, defaultActions, List.of()));
+    }
+
+    @Test
+    void handleUpdate_ActionFailureIsCounted() {
+        Update update = mock(Update.class);
+        when(actionContainer.route(update)).thenReturn(RouteResult.matched(Text.class, action));
+        doThrow(new IllegalStateException("action failed")).when(action).run(update);
+
+        updateService.handleUpdate(update);
+
+        assertEquals(0, updateService.getCompleted());
+        assertEquals(1, updateService.getFailed());
+    }
+
+    @Test
+    void handleUpdate_AsyncActionIsNotAwaited() {
+        Update update = mock(Update.class);
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        AsyncAction asyncAction = ignored -> result;
+        when(actionContainer.route(update))
+                .thenReturn(RouteResult.matched(Text.class, asyncAction));
+
+        updateService.handleUpdate(update);
+        assertEquals(1, updateService.getPending());
+        assertEquals(0, updateService.getCompleted());
+
+        result.complete(null);
+        assertEquals(0, updateService.getPending());
+        assertEquals(1, updateService.getCompleted());
+    }
+
+    @Test
+    void handleUpdate_AsyncActionFailureIsCounted() {
+        Update update = mock(Update.class);
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        AsyncAction asyncAction = ignored -> result;
+        when(actionContainer.route(update))
+                .thenReturn(RouteResult.matched(Text.class, asyncAction));
+
+        updateService.handleUpdate(update);
+        result.completeExceptionally(new IllegalStateException("remote call failed"));
+
+        assertEquals(0, updateService.getPending());
+        assertEquals(1, updateService.getFailed());
+    }
+
+    @Test
+    void handleUpdate_AsyncActionTimeoutIsCounted() throws InterruptedException {
+        Update update = mock(Update.class);
+        executionConfig.setAsyncTimeout(Duration.ofMillis(50));
+        updateService = service(updateExecutor, List.of(), List.of());
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        AsyncAction asyncAction = ignored -> result;
+        when(actionContainer.route(update))
+                .thenReturn(RouteResult.matched(Text.class, asyncAction));
+
+        updateService.handleUpdate(update);
+        for (int i = 0; i < 100 && updateService.getTimedOut() == 0; i++) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(1, updateService.getTimedOut());
+        assertEquals(0, updateService.getPending());
+        assertFalse(result.isDone());
+    }
+
+    @Test
+    void handleWebhookUpdate_ReturnsReply() throws Exception {
+        Update update = mock(Update.class);
+        SendMessage reply = new SendMessage("1", "pong");
+        ReplyingAction replyingAction = replying(reply);
+        when(actionContainer.route(update))
+                .thenReturn(RouteResult.matched(Text.class, replyingAction));
+
+        assertSame(reply, updateService.handleWebhookUpdate(update));
+
+        verify(sender, never()).executeAsync(any(SendMessage.class));
+        assertEquals(1, updateService.getCompleted());
+    }
+
+    @Test
+    void handleWebhookUpdate_NoReplyForPlainAction() {
+        Update update = mock(Update.class);
+        when(actionContainer.route(update)).thenReturn(RouteResult.matched(Text.class, action));
+
+        assertNull(updateService.handleWebhookUpdate(update));
+
+        verify(action, times(1)).run(update);
+    }
+
+    @Test
+    void handleUpdate_SendsReplyWithBot() throws Exception {
+        Update update = mock(Update.class);
+        SendMessage reply = new SendMessage("1", "pong");
+        ReplyingAction replyingAction = replying(reply);
+        when(actionContainer.route(update))
+                .thenReturn(RouteResult.matched(Text.class, replyingAction));
+        CompletableFuture<Message> sent = new CompletableFuture<>();
+        doReturn(sent).when(sender).executeAsync(reply);
+
+        updateService.handleUpdate(update);
+        verify(sender, times(1)).executeAsync(reply);
+        assertEquals(1, updateService.getPending());
+
+        sent.complete(new Message());
+        assertEquals(1, updateService.getCompleted());
+    }
+
+    @Test
+    void handleUpdate_SendsReplyThroughScheduler() throws Exception {
+        Update update = mock(Update.class);
+        SendMessage reply = new SendMessage("1", "pong");
+        ReplyingAction replyingAction = replying(reply);
+        when(actionContainer.route(update))
+                .thenReturn(RouteResult.matched(Text.class, replyingAction));
+        OutboundScheduler scheduler = mock(OutboundScheduler.class);
+        CompletableFuture<Message> sent = new CompletableFuture<>();
+        doReturn(sent).when(scheduler).executeAsync(reply);
+        when(schedulerProvider.getIfAvailable()).thenReturn(scheduler);
+
+        updateService.handleUpdate(update);
+        verify(scheduler, times(1)).executeAsync(reply);
+        verify(sender, never()).executeAsync(any(SendMessage.class));
+        assertEquals(1, updateService.getPending());
+
+        sent.complete(new Message());
+        assertEquals(1, updateService.getCompleted());
+    }
+
+    @Test
+    void handleUpdate_SendsReplyThroughTransport() throws Exception {
+        Update update = mock(Update.class);
+        SendMessage reply = new SendMessage("1", "pong");
+        ReplyingAction replyingAction = replying(reply);
+        when(actionContainer.route(update))
+                .thenReturn(RouteResult.matched(Text.class, replyingAction));
+        BotApiTransport transport = mock(BotApiTransport.class);
+        doReturn(CompletableFuture.completedFuture(new Message()))
+                .when(transport).executeAsync(reply);
+        when(transportProvider.getIfAvailable()).thenReturn(transport);
+
+        updateService.handleUpdate(update);
+
+        verify(transport, times(1)).executeAsync(reply);
+        verify(sender, never()).executeAsync(any(SendMessage.class));
+        assertEquals(1, updateService.getCompleted());
+    }
+
+    @Test
+    void run_SendsReplyWithReplySender() throws Exception {
+        Update update = mock(Update.class);
+        SendMessage reply = new SendMessage("1", "pong");
+        ReplyingAction replyingAction = replying(reply);
+        doReturn(CompletableFuture.completedFuture(new Message()))
+                .when(sender).executeAsync(reply);
+
+        replyingAction.run(update);
+
+        verify(sender, times(1)).executeAsync(reply);
+        verify(actionContainer, never()).route(any());
+    }
+
+    @Test
+    void run_ThrowsWhenReplyFails() throws Exception {
+        Update update = mock(Update.class);
+        SendMessage reply = new SendMessage("1", "pong");
+        ReplyingAction replyingAction = replying(reply);
+        TelegramApiException failure = new TelegramApiException("Bad Request");
+        doReturn(CompletableFuture.failedFuture(failure)).when(sender).executeAsync(reply);
+
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> replyingAction.run(update));
+        assertSame(failure, exception.getCause());
+    }
+
+    @Test
+    void handleUpdates_GroupsByChatInBatchOrder() {
+        List<Runnable> tasks = new ArrayList<>();
+        List<Integer> processed = new ArrayList<>();
+        Action recording = update -> processed.add(update.getUpdateId());
+        Update first = chatUpdate(1, 10L);
+        Update second = chatUpdate(2, 20L);
+        Update third = chatUpdate(3, 10L);
+        Update unkeyed = mock(Update.class);
+        when(unkeyed.getUpdateId()).thenReturn(4);
+        List<Update> batch = List.of(first, second, third, unkeyed);
+        for (Update update : batch) {
+            when(actionContainer.route(update))
+                    .thenReturn(RouteResult.matched(Text.class, recording));
+        }
+        updateService = service((update, task) -> tasks.add(task), List.of(), List.of());
+
+        updateService.handleUpdates(batch);
+
+        assertEquals(3, tasks.size());
+        for (Update update : batch) {
+            verify(actionContainer, times(1)).route(update);
+        }
+        tasks.forEach(Runnable::run);
+        assertEquals(List.of(1, 3, 2, 4), processed);
+        assertEquals(4, updateService.getCompleted());
+    }
+
+    @Test
+    void handleUpdates_FailuresDoNotStopTheChat() {
+        Update unroutable = chatUpdate(1, 10L);
+        Update failing = chatUpdate(2, 10L);
+        Update last = chatUpdate(3, 10L);
+        Action failingAction = update -> {
+            throw new IllegalStateException("Simulated failure");
+        };
+        when(actionContainer.route(unroutable)).thenThrow(new IllegalStateException("No index"));
+        when(actionContainer.route(failing))
+                .thenReturn(RouteResult.matched(Text.class, failingAction));
+        when(actionContainer.route(last)).thenReturn(RouteResult.matched(Text.class, action));
+
+        updateService.handleUpdates(List.of(unroutable, failing, last));
+
+        verify(action, times(1)).run(last);
+        assertEquals(2, updateService.getFailed());
+        assertEquals(1, updateService.getCompleted());
+    }
+
+    @Test
+    void handleUpdates_NotifiesCompletionListeners() {
+        List<Integer> completed = new ArrayList<>();
+        updateService = service(updateExecutor, List.of(),
+                List.of(update -> completed.add(update.getUpdateId())));
+        Update unroutable = chatUpdate(1, 10L);
+        Update failing = chatUpdate(2, 10L);
+        Update async = chatUpdate(3, 20L);
+        Update plain = chatUpdate(4, 20L);
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        AsyncAction asyncAction = ignored -> result;
+        when(actionContainer.route(unroutable)).thenThrow(new IllegalStateException("No index"));
+        when(actionContainer.route(failing)).thenReturn(RouteResult.matched(Text.class,
+                update -> {
+                    throw new IllegalStateException("Simulated failure");
+                }));
+        when(actionContainer.route(async))
+                .thenReturn(RouteResult.matched(Text.class, asyncAction));
+        when(actionContainer.route(plain)).thenReturn(RouteResult.matched(Text.class, action));
+
+        updateService.handleUpdates(List.of(unroutable, failing, async, plain));
+        assertEquals(List.of(1, 2, 4), completed);
+
+        result.complete(null);
+        assertEquals(List.of(1, 2, 4, 3), completed);
+    }
+
+    @Test
+    void handleUpdate_ListenerFailureIsIgnored() {
+        Update update = mock(Update.class);
+        when(actionContainer.route(update)).thenReturn(RouteResult.matched(Text.class, action));
+        updateService = service(updateExecutor, List.of(), List.of(ignored -> {
+            throw new IllegalStateException("listener failed");
+        }));
+
+        updateService.handleUpdate(update);
+
+        verify(action, times(1)).run(update);
+        assertEquals(1, updateService.getCompleted());
+    }
+
+    private static Update chatUpdate(int updateId, long chatId) {
+        Message message = new Message();
+        message.setChat(new Chat(chatId, "private"));
+        Update update = new Update();
+        update.setUpdateId(updateId);
+        update.setMessage(message);
+        return update;
+    }
+
+    private UpdateServiceImpl service(UpdateExecutor executor, List<DefaultAction> defaultActions,
+                                      List<UpdateCompletionListener> completionListeners) {
+        return new UpdateServiceImpl(actionContainer, executor, executionConfig, replySender,
+                defaultActions, completionListeners);
+    }
+
+    private ReplyingAction replying(SendMessage reply) {
+        return new ReplyingAction() {
+            @Override
+            public BotApiMethod<?> reply(Update update) {
+                return reply;
+            }
+
+            @Override
+            public void run(Update update) {
+                replySender.run(this, update);
+            }
+        };
+    }
 }